@@ -0,0 +1,110 @@
+package com.faforever.client.chat;
+
+import com.faforever.client.audio.AudioService;
+import com.faforever.client.fx.WebViewConfigurer;
+import com.faforever.client.i18n.I18n;
+import com.faforever.client.notification.NotificationService;
+import com.faforever.client.player.Player;
+import com.faforever.client.player.PlayerBuilder;
+import com.faforever.client.player.PlayerService;
+import com.faforever.client.preferences.PreferencesService;
+import com.faforever.client.reporting.ReportingService;
+import com.faforever.client.theme.ThemeTemplate;
+import com.faforever.client.theme.UiService;
+import com.faforever.client.uploader.ImageUploadService;
+import com.faforever.client.user.UserService;
+import com.faforever.client.util.TimeService;
+import com.google.common.eventbus.EventBus;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TextInputControl;
+import javafx.scene.web.WebView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static com.faforever.client.theme.UiService.CHAT_SECTION_EXTENDED;
+import static com.faforever.client.theme.UiService.CHAT_TEXT_COMPACT;
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures rendering of a chat message into its HTML template, which happens for every received chat message. This
+ * includes escaping the message and linking its URLs, channel names and mentions.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ChatMessageRenderingBenchmark {
+
+  private AbstractChatTabController chatTabController;
+  private ChatMessage chatMessage;
+  private ThemeTemplate textTemplate;
+  private ThemeTemplate sectionTemplate;
+
+  @Setup
+  public void setUp() throws IOException {
+    PlayerService playerService = mock(PlayerService.class);
+    Player player = PlayerBuilder.create("Someone").defaultValues().clan("ABC").get();
+    when(playerService.getPlayerForUsername(anyString())).thenReturn(Optional.of(player));
+    TimeService timeService = mock(TimeService.class);
+    when(timeService.asShortTime(any())).thenReturn("13:37");
+    I18n i18n = mock(I18n.class);
+    when(i18n.get("chat.clanTagFormat", "ABC")).thenReturn("[ABC]");
+    CountryFlagService countryFlagService = mock(CountryFlagService.class);
+    when(countryFlagService.getCountryFlagUrl(any())).thenReturn(Optional.empty());
+
+    chatTabController = new AbstractChatTabController(mock(WebViewConfigurer.class), mock(UserService.class),
+        mock(ChatService.class), mock(PreferencesService.class), playerService, mock(AudioService.class), timeService,
+        i18n, mock(ImageUploadService.class), mock(NotificationService.class), mock(ReportingService.class),
+        mock(UiService.class), mock(EventBus.class), countryFlagService, mock(ChatUserService.class)) {
+      @Override
+      public Tab getRoot() {
+        return null;
+      }
+
+      @Override
+      protected TextInputControl messageTextField() {
+        return null;
+      }
+
+      @Override
+      protected WebView getMessagesWebView() {
+        return null;
+      }
+    };
+    // Usually initialized together with the web view
+    Field mentionPatternField = ReflectionUtils.findField(AbstractChatTabController.class, "mentionPattern");
+    ReflectionUtils.makeAccessible(mentionPatternField);
+    ReflectionUtils.setField(mentionPatternField, chatTabController, Pattern.compile("\\b(Me)\\b", CASE_INSENSITIVE));
+
+    chatMessage = new ChatMessage("#aeolus", Instant.now(), "Someone",
+        "Anyone up for a 4v4 on Setons? Join #newbie or check https://www.faforever.com/ for the rules, Me");
+    textTemplate = ThemeTemplate.load(getClass().getResource("/" + CHAT_TEXT_COMPACT));
+    sectionTemplate = ThemeTemplate.load(getClass().getResource("/" + CHAT_SECTION_EXTENDED));
+  }
+
+  @Benchmark
+  public String renderText() {
+    return chatTabController.renderHtml(chatMessage, textTemplate, null);
+  }
+
+  @Benchmark
+  public String renderSection() {
+    return chatTabController.renderHtml(chatMessage, sectionTemplate, 1);
+  }
+}
@@ -0,0 +1,66 @@
+package com.faforever.client.game;
+
+import com.faforever.client.config.ClientProperties;
+import com.faforever.client.discord.DiscordRichPresenceService;
+import com.faforever.client.fa.ForgedAllianceService;
+import com.faforever.client.fa.relay.ice.IceAdapter;
+import com.faforever.client.fx.PlatformService;
+import com.faforever.client.i18n.I18n;
+import com.faforever.client.map.MapService;
+import com.faforever.client.mod.ModService;
+import com.faforever.client.notification.NotificationService;
+import com.faforever.client.patch.GameUpdater;
+import com.faforever.client.player.PlayerService;
+import com.faforever.client.preferences.PreferencesBuilder;
+import com.faforever.client.preferences.PreferencesService;
+import com.faforever.client.remote.FafService;
+import com.faforever.client.remote.ReconnectTimerService;
+import com.faforever.client.replay.ReplayServer;
+import com.faforever.client.reporting.ReportingService;
+import com.google.common.eventbus.EventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures parsing of rating restrictions from game titles, which happens for every game update.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GameServiceBenchmark {
+
+  @Param({"1500", "1.5k", "1k", "invalid"})
+  public String rating;
+
+  private GameService gameService;
+
+  @Setup
+  public void setUp() {
+    PreferencesService preferencesService = mock(PreferencesService.class);
+    when(preferencesService.getPreferences()).thenReturn(PreferencesBuilder.create().defaultValues().get());
+
+    gameService = new GameService(new ClientProperties(), mock(FafService.class), mock(ForgedAllianceService.class),
+        mock(MapService.class), preferencesService, mock(GameUpdater.class),
+        mock(NotificationService.class), mock(I18n.class), mock(ExecutorService.class), mock(PlayerService.class),
+        mock(ReportingService.class), mock(EventBus.class), mock(IceAdapter.class), mock(ModService.class),
+        mock(PlatformService.class), mock(DiscordRichPresenceService.class), mock(ReplayServer.class),
+        mock(ReconnectTimerService.class));
+  }
+
+  @Benchmark
+  public int parseRating() {
+    return gameService.parseRating(rating);
+  }
+}
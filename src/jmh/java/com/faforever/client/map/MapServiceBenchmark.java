@@ -0,0 +1,83 @@
+package com.faforever.client.map;
+
+import com.faforever.client.config.ClientProperties;
+import com.faforever.client.i18n.I18n;
+import com.faforever.client.io.DirectoryWatcherService;
+import com.faforever.client.map.generator.MapGeneratorService;
+import com.faforever.client.player.PlayerService;
+import com.faforever.client.preferences.PreferencesBuilder;
+import com.faforever.client.preferences.PreferencesService;
+import com.faforever.client.remote.AssetService;
+import com.faforever.client.remote.FafService;
+import com.faforever.client.task.TaskService;
+import com.faforever.client.theme.UiService;
+import com.google.common.eventbus.EventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures reading the metadata of an installed map, which is done for every map folder at startup, both by parsing
+ * its scenario file and from the map metadata cache.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MapServiceBenchmark {
+
+  private MapService mapService;
+  private Path mapsDirectory;
+  private Path mapFolder;
+  private Path scenarioFile;
+
+  @Setup
+  public void setUp() throws IOException {
+    PreferencesService preferencesService = mock(PreferencesService.class);
+    when(preferencesService.getPreferences()).thenReturn(PreferencesBuilder.create().defaultValues().get());
+    mapsDirectory = Files.createTempDirectory("maps");
+    when(preferencesService.getCacheDirectory()).thenReturn(Files.createDirectory(mapsDirectory.resolve("cache")));
+
+    mapService = new MapService(preferencesService, mock(TaskService.class), mock(ApplicationContext.class),
+        mock(FafService.class), mock(AssetService.class), mock(I18n.class), mock(UiService.class),
+        mock(MapGeneratorService.class), new ClientProperties(), mock(EventBus.class), mock(PlayerService.class),
+        mock(DirectoryWatcherService.class));
+
+    mapFolder = Files.createDirectory(mapsDirectory.resolve("SCMP_001"));
+    scenarioFile = mapFolder.resolve("SCMP_001_scenario.lua");
+    try (InputStream inputStream = getClass().getResourceAsStream("/maps/SCMP_001/SCMP_001_scenario.lua")) {
+      Files.copy(inputStream, scenarioFile);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    mapService.destroy();
+    FileSystemUtils.deleteRecursively(mapsDirectory);
+  }
+
+  @Benchmark
+  public MapBean parseScenario() throws MapLoadException {
+    return mapService.parseScenario(mapFolder, scenarioFile);
+  }
+
+  @Benchmark
+  public MapBean readCachedMap() throws MapLoadException {
+    return mapService.readMap(mapFolder);
+  }
+}
@@ -0,0 +1,70 @@
+package com.faforever.client.remote.gson;
+
+import com.faforever.client.fa.relay.GpgServerMessageType;
+import com.faforever.client.remote.ServerTrafficRecorder.RecordedMessage;
+import com.faforever.client.remote.SyntheticLobbyTraffic;
+import com.faforever.client.remote.domain.FafServerMessageType;
+import com.faforever.client.remote.domain.GameStatus;
+import com.faforever.client.remote.domain.GameType;
+import com.faforever.client.remote.domain.MessageTarget;
+import com.faforever.client.remote.domain.ServerMessage;
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Measures decoding of the messages the lobby server sends most: single game updates, and the player and game lists
+ * sent after login.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ServerMessageDecoderBenchmark {
+
+  private ServerMessageDecoder serverMessageDecoder;
+  private String playerInfo;
+  private String gameInfoList;
+  private String gameInfo;
+
+  @Setup
+  public void setUp() {
+    serverMessageDecoder = new ServerMessageDecoder(new GsonBuilder()
+        .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+        .registerTypeAdapter(GameStatus.class, GameStateTypeAdapter.INSTANCE)
+        .registerTypeAdapter(GameType.class, GameTypeTypeAdapter.INSTANCE)
+        .registerTypeAdapter(FafServerMessageType.class, ServerMessageTypeTypeAdapter.INSTANCE)
+        .registerTypeAdapter(GpgServerMessageType.class, GpgServerMessageTypeTypeAdapter.INSTANCE)
+        .registerTypeAdapter(MessageTarget.class, MessageTargetTypeAdapter.INSTANCE)
+        .create());
+
+    List<RecordedMessage> messages = SyntheticLobbyTraffic.generate(500, 2_000, 1, Duration.ZERO);
+    playerInfo = messages.get(0).getMessage();
+    gameInfoList = messages.get(1).getMessage();
+    gameInfo = messages.get(2).getMessage();
+  }
+
+  @Benchmark
+  public ServerMessage decodeGameInfo() {
+    return serverMessageDecoder.decode(gameInfo);
+  }
+
+  @Benchmark
+  public ServerMessage decodeGameInfoList() {
+    return serverMessageDecoder.decode(gameInfoList);
+  }
+
+  @Benchmark
+  public ServerMessage decodePlayerInfo() {
+    return serverMessageDecoder.decode(playerInfo);
+  }
+}
@@ -0,0 +1,95 @@
+package com.faforever.client.remote.io;
+
+import com.faforever.client.remote.ClientMessageSerializer;
+import com.faforever.client.remote.domain.InitSessionMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Measures the QDataStream framing of messages sent to and received from the lobby server.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ServerFramingBenchmark {
+
+  private static final String MESSAGE = "{\"command\": \"game_info\", \"visibility\": \"public\", \"password_protected\": false, "
+      + "\"uid\": 12345, \"title\": \"4v4 Setons Clutch 1400+\", \"state\": \"open\", \"featured_mod\": \"faf\", "
+      + "\"sim_mods\": {}, \"mapname\": \"setons clutch\", \"map_file_path\": \"maps/setons clutch.zip\", "
+      + "\"host\": \"Someone\", \"num_players\": 6, \"max_players\": 8, \"launched_at\": null, \"teams\": "
+      + "{\"1\": [\"Someone\", \"Player2\", \"Player3\"], \"2\": [\"Player4\", \"Player5\", \"Player6\"]}}";
+
+  private ClientMessageSerializer clientMessageSerializer;
+  private InitSessionMessage clientMessage;
+  private ByteArrayOutputStream messageBuffer;
+  private ByteArrayOutputStream outputStream;
+  private QDataWriter qDataWriter;
+  private byte[] frame;
+  private QDataChannelReader qDataChannelReader;
+
+  @Setup
+  public void setUp() throws IOException {
+    clientMessageSerializer = new ClientMessageSerializer();
+    clientMessage = new InitSessionMessage("1.0.0");
+    messageBuffer = new ByteArrayOutputStream();
+    outputStream = new ByteArrayOutputStream();
+    qDataWriter = new QDataWriter(outputStream);
+
+    ByteArrayOutputStream stringOutputStream = new ByteArrayOutputStream();
+    new QDataWriter(stringOutputStream).append(MESSAGE);
+    ByteArrayOutputStream frameOutputStream = new ByteArrayOutputStream();
+    new QDataWriter(frameOutputStream).appendWithSize(stringOutputStream.toByteArray());
+    frame = frameOutputStream.toByteArray();
+    qDataChannelReader = new QDataChannelReader();
+  }
+
+  /**
+   * Serializes and frames a client message the same way {@link com.faforever.client.remote.ServerWriter} does.
+   */
+  @Benchmark
+  public int writeClientMessage() throws IOException {
+    outputStream.reset();
+    messageBuffer.reset();
+    clientMessageSerializer.serialize(clientMessage, messageBuffer);
+    qDataWriter.writeInt32(messageBuffer.size());
+    messageBuffer.writeTo(outputStream);
+    qDataWriter.flush();
+    return outputStream.size();
+  }
+
+  @Benchmark
+  public int writeQString() throws IOException {
+    outputStream.reset();
+    qDataWriter.append(MESSAGE);
+    qDataWriter.flush();
+    return outputStream.size();
+  }
+
+  @Benchmark
+  public String readQString() throws IOException {
+    QDataInputStream inputStream = new QDataInputStream(new DataInputStream(new ByteArrayInputStream(frame)));
+    inputStream.skipBlockSize();
+    return inputStream.readQString();
+  }
+
+  @Benchmark
+  public String readFromChannel() throws IOException {
+    ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(frame));
+    qDataChannelReader.reset();
+    qDataChannelReader.readFrom(channel);
+    return qDataChannelReader.nextMessage();
+  }
+}
@@ -0,0 +1,53 @@
+package com.faforever.client.replay;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Measures reading of local replay files, as done for every replay when the local replay vault is opened.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ReplayFileReaderBenchmark {
+
+  private ReplayFileReaderImpl replayFileReader;
+  private Path replayFile;
+
+  @Setup
+  public void setUp() throws IOException {
+    replayFileReader = new ReplayFileReaderImpl();
+    replayFile = Files.createTempFile("benchmark", ".fafreplay");
+    try (InputStream inputStream = getClass().getResourceAsStream("/replay/test.fafreplay")) {
+      Files.copy(inputStream, replayFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(replayFile);
+  }
+
+  @Benchmark
+  public LocalReplayInfo parseMetaData() {
+    return replayFileReader.parseMetaData(replayFile);
+  }
+
+  @Benchmark
+  public byte[] readRawReplayData() {
+    return replayFileReader.readRawReplayData(replayFile);
+  }
+}
@@ -13,6 +13,7 @@ import com.faforever.client.player.Player;
 import com.faforever.client.player.PlayerService;
 import com.faforever.client.preferences.PreferencesService;
 import com.faforever.client.reporting.ReportingService;
+import com.faforever.client.theme.ThemeTemplate;
 import com.faforever.client.theme.UiService;
 import com.faforever.client.ui.StageHolder;
 import com.faforever.client.uploader.ImageUploadService;
@@ -24,6 +25,9 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.eventbus.EventBus;
 import com.google.common.io.CharStreams;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
@@ -61,9 +65,10 @@ import java.net.URL;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static com.faforever.client.theme.UiService.CHAT_CONTAINER;
@@ -86,21 +91,12 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
 
   static final String CSS_CLASS_CHAT_ONLY = "chat_only";
   private static final String MESSAGE_CONTAINER_ID = "chat-container";
-  private static final String MESSAGE_ITEM_CLASS = "chat-section";
   private static final PseudoClass UNREAD_PSEUDO_STATE = PseudoClass.getPseudoClass("unread");
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private static final org.springframework.core.io.Resource CHAT_JS_RESOURCE = new ClassPathResource("/js/chat_container.js");
-  private static final org.springframework.core.io.Resource AUTOLINKER_JS_RESOURCE = new ClassPathResource("/js/Autolinker.min.js");
   private static final org.springframework.core.io.Resource JQUERY_JS_RESOURCE = new ClassPathResource("js/jquery-2.1.4.min.js");
   private static final org.springframework.core.io.Resource JQUERY_HIGHLIGHT_JS_RESOURCE = new ClassPathResource("js/jquery.highlight-5.closure.js");
 
-  public static final String CHANNEL_NAME_GROUP_NAME = "channelName";
-  /**
-   * A pattern identifying all strings with a # in front and not starting with a number. Those are interpreted as
-   * irc-channels.
-   */
-  private static final Pattern CHANNEL_USER_PATTERN = Pattern.compile("(^|\\s)(?<" + CHANNEL_NAME_GROUP_NAME + ">#[a-zA-Z]\\S+)", CASE_INSENSITIVE);
-
   private static final String ACTION_PREFIX = "/me ";
   private static final String JOIN_PREFIX = "/join ";
   private static final String WHOIS_PREFIX = "/whois ";
@@ -126,14 +122,22 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
   private final CountryFlagService countryFlagService;
 
   /**
-   * Messages that arrived before the web view was ready. Those are appended as soon as it is ready.
+   * Messages that haven't been added to the web view yet, because it isn't ready, the tab isn't selected or the next
+   * frame hasn't been rendered yet. Those are appended in a single batch per frame. Messages that wouldn't be visible
+   * anymore once appended are dropped right away, so that this list doesn't grow while the tab is in the background.
    */
   private final List<ChatMessage> waitingMessages;
+  private final AnimationTimer waitingMessagesTimer;
   private final IntegerProperty unreadMessagesCount;
   private final ChangeListener<Boolean> resetUnreadMessagesListener;
   private final ChangeListener<Number> zoomChangeListener;
   private final ChangeListener<Boolean> tabPaneFocusedListener;
   private final ChangeListener<Boolean> stageFocusedListener;
+  /**
+   * The latest message that has been dropped from {@link #waitingMessages}, since it still determines whether the first
+   * waiting message starts a new chat section. Guarded by {@link #waitingMessages}.
+   */
+  private ChatMessage lastDroppedMessage;
   private int lastEntryId;
   private boolean isChatReady;
   /**
@@ -172,6 +176,13 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
     this.chatUserService = chatUserService;
 
     waitingMessages = new ArrayList<>();
+    waitingMessagesTimer = new AnimationTimer() {
+      @Override
+      public void handle(long now) {
+        stop();
+        appendWaitingMessages();
+      }
+    };
     unreadMessagesCount = new SimpleIntegerProperty();
     resetUnreadMessagesListener = (observable, oldValue, newValue) -> {
       if (hasFocus()) {
@@ -263,12 +274,14 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
     unreadMessagesCount.addListener((observable, oldValue, newValue) -> chatService.incrementUnreadMessagesCount(newValue.intValue() - oldValue.intValue()));
     JavaFxUtil.addListener(StageHolder.getStage().focusedProperty(), new WeakChangeListener<>(resetUnreadMessagesListener));
     JavaFxUtil.addListener(getRoot().selectedProperty(), new WeakChangeListener<>(resetUnreadMessagesListener));
+    JavaFxUtil.addListener(getRoot().selectedProperty(), (observable, oldValue, newValue) -> scheduleWaitingMessages());
 
     getRoot().setOnClosed(this::onClosed);
   }
 
   protected void onClosed(Event event) {
     // Subclasses may override but need to call super
+    waitingMessagesTimer.stop();
   }
 
   /**
@@ -344,7 +357,6 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
     try (Reader reader = new InputStreamReader(uiService.getThemeFileUrl(CHAT_CONTAINER).openStream())) {
       String chatContainerHtml = CharStreams.toString(reader)
           .replace("{chat-container-js}", CHAT_JS_RESOURCE.getURL().toExternalForm())
-          .replace("{auto-linker-js}", AUTOLINKER_JS_RESOURCE.getURL().toExternalForm())
           .replace("{jquery-js}", JQUERY_JS_RESOURCE.getURL().toExternalForm())
           .replace("{jquery-highlight-js}", JQUERY_HIGHLIGHT_JS_RESOURCE.getURL().toExternalForm());
 
@@ -373,12 +385,9 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
       if (newValue != Worker.State.SUCCEEDED) {
         return;
       }
-      synchronized (waitingMessages) {
-        waitingMessages.forEach(AbstractChatTabController.this::addMessage);
-        waitingMessages.clear();
-        isChatReady = true;
-        onWebViewLoaded();
-      }
+      isChatReady = true;
+      onWebViewLoaded();
+      scheduleWaitingMessages();
     });
   }
 
@@ -453,87 +462,133 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
   }
 
   protected void onChatMessage(ChatMessage chatMessage) {
+    int maxMessageItems = preferencesService.getPreferences().getChat().getMaxMessages();
     synchronized (waitingMessages) {
-      if (!isChatReady) {
-        waitingMessages.add(chatMessage);
-      } else {
-        Platform.runLater(() -> {
-          addMessage(chatMessage);
-          removeTopmostMessages();
-          scrollToBottomIfDesired();
-        });
+      waitingMessages.add(chatMessage);
+
+      int firstRetainedIndex = getFirstRetainedMessageIndex(waitingMessages, maxMessageItems);
+      if (firstRetainedIndex > 0) {
+        List<ChatMessage> droppedMessages = waitingMessages.subList(0, firstRetainedIndex);
+        lastDroppedMessage = droppedMessages.get(droppedMessages.size() - 1);
+        droppedMessages.clear();
       }
     }
+    JavaFxUtil.runLater(() -> {
+      if (mentionPattern.matcher(chatMessage.getMessage()).find()) {
+        onMention(chatMessage);
+      }
+      scheduleWaitingMessages();
+    });
   }
 
-  private void scrollToBottomIfDesired() {
-    engine.executeScript("scrollToBottomIfDesired()");
+  /**
+   * Appends the waiting messages with the next frame, unless the web view isn't ready or the tab isn't selected. In
+   * the latter case, they are appended as soon as the tab is selected.
+   */
+  private void scheduleWaitingMessages() {
+    if (isChatReady && getRoot().isSelected()) {
+      waitingMessagesTimer.start();
+    }
   }
 
-  private void removeTopmostMessages() {
+  /**
+   * Appends all waiting messages to the web view in a single script call, which also removes the topmost messages that
+   * exceed the maximum number of messages. Messages that would be removed right away aren't rendered at all, so that a
+   * tab that has been in the background for a while catches up quickly.
+   */
+  private void appendWaitingMessages() {
+    List<ChatMessage> messages;
+    synchronized (waitingMessages) {
+      if (waitingMessages.isEmpty()) {
+        return;
+      }
+      messages = new ArrayList<>(waitingMessages);
+      waitingMessages.clear();
+      if (lastDroppedMessage != null) {
+        lastMessage = lastDroppedMessage;
+        lastDroppedMessage = null;
+      }
+    }
+
     int maxMessageItems = preferencesService.getPreferences().getChat().getMaxMessages();
+    int firstRetainedIndex = getFirstRetainedMessageIndex(messages, maxMessageItems);
+    if (firstRetainedIndex > 0) {
+      lastMessage = messages.get(firstRetainedIndex - 1);
+    }
+
+    JsonArray batch = new JsonArray();
+    messages.subList(firstRetainedIndex, messages.size()).forEach(chatMessage -> addMessage(chatMessage, batch));
+
+    getJsObject().call("appendMessages", batch.toString(), maxMessageItems);
+    getMessagesWebView().requestLayout();
+  }
 
-    int numberOfMessages = (int) engine.executeScript("document.getElementsByClassName('" + MESSAGE_ITEM_CLASS + "').length");
-    while (numberOfMessages > maxMessageItems) {
-      engine.executeScript("document.getElementsByClassName('" + MESSAGE_ITEM_CLASS + "')[0].remove()");
-      numberOfMessages--;
+  /**
+   * Returns the index of the first of the specified messages that is still visible after all of them have been
+   * appended, given that only the latest {@code maxMessageItems} chat sections are kept. Since everything before the
+   * first message is removed in that case, whether the first message starts a new section doesn't matter.
+   */
+  @VisibleForTesting
+  static int getFirstRetainedMessageIndex(List<ChatMessage> messages, int maxMessageItems) {
+    int sections = 0;
+    for (int i = messages.size() - 1; i > 0; i--) {
+      if (requiresNewChatSection(messages.get(i - 1), messages.get(i)) && ++sections == maxMessageItems) {
+        return i;
+      }
     }
+    return 0;
   }
 
   /**
    * Either inserts a new chat entry or, if the same user as before sent another message, appends it do the previous
    * entry.
    */
-  private void addMessage(ChatMessage chatMessage) {
+  private void addMessage(ChatMessage chatMessage, JsonArray batch) {
     noCatch(() -> {
-      if (requiresNewChatSection(chatMessage)) {
-        appendChatMessageSection(chatMessage);
+      if (requiresNewChatSection(lastMessage, chatMessage)) {
+        appendChatMessageSection(chatMessage, batch);
       } else {
-        appendMessage(chatMessage);
+        appendMessage(chatMessage, batch);
       }
       lastMessage = chatMessage;
     });
   }
 
-  private boolean requiresNewChatSection(ChatMessage chatMessage) {
-    return lastMessage == null
-        || !lastMessage.getUsername().equals(chatMessage.getUsername())
-        || lastMessage.getTime().isBefore(chatMessage.getTime().minus(1, MINUTES))
-        || lastMessage.isAction();
+  private static boolean requiresNewChatSection(@Nullable ChatMessage previousMessage, ChatMessage chatMessage) {
+    return previousMessage == null
+        || !previousMessage.getUsername().equals(chatMessage.getUsername())
+        || previousMessage.getTime().isBefore(chatMessage.getTime().minus(1, MINUTES))
+        || previousMessage.isAction();
   }
 
-  private void appendMessage(ChatMessage chatMessage) throws IOException {
-    URL themeFileUrl;
+  private void appendMessage(ChatMessage chatMessage, JsonArray batch) throws IOException {
+    ThemeTemplate template;
     if (preferencesService.getPreferences().getChat().getChatFormat() == ChatFormat.COMPACT) {
-      themeFileUrl = uiService.getThemeFileUrl(CHAT_TEXT_COMPACT);
+      template = uiService.getThemeTemplate(CHAT_TEXT_COMPACT);
     } else {
-      themeFileUrl = uiService.getThemeFileUrl(CHAT_TEXT_EXTENDED);
+      template = uiService.getThemeTemplate(CHAT_TEXT_EXTENDED);
     }
 
-    String html = renderHtml(chatMessage, themeFileUrl, null);
+    String html = renderHtml(chatMessage, template, null);
 
-    insertIntoContainer(html, "chat-section-" + lastEntryId);
+    addToBatch(batch, html, "chat-section-" + lastEntryId);
   }
 
-  private void appendChatMessageSection(ChatMessage chatMessage) throws IOException {
-    URL themeFileURL;
+  private void appendChatMessageSection(ChatMessage chatMessage, JsonArray batch) throws IOException {
+    ThemeTemplate template;
     if (preferencesService.getPreferences().getChat().getChatFormat() == ChatFormat.COMPACT) {
-      themeFileURL = uiService.getThemeFileUrl(CHAT_SECTION_COMPACT);
+      template = uiService.getThemeTemplate(CHAT_SECTION_COMPACT);
     } else {
-      themeFileURL = uiService.getThemeFileUrl(CHAT_SECTION_EXTENDED);
+      template = uiService.getThemeTemplate(CHAT_SECTION_EXTENDED);
     }
 
-    String html = renderHtml(chatMessage, themeFileURL, ++lastEntryId);
-    insertIntoContainer(html, MESSAGE_CONTAINER_ID);
-    appendMessage(chatMessage);
+    String html = renderHtml(chatMessage, template, ++lastEntryId);
+    addToBatch(batch, html, MESSAGE_CONTAINER_ID);
+    appendMessage(chatMessage, batch);
   }
 
-  private String renderHtml(ChatMessage chatMessage, URL themeFileUrl, @Nullable Integer sectionId) throws IOException {
-    String html;
-    try (Reader reader = new InputStreamReader(themeFileUrl.openStream())) {
-      html = CharStreams.toString(reader);
-    }
-
+  @VisibleForTesting
+  String renderHtml(ChatMessage chatMessage, ThemeTemplate template, @Nullable Integer sectionId) {
     String login = chatMessage.getUsername();
     String avatarUrl = "";
     String clanTag = "";
@@ -554,15 +609,6 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
       }
     }
 
-    String timeString = timeService.asShortTime(chatMessage.getTime());
-    html = html.replace("{time}", timeString)
-        .replace("{avatar}", StringUtils.defaultString(avatarUrl))
-        .replace("{username}", login)
-        .replace("{clan-tag}", clanTag)
-        .replace("{decorated-clan-tag}", decoratedClanTag)
-        .replace("{country-flag}", StringUtils.defaultString(countryFlagUrl))
-        .replace("{section-id}", String.valueOf(sectionId));
-
     Collection<String> cssClasses = new ArrayList<>();
     cssClasses.add(String.format("user-%s", chatMessage.getUsername()));
     if (chatMessage.isAction()) {
@@ -571,35 +617,20 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
       cssClasses.add(MESSAGE_CSS_CLASS);
     }
 
-    html = html.replace("{css-classes}", Joiner.on(' ').join(cssClasses));
-
-    Optional.ofNullable(getMessageCssClass(login)).ifPresent(cssClasses::add);
-
-    String text = htmlEscaper().escape(chatMessage.getMessage()).replace("\\", "\\\\");
-    text = convertUrlsToHyperlinks(text);
-    text = replaceChannelNamesWithHyperlinks(text);
-
-    Matcher matcher = mentionPattern.matcher(text);
-    if (matcher.find()) {
-      text = matcher.replaceAll("<span class='self'>" + matcher.group(1) + "</span>");
-      onMention(chatMessage);
-    }
-
-    return html
-        .replace("{css-classes}", Joiner.on(' ').join(cssClasses))
-        .replace("{inline-style}", getInlineStyle(login))
-        // Always replace text last in case the message contains one of the placeholders.
-        .replace("{text}", text);
-  }
+    String text = ChatMessageLinkifier.linkify(htmlEscaper().escape(chatMessage.getMessage()), mentionPattern);
 
-  @VisibleForTesting
-  protected String replaceChannelNamesWithHyperlinks(String text) {
-    Matcher channelMatcher = CHANNEL_USER_PATTERN.matcher(text);
-    while (channelMatcher.find()) {
-      String channelName = channelMatcher.group(CHANNEL_NAME_GROUP_NAME);
-      text = text.replace(channelName, "<a href=\"javascript:void(0);\" onClick=\"java.openChannel('" + channelName + "')\">" + channelName + "</a>");
-    }
-    return text;
+    Map<String, String> values = new HashMap<>();
+    values.put("time", timeService.asShortTime(chatMessage.getTime()));
+    values.put("avatar", StringUtils.defaultString(avatarUrl));
+    values.put("username", login);
+    values.put("clan-tag", clanTag);
+    values.put("decorated-clan-tag", decoratedClanTag);
+    values.put("country-flag", StringUtils.defaultString(countryFlagUrl));
+    values.put("section-id", String.valueOf(sectionId));
+    values.put("css-classes", Joiner.on(' ').join(cssClasses));
+    values.put("inline-style", getInlineStyle(login));
+    values.put("text", text);
+    return template.render(values);
   }
 
   protected void onMention(ChatMessage chatMessage) {
@@ -648,14 +679,11 @@ public abstract class AbstractChatTabController implements Controller<Tab> {
     return String.format("color: %s;", JavaFxUtil.toRgbCode(messageColor));
   }
 
-  protected String convertUrlsToHyperlinks(String text) {
-    return (String) engine.executeScript("link('" + text.replace("'", "\\'") + "')");
-  }
-
-  private void insertIntoContainer(String html, String containerId) {
-    ((JSObject) engine.executeScript("document.getElementById('" + containerId + "')"))
-        .call("insertAdjacentHTML", "beforeend", html);
-    getMessagesWebView().requestLayout();
+  private void addToBatch(JsonArray batch, String html, String containerId) {
+    JsonObject entry = new JsonObject();
+    entry.addProperty("containerId", containerId);
+    entry.addProperty("html", html);
+    batch.add(entry);
   }
 
   /**
@@ -56,6 +56,7 @@ import javafx.stage.Popup;
 import javafx.stage.PopupWindow;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
@@ -66,6 +67,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -85,7 +87,13 @@ import static java.util.Locale.US;
 @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class ChannelTabController extends AbstractChatTabController {
   private static final String USER_CSS_CLASS_FORMAT = "user-%s";
+  /**
+   * Updates of more users than this, and than a tenth of the chat user list, rebuild the list instead of moving each user
+   * in place.
+   */
+  private static final int BULK_USER_LIST_UPDATE_THRESHOLD = 20;
 
+  /** Sorts the own user first, then all other users by name. */
   private static final Comparator<CategoryOrChatUserListItem> CHAT_USER_ITEM_COMPARATOR = (o1, o2) -> {
     ChatChannelUser left = o1.getUser();
     ChatChannelUser right = o2.getUser();
@@ -93,13 +101,11 @@ public class ChannelTabController extends AbstractChatTabController {
     Assert.state(left != null, "Only users must be compared");
     Assert.state(right != null, "Only users must be compared");
 
-    if (isSelf(left)) {
-      return 1;
+    boolean leftIsSelf = isSelf(left);
+    if (leftIsSelf != isSelf(right)) {
+      return leftIsSelf ? -1 : 1;
     }
-    if (isSelf(right)) {
-      return -1;
-    }
-    return right.getUsername().compareToIgnoreCase(left.getUsername());
+    return left.getUsername().compareToIgnoreCase(right.getUsername());
   };
 
   @VisibleForTesting
@@ -115,14 +121,20 @@ public class ChannelTabController extends AbstractChatTabController {
   private final Map<String, Collection<ChangeListener<Color>>> colorPropertyListeners;
 
   @VisibleForTesting
-  /** Maps a chat user category to a list of all user items that belong to it. */
+  /** Maps a chat user category to a list of all user items that belong to it, sorted like the chat user list. */
   protected final Map<ChatUserCategory, List<CategoryOrChatUserListItem>> categoriesToUserListItems;
 
   /** Maps a chat user category to the list items that represent the respective category within the chat user list. */
   private final Map<ChatUserCategory, CategoryOrChatUserListItem> categoriesToCategoryListItems;
 
-  /** Maps usernames to all chat user list items that belong to that user. */
-  private final Map<String, List<CategoryOrChatUserListItem>> userNamesToListItems;
+  /** Maps usernames to all chat user list items that belong to that user, by category. */
+  private final Map<String, Map<ChatUserCategory, CategoryOrChatUserListItem>> userNamesToListItems;
+
+  /**
+   * Users whose chat user list items need to be updated, by username. A {@code null} value means that the user has left
+   * the channel.
+   */
+  private final Map<String, ChatChannelUser> pendingUserListUpdates;
 
   private final FilteredList<CategoryOrChatUserListItem> filteredChatUserList;
 
@@ -133,6 +145,9 @@ public class ChannelTabController extends AbstractChatTabController {
   private final PlatformService platformService;
   private final InvalidationListener channelTopicListener = observable -> Platform.runLater(this::updateChannelTopic);
 
+  /** Guarded by {@link #pendingUserListUpdates}. */
+  private boolean userListUpdateScheduled;
+
   public SplitPane splitPane;
   public ToggleButton advancedUserFilter;
   public HBox searchFieldContainer;
@@ -178,6 +193,7 @@ public class ChannelTabController extends AbstractChatTabController {
     categoriesToUserListItems = new HashMap<>();
     categoriesToCategoryListItems = new HashMap<>();
     userNamesToListItems = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    pendingUserListUpdates = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
     chatUserListItems = FXCollections.observableArrayList();
     filteredChatUserList = new FilteredList<>(chatUserListItems);
 
@@ -211,9 +227,9 @@ public class ChannelTabController extends AbstractChatTabController {
 
     moderatorsChangedListener = change -> {
       if (change.wasAdded()) {
-        userNamesToListItems.get(change.getElementAdded()).forEach(this::addModerator);
+        userNamesToListItems.get(change.getElementAdded()).values().forEach(this::addModerator);
       } else if (change.wasRemoved()) {
-        userNamesToListItems.get(change.getElementAdded()).forEach(this::removeModerator);
+        userNamesToListItems.get(change.getElementAdded()).values().forEach(this::removeModerator);
       }
     };
     JavaFxUtil.addListener(channel.getModerators(), new WeakSetChangeListener<>(moderatorsChangedListener));
@@ -465,52 +481,133 @@ public class ChannelTabController extends AbstractChatTabController {
   }
 
   private void updateInChatUserList(ChatChannelUser chatUser) {
-    Platform.runLater(() -> {
-      userNamesToListItems.computeIfAbsent(chatUser.getUsername(), s -> new ArrayList<>());
-      updateChatUserListItemsForCategories(chatUser);
+    scheduleUserListUpdate(chatUser.getUsername(), chatUser);
+  }
+
+  /**
+   * Schedules an update of the chat user list for the specified user, or for its removal if {@code chatUser} is {@code
+   * null}. All updates that arrive until the list is updated are applied together, so that the users of a channel that
+   * has just been joined are added with a single change to the list.
+   */
+  private void scheduleUserListUpdate(String username, @Nullable ChatChannelUser chatUser) {
+    synchronized (pendingUserListUpdates) {
+      pendingUserListUpdates.put(username, chatUser);
+      if (userListUpdateScheduled) {
+        return;
+      }
+      userListUpdateScheduled = true;
+    }
+    Platform.runLater(this::updateChatUserList);
+  }
+
+  private void updateChatUserList() {
+    Map<String, ChatChannelUser> updates;
+    synchronized (pendingUserListUpdates) {
+      updates = new HashMap<>(pendingUserListUpdates);
+      pendingUserListUpdates.clear();
+      userListUpdateScheduled = false;
+    }
+
+    // A few users are moved in place, while many users are added to their categories unsorted and then shown at once
+    boolean inPlace = updates.size() <= Math.max(BULK_USER_LIST_UPDATE_THRESHOLD, chatUserListItems.size() / 10);
+    updates.forEach((username, chatUser) -> removeChatUserListItems(username, getChatUserCategories(chatUser), inPlace));
+    updates.forEach((username, chatUser) -> {
+      if (chatUser == null) {
+        userNamesToListItems.remove(username);
+      } else {
+        addChatUserListItems(chatUser, getChatUserCategories(chatUser), inPlace);
+      }
+    });
+    if (inPlace) {
+      return;
+    }
+
+    categoriesToUserListItems.values().forEach(items -> items.sort(CHAT_USER_ITEM_COMPARATOR));
+    List<CategoryOrChatUserListItem> items = new ArrayList<>(chatUserListItems.size() + updates.size());
+    Arrays.stream(ChatUserCategory.values()).forEach(category -> {
+      items.add(categoriesToCategoryListItems.get(category));
+      items.addAll(categoriesToUserListItems.get(category));
     });
+    chatUserListItems.setAll(items);
+  }
+
+  private static Set<ChatUserCategory> getChatUserCategories(@Nullable ChatChannelUser chatUser) {
+    return chatUser != null ? chatUser.getChatUserCategories() : Collections.emptySet();
   }
 
   /**
-   * Adds and removes chat user items from the chat user list depending on the user's categories. For instance, if the
-   * user is a moderator, he'll be added to the moderator category (if missing) and if he's no longer a friend, he will
-   * be removed from the friends category.
+   * Removes the user's items from all categories the user no longer belongs to. For instance, if the user is no longer a
+   * friend, they will be removed from the friends category.
    */
-  private void updateChatUserListItemsForCategories(ChatChannelUser chatUser) {
-    Set<ChatUserCategory> chatUserCategories = chatUser.getChatUserCategories();
+  private void removeChatUserListItems(String username, Set<ChatUserCategory> chatUserCategories, boolean updateList) {
+    Map<ChatUserCategory, CategoryOrChatUserListItem> listItems = userNamesToListItems.get(username);
+    if (listItems == null) {
+      return;
+    }
 
-    Arrays.stream(ChatUserCategory.values())
-        .filter(chatUserCategory -> !chatUserCategories.contains(chatUserCategory))
-        .map(categoriesToUserListItems::get)
-        .flatMap(Collection::stream)
-        .filter(item -> chatUser.equals(item.getUser()))
-        .forEach(chatUserListItems::remove);
+    Iterator<Map.Entry<ChatUserCategory, CategoryOrChatUserListItem>> iterator = listItems.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<ChatUserCategory, CategoryOrChatUserListItem> entry = iterator.next();
+      ChatUserCategory category = entry.getKey();
+      if (chatUserCategories.contains(category)) {
+        continue;
+      }
+      List<CategoryOrChatUserListItem> categoryItems = categoriesToUserListItems.get(category);
+      int index = indexOfUserItem(categoryItems, entry.getValue());
+      if (updateList) {
+        chatUserListItems.remove(getCategoryItemIndex(category) + 1 + index);
+      }
+      categoryItems.remove(index);
+      iterator.remove();
+    }
+  }
 
-    Arrays.stream(ChatUserCategory.values())
-        .filter(chatUserCategory -> !chatUserCategories.contains(chatUserCategory))
-        .forEach(category -> categoriesToUserListItems.get(category).removeIf(item -> chatUser.equals(item.getUser())));
+  /**
+   * Adds the user to all of its categories it isn't listed in yet. For instance, if the user is a moderator, they'll be
+   * added to the moderator category. Unless {@code updateList} is set, the items are only appended to the category and
+   * need to be sorted afterwards.
+   */
+  private void addChatUserListItems(ChatChannelUser chatUser, Set<ChatUserCategory> chatUserCategories, boolean updateList) {
+    Map<ChatUserCategory, CategoryOrChatUserListItem> listItems = userNamesToListItems
+        .computeIfAbsent(chatUser.getUsername(), username -> new EnumMap<>(ChatUserCategory.class));
 
-    CategoryOrChatUserListItem listItem = new CategoryOrChatUserListItem(chatUser);
-    userNamesToListItems.getOrDefault(chatUser.getUsername(), new ArrayList<>()).add(listItem);
+    for (ChatUserCategory category : chatUserCategories) {
+      if (listItems.containsKey(category)) {
+        continue;
+      }
+      CategoryOrChatUserListItem listItem = new CategoryOrChatUserListItem(chatUser);
+      List<CategoryOrChatUserListItem> categoryItems = categoriesToUserListItems.get(category);
+      if (updateList) {
+        int index = Collections.binarySearch(categoryItems, listItem, CHAT_USER_ITEM_COMPARATOR);
+        int insertionIndex = index >= 0 ? index : -index - 1;
+        categoryItems.add(insertionIndex, listItem);
+        chatUserListItems.add(getCategoryItemIndex(category) + 1 + insertionIndex, listItem);
+      } else {
+        categoryItems.add(listItem);
+      }
+      listItems.put(category, listItem);
+    }
+  }
 
-    chatUserCategories.stream()
-        .filter(chatUserCategory -> !categoriesToUserListItems.get(chatUserCategory).contains(listItem))
-        .forEach(chatUserCategory -> addToTreeItemSorted(categoriesToCategoryListItems.get(chatUserCategory), listItem));
+  private static int indexOfUserItem(List<CategoryOrChatUserListItem> categoryItems, CategoryOrChatUserListItem item) {
+    int index = Collections.binarySearch(categoryItems, item, CHAT_USER_ITEM_COMPARATOR);
+    if (index >= 0 && item.equals(categoryItems.get(index))) {
+      return index;
+    }
+    // The item's position changes if its user becomes the own user, which happens when the player gets associated
+    return categoryItems.indexOf(item);
   }
 
-  private void addToTreeItemSorted(CategoryOrChatUserListItem parent, CategoryOrChatUserListItem child) {
-    Platform.runLater(() -> {
-      categoriesToUserListItems.get(parent.getCategory()).add(child);
-      for (int index = chatUserListItems.indexOf(parent) + 1; index < chatUserListItems.size(); index++) {
-        CategoryOrChatUserListItem otherItem = chatUserListItems.get(index);
-
-        if (otherItem.getCategory() != null || CHAT_USER_ITEM_COMPARATOR.compare(child, otherItem) > 0) {
-          chatUserListItems.add(index, child);
-          return;
-        }
+  /** Returns the index of the category's item within the chat user list, which lists the categories in order. */
+  private int getCategoryItemIndex(ChatUserCategory category) {
+    int index = 0;
+    for (ChatUserCategory otherCategory : ChatUserCategory.values()) {
+      if (otherCategory == category) {
+        break;
       }
-      chatUserListItems.add(child);
-    });
+      index += 1 + categoriesToUserListItems.get(otherCategory).size();
+    }
+    return index;
   }
 
   private void updateCssClass(ChatChannelUser chatUser) {
@@ -545,7 +642,7 @@ public class ChannelTabController extends AbstractChatTabController {
       } else {
         updateUserMessageDisplay(chatUser, "");
       }
-      updateChatUserListItemsForCategories(chatUser);
+      updateInChatUserList(chatUser);
     };
     socialStatusMessagesListeners.computeIfAbsent(player.getUsername(), i -> new ArrayList<>()).add(listener);
     return new WeakChangeListener<>(listener);
@@ -564,20 +661,11 @@ public class ChannelTabController extends AbstractChatTabController {
   }
 
   private void onUserLeft(String username) {
+    scheduleUserListUpdate(username, null);
     Platform.runLater(() -> {
-      List<CategoryOrChatUserListItem> items = userNamesToListItems.get(username);
-      List<CategoryOrChatUserListItem> listItemsToBeRemoved = userNamesToListItems.remove(username);
-      chatUserListItems.removeAll(items);
-
       hideFoeMessagesListeners.remove(username);
       socialStatusMessagesListeners.remove(username);
       colorPropertyListeners.remove(username);
-
-      Arrays.stream(ChatUserCategory.values())
-          .filter(categoriesToUserListItems::containsKey)
-          .map(categoriesToUserListItems::get)
-          .forEach(categoryOrChatUserListItems -> listItemsToBeRemoved.forEach(categoryOrChatUserListItems::remove));
-
     });
   }
 
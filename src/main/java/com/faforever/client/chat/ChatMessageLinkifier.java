@@ -0,0 +1,240 @@
+package com.faforever.client.chat;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+
+/**
+ * Turns URLs, channel names and mentions of the current user in an HTML-escaped chat message into HTML, in a single
+ * pass over the text. URLs are detected the same way as by Autolinker.js 0.17.1, which the chat web view used to link
+ * them with (emails, phone numbers, Twitter handles and hashtags disabled), so that messages look just like before.
+ * <p>
+ * Like Autolinker, the text is split at the HTML entities listed in {@link #ENTITY_PATTERN} and URLs never span such
+ * an entity. Channel names and mentions are only searched for in the text outside of URLs.
+ */
+final class ChatMessageLinkifier {
+
+  /** Whitespace as matched by {@code \s} in JavaScript, which (unlike in Java) includes Unicode spaces. */
+  private static final String JS_WHITESPACE = "\\s\\u00A0\\u1680\\u2000-\\u200A\\u2028\\u2029\\u202F\\u205F\\u3000\\uFEFF";
+
+  private static final String TWITTER = "(^|[^\\w])@(\\w{1,15})";
+  private static final String HASHTAG = "(^|[^\\w])#(\\w{1,15})";
+  private static final String EMAIL_LOCAL_PART = "(?:[\\-;:&=\\+\\$,\\w\\.]+@)";
+  private static final String PHONE = "(?:\\+?\\d{1,3}[-" + JS_WHITESPACE + ".])?\\(?\\d{3}\\)?[-" + JS_WHITESPACE + ".]?\\d{3}[-" + JS_WHITESPACE + ".]\\d{4}";
+  private static final String PROTOCOL = "(?:[A-Za-z][-.+A-Za-z0-9]+:(?![A-Za-z][-.+A-Za-z0-9]+://)(?!\\d+/?)(?://)?)";
+  private static final String WWW = "(?:www\\.)";
+  private static final String DOMAIN = "[A-Za-z0-9\\.\\-]*[A-Za-z0-9\\-]";
+  /** The trailing lookahead is JavaScript's {@code \b}, which only knows ASCII word characters. */
+  private static final String TLD = "\\.(?:"
+      + "international|construction|contractors|enterprises|photography|productions|foundation|immobilien|"
+      + "industries|management|properties|technology|christmas|community|directory|education|equipment|"
+      + "institute|marketing|solutions|vacations|bargains|boutique|builders|catering|cleaning|clothing|"
+      + "computer|democrat|diamonds|graphics|holdings|lighting|partners|plumbing|supplies|training|ventures|"
+      + "academy|careers|company|cruises|domains|exposed|flights|florist|gallery|guitars|holiday|kitchen|"
+      + "neustar|okinawa|recipes|rentals|reviews|shiksha|singles|support|systems|agency|berlin|camera|center|"
+      + "coffee|condos|dating|estate|events|expert|futbol|kaufen|luxury|maison|monash|museum|nagoya|photos|"
+      + "repair|report|social|supply|tattoo|tienda|travel|viajes|villas|vision|voting|voyage|actor|build|"
+      + "cards|cheap|codes|dance|email|glass|house|mango|ninja|parts|photo|shoes|solar|today|tokyo|tools|"
+      + "watch|works|aero|arpa|asia|best|bike|blue|buzz|camp|club|cool|coop|farm|fish|gift|guru|info|jobs|"
+      + "kiwi|kred|land|limo|link|menu|mobi|moda|name|pics|pink|post|qpon|rich|ruhr|sexy|tips|vote|voto|wang|"
+      + "wien|wiki|zone|bar|bid|biz|cab|cat|ceo|com|edu|gov|int|kim|mil|net|onl|org|pro|pub|red|tel|uno|wed|"
+      + "xxx|xyz|ac|ad|ae|af|ag|ai|al|am|an|ao|aq|ar|as|at|au|aw|ax|az|ba|bb|bd|be|bf|bg|bh|bi|bj|bm|bn|bo|br|"
+      + "bs|bt|bv|bw|by|bz|ca|cc|cd|cf|cg|ch|ci|ck|cl|cm|cn|co|cr|cu|cv|cw|cx|cy|cz|de|dj|dk|dm|do|dz|ec|ee|"
+      + "eg|er|es|et|eu|fi|fj|fk|fm|fo|fr|ga|gb|gd|ge|gf|gg|gh|gi|gl|gm|gn|gp|gq|gr|gs|gt|gu|gw|gy|hk|hm|hn|"
+      + "hr|ht|hu|id|ie|il|im|in|io|iq|ir|is|it|je|jm|jo|jp|ke|kg|kh|ki|km|kn|kp|kr|kw|ky|kz|la|lb|lc|li|lk|"
+      + "lr|ls|lt|lu|lv|ly|ma|mc|md|me|mg|mh|mk|ml|mm|mn|mo|mp|mq|mr|ms|mt|mu|mv|mw|mx|my|mz|na|nc|ne|nf|ng|"
+      + "ni|nl|no|np|nr|nu|nz|om|pa|pe|pf|pg|ph|pk|pl|pm|pn|pr|ps|pt|pw|py|qa|re|ro|rs|ru|rw|sa|sb|sc|sd|se|"
+      + "sg|sh|si|sj|sk|sl|sm|sn|so|sr|st|su|sv|sx|sy|sz|tc|td|tf|tg|th|tj|tk|tl|tm|tn|to|tp|tr|tt|tv|tw|tz|"
+      + "ua|ug|uk|us|uy|uz|va|vc|ve|vg|vi|vn|vu|wf|ws|ye|yt|za|zm|zw"
+      + ")(?![A-Za-z0-9_])";
+  private static final String URL_SUFFIX = "[\\-A-Za-z0-9+&@#/%=~_()|'$*\\[\\]?!:,.;]*[\\-A-Za-z0-9+&@#/%=~_()|'$*\\[\\]]";
+
+  /**
+   * Autolinker's candidate pattern. Emails, phone numbers, Twitter handles and hashtags aren't linked, but they still
+   * need to be matched since they consume text that would otherwise be taken for a URL.
+   */
+  private static final Pattern CANDIDATE_PATTERN = Pattern.compile(
+      "(" + TWITTER + ")"
+          + "|(" + EMAIL_LOCAL_PART + DOMAIN + TLD + ")"
+          + "|((?:(" + PROTOCOL + DOMAIN + ")|(?:(.?//)?" + WWW + DOMAIN + ")|(?:(.?//)?" + DOMAIN + TLD + "))(?:" + URL_SUFFIX + ")?)"
+          + "|(" + PHONE + ")"
+          + "|(" + HASHTAG + ")",
+      CASE_INSENSITIVE);
+  private static final int URL_GROUP = 5;
+  private static final int PROTOCOL_URL_GROUP = 6;
+  private static final int WWW_PROTOCOL_RELATIVE_GROUP = 7;
+  private static final int TLD_PROTOCOL_RELATIVE_GROUP = 8;
+
+  private static final Pattern ENTITY_PATTERN = Pattern.compile("&nbsp;|&#160;|&lt;|&#60;|&gt;|&#62;|&quot;|&#34;|&#39;", CASE_INSENSITIVE);
+  private static final Pattern FULL_PROTOCOL_PATTERN = Pattern.compile("^[A-Za-z][-.+A-Za-z0-9]+://");
+  private static final Pattern WORD_CHAR_AFTER_PROTOCOL_PATTERN = Pattern.compile(":[^" + JS_WHITESPACE + "]*?[A-Za-z]");
+  private static final Pattern INVALID_PROTOCOL_RELATIVE_PATTERN = Pattern.compile("^\\w//");
+  private static final Pattern URL_PREFIX_PATTERN = Pattern.compile("^(https?://)?(www\\.)?", CASE_INSENSITIVE);
+
+  /**
+   * A pattern identifying all strings with a # in front and not starting with a number. Those are interpreted as
+   * irc-channels.
+   */
+  private static final Pattern CHANNEL_PATTERN = Pattern.compile("(^|\\s)(#[a-zA-Z]\\S+)", CASE_INSENSITIVE);
+  private static final int CHANNEL_NAME_GROUP = 2;
+
+  private final String text;
+  private final Pattern mentionPattern;
+  private final StringBuilder html;
+  /** The start of the text that has not been appended to {@link #html} yet and doesn't belong to a URL. */
+  private int plainTextStart;
+
+  private ChatMessageLinkifier(String text, Pattern mentionPattern) {
+    this.text = text;
+    this.mentionPattern = mentionPattern;
+    this.html = new StringBuilder(text.length() + 256);
+  }
+
+  /**
+   * @param text the HTML-escaped message
+   * @param mentionPattern a pattern whose first group is highlighted as a mention of the current user
+   */
+  static String linkify(String text, Pattern mentionPattern) {
+    ChatMessageLinkifier linkifier = new ChatMessageLinkifier(text, mentionPattern);
+    linkifier.linkifyUrls();
+    linkifier.appendPlainText(text.length());
+    return linkifier.html.toString();
+  }
+
+  private void linkifyUrls() {
+    Matcher entityMatcher = ENTITY_PATTERN.matcher(text);
+    Matcher candidateMatcher = CANDIDATE_PATTERN.matcher(text);
+    int textNodeStart = 0;
+    while (textNodeStart < text.length()) {
+      int textNodeEnd = text.length();
+      int nextTextNodeStart = text.length();
+      if (entityMatcher.find()) {
+        textNodeEnd = entityMatcher.start();
+        nextTextNodeStart = entityMatcher.end();
+      }
+      if (textNodeEnd > textNodeStart) {
+        // Anchoring and opaque bounds make the text node look like the whole input to the pattern, as it did in JS
+        candidateMatcher.region(textNodeStart, textNodeEnd);
+        while (candidateMatcher.find()) {
+          linkifyCandidate(candidateMatcher);
+        }
+      }
+      textNodeStart = nextTextNodeStart;
+    }
+  }
+
+  private void linkifyCandidate(Matcher candidateMatcher) {
+    String url = candidateMatcher.group(URL_GROUP);
+    if (url == null) {
+      return;
+    }
+    String protocolUrl = candidateMatcher.group(PROTOCOL_URL_GROUP);
+    String protocolRelative = candidateMatcher.group(WWW_PROTOCOL_RELATIVE_GROUP);
+    if (protocolRelative == null) {
+      protocolRelative = candidateMatcher.group(TLD_PROTOCOL_RELATIVE_GROUP);
+    }
+    if (!isValidUrl(url, protocolUrl, protocolRelative)) {
+      return;
+    }
+
+    int start = candidateMatcher.start();
+    int end = candidateMatcher.end();
+    if (hasUnbalancedClosingParenthesis(url)) {
+      end--;
+    }
+    if (protocolRelative != null && protocolRelative.length() == 3) {
+      // The character before "//" isn't part of the URL
+      start++;
+    }
+
+    appendPlainText(start);
+    appendUrl(text.substring(start, end), protocolUrl != null || protocolRelative != null, protocolRelative != null);
+    plainTextStart = end;
+  }
+
+  private static boolean isValidUrl(String url, String protocolUrl, String protocolRelative) {
+    if (protocolUrl != null) {
+      String scheme = protocolUrl.substring(0, protocolUrl.indexOf(':') + 1).toLowerCase(Locale.ROOT);
+      if ("javascript:".equals(scheme) || "vbscript:".equals(scheme)) {
+        return false;
+      }
+      if (!WORD_CHAR_AFTER_PROTOCOL_PATTERN.matcher(url).find()) {
+        return false;
+      }
+    }
+    if ((protocolUrl == null || !FULL_PROTOCOL_PATTERN.matcher(protocolUrl).find()) && url.indexOf('.') == -1) {
+      return false;
+    }
+    return protocolRelative == null || !INVALID_PROTOCOL_RELATIVE_PATTERN.matcher(protocolRelative).find();
+  }
+
+  private static boolean hasUnbalancedClosingParenthesis(String url) {
+    if (url.charAt(url.length() - 1) != ')') {
+      return false;
+    }
+    int balance = 0;
+    for (int i = 0; i < url.length(); i++) {
+      char character = url.charAt(i);
+      if (character == '(') {
+        balance++;
+      } else if (character == ')') {
+        balance--;
+      }
+    }
+    return balance < 0;
+  }
+
+  private void appendUrl(String matchedText, boolean hasProtocol, boolean protocolRelative) {
+    String url = hasProtocol ? matchedText : "http://" + matchedText;
+
+    String anchorText = url;
+    if (protocolRelative && anchorText.startsWith("//")) {
+      anchorText = anchorText.substring(2);
+    }
+    anchorText = URL_PREFIX_PATTERN.matcher(anchorText).replaceFirst("");
+    if (anchorText.endsWith("/")) {
+      anchorText = anchorText.substring(0, anchorText.length() - 1);
+    }
+
+    html.append("<a href=\"javascript:void(0);\" onClick=\"java.openUrl('").append(url)
+        .append("')\" onMouseOver=\"java.previewUrl('").append(url)
+        .append("')\" onMouseOut=\"java.hideUrlPreview()\">").append(anchorText).append("</a>");
+  }
+
+  /**
+   * Appends the text from {@link #plainTextStart} to the specified end, with channel names and mentions.
+   */
+  private void appendPlainText(int end) {
+    if (end <= plainTextStart) {
+      return;
+    }
+    // Non-anchoring bounds so that ^ only matches at the start of the message
+    Matcher channelMatcher = CHANNEL_PATTERN.matcher(text)
+        .region(plainTextStart, end)
+        .useAnchoringBounds(false);
+    int position = plainTextStart;
+    while (channelMatcher.find()) {
+      int channelNameStart = channelMatcher.start(CHANNEL_NAME_GROUP);
+      String channelName = channelMatcher.group(CHANNEL_NAME_GROUP);
+      appendMentions(position, channelNameStart);
+      html.append("<a href=\"javascript:void(0);\" onClick=\"java.openChannel('").append(channelName).append("')\">")
+          .append(channelName).append("</a>");
+      position = channelMatcher.end();
+    }
+    appendMentions(position, end);
+    plainTextStart = end;
+  }
+
+  private void appendMentions(int start, int end) {
+    Matcher mentionMatcher = mentionPattern.matcher(text).region(start, end);
+    int position = start;
+    while (mentionMatcher.find()) {
+      html.append(text, position, mentionMatcher.start())
+          .append("<span class='self'>").append(mentionMatcher.group(1)).append("</span>");
+      position = mentionMatcher.end();
+    }
+    html.append(text, position, end);
+  }
+}
@@ -24,6 +24,8 @@ import com.faforever.client.user.event.LoggedOutEvent;
 import com.faforever.client.user.event.LoginSuccessEvent;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.hash.Hashing;
@@ -55,6 +57,7 @@ import org.pircbotx.hooks.events.DisconnectEvent;
 import org.pircbotx.hooks.events.JoinEvent;
 import org.pircbotx.hooks.events.MessageEvent;
 import org.pircbotx.hooks.events.MotdEvent;
+import org.pircbotx.hooks.events.NickChangeEvent;
 import org.pircbotx.hooks.events.NoticeEvent;
 import org.pircbotx.hooks.events.OpEvent;
 import org.pircbotx.hooks.events.PartEvent;
@@ -77,11 +80,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.faforever.client.chat.ChatColorMode.DEFAULT;
 import static com.faforever.client.chat.ChatUserCategory.MODERATOR;
@@ -89,8 +96,8 @@ import static com.faforever.client.task.CompletableTask.Priority.HIGH;
 import static java.lang.String.format;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Locale.US;
-import static javafx.collections.FXCollections.observableHashMap;
 import static javafx.collections.FXCollections.observableMap;
+import static javafx.collections.FXCollections.synchronizedObservableMap;
 import static org.apache.commons.lang3.StringUtils.containsIgnoreCase;
 
 @Lazy
@@ -116,15 +123,30 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
   private final EventBus eventBus;
   private final ClientProperties clientProperties;
   private final PlayerService playerService;
-  /** Key is the result of {@link #mapKey(String, String)}. */
-  private final ObservableMap<String, ChatChannelUser> chatChannelUsersByChannelAndName = observableMap(new TreeMap<>(String.CASE_INSENSITIVE_ORDER));
+  /**
+   * Chat users by username, then by channel name. Both keys are the result of {@link #key(String)}. A user's channels
+   * are only modified within {@link Map#compute(Object, java.util.function.BiFunction)} on its entry.
+   */
+  private final Map<String, Map<String, ChatChannelUser>> chatUsersByNameAndChannel = new ConcurrentHashMap<>();
+  /**
+   * The names of the users in {@link #chatUsersByNameAndChannel}, by channel name. Both are results of {@link
+   * #key(String)}.
+   */
+  private final Map<String, Set<String>> usernamesByChannel = new ConcurrentHashMap<>();
+  /**
+   * One chat user for each user that is known in any channel, by username. Only updated by {@link
+   * #updateChatUsersByName(String)}.
+   */
+  private final ObservableMap<String, ChatChannelUser> chatUsersByName = synchronizedObservableMap(observableMap(new TreeMap<>(String.CASE_INSENSITIVE_ORDER)));
+  /** Shares the keys of {@link #chatUsersByNameAndChannel}, since every user and channel name is used many times. */
+  private final Interner<String> keyInterner = Interners.newWeakInterner();
   @VisibleForTesting
   ObjectProperty<ConnectionState> connectionState = new SimpleObjectProperty<>(ConnectionState.DISCONNECTED);
   private final Map<Class<? extends GenericEvent>, ArrayList<ChatEventListener>> eventListeners = new ConcurrentHashMap<>();
   /**
    * Maps channels by name.
    */
-  private final ObservableMap<String, Channel> channels = observableHashMap();
+  private final ObservableMap<String, Channel> channels = observableMap(new TreeMap<>(String.CASE_INSENSITIVE_ORDER));
   private final SimpleIntegerProperty unreadMessagesCount = new SimpleIntegerProperty();
   private String defaultChannelName;
 
@@ -161,6 +183,7 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
     addEventListener(JoinEvent.class, this::onJoinEvent);
     addEventListener(PartEvent.class, event -> onChatUserLeftChannel(event.getChannel().getName(), event.getUser().getNick()));
     addEventListener(QuitEvent.class, event -> onChatUserQuit(event.getUser().getNick()));
+    addEventListener(NickChangeEvent.class, event -> onNickChange(event.getOldNick(), event.getNewNick()));
     addEventListener(TopicEvent.class, event -> getOrCreateChannel(event.getChannel().getName()).setTopic(event.getTopic()));
     addEventListener(MessageEvent.class, this::onMessage);
     addEventListener(ActionEvent.class, this::onAction);
@@ -175,10 +198,10 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
     JavaFxUtil.addListener(chatPrefs.groupToColorProperty(),
         (MapChangeListener<? super ChatUserCategory, ? super Color>) change -> {
           preferencesService.store();
-          updateUserColors(chatPrefs.getChatColorMode());
+          updateUserColors(chatPrefs.getChatColorMode(), chatUser -> isInColorGroup(chatUser, change.getKey()));
         }
     );
-    JavaFxUtil.addListener(chatPrefs.chatColorModeProperty(), (observable, oldValue, newValue) -> updateUserColors(newValue));
+    JavaFxUtil.addListener(chatPrefs.chatColorModeProperty(), (observable, oldValue, newValue) -> updateUserColors(newValue, chatUser -> true));
   }
 
   private void onOp(OpEvent event) {
@@ -202,31 +225,47 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
     };
   }
 
-  private void updateUserColors(ChatColorMode chatColorMode) {
+  /**
+   * Returns whether the color of the specified group is used for the specified user, unless the user has a color of
+   * its own.
+   */
+  private boolean isInColorGroup(ChatChannelUser chatUser, ChatUserCategory group) {
+    if (group == MODERATOR) {
+      return chatUser.isModerator();
+    }
+    return chatUser.getSocialStatus().map(this::groupToColorKey).orElse(null) == group;
+  }
+
+  /**
+   * Updates the colors of all chat users that match the specified filter. The index is concurrent, so users that join or
+   * leave meanwhile don't have to wait for this.
+   */
+  private void updateUserColors(ChatColorMode chatColorMode, Predicate<ChatChannelUser> filter) {
     if (chatColorMode == null) {
       chatColorMode = DEFAULT;
     }
     ChatPrefs chatPrefs = preferencesService.getPreferences().getChat();
-    synchronized (chatChannelUsersByChannelAndName) {
-      switch (chatColorMode) {
-        case RANDOM -> chatChannelUsersByChannelAndName.values()
-            .forEach(chatUser -> chatUser.setColor(ColorGeneratorUtil.generateRandomColor(chatUser.getUsername().hashCode())));
-
-        default -> chatChannelUsersByChannelAndName.values()
-            .forEach(chatUser -> {
-              if (chatPrefs.getUserToColor().containsKey(userToColorKey(chatUser.getUsername()))) {
-                chatUser.setColor(chatPrefs.getUserToColor().get(userToColorKey(chatUser.getUsername())));
+    Stream<ChatChannelUser> chatUsers = chatUsersByNameAndChannel.values().stream()
+        .flatMap(chatUsersByChannel -> chatUsersByChannel.values().stream())
+        .filter(filter);
+    switch (chatColorMode) {
+      case RANDOM -> chatUsers
+          .forEach(chatUser -> chatUser.setColor(ColorGeneratorUtil.generateRandomColor(chatUser.getUsername().hashCode())));
+
+      default -> chatUsers
+          .forEach(chatUser -> {
+            if (chatPrefs.getUserToColor().containsKey(userToColorKey(chatUser.getUsername()))) {
+              chatUser.setColor(chatPrefs.getUserToColor().get(userToColorKey(chatUser.getUsername())));
+            } else {
+              if (chatUser.isModerator() && chatPrefs.getGroupToColor().containsKey(MODERATOR)) {
+                chatUser.setColor(chatPrefs.getGroupToColor().get(MODERATOR));
               } else {
-                if (chatUser.isModerator() && chatPrefs.getGroupToColor().containsKey(MODERATOR)) {
-                  chatUser.setColor(chatPrefs.getGroupToColor().get(MODERATOR));
-                } else {
-                  chatUser.setColor(chatUser.getSocialStatus()
-                      .map(status -> chatPrefs.getGroupToColor().getOrDefault(groupToColorKey(status), null))
-                      .orElse(null));
-                }
+                chatUser.setColor(chatUser.getSocialStatus()
+                    .map(status -> chatPrefs.getGroupToColor().getOrDefault(groupToColorKey(status), null))
+                    .orElse(null));
               }
-            });
-      }
+            }
+          });
     }
   }
 
@@ -351,7 +390,10 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
   }
 
   private void onChatUserLeftChannel(String channelName, String username) {
-    if (getOrCreateChannel(channelName).removeUser(username) == null) {
+    Channel channel = getChannel(channelName);
+    boolean wasInChannel = channel != null && channel.removeUser(username) != null;
+    removeChatUser(username, channelName);
+    if (!wasInChannel) {
       return;
     }
     log.debug("User '{}' left channel: {}", username, channelName);
@@ -359,22 +401,98 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
       synchronized (channels) {
         channels.remove(channelName);
       }
-    }
-    synchronized (chatChannelUsersByChannelAndName) {
-      chatChannelUsersByChannelAndName.remove(mapKey(username, channelName));
+      removeChatUsers(channelName);
     }
     // The server doesn't yet tell us when a user goes offline, so we have to rely on the user leaving IRC.
-    if (defaultChannelName.equals(channelName)) {
+    if (defaultChannelName.equalsIgnoreCase(channelName)) {
       eventBus.post(new UserOfflineEvent(username));
     }
   }
 
   private void onChatUserQuit(String username) {
+    Map<String, ChatChannelUser> chatUsersByChannel = chatUsersByNameAndChannel.get(key(username));
+    if (chatUsersByChannel == null) {
+      return;
+    }
+    new ArrayList<>(chatUsersByChannel.keySet()).forEach(channelName -> onChatUserLeftChannel(channelName, username));
+  }
+
+  private void onNickChange(String oldNick, String newNick) {
+    Map<String, ChatChannelUser> chatUsersByChannel = chatUsersByNameAndChannel.get(key(oldNick));
+    if (chatUsersByChannel == null) {
+      return;
+    }
+    log.debug("User '{}' is now known as: {}", oldNick, newNick);
+    new ArrayList<>(chatUsersByChannel.entrySet()).forEach(entry -> {
+      String channelName = entry.getKey();
+      Channel channel = getChannel(channelName);
+      removeChatUser(oldNick, channelName);
+      if (channel != null && channel.removeUser(oldNick) != null) {
+        channel.addUser(getOrCreateChatUser(newNick, channelName, entry.getValue().isModerator()));
+      }
+    });
+  }
+
+  /** Returns the channel with the specified name, without creating it if it doesn't exist. */
+  private Channel getChannel(String channelName) {
     synchronized (channels) {
-      channels.values().forEach(channel -> onChatUserLeftChannel(channel.getName(), username));
+      return channels.get(channelName);
     }
   }
 
+  private void removeChatUser(String username, String channelName) {
+    String channelKey = key(channelName);
+    AtomicBoolean userRemoved = new AtomicBoolean();
+    chatUsersByNameAndChannel.computeIfPresent(key(username), (usernameKey, chatUsersByChannel) -> {
+      if (chatUsersByChannel.remove(channelKey) != null) {
+        usernamesByChannel.computeIfPresent(channelKey, (key, usernames) -> {
+          usernames.remove(usernameKey);
+          return usernames.isEmpty() ? null : usernames;
+        });
+      }
+      if (!chatUsersByChannel.isEmpty()) {
+        return chatUsersByChannel;
+      }
+      userRemoved.set(true);
+      return null;
+    });
+    if (userRemoved.get()) {
+      updateChatUsersByName(username);
+    }
+  }
+
+  /**
+   * Adds a user to or removes it from {@link #chatUsersByName} after it has been added to or removed from {@link
+   * #chatUsersByNameAndChannel}. This must not happen within {@code compute}, since listeners of the observable map
+   * would then run while the user's entry is locked. Since the user may have joined or left again in the meantime, its
+   * current state is applied.
+   */
+  private void updateChatUsersByName(String username) {
+    synchronized (chatUsersByName) {
+      Map<String, ChatChannelUser> chatUsersByChannel = chatUsersByNameAndChannel.get(key(username));
+      if (chatUsersByChannel == null) {
+        chatUsersByName.remove(username);
+      } else if (!chatUsersByName.containsKey(username)) {
+        chatUsersByChannel.values().stream()
+            .findFirst()
+            .ifPresent(chatChannelUser -> chatUsersByName.put(username, chatChannelUser));
+      }
+    }
+  }
+
+  /** Removes all chat users of a channel, like when the channel has been left. */
+  private void removeChatUsers(String channelName) {
+    Set<String> usernames = usernamesByChannel.get(key(channelName));
+    if (usernames != null) {
+      new ArrayList<>(usernames).forEach(username -> removeChatUser(username, channelName));
+    }
+  }
+
+  /** Returns the normalized form of a user or channel name, since names are case-insensitive in IRC. */
+  private String key(String name) {
+    return name.toLowerCase(US);
+  }
+
   private void onModeratorSet(String channelName, String username) {
     getOrCreateChannel(channelName).addModerator(username);
   }
@@ -541,17 +659,32 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
 
   @Override
   public ChatChannelUser getOrCreateChatUser(String username, String channel, boolean isModerator) {
-    synchronized (chatChannelUsersByChannelAndName) {
-      String key = mapKey(username, channel);
-      if (!chatChannelUsersByChannelAndName.containsKey(key)) {
-        Optional<Player> optionalPlayer = playerService.getPlayerForUsername(username);
-
-        ChatChannelUser chatChannelUser = new ChatChannelUser(username, isModerator, optionalPlayer.orElse(null));
-        chatUserService.populateColor(chatChannelUser);
-        chatChannelUsersByChannelAndName.put(key, chatChannelUser);
+    String channelKey = keyInterner.intern(key(channel));
+    Map<String, ChatChannelUser> existingChatUsersByChannel = chatUsersByNameAndChannel.get(key(username));
+    if (existingChatUsersByChannel != null && existingChatUsersByChannel.containsKey(channelKey)) {
+      return existingChatUsersByChannel.get(channelKey);
+    }
+
+    Optional<Player> optionalPlayer = playerService.getPlayerForUsername(username);
+    ChatChannelUser chatChannelUser = new ChatChannelUser(username, isModerator, optionalPlayer.orElse(null));
+    chatUserService.populateColor(chatChannelUser);
+
+    AtomicBoolean userAdded = new AtomicBoolean();
+    Map<String, ChatChannelUser> chatUsersByChannel = chatUsersByNameAndChannel.compute(keyInterner.intern(key(username)), (usernameKey, existing) -> {
+      Map<String, ChatChannelUser> result = existing;
+      if (result == null) {
+        result = new ConcurrentHashMap<>();
+        userAdded.set(true);
+      }
+      if (result.putIfAbsent(channelKey, chatChannelUser) == null) {
+        usernamesByChannel.computeIfAbsent(channelKey, key -> ConcurrentHashMap.newKeySet()).add(usernameKey);
       }
-      return chatChannelUsersByChannelAndName.get(key);
+      return result;
+    });
+    if (userAdded.get()) {
+      updateChatUsersByName(username);
     }
+    return chatUsersByChannel.getOrDefault(channelKey, chatChannelUser);
   }
 
   @Override
@@ -561,9 +694,7 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
 
   @Override
   public void addChatUsersByNameListener(MapChangeListener<String, ChatChannelUser> listener) {
-    synchronized (chatChannelUsersByChannelAndName) {
-      JavaFxUtil.addListener(chatChannelUsersByChannelAndName, listener);
-    }
+    JavaFxUtil.addListener(chatUsersByName, listener);
   }
 
   @Override
@@ -651,7 +782,8 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
 
   @Override
   public ChatChannelUser getChatUser(String username, String channelName) {
-    return Optional.ofNullable(chatChannelUsersByChannelAndName.get(mapKey(username, channelName)))
+    return Optional.ofNullable(chatUsersByNameAndChannel.get(key(username)))
+        .map(chatUsersByChannel -> chatUsersByChannel.get(key(channelName)))
         .orElseThrow(() -> new IllegalArgumentException("Chat user '" + username + "' is unknown for channel '" + channelName + "'"));
   }
 
@@ -660,10 +792,6 @@ public class PircBotXChatService implements ChatService, InitializingBean, Dispo
     return defaultChannelName;
   }
 
-  private String mapKey(String username, String channelName) {
-    return username + channelName;
-  }
-
   interface ChatEventListener<T> {
 
     void onEvent(T event);
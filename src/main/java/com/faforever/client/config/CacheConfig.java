@@ -34,11 +34,11 @@ import static com.faforever.client.config.CacheNames.MAP_PREVIEW;
 import static com.faforever.client.config.CacheNames.MATCHMAKER_POOLS;
 import static com.faforever.client.config.CacheNames.MATCHMAKER_QUEUES;
 import static com.faforever.client.config.CacheNames.MODS;
-import static com.faforever.client.config.CacheNames.MOD_THUMBNAIL;
 import static com.faforever.client.config.CacheNames.NEWS;
 import static com.faforever.client.config.CacheNames.RATING_HISTORY;
 import static com.faforever.client.config.CacheNames.STATISTICS;
 import static com.faforever.client.config.CacheNames.THEME_IMAGES;
+import static com.faforever.client.config.CacheNames.THEME_TEMPLATES;
 import static com.faforever.client.config.CacheNames.URL_PREVIEW;
 import static com.github.benmanes.caffeine.cache.Caffeine.newBuilder;
 import static java.util.concurrent.TimeUnit.HOURS;
@@ -80,8 +80,8 @@ public class CacheConfig extends CachingConfigurerSupport {
         new CaffeineCache(COUNTRY_FLAGS, newBuilder().weakValues().build()),
         new CaffeineCache(COUNTRY_NAMES, newBuilder().weakValues().build()),
         new CaffeineCache(THEME_IMAGES, newBuilder().weakValues().build()),
-        new CaffeineCache(MOD_THUMBNAIL, newBuilder().weakValues().build()
-        )));
+        new CaffeineCache(THEME_TEMPLATES, newBuilder().build())
+    ));
     return simpleCacheManager;
   }
 
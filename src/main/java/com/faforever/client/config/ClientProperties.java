@@ -27,6 +27,8 @@ public class ClientProperties {
   private MapGenerator mapGenerator = new MapGenerator();
   private Website website = new Website();
   private Discord discord = new Discord();
+  private Download download = new Download();
+  private Images images = new Images();
   private String translationProjectUrl;
   private String clientConfigUrl;
   private boolean useRemotePreferences;
@@ -55,6 +57,11 @@ public class ClientProperties {
      * URL to download the ForgedAlliance.exe from.
      */
     private String exeUrl;
+
+    /**
+     * Maximum number of featured mod files that are downloaded and installed at the same time.
+     */
+    private int featuredModDownloadThreads = 4;
   }
 
   @Data
@@ -75,6 +82,10 @@ public class ClientProperties {
   public static class Server {
     private String host;
     private int port = 8001;
+    /**
+     * If set, all messages received from the lobby server are recorded to this file. Intended for load testing.
+     */
+    private String trafficRecordingFile;
   }
 
   @Data
@@ -86,6 +97,8 @@ public class ClientProperties {
     private String mapDownloadUrlFormat;
     private String mapPreviewUrlFormat;
     private String replayDownloadUrlFormat;
+    /** Number of threads reading installed maps in parallel; {@code 1} reads them sequentially. */
+    private int mapScanThreads = Runtime.getRuntime().availableProcessors();
   }
 
   @Data
@@ -165,4 +178,36 @@ public class ClientProperties {
     /** URL to join the FAF Discord server. */
     private String joinUrl;
   }
+
+  @Data
+  public static class Download {
+    /**
+     * Maximum number of parallel connections a single file is downloaded with, if the server supports range requests.
+     */
+    private int maxSegments = 4;
+    /**
+     * Minimum number of bytes downloaded per connection; smaller files are downloaded with fewer connections.
+     */
+    private long minSegmentSize = 8 * 1024 * 1024;
+  }
+
+  @Data
+  public static class Images {
+    /**
+     * Maximum number of bytes the decoded images kept in memory may occupy, counted as four bytes per pixel.
+     */
+    private long maxMemoryCacheSize = 128 * 1024 * 1024;
+    /**
+     * Maximum number of bytes of downloaded images kept on disk.
+     */
+    private long maxDiskCacheSize = 512 * 1024 * 1024;
+    /**
+     * Number of threads images are downloaded with.
+     */
+    private int fetchThreads = 4;
+    /**
+     * Number of threads images are decoded with.
+     */
+    private int decodeThreads = 2;
+  }
 }
@@ -0,0 +1,58 @@
+package com.faforever.client.fx;
+
+import javafx.application.Platform;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Collects updates from any thread and applies them on the JavaFX application thread in batches. Only one batch is
+ * scheduled at a time, so all updates that arrive until the application thread gets to it are applied at once. If
+ * several updates with the same key arrive within a batch, only the latest one is kept.
+ *
+ * @param <K> the type of the key that identifies updates of the same object
+ * @param <V> the type of the updates
+ */
+public class CoalescingUpdateQueue<K, V> {
+
+  private final Function<V, K> keyExtractor;
+  private final Consumer<Collection<V>> batchConsumer;
+  private final Object lock = new Object();
+
+  private Map<K, V> pendingUpdates = new LinkedHashMap<>();
+  private boolean flushScheduled;
+
+  /**
+   * @param keyExtractor extracts the key of an update, updates with equal keys replace each other
+   * @param batchConsumer applies a batch of updates, called on the application thread
+   */
+  public CoalescingUpdateQueue(Function<V, K> keyExtractor, Consumer<Collection<V>> batchConsumer) {
+    this.keyExtractor = keyExtractor;
+    this.batchConsumer = batchConsumer;
+  }
+
+  public void submit(V update) {
+    K key = keyExtractor.apply(update);
+    synchronized (lock) {
+      pendingUpdates.put(key, update);
+      if (flushScheduled) {
+        return;
+      }
+      flushScheduled = true;
+    }
+    Platform.runLater(this::flush);
+  }
+
+  private void flush() {
+    Map<K, V> updates;
+    synchronized (lock) {
+      updates = pendingUpdates;
+      pendingUpdates = new LinkedHashMap<>();
+      flushScheduled = false;
+    }
+    batchConsumer.accept(updates.values());
+  }
+}
@@ -7,6 +7,7 @@ import com.faforever.client.fa.ForgedAllianceService;
 import com.faforever.client.fa.RatingMode;
 import com.faforever.client.fa.relay.event.RehostRequestEvent;
 import com.faforever.client.fa.relay.ice.IceAdapter;
+import com.faforever.client.fx.CoalescingUpdateQueue;
 import com.faforever.client.fx.JavaFxUtil;
 import com.faforever.client.fx.PlatformService;
 import com.faforever.client.i18n.I18n;
@@ -41,7 +42,6 @@ import com.faforever.client.util.TimeUtil;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
-import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
 import javafx.beans.Observable;
 import javafx.beans.property.BooleanProperty;
@@ -150,6 +150,7 @@ public class GameService implements InitializingBean {
   private final ObservableList<Game> games;
   private final String faWindowTitle;
   private final BooleanProperty inMatchmakerQueue;
+  private final CoalescingUpdateQueue<Integer, GameInfoMessage> gameInfoUpdates;
 
   private Process process;
   private boolean rehostRequested;
@@ -202,6 +203,7 @@ public class GameService implements InitializingBean {
         item -> new Observable[]{item.statusProperty(), item.getTeams()}
     );
     forgedAlliancePrefs = preferencesService.getPreferences().getForgedAlliance();
+    gameInfoUpdates = new CoalescingUpdateQueue<>(GameInfoMessage::getUid, this::onGameInfos);
   }
 
   @Override
@@ -229,7 +231,7 @@ public class GameService implements InitializingBean {
 
     eventBus.register(this);
 
-    fafService.addOnMessageListener(GameInfoMessage.class, message -> Platform.runLater(() -> onGameInfo(message)));
+    fafService.addOnMessageListener(GameInfoMessage.class, this::submitGameInfo);
     fafService.addOnMessageListener(LoginMessage.class, message -> onLoggedIn());
 
     JavaFxUtil.addListener(
@@ -724,14 +726,25 @@ public class GameService implements InitializingBean {
     }
   }
 
-  private void onGameInfo(GameInfoMessage gameInfoMessage) {
-    // Since all game updates are usually reflected on the UI and to prevent deadlocks
-    JavaFxUtil.assertApplicationThread();
-
+  /**
+   * Queues a game update to be applied on the application thread. The server sends many updates for the same games,
+   * so only the latest update of each game is applied per batch.
+   */
+  private void submitGameInfo(GameInfoMessage gameInfoMessage) {
     if (gameInfoMessage.getGames() != null) {
-      gameInfoMessage.getGames().forEach(this::onGameInfo);
+      gameInfoMessage.getGames().forEach(gameInfoUpdates::submit);
       return;
     }
+    gameInfoUpdates.submit(gameInfoMessage);
+  }
+
+  private void onGameInfos(Collection<GameInfoMessage> gameInfoMessages) {
+    gameInfoMessages.forEach(this::onGameInfo);
+  }
+
+  private void onGameInfo(GameInfoMessage gameInfoMessage) {
+    // Since all game updates are usually reflected on the UI and to prevent deadlocks
+    JavaFxUtil.assertApplicationThread();
 
     // We may receive game info before we receive our player info
     Optional<Player> currentPlayerOptional = playerService.getCurrentPlayer();
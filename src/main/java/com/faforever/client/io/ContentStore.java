@@ -0,0 +1,261 @@
+package com.faforever.client.io;
+
+import com.faforever.client.task.ResourceLocks;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.reflect.TypeToken;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Store of files that are named after their content or origin, like the featured mod cache or the image cache. Stored
+ * files are installed by hard link where the file system supports it, so that installing a file that is already stored
+ * neither copies nor moves it. The stored files are indexed in memory in least recently used order; the index is
+ * persisted so that the store only needs to be walked if there is no index yet. Index entries of files that have
+ * been deleted by someone else are removed when the files are looked up.
+ */
+@Slf4j
+public class ContentStore {
+
+  /**
+   * Suffix of files that are being written to the store directory and must not be indexed. Files are written under a
+   * name with this suffix and moved to their stored name once they are complete.
+   */
+  public static final String TEMPORARY_FILE_SUFFIX = ".part";
+
+  private static final int INDEX_FORMAT_VERSION = 1;
+
+  private final Path storeDirectory;
+  private final VersionedJsonFile<List<Entry>> indexFile;
+  /** Stored files by their path relative to the store directory, least recently used first. */
+  private final LinkedHashMap<String, Entry> entries;
+  private long totalSize;
+  private boolean loaded;
+  private boolean dirty;
+
+  public ContentStore(Path storeDirectory, Path indexFile) {
+    this.storeDirectory = storeDirectory;
+    this.indexFile = new VersionedJsonFile<>(indexFile, INDEX_FORMAT_VERSION, new TypeToken<List<Entry>>() {}.getType());
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Installs a stored file at the specified target path, replacing any existing file. The target is a hard link to the
+   * stored file if possible, and a copy otherwise, for instance if the target is on a different file system.
+   */
+  public static void install(Path storedFile, Path targetFile) throws IOException {
+    Path temporaryFile = targetFile.resolveSibling(targetFile.getFileName() + ".install");
+    Files.deleteIfExists(temporaryFile);
+    try {
+      Files.createLink(temporaryFile, storedFile);
+    } catch (IOException | UnsupportedOperationException e) {
+      log.debug("Could not link '{}', copying it instead ({})", storedFile, e.getMessage());
+      Files.copy(storedFile, temporaryFile, StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
+    }
+    try {
+      Files.move(temporaryFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      Files.deleteIfExists(temporaryFile);
+      throw e;
+    }
+  }
+
+  /**
+   * Loads the index, unless it has already been loaded. If there is no readable index, it is rebuilt from the files in
+   * the store. Since that walks the store, this must not be called while holding the disk lock.
+   */
+  public synchronized void load() {
+    if (loaded) {
+      return;
+    }
+    loaded = true;
+    if (readIndex()) {
+      return;
+    }
+    log.debug("Rebuilding index of content store '{}'", storeDirectory);
+    try {
+      rebuildIndex();
+    } catch (IOException | UncheckedIOException e) {
+      log.warn("Could not index content store '{}'", storeDirectory, e);
+    }
+  }
+
+  private boolean readIndex() {
+    Optional<List<Entry>> index = indexFile.read();
+    index.ifPresent(indexEntries -> indexEntries.stream()
+        .filter(entry -> entry != null && entry.getPath() != null)
+        .sorted(Comparator.comparingLong(Entry::getLastAccess))
+        .forEach(this::addEntry));
+    return index.isPresent();
+  }
+
+  private void rebuildIndex() throws IOException {
+    entries.clear();
+    totalSize = 0;
+    dirty = true;
+    if (!Files.isDirectory(storeDirectory)) {
+      return;
+    }
+
+    List<Entry> storedEntries = new ArrayList<>();
+    try (Stream<Path> files = Files.walk(storeDirectory)) {
+      for (Path file : files.filter(ContentStore::isStoredFile).collect(Collectors.toList())) {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        storedEntries.add(new Entry(toKey(file), attributes.size(), attributes.lastAccessTime().toMillis()));
+      }
+    }
+    storedEntries.sort(Comparator.comparingLong(Entry::getLastAccess));
+    storedEntries.forEach(this::addEntry);
+  }
+
+  private static boolean isStoredFile(Path file) {
+    return Files.isRegularFile(file) && !file.getFileName().toString().endsWith(TEMPORARY_FILE_SUFFIX);
+  }
+
+  /**
+   * Returns whether the specified file is in the store and, if so, marks it as used, so that it isn't evicted soon.
+   */
+  public synchronized boolean contains(Path storedFile) throws IOException {
+    if (Files.notExists(storedFile)) {
+      remove(storedFile);
+      return false;
+    }
+    touch(storedFile);
+    return true;
+  }
+
+  /**
+   * Adds a file that has been written to the store to the index or, if it's already indexed, marks it as used.
+   */
+  public synchronized void touch(Path storedFile) throws IOException {
+    load();
+    removeEntry(toKey(storedFile));
+    addEntry(new Entry(toKey(storedFile), Files.size(storedFile), System.currentTimeMillis()));
+    dirty = true;
+  }
+
+  /**
+   * Removes a file that has been moved out of the store from the index.
+   */
+  public synchronized void remove(Path storedFile) {
+    load();
+    if (removeEntry(toKey(storedFile)) != null) {
+      dirty = true;
+    }
+  }
+
+  public synchronized long getTotalSize() {
+    load();
+    return totalSize;
+  }
+
+  /**
+   * Deletes the least recently used files until the store is no larger than the specified size, as well as all files
+   * that haven't been used since the specified time. Files that are used while this method runs are never deleted.
+   *
+   * @return the number of deleted files
+   */
+  public int evict(long maxTotalSize, Instant unusedSince) {
+    long startTime = System.currentTimeMillis();
+    int evictedFiles = 0;
+    load();
+    while (true) {
+      ResourceLocks.acquireDiskLock();
+      try {
+        synchronized (this) {
+          Iterator<Entry> iterator = entries.values().iterator();
+          if (!iterator.hasNext()) {
+            return evictedFiles;
+          }
+          Entry entry = iterator.next();
+          boolean tooLarge = totalSize > maxTotalSize;
+          boolean unused = entry.getLastAccess() < unusedSince.toEpochMilli();
+          if (entry.getLastAccess() >= startTime || !(tooLarge || unused)) {
+            return evictedFiles;
+          }
+          iterator.remove();
+          totalSize -= entry.getSize();
+          dirty = true;
+          Path storedFile = storeDirectory.resolve(entry.getPath());
+          log.debug("Evicting '{}' from content store", storedFile);
+          try {
+            Files.deleteIfExists(storedFile);
+            evictedFiles++;
+          } catch (IOException e) {
+            log.warn("Could not delete '{}' from content store", storedFile, e);
+          }
+        }
+      } finally {
+        ResourceLocks.freeDiskLock();
+      }
+    }
+  }
+
+  /**
+   * Persists the index if it has been changed.
+   */
+  public synchronized void save() throws IOException {
+    if (!dirty) {
+      return;
+    }
+    indexFile.write(new ArrayList<>(entries.values()));
+    dirty = false;
+  }
+
+  /**
+   * Returns the stored files, least recently used first.
+   */
+  @VisibleForTesting
+  synchronized List<Path> getStoredFiles() {
+    load();
+    return entries.keySet().stream()
+        .map(storeDirectory::resolve)
+        .collect(Collectors.toList());
+  }
+
+  private String toKey(Path storedFile) {
+    return storeDirectory.relativize(storedFile).toString();
+  }
+
+  private void addEntry(Entry entry) {
+    Entry previousEntry = entries.put(entry.getPath(), entry);
+    if (previousEntry != null) {
+      totalSize -= previousEntry.getSize();
+    }
+    totalSize += entry.getSize();
+  }
+
+  private Entry removeEntry(String key) {
+    Entry entry = entries.remove(key);
+    if (entry != null) {
+      totalSize -= entry.getSize();
+    }
+    return entry;
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  private static class Entry {
+    private String path;
+    private long size;
+    private long lastAccess;
+  }
+}
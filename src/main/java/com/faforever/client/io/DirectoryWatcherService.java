@@ -0,0 +1,290 @@
+package com.faforever.client.io;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches vault directories like the maps or mods directory on a single daemon thread. Events are merged per entry of
+ * the watched directory until there has been no activity on that entry for a quiet period, so that a map or mod that
+ * is still being unpacked is reported once, after it has been written completely. Folders created in a watched
+ * directory are watched as well, so that writing their files counts as activity, until they have been reported.
+ */
+@Slf4j
+@Service
+public class DirectoryWatcherService implements DisposableBean {
+
+  public static final Duration DEFAULT_QUIET_PERIOD = Duration.ofSeconds(1);
+
+  private final Map<WatchKey, WatchedEntry> watchedEntriesByKey = new ConcurrentHashMap<>();
+  private WatchService watchService;
+  private Thread watcherThread;
+  private ExecutorService listenerExecutor;
+
+  /**
+   * Starts watching the specified directory. The listener is called with all entries that have been created, changed or
+   * deleted since it has last been called, or with {@link DirectoryChanges#isOverflow()} set if events have been lost
+   * and the directory needs to be rescanned. Listeners are called one at a time on a separate thread, so that a slow
+   * listener doesn't delay watching.
+   */
+  public synchronized Registration watch(Path directory, Duration quietPeriod, Consumer<DirectoryChanges> listener) throws IOException {
+    if (watchService == null) {
+      watchService = directory.getFileSystem().newWatchService();
+      listenerExecutor = Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder().setNameFormat("directory-watcher-listener").setDaemon(true).build());
+      watcherThread = new Thread(this::run, "directory-watcher");
+      watcherThread.setDaemon(true);
+      watcherThread.start();
+    }
+
+    WatchedDirectory watchedDirectory = new WatchedDirectory(directory, quietPeriod.toNanos(), listener);
+    WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+    watchedEntriesByKey.put(key, new WatchedEntry(watchedDirectory, null));
+    return () -> {
+      watchedDirectory.closed = true;
+      watchedEntriesByKey.entrySet().removeIf(entry -> {
+        if (entry.getValue().getDirectory() != watchedDirectory) {
+          return false;
+        }
+        entry.getKey().cancel();
+        return true;
+      });
+    };
+  }
+
+  private void run() {
+    Map<WatchedDirectory, Map<Path, Long>> pendingEntries = new HashMap<>();
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        long nextDeadline = pendingEntries.values().stream()
+            .flatMap(entries -> entries.values().stream())
+            .mapToLong(Long::longValue)
+            .min()
+            .orElse(Long.MAX_VALUE);
+
+        WatchKey key;
+        if (nextDeadline == Long.MAX_VALUE) {
+          key = watchService.take();
+        } else {
+          key = watchService.poll(Math.max(0, nextDeadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        if (key != null) {
+          onEvents(key, pendingEntries);
+        }
+        notifyQuietEntries(pendingEntries);
+      }
+    } catch (InterruptedException | ClosedWatchServiceException | RejectedExecutionException e) {
+      log.debug("Directory watcher has been stopped");
+    }
+  }
+
+  private void onEvents(WatchKey key, Map<WatchedDirectory, Map<Path, Long>> pendingEntries) {
+    WatchedEntry watchedEntry = watchedEntriesByKey.get(key);
+    if (watchedEntry == null) {
+      key.pollEvents();
+      key.cancel();
+      return;
+    }
+    WatchedDirectory watchedDirectory = watchedEntry.getDirectory();
+    Map<Path, Long> pending = pendingEntries.computeIfAbsent(watchedDirectory, directory -> new HashMap<>());
+    long deadline = System.nanoTime() + watchedDirectory.quietPeriodNanos;
+
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (watchedEntry.getEntry() != null) {
+        // Any activity within an entry's folder delays its notification
+        pending.put(watchedEntry.getEntry(), deadline);
+        continue;
+      }
+      if (event.kind() == OVERFLOW) {
+        watchedDirectory.overflow = true;
+        pending.put(watchedDirectory.directory, deadline);
+        continue;
+      }
+      Path entry = watchedDirectory.directory.resolve((Path) event.context());
+      if (event.kind() == ENTRY_CREATE && Files.isDirectory(entry)) {
+        watchEntryFolder(watchedDirectory, entry);
+      }
+      pending.put(entry, deadline);
+    }
+
+    if (!key.reset()) {
+      watchedEntriesByKey.remove(key);
+      if (watchedEntry.getEntry() != null) {
+        watchedDirectory.entryFolderKeys.remove(watchedEntry.getEntry(), key);
+      } else {
+        log.warn("Directory '{}' is no longer accessible, stopped watching it", watchedDirectory.directory);
+      }
+    }
+  }
+
+  private void watchEntryFolder(WatchedDirectory watchedDirectory, Path entry) {
+    try {
+      WatchKey key = entry.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+      watchedEntriesByKey.put(key, new WatchedEntry(watchedDirectory, entry));
+      WatchKey previousKey = watchedDirectory.entryFolderKeys.put(entry, key);
+      if (previousKey != null && previousKey != key) {
+        stopWatching(previousKey);
+      }
+    } catch (IOException e) {
+      log.debug("Could not watch folder '{}' ({})", entry, e.getMessage());
+    }
+  }
+
+  /**
+   * Stops watching the folder of an entry that has been reported, since it only needs to be watched while it is being
+   * written.
+   */
+  private void stopWatchingEntryFolder(WatchedDirectory watchedDirectory, Path entry) {
+    WatchKey key = watchedDirectory.entryFolderKeys.remove(entry);
+    if (key != null) {
+      stopWatching(key);
+    }
+  }
+
+  private void stopWatching(WatchKey key) {
+    key.cancel();
+    watchedEntriesByKey.remove(key);
+  }
+
+  private void notifyQuietEntries(Map<WatchedDirectory, Map<Path, Long>> pendingEntries) {
+    long now = System.nanoTime();
+    Iterator<Map.Entry<WatchedDirectory, Map<Path, Long>>> iterator = pendingEntries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<WatchedDirectory, Map<Path, Long>> pendingEntry = iterator.next();
+      WatchedDirectory watchedDirectory = pendingEntry.getKey();
+      Map<Path, Long> pending = pendingEntry.getValue();
+      if (watchedDirectory.closed) {
+        iterator.remove();
+        continue;
+      }
+
+      Set<Path> changedEntries = new HashSet<>();
+      Set<Path> deletedEntries = new HashSet<>();
+      boolean overflow = false;
+      Iterator<Map.Entry<Path, Long>> entryIterator = pending.entrySet().iterator();
+      while (entryIterator.hasNext()) {
+        Map.Entry<Path, Long> entry = entryIterator.next();
+        if (entry.getValue() - now > 0) {
+          continue;
+        }
+        entryIterator.remove();
+        Path path = entry.getKey();
+        if (path.equals(watchedDirectory.directory)) {
+          overflow = watchedDirectory.overflow;
+          watchedDirectory.overflow = false;
+        } else {
+          stopWatchingEntryFolder(watchedDirectory, path);
+          if (Files.exists(path)) {
+            changedEntries.add(path);
+          } else {
+            deletedEntries.add(path);
+          }
+        }
+      }
+      if (pending.isEmpty()) {
+        iterator.remove();
+      }
+      if (changedEntries.isEmpty() && deletedEntries.isEmpty() && !overflow) {
+        continue;
+      }
+
+      DirectoryChanges directoryChanges = new DirectoryChanges(watchedDirectory.directory, changedEntries, deletedEntries, overflow);
+      listenerExecutor.execute(() -> notifyListener(watchedDirectory, directoryChanges));
+    }
+  }
+
+  private void notifyListener(WatchedDirectory watchedDirectory, DirectoryChanges directoryChanges) {
+    if (watchedDirectory.closed) {
+      return;
+    }
+    try {
+      watchedDirectory.listener.accept(directoryChanges);
+    } catch (RuntimeException e) {
+      log.warn("Listener of directory '{}' failed", watchedDirectory.directory, e);
+    }
+  }
+
+  @Override
+  public synchronized void destroy() throws IOException {
+    if (watcherThread != null) {
+      watcherThread.interrupt();
+    }
+    if (listenerExecutor != null) {
+      listenerExecutor.shutdownNow();
+    }
+    if (watchService != null) {
+      watchService.close();
+    }
+  }
+
+  /**
+   * Stops watching a directory when closed.
+   */
+  public interface Registration extends Closeable {
+    @Override
+    void close();
+  }
+
+  @Value
+  public static class DirectoryChanges {
+    Path directory;
+    /** Entries that have been created or changed and still exist. */
+    Set<Path> changedEntries;
+    Set<Path> deletedEntries;
+    /** Whether events have been lost, in which case the directory needs to be rescanned. */
+    boolean overflow;
+  }
+
+  private static class WatchedDirectory {
+    private final Path directory;
+    private final long quietPeriodNanos;
+    private final Consumer<DirectoryChanges> listener;
+    /** Watch keys of the folders of entries that haven't been reported yet, only used on the watcher thread. */
+    private final Map<Path, WatchKey> entryFolderKeys = new HashMap<>();
+    private volatile boolean closed;
+    private boolean overflow;
+
+    private WatchedDirectory(Path directory, long quietPeriodNanos, Consumer<DirectoryChanges> listener) {
+      this.directory = directory;
+      this.quietPeriodNanos = quietPeriodNanos;
+      this.listener = listener;
+    }
+  }
+
+  /**
+   * A watched directory, or a folder within it if {@code entry} is set.
+   */
+  @Value
+  private static class WatchedEntry {
+    WatchedDirectory directory;
+    Path entry;
+  }
+}
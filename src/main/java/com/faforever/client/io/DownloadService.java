@@ -1,49 +1,417 @@
 package com.faforever.client.io;
 
+import com.faforever.client.config.ClientProperties;
 import com.faforever.client.task.ResourceLocks;
-import com.faforever.commons.io.ByteCopier;
 import com.faforever.commons.io.ByteCountListener;
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Downloads files over HTTP. Partially downloaded files are kept next to the target file and resumed by range requests
+ * the next time the same URL is downloaded to the same target. If the server supports range requests, large files are
+ * downloaded in several segments in parallel.
+ */
 @Service
 @Lazy
 @Slf4j
+@RequiredArgsConstructor
 public class DownloadService {
 
+  /** Partial files end like files that are being written to a {@link ContentStore}, since they may be written to one. */
+  private static final String PARTIAL_FILE_SUFFIX = ContentStore.TEMPORARY_FILE_SUFFIX;
+  private static final String PARTIAL_DOWNLOAD_FILE_SUFFIX = ".json" + PARTIAL_FILE_SUFFIX;
+  private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("bytes \\d+-\\d+/(\\d+)");
+  private static final int BUFFER_SIZE = 8192;
+  private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+  private final ClientProperties clientProperties;
+  private final Gson gson = new Gson();
+
   public void downloadFile(URL url, Path targetFile, ByteCountListener progressListener) throws IOException {
-    Path tempFile = Files.createTempFile(targetFile.getParent(), "download", null);
+    downloadFile(url, targetFile, progressListener, null);
+  }
 
-    HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+  /**
+   * Downloads the specified URL to the target file, replacing any existing file.
+   *
+   * @param expectedMd5 if set, the downloaded file is only moved to the target file if it has this MD5 hash; otherwise,
+   * the partial download is discarded and an {@link IOException} is thrown
+   */
+  public void downloadFile(URL url, Path targetFile, ByteCountListener progressListener, @Nullable String expectedMd5) throws IOException {
+    Files.createDirectories(targetFile.getParent());
 
     ResourceLocks.acquireDownloadLock();
-    try (InputStream inputStream = url.openStream();
-         OutputStream outputStream = Files.newOutputStream(tempFile)) {
+    try {
+      try {
+        download(url, targetFile, progressListener, expectedMd5);
+      } catch (RangeNotSatisfiedException e) {
+        log.info("Download of '{}' could not be resumed, restarting it", url);
+        deletePartialDownload(targetFile);
+        download(url, targetFile, progressListener, expectedMd5);
+      }
+    } finally {
+      ResourceLocks.freeDownloadLock();
+    }
+  }
 
-      ByteCopier.from(inputStream)
-          .to(outputStream)
-          .totalBytes(urlConnection.getContentLength())
-          .listener(progressListener)
-          .copy();
+  private void download(URL url, Path targetFile, ByteCountListener progressListener, @Nullable String expectedMd5) throws IOException {
+    PartialDownload partialDownload = readPartialDownload(url, targetFile);
+    HttpURLConnection firstConnection = null;
+    if (partialDownload == null) {
+      deletePartialDownload(targetFile);
+      firstConnection = openConnection(url, 0, -1, null);
+      partialDownload = createPartialDownload(url, firstConnection);
+      writePartialDownload(targetFile, partialDownload);
+    } else {
+      log.debug("Resuming download of '{}'", url);
+    }
+
+    List<Segment> segments = partialDownload.getSegments();
+    long alreadyDownloaded = 0;
+    for (int index = 0; index < segments.size(); index++) {
+      Path segmentFile = getSegmentFile(targetFile, index);
+      alreadyDownloaded += Files.exists(segmentFile) ? Files.size(segmentFile) : 0;
+    }
+    Progress progress = new Progress(progressListener, partialDownload.getTotalLength(), alreadyDownloaded);
 
-      Files.move(tempFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+    Path downloadedFile;
+    MessageDigest digest = expectedMd5 == null ? null : createMd5Digest();
+    if (segments.size() == 1) {
+      downloadSegment(url, targetFile, partialDownload, 0, firstConnection, digest, progress);
+      downloadedFile = getSegmentFile(targetFile, 0);
+    } else {
+      downloadSegments(url, targetFile, partialDownload, firstConnection, progress);
+      downloadedFile = joinSegments(targetFile, segments.size(), digest);
+    }
+
+    if (digest != null) {
+      String actualMd5 = BaseEncoding.base16().lowerCase().encode(digest.digest());
+      if (!expectedMd5.equalsIgnoreCase(actualMd5)) {
+        Files.deleteIfExists(downloadedFile);
+        deletePartialDownload(targetFile);
+        throw new IOException("Checksum of '" + url + "' is " + actualMd5 + " but should be " + expectedMd5);
+      }
+    }
+
+    Files.move(downloadedFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+    deletePartialDownload(targetFile);
+  }
+
+  private void downloadSegments(URL url, Path targetFile, PartialDownload partialDownload,
+                                @Nullable HttpURLConnection firstConnection, Progress progress) throws IOException {
+    int segmentCount = partialDownload.getSegments().size();
+    ExecutorService executorService = Executors.newFixedThreadPool(segmentCount,
+        new ThreadFactoryBuilder().setNameFormat("download-segment-%d").setDaemon(true).build());
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int index = 0; index < segmentCount; index++) {
+        int segmentIndex = index;
+        HttpURLConnection connection = index == 0 ? firstConnection : null;
+        futures.add(executorService.submit(() -> {
+          downloadSegment(url, targetFile, partialDownload, segmentIndex, connection, null, progress);
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Download of '" + url + "' has been interrupted", e);
     } finally {
-      ResourceLocks.freeDownloadLock();
-      try {
-        Files.deleteIfExists(tempFile);
-      } catch (IOException e) {
-        log.warn("Could not delete temporary file: " + tempFile.toAbsolutePath(), e);
+      executorService.shutdownNow();
+    }
+  }
+
+  /**
+   * Downloads the missing bytes of a segment and appends them to its file.
+   *
+   * @param connection a connection that has been opened for the start of the segment, or {@code null} to open one
+   * @param digest if set, updated with all bytes of the segment, including the ones that had already been downloaded
+   */
+  private void downloadSegment(URL url, Path targetFile, PartialDownload partialDownload, int index,
+                               @Nullable HttpURLConnection connection, @Nullable MessageDigest digest, Progress progress) throws IOException {
+    Segment segment = partialDownload.getSegments().get(index);
+    Path segmentFile = getSegmentFile(targetFile, index);
+    long length = segment.getLength(partialDownload.getTotalLength());
+    long downloaded = Files.exists(segmentFile) ? Files.size(segmentFile) : 0;
+
+    if (downloaded > 0 && (!partialDownload.isRangesSupported() || (length >= 0 && downloaded > length))) {
+      progress.add(-downloaded);
+      Files.delete(segmentFile);
+      downloaded = 0;
+    }
+    if (digest != null && downloaded > 0) {
+      try (InputStream inputStream = new DigestInputStream(Files.newInputStream(segmentFile), digest)) {
+        inputStream.transferTo(OutputStream.nullOutputStream());
+      }
+    }
+    if (length >= 0 && downloaded == length) {
+      if (connection != null) {
+        connection.disconnect();
+      }
+      return;
+    }
+
+    if (connection == null) {
+      connection = openConnection(url, segment.getStart() + downloaded, segment.getEnd(), partialDownload.getValidator());
+      int responseCode = connection.getResponseCode();
+      if ((responseCode == HttpURLConnection.HTTP_OK && segment.getStart() + downloaded > 0)
+          || responseCode == HTTP_RANGE_NOT_SATISFIABLE) {
+        // The server ignored the range or the file has changed since the download has been started
+        connection.disconnect();
+        throw new RangeNotSatisfiedException();
+      }
+      checkResponseCode(url, connection);
+    }
+
+    try (InputStream inputStream = connection.getInputStream();
+         OutputStream outputStream = Files.newOutputStream(segmentFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      byte[] buffer = new byte[BUFFER_SIZE];
+      long remaining = length >= 0 ? length - downloaded : Long.MAX_VALUE;
+      int read;
+      while (remaining > 0 && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+        outputStream.write(buffer, 0, read);
+        if (digest != null) {
+          digest.update(buffer, 0, read);
+        }
+        remaining -= read;
+        progress.add(read);
+      }
+    } finally {
+      connection.disconnect();
+    }
+
+    if (length >= 0 && Files.size(segmentFile) != length) {
+      throw new IOException("Download of '" + url + "' ended after " + Files.size(segmentFile) + " of " + length + " bytes of segment " + index);
+    }
+  }
+
+  private Path joinSegments(Path targetFile, int segmentCount, @Nullable MessageDigest digest) throws IOException {
+    Path joinedFile = targetFile.resolveSibling(targetFile.getFileName() + PARTIAL_FILE_SUFFIX);
+    try (OutputStream outputStream = Files.newOutputStream(joinedFile)) {
+      for (int index = 0; index < segmentCount; index++) {
+        try (InputStream inputStream = Files.newInputStream(getSegmentFile(targetFile, index))) {
+          InputStream segmentInputStream = digest == null ? inputStream : new DigestInputStream(inputStream, digest);
+          segmentInputStream.transferTo(outputStream);
+        }
+      }
+    }
+    return joinedFile;
+  }
+
+  private HttpURLConnection openConnection(URL url, long from, long to, @Nullable String validator) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setRequestProperty("Range", "bytes=" + from + "-" + (to >= 0 ? String.valueOf(to) : ""));
+    if (validator != null) {
+      connection.setRequestProperty("If-Range", validator);
+    }
+    return connection;
+  }
+
+  private void checkResponseCode(URL url, HttpURLConnection connection) throws IOException {
+    int responseCode = connection.getResponseCode();
+    if (responseCode != HttpURLConnection.HTTP_OK && responseCode != HttpURLConnection.HTTP_PARTIAL) {
+      connection.disconnect();
+      throw new IOException("Download of '" + url + "' failed with HTTP status " + responseCode);
+    }
+  }
+
+  /**
+   * Describes the download that has just been started with the specified connection, splitting it into segments if the
+   * server supports range requests and the file is large enough.
+   */
+  private PartialDownload createPartialDownload(URL url, HttpURLConnection connection) throws IOException {
+    checkResponseCode(url, connection);
+    boolean rangesSupported = connection.getResponseCode() == HttpURLConnection.HTTP_PARTIAL;
+
+    long totalLength = connection.getContentLengthLong();
+    if (rangesSupported) {
+      Matcher matcher = CONTENT_RANGE_PATTERN.matcher(String.valueOf(connection.getHeaderField("Content-Range")));
+      totalLength = matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    // If-Range only accepts strong entity tags
+    String validator = connection.getHeaderField("ETag");
+    if (validator == null || validator.startsWith("W/")) {
+      validator = connection.getHeaderField("Last-Modified");
+    }
+
+    ClientProperties.Download properties = clientProperties.getDownload();
+    int segmentCount = 1;
+    if (rangesSupported && totalLength > 0) {
+      segmentCount = (int) Math.max(1, Math.min(properties.getMaxSegments(), totalLength / Math.max(1, properties.getMinSegmentSize())));
+    }
+
+    List<Segment> segments = new ArrayList<>();
+    if (segmentCount == 1) {
+      segments.add(new Segment(0, -1));
+    } else {
+      long segmentSize = (totalLength + segmentCount - 1) / segmentCount;
+      for (int index = 0; index < segmentCount; index++) {
+        long start = index * segmentSize;
+        segments.add(new Segment(start, Math.min(totalLength, start + segmentSize) - 1));
       }
     }
+
+    PartialDownload partialDownload = new PartialDownload();
+    partialDownload.setUrl(url.toString());
+    partialDownload.setValidator(validator);
+    partialDownload.setTotalLength(totalLength);
+    partialDownload.setRangesSupported(rangesSupported);
+    partialDownload.setSegments(segments);
+    return partialDownload;
+  }
+
+  @Nullable
+  private PartialDownload readPartialDownload(URL url, Path targetFile) {
+    Path partialDownloadFile = getPartialDownloadFile(targetFile);
+    if (Files.notExists(partialDownloadFile)) {
+      return null;
+    }
+    try (Reader reader = Files.newBufferedReader(partialDownloadFile, UTF_8)) {
+      PartialDownload partialDownload = gson.fromJson(reader, PartialDownload.class);
+      if (partialDownload == null
+          || !url.toString().equals(partialDownload.getUrl())
+          || partialDownload.getSegments() == null
+          || partialDownload.getSegments().isEmpty()) {
+        return null;
+      }
+      return partialDownload;
+    } catch (IOException | JsonParseException e) {
+      log.debug("Could not read partial download '{}' ({})", partialDownloadFile, e.getMessage());
+      return null;
+    }
+  }
+
+  private void writePartialDownload(Path targetFile, PartialDownload partialDownload) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(getPartialDownloadFile(targetFile), UTF_8)) {
+      gson.toJson(partialDownload, writer);
+    }
+  }
+
+  private void deletePartialDownload(Path targetFile) throws IOException {
+    String prefix = targetFile.getFileName() + ".";
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(targetFile.getParent(), file -> {
+      String fileName = file.getFileName().toString();
+      return fileName.startsWith(prefix) && fileName.endsWith(PARTIAL_FILE_SUFFIX);
+    })) {
+      for (Path file : files) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  private Path getPartialDownloadFile(Path targetFile) {
+    return targetFile.resolveSibling(targetFile.getFileName() + PARTIAL_DOWNLOAD_FILE_SUFFIX);
+  }
+
+  private Path getSegmentFile(Path targetFile, int index) {
+    return targetFile.resolveSibling(targetFile.getFileName() + "." + index + PARTIAL_FILE_SUFFIX);
+  }
+
+  private static MessageDigest createMd5Digest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * A download that has been started, persisted next to the target file so that it can be resumed.
+   */
+  @Data
+  private static class PartialDownload {
+    private String url;
+    /** The entity tag or last modification date sent by the server, used to make sure that resumed bytes still match. */
+    private String validator;
+    /** Length of the file in bytes, or {@code -1} if unknown. */
+    private long totalLength;
+    private boolean rangesSupported;
+    private List<Segment> segments;
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  private static class Segment {
+    private long start;
+    /** Index of the last byte of the segment, or {@code -1} if the segment extends to the end of the file. */
+    private long end;
+
+    private long getLength(long totalLength) {
+      if (end >= 0) {
+        return end - start + 1;
+      }
+      return totalLength < 0 ? -1 : totalLength - start;
+    }
+  }
+
+  private static class Progress {
+    private final ByteCountListener listener;
+    private final long totalLength;
+    private final AtomicLong downloaded;
+
+    private Progress(ByteCountListener listener, long totalLength, long downloaded) {
+      this.listener = listener;
+      this.totalLength = totalLength;
+      this.downloaded = new AtomicLong(downloaded);
+    }
+
+    private void add(long bytes) {
+      listener.updateBytesWritten(downloaded.addAndGet(bytes), totalLength);
+    }
+  }
+
+  /**
+   * Thrown if a partial download can't be resumed because the server doesn't support ranges or the file has changed.
+   */
+  private static class RangeNotSatisfiedException extends IOException {
+    private RangeNotSatisfiedException() {
+      super("Partial download can't be resumed");
+    }
   }
 }
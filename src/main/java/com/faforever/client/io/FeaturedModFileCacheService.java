@@ -1,12 +1,15 @@
 package com.faforever.client.io;
 
 import com.faforever.client.api.dto.FeaturedModFile;
+import com.faforever.client.preferences.Preferences;
 import com.faforever.client.preferences.PreferencesService;
 import com.faforever.client.task.ResourceLocks;
 import com.faforever.client.util.UpdaterUtil;
 import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.stereotype.Service;
 
@@ -15,11 +18,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.nio.file.attribute.FileTime;
 import java.text.MessageFormat;
-import java.time.OffsetDateTime;
-import java.time.ZoneId;
-import java.util.stream.Stream;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static com.google.common.io.Files.hash;
 
@@ -27,15 +31,73 @@ import static com.google.common.io.Files.hash;
 @Service
 @Slf4j
 @RequiredArgsConstructor
-public class FeaturedModFileCacheService implements InitializingBean {
+public class FeaturedModFileCacheService implements InitializingBean, DisposableBean {
+  private static final String FILE_HASH_LEDGER_FILE_NAME = "fileHashes.json";
+  private static final String CONTENT_STORE_INDEX_FILE_NAME = "featuredModCacheIndex.json";
+  private static final long BYTES_PER_MB = 1024 * 1024;
+
   private final PreferencesService preferencesService;
+  private final ExecutorService evictionExecutor = Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder().setNameFormat("featured-mod-cache-eviction").setDaemon(true).build());
+  private FileHashLedger fileHashLedger;
+  private ContentStore contentStore;
 
   public boolean isCached(FeaturedModFile featuredModFile) throws IOException {
-    return Files.exists(getCachedFilePath(featuredModFile));
+    return getContentStore().contains(getCachedFilePath(featuredModFile));
   }
 
+  /**
+   * Returns the MD5 hash of the specified file. Files that haven't changed since they have last been hashed are not
+   * read again; their hash is taken from the {@link FileHashLedger}.
+   */
   public String readHashFromFile(Path filePath) throws IOException {
-    return hash(filePath.toFile(), Hashing.md5()).toString();
+    FileHashLedger ledger = getFileHashLedger();
+    BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+    Optional<String> recordedHash = ledger.get(filePath, attributes);
+    if (recordedHash.isPresent()) {
+      return recordedHash.get();
+    }
+
+    String hash = hash(filePath.toFile(), Hashing.md5()).toString();
+    ledger.put(filePath, attributes, hash);
+    return hash;
+  }
+
+  /**
+   * Persists the hashes that have been computed and the cache index changes that have been made since the last call,
+   * so that they survive a restart, and trims the cache to its configured size in the background.
+   */
+  public void saveFileHashes() {
+    try {
+      getFileHashLedger().save();
+    } catch (IOException e) {
+      log.warn("Could not save file hash ledger", e);
+    }
+    try {
+      getContentStore().save();
+    } catch (IOException e) {
+      log.warn("Could not save featured mod cache index", e);
+    }
+    evictInBackground();
+  }
+
+  private synchronized FileHashLedger getFileHashLedger() {
+    if (fileHashLedger == null) {
+      FileHashLedger ledger = new FileHashLedger(preferencesService.getCacheDirectory().resolve(FILE_HASH_LEDGER_FILE_NAME));
+      ledger.load();
+      fileHashLedger = ledger;
+    }
+    return fileHashLedger;
+  }
+
+  private synchronized ContentStore getContentStore() {
+    if (contentStore == null) {
+      ContentStore store = new ContentStore(preferencesService.getFeaturedModCachePath(),
+          preferencesService.getCacheDirectory().resolve(CONTENT_STORE_INDEX_FILE_NAME));
+      store.load();
+      contentStore = store;
+    }
+    return contentStore;
   }
 
   private Path getCachedFilePath(String hash, String group) {
@@ -48,20 +110,33 @@ public class FeaturedModFileCacheService implements InitializingBean {
     return getCachedFilePath(featuredModFile.getMd5(), featuredModFile.getGroup());
   }
 
-  private Path getCachedFilePath(Path targetPath) throws IOException {
-    return getCachedFilePath(readHashFromFile(targetPath), targetPath.getParent().getFileName().toString());
-  }
-
+  /**
+   * Installs a cached file at the specified target path. If the game data cache is activated, the file stays in the
+   * cache and is installed as a hard link to it where possible, and a replaced target file is kept in the cache as
+   * well. Otherwise, the file is moved out of the cache.
+   */
   public void moveFeaturedModFileFromCache(FeaturedModFile featuredModFile, Path targetPath) throws IOException {
     Files.createDirectories(targetPath.getParent());
+    // Loads the index before the disk lock is taken
+    ContentStore store = getContentStore();
     ResourceLocks.acquireDiskLock();
 
     try {
-      if (Files.exists(targetPath) && preferencesService.getPreferences().isGameDataCacheActivated()) {
+      boolean gameDataCacheActivated = preferencesService.getPreferences().isGameDataCacheActivated();
+      if (Files.exists(targetPath) && gameDataCacheActivated) {
         //We want to keep the old file for now in case it is needed again for example for old replays
         moveFeaturedModFileToCache(targetPath);
       }
-      Files.move(getCachedFilePath(featuredModFile), targetPath, StandardCopyOption.REPLACE_EXISTING);
+      Path cachedFilePath = getCachedFilePath(featuredModFile);
+      if (gameDataCacheActivated) {
+        ContentStore.install(cachedFilePath, targetPath);
+        store.touch(cachedFilePath);
+        getFileHashLedger().copy(cachedFilePath, targetPath);
+      } else {
+        Files.move(cachedFilePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        store.remove(cachedFilePath);
+        getFileHashLedger().move(cachedFilePath, targetPath);
+      }
       UpdaterUtil.extractMoviesIfPresent(targetPath, preferencesService.getFafDataDirectory());
     } finally {
       ResourceLocks.freeDiskLock();
@@ -69,11 +144,23 @@ public class FeaturedModFileCacheService implements InitializingBean {
   }
 
   private void moveFeaturedModFileToCache(Path targetPath) throws IOException {
-    Files.move(targetPath, getCachedFilePath(targetPath), StandardCopyOption.REPLACE_EXISTING);
+    String hash = readHashFromFile(targetPath);
+    Path cachedFilePath = getCachedFilePath(hash, targetPath.getParent().getFileName().toString());
+    if (Files.exists(cachedFilePath)) {
+      // Most likely, the target is a link to the cached file anyway
+      Files.delete(targetPath);
+      getFileHashLedger().remove(targetPath);
+    } else {
+      Files.createDirectories(cachedFilePath.getParent());
+      Files.move(targetPath, cachedFilePath);
+      getFileHashLedger().move(targetPath, cachedFilePath);
+    }
+    getContentStore().touch(cachedFilePath);
   }
 
   /**
-   * Cleanup method, on service start, we'll get rid of old files.
+   * Makes sure the cache directory exists and trims the cache in the background. The cache is not walked; which files
+   * to delete is decided based on its index.
    */
   @Override
   public void afterPropertiesSet() {
@@ -87,38 +174,49 @@ public class FeaturedModFileCacheService implements InitializingBean {
             " You might have to delete it or check if the needed permission are given.", cacheDirectory));
       }
     }
-    cleanUnusedFilesFromCache();
+    evictInBackground();
   }
 
-  private void cleanUnusedFilesFromCache() {
-    try (Stream<Path> pathElements = Files.walk(preferencesService.getFeaturedModCachePath())) {
-      pathElements
-          .filter(Files::isRegularFile)
-          .forEach(this::deleteCachedFileIfNeeded);
-    } catch (Exception e) {
-      log.error("Cleaning featured mod files cache failed", e);
-    }
+  private void evictInBackground() {
+    evictionExecutor.execute(this::evictUnusedFilesFromCache);
   }
 
   /**
-   * Per directory cleanup old files.
+   * Deletes the least recently used files until the cache fits into its configured size, as well as files that
+   * haven't been used for the configured number of days. If the cache is deactivated, all files are deleted.
    */
-  private void deleteCachedFileIfNeeded(Path filePath) {
+  private void evictUnusedFilesFromCache() {
     try {
-      ResourceLocks.acquireDiskLock();
-
-      FileTime lastAccessTime = Files.readAttributes(filePath, BasicFileAttributes.class).lastAccessTime();
-      OffsetDateTime comparableLastAccessTime = OffsetDateTime.ofInstant(lastAccessTime.toInstant(), ZoneId.systemDefault());
-      final boolean olderThanCacheTime = comparableLastAccessTime.plusDays(preferencesService.getPreferences().getCacheLifeTimeInDays()).isBefore(OffsetDateTime.now());
-      final boolean gameDataCacheActivated = preferencesService.getPreferences().isGameDataCacheActivated();
-      if (olderThanCacheTime || !gameDataCacheActivated) {
-        log.debug("Deleting cached file ''{}'' ", filePath.toString());
-        Files.deleteIfExists(filePath);
-      }
+      Preferences preferences = preferencesService.getPreferences();
+      boolean gameDataCacheActivated = preferences.isGameDataCacheActivated();
+      long maxTotalSize = gameDataCacheActivated ? preferences.getGameDataCacheMaxSizeInMb() * BYTES_PER_MB : 0;
+      Instant unusedSince = Instant.now().minus(preferences.getCacheLifeTimeInDays(), ChronoUnit.DAYS);
+
+      ContentStore store = getContentStore();
+      int evictedFiles = store.evict(maxTotalSize, unusedSince);
+      log.debug("Evicted {} files from featured mod cache, {} bytes remaining", evictedFiles, store.getTotalSize());
+      store.save();
     } catch (Exception e) {
-      log.error("Exception during deleting the cache files", e);
-    } finally {
-      ResourceLocks.freeDiskLock();
+      log.error("Cleaning featured mod files cache failed", e);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    evictionExecutor.shutdownNow();
+    if (fileHashLedger != null) {
+      try {
+        fileHashLedger.save();
+      } catch (IOException e) {
+        log.warn("Could not save file hash ledger", e);
+      }
+    }
+    if (contentStore != null) {
+      try {
+        contentStore.save();
+      } catch (IOException e) {
+        log.warn("Could not save featured mod cache index", e);
+      }
     }
   }
 }
@@ -0,0 +1,164 @@
+package com.faforever.client.io;
+
+import com.google.gson.reflect.TypeToken;
+import lombok.Data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent record of the hashes of files, so that unchanged files don't need to be read again to be hashed. A hash is
+ * only returned as long as the file's size, modification time and, where the file system provides one, file key are
+ * the same as when it has been recorded.
+ */
+public class FileHashLedger {
+
+  private static final int LEDGER_FORMAT_VERSION = 1;
+
+  private final VersionedJsonFile<List<Entry>> ledgerFile;
+  private final Map<String, Entry> entriesByPath;
+  private volatile boolean dirty;
+
+  public FileHashLedger(Path ledgerFile) {
+    this.ledgerFile = new VersionedJsonFile<>(ledgerFile, LEDGER_FORMAT_VERSION, new TypeToken<List<Entry>>() {}.getType());
+    this.entriesByPath = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Loads the persisted ledger, if any, skipping entries of files that no longer exist. An unreadable ledger file is
+   * ignored, which means that all files are hashed again.
+   */
+  public void load() {
+    entriesByPath.clear();
+    dirty = false;
+    for (Entry entry : ledgerFile.read().orElse(List.of())) {
+      if (entry == null || entry.getPath() == null) {
+        continue;
+      }
+      if (Files.exists(Paths.get(entry.getPath()))) {
+        entriesByPath.put(entry.getPath(), entry);
+      } else {
+        dirty = true;
+      }
+    }
+  }
+
+  /**
+   * Returns the recorded hash of the specified file if the file is still the same as when the hash has been recorded.
+   *
+   * @param attributes the current attributes of the file
+   */
+  public Optional<String> get(Path file, BasicFileAttributes attributes) {
+    return Optional.ofNullable(entriesByPath.get(toKey(file)))
+        .filter(entry -> entry.matches(attributes))
+        .map(Entry::getHash);
+  }
+
+  /**
+   * Records the hash of a file.
+   *
+   * @param attributes the attributes of the file as read <strong>before</strong> it has been hashed, so that changes
+   * made while hashing invalidate the entry
+   */
+  public void put(Path file, BasicFileAttributes attributes, String hash) {
+    Entry entry = new Entry();
+    entry.setPath(toKey(file));
+    entry.setSize(attributes.size());
+    entry.setLastModified(attributes.lastModifiedTime().toMillis());
+    entry.setFileKey(toFileKey(attributes));
+    entry.setHash(hash);
+    entriesByPath.put(entry.getPath(), entry);
+    dirty = true;
+  }
+
+  /**
+   * Transfers the recorded hash of a file that has been moved. Since a move keeps the file's size and modification time
+   * and, within the same file system, its file key, the hash stays valid without reading the file again.
+   */
+  public void move(Path source, Path target) {
+    Entry entry = entriesByPath.remove(toKey(source));
+    if (entry != null) {
+      entry.setPath(toKey(target));
+      entriesByPath.put(entry.getPath(), entry);
+      dirty = true;
+    } else {
+      remove(target);
+    }
+  }
+
+  /**
+   * Records the hash of a file for a hard link or copy of it. The entry is only used as long as the link or copy has the
+   * same attributes as the original.
+   */
+  public void copy(Path source, Path target) {
+    Entry entry = entriesByPath.get(toKey(source));
+    if (entry == null) {
+      remove(target);
+      return;
+    }
+    Entry targetEntry = new Entry();
+    targetEntry.setPath(toKey(target));
+    targetEntry.setSize(entry.getSize());
+    targetEntry.setLastModified(entry.getLastModified());
+    targetEntry.setFileKey(entry.getFileKey());
+    targetEntry.setHash(entry.getHash());
+    entriesByPath.put(targetEntry.getPath(), targetEntry);
+    dirty = true;
+  }
+
+  public void remove(Path file) {
+    if (entriesByPath.remove(toKey(file)) != null) {
+      dirty = true;
+    }
+  }
+
+  /**
+   * Persists the ledger if it has been changed.
+   */
+  public synchronized void save() throws IOException {
+    if (!dirty) {
+      return;
+    }
+    dirty = false;
+    try {
+      ledgerFile.write(new ArrayList<>(entriesByPath.values()));
+    } catch (IOException e) {
+      dirty = true;
+      throw e;
+    }
+  }
+
+  private static String toKey(Path file) {
+    return file.toAbsolutePath().normalize().toString();
+  }
+
+  private static String toFileKey(BasicFileAttributes attributes) {
+    Object fileKey = attributes.fileKey();
+    return fileKey == null ? null : fileKey.toString();
+  }
+
+  @Data
+  private static class Entry {
+    private String path;
+    private long size;
+    private long lastModified;
+    /** Identifies the file on file systems that support it, like the inode on Unix. */
+    private String fileKey;
+    private String hash;
+
+    private boolean matches(BasicFileAttributes attributes) {
+      return size == attributes.size()
+          && lastModified == attributes.lastModifiedTime().toMillis()
+          && Objects.equals(fileKey, toFileKey(attributes));
+    }
+  }
+}
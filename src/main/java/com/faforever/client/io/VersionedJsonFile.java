@@ -0,0 +1,87 @@
+package com.faforever.client.io;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * JSON file of a cache or index that can be rebuilt from its source. The content is stored together with a format
+ * version; a file that doesn't exist, has another version or can't be read is treated as if there was no content. The
+ * file is replaced atomically when written, so that it is never left half written.
+ *
+ * @param <T> the type of the content
+ */
+@Slf4j
+public class VersionedJsonFile<T> {
+
+  private final Path file;
+  private final int version;
+  private final Type contentType;
+  private final Gson gson;
+
+  public VersionedJsonFile(Path file, int version, Type contentType) {
+    this(file, version, contentType, new Gson());
+  }
+
+  public VersionedJsonFile(Path file, int version, Type contentType, Gson gson) {
+    this.file = file;
+    this.version = version;
+    this.contentType = contentType;
+    this.gson = gson;
+  }
+
+  /**
+   * Returns the content of the file, or an empty optional if there is no readable content of the current version.
+   */
+  public Optional<T> read() {
+    if (Files.notExists(file)) {
+      return Optional.empty();
+    }
+    try (Reader reader = Files.newBufferedReader(file, UTF_8)) {
+      VersionedContent versionedContent = gson.fromJson(reader, VersionedContent.class);
+      if (versionedContent == null || versionedContent.getVersion() != version || versionedContent.getContent() == null) {
+        return Optional.empty();
+      }
+      return Optional.ofNullable(gson.fromJson(versionedContent.getContent(), contentType));
+    } catch (IOException | JsonParseException e) {
+      log.warn("Could not read '{}'", file, e);
+      return Optional.empty();
+    }
+  }
+
+  public void write(T content) throws IOException {
+    VersionedContent versionedContent = new VersionedContent();
+    versionedContent.setVersion(version);
+    versionedContent.setContent(gson.toJsonTree(content, contentType));
+
+    Files.createDirectories(file.getParent());
+    Path temporaryFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      try (Writer writer = Files.newBufferedWriter(temporaryFile, UTF_8)) {
+        gson.toJson(versionedContent, writer);
+      }
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  @Data
+  private static class VersionedContent {
+    private int version;
+    private JsonElement content;
+  }
+}
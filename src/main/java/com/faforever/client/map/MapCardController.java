@@ -18,7 +18,6 @@ import javafx.collections.WeakListChangeListener;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -80,13 +79,19 @@ public class MapCardController implements Controller<Node> {
 
   public void setMap(MapBean map) {
     this.map = map;
-    Image image;
     if (map.getLargeThumbnailUrl() != null) {
-      image = mapService.loadPreview(map.getLargeThumbnailUrl(), PreviewSize.LARGE);
+      thumbnailImageView.setImage(null);
+      mapService.loadPreviewAsync(map.getLargeThumbnailUrl(), PreviewSize.LARGE,
+          (int) thumbnailImageView.getFitWidth(), (int) thumbnailImageView.getFitHeight())
+          .thenAccept(image -> JavaFxUtil.runLater(() -> {
+            // The card may have been reused for another map in the meantime
+            if (this.map == map) {
+              thumbnailImageView.setImage(image);
+            }
+          }));
     } else {
-      image = IdenticonUtil.createIdenticon(map.getId());
+      thumbnailImageView.setImage(IdenticonUtil.createIdenticon(map.getId()));
     }
-    thumbnailImageView.setImage(image);
     nameLabel.setText(map.getDisplayName());
     authorLabel.setText(Optional.ofNullable(map.getAuthor()).orElse(i18n.get("map.unknownAuthor")));
     numberOfPlaysLabel.setText(i18n.number(map.getNumberOfPlays()));
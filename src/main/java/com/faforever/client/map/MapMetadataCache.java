@@ -0,0 +1,170 @@
+package com.faforever.client.map;
+
+import com.faforever.client.io.VersionedJsonFile;
+import com.faforever.client.map.MapBean.Type;
+import com.google.gson.reflect.TypeToken;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent cache of the metadata read from the scenario files of installed maps. An entry is only valid as long as
+ * the scenario file it has been read from has the same size and modification time, so that only new or changed maps
+ * need to be parsed again.
+ */
+@Slf4j
+public class MapMetadataCache {
+
+  private static final int CACHE_FORMAT_VERSION = 1;
+
+  private final VersionedJsonFile<List<Entry>> cacheFile;
+  private final Map<String, Entry> entriesByMapFolder;
+  private volatile boolean dirty;
+
+  public MapMetadataCache(Path cacheFile) {
+    this.cacheFile = new VersionedJsonFile<>(cacheFile, CACHE_FORMAT_VERSION, new TypeToken<List<Entry>>() {}.getType());
+    this.entriesByMapFolder = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Loads the persisted cache, if any. An unreadable cache file is ignored, which means that all maps are parsed again.
+   */
+  public void load() {
+    entriesByMapFolder.clear();
+    dirty = false;
+    cacheFile.read().orElse(List.of()).stream()
+        .filter(entry -> entry != null && entry.getMapFolder() != null)
+        .forEach(entry -> entriesByMapFolder.put(entry.getMapFolder(), entry));
+  }
+
+  /**
+   * Returns a new map bean with the cached metadata of the specified map folder, or an empty optional if the map folder
+   * isn't cached or its scenario file has changed since.
+   */
+  public Optional<MapBean> get(Path mapFolder) {
+    Entry entry = entriesByMapFolder.get(toKey(mapFolder));
+    if (entry == null) {
+      return Optional.empty();
+    }
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(mapFolder.resolve(entry.getScenarioFileName()), BasicFileAttributes.class);
+      if (attributes.size() != entry.getScenarioFileSize()
+          || attributes.lastModifiedTime().toMillis() != entry.getScenarioFileLastModified()) {
+        return Optional.empty();
+      }
+    } catch (IOException e) {
+      return Optional.empty();
+    }
+    return Optional.of(entry.toMapBean(mapFolder));
+  }
+
+  /**
+   * Caches the metadata of a map that has just been read from the specified scenario file.
+   */
+  public void put(Path mapFolder, Path scenarioFile, MapBean mapBean) {
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(scenarioFile, BasicFileAttributes.class);
+    } catch (IOException e) {
+      log.debug("Could not cache metadata of map '{}' ({})", mapFolder, e.getMessage());
+      return;
+    }
+
+    Entry entry = Entry.fromMapBean(mapBean);
+    entry.setMapFolder(toKey(mapFolder));
+    entry.setScenarioFileName(scenarioFile.getFileName().toString());
+    entry.setScenarioFileSize(attributes.size());
+    entry.setScenarioFileLastModified(attributes.lastModifiedTime().toMillis());
+    entriesByMapFolder.put(entry.getMapFolder(), entry);
+    dirty = true;
+  }
+
+  /**
+   * Drops the entries of all map folders except the specified ones.
+   */
+  public void retainAll(Collection<Path> mapFolders) {
+    Set<String> keys = mapFolders.stream()
+        .map(MapMetadataCache::toKey)
+        .collect(Collectors.toSet());
+    if (entriesByMapFolder.keySet().retainAll(keys)) {
+      dirty = true;
+    }
+  }
+
+  /**
+   * Persists the cache if it has been changed.
+   */
+  public synchronized void save() throws IOException {
+    if (!dirty) {
+      return;
+    }
+    dirty = false;
+    try {
+      cacheFile.write(new ArrayList<>(entriesByMapFolder.values()));
+    } catch (IOException e) {
+      dirty = true;
+      throw e;
+    }
+  }
+
+  private static String toKey(Path mapFolder) {
+    return mapFolder.toAbsolutePath().normalize().toString();
+  }
+
+  /**
+   * The fields of a {@link MapBean} that are read from a scenario file, together with the fingerprint of that file.
+   */
+  @Data
+  static class Entry {
+    private String mapFolder;
+    private String scenarioFileName;
+    private long scenarioFileSize;
+    private long scenarioFileLastModified;
+    private String displayName;
+    private String description;
+    private Type type;
+    private int widthInPixels;
+    private int heightInPixels;
+    private int players;
+    private String version;
+
+    static Entry fromMapBean(MapBean mapBean) {
+      Entry entry = new Entry();
+      entry.setDisplayName(mapBean.getDisplayName());
+      entry.setDescription(mapBean.getDescription());
+      entry.setType(mapBean.getType());
+      entry.setWidthInPixels(mapBean.getSize().getWidthInPixels());
+      entry.setHeightInPixels(mapBean.getSize().getHeightInPixels());
+      entry.setPlayers(mapBean.getPlayers());
+      entry.setVersion(Optional.ofNullable(mapBean.getVersion()).map(ComparableVersion::toString).orElse(null));
+      return entry;
+    }
+
+    MapBean toMapBean(Path mapFolder) {
+      MapBean mapBean = new MapBean();
+      mapBean.setFolderName(mapFolder.getFileName().toString());
+      mapBean.setDisplayName(displayName);
+      mapBean.setDescription(description);
+      mapBean.setType(type);
+      mapBean.setSize(MapSize.valueOf(widthInPixels, heightInPixels));
+      mapBean.setPlayers(players);
+      if (version != null) {
+        mapBean.setVersion(new ComparableVersion(version));
+      }
+      return mapBean;
+    }
+  }
+}
@@ -6,6 +6,9 @@ import com.faforever.client.config.ClientProperties.Vault;
 import com.faforever.client.fa.FaStrings;
 import com.faforever.client.fx.JavaFxUtil;
 import com.faforever.client.i18n.I18n;
+import com.faforever.client.io.DirectoryWatcherService;
+import com.faforever.client.io.DirectoryWatcherService.DirectoryChanges;
+import com.faforever.client.io.DirectoryWatcherService.Registration;
 import com.faforever.client.map.MapBean.Type;
 import com.faforever.client.map.generator.MapGeneratedEvent;
 import com.faforever.client.map.generator.MapGeneratorService;
@@ -26,6 +29,8 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
@@ -56,25 +61,28 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.WatchKey;
-import java.nio.file.WatchService;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static com.faforever.client.util.LuaUtil.loadFile;
+import static com.faforever.client.util.LuaUtil.loadScenarioInfo;
 import static com.github.nocatch.NoCatch.noCatch;
 import static com.google.common.net.UrlEscapers.urlFragmentEscaper;
 import static java.lang.String.format;
 import static java.nio.file.Files.list;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.util.stream.Collectors.toCollection;
 
 
@@ -84,6 +92,10 @@ public class MapService implements InitializingBean, DisposableBean {
 
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   public static final String DEBUG = "debug";
+  private static final String MAP_METADATA_CACHE_FILE_NAME = "mapMetadataCache.json";
+  private static final int PUBLISH_BATCH_SIZE = 100;
+  /** Fewer map folders than this, e.g. the few that change at a time in the maps directory, are read sequentially. */
+  private static final int PARALLEL_SCAN_THRESHOLD = 8;
 
   private final PreferencesService preferencesService;
   private final TaskService taskService;
@@ -97,13 +109,16 @@ public class MapService implements InitializingBean, DisposableBean {
   private final EventBus eventBus;
   private final ForgedAlliancePrefs forgedAlliancePreferences;
   private final PlayerService playerService;
+  private final DirectoryWatcherService directoryWatcherService;
 
   private final String mapDownloadUrlFormat;
   private final String mapPreviewUrlFormat;
-  private final Map<Path, MapBean> pathToMap = new HashMap<>();
+  private final Map<Path, MapBean> pathToMap = new ConcurrentHashMap<>();
   private final ObservableList<MapBean> installedMaps = FXCollections.observableArrayList();
-  private final Map<String, MapBean> mapsByFolderName = new HashMap<>();
-  private Thread directoryWatcherThread;
+  private final Map<String, MapBean> mapsByFolderName = new ConcurrentHashMap<>();
+  private final ExecutorService mapScanExecutor;
+  private Registration directoryWatcherRegistration;
+  private MapMetadataCache mapMetadataCache;
 
   @Inject
   public MapService(PreferencesService preferencesService,
@@ -115,7 +130,7 @@ public class MapService implements InitializingBean, DisposableBean {
                     UiService uiService,
                     MapGeneratorService mapGeneratorService,
                     ClientProperties clientProperties,
-                    EventBus eventBus, PlayerService playerService) {
+                    EventBus eventBus, PlayerService playerService, DirectoryWatcherService directoryWatcherService) {
     this.preferencesService = preferencesService;
     this.taskService = taskService;
     this.applicationContext = applicationContext;
@@ -128,14 +143,20 @@ public class MapService implements InitializingBean, DisposableBean {
     this.eventBus = eventBus;
     forgedAlliancePreferences = preferencesService.getPreferences().getForgedAlliance();
     this.playerService = playerService;
+    this.directoryWatcherService = directoryWatcherService;
     Vault vault = clientProperties.getVault();
     this.mapDownloadUrlFormat = vault.getMapDownloadUrlFormat();
     this.mapPreviewUrlFormat = vault.getMapPreviewUrlFormat();
+    int mapScanThreads = Math.max(1, vault.getMapScanThreads());
+    ThreadPoolExecutor mapScanThreadPool = new ThreadPoolExecutor(mapScanThreads, mapScanThreads, 1, TimeUnit.MINUTES,
+        new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setNameFormat("map-scanner-%d").setDaemon(true).build());
+    mapScanThreadPool.allowCoreThreadTimeOut(true);
+    this.mapScanExecutor = mapScanThreadPool;
 
     installedMaps.addListener((ListChangeListener<MapBean>) change -> {
       while (change.next()) {
         for (MapBean mapBean : change.getRemoved()) {
-          mapsByFolderName.remove(mapBean.getFolderName().toLowerCase());
+          mapsByFolderName.remove(mapBean.getFolderName().toLowerCase(), mapBean);
         }
         for (MapBean mapBean : change.getAddedSubList()) {
           mapsByFolderName.put(mapBean.getFolderName().toLowerCase(), mapBean);
@@ -183,47 +204,61 @@ public class MapService implements InitializingBean, DisposableBean {
 
     try {
       Files.createDirectories(mapsDirectory);
-      Optional.ofNullable(directoryWatcherThread).ifPresent(Thread::interrupt);
-      directoryWatcherThread = startDirectoryWatcher(mapsDirectory);
+      Optional.ofNullable(directoryWatcherRegistration).ifPresent(Registration::close);
+      directoryWatcherRegistration = directoryWatcherService.watch(mapsDirectory, DirectoryWatcherService.DEFAULT_QUIET_PERIOD, this::onMapsDirectoryChanged);
     } catch (IOException e) {
       logger.warn("Could not start map directory watcher", e);
       // TODO notify user
     }
 
-    installedMaps.clear();
+    pathToMap.clear();
+    mapsByFolderName.clear();
+    JavaFxUtil.runLater(installedMaps::clear);
     loadInstalledMaps();
   }
 
-  private Thread startDirectoryWatcher(Path mapsDirectory) {
-    Thread thread = new Thread(() -> noCatch(() -> {
-      try (WatchService watcher = mapsDirectory.getFileSystem().newWatchService()) {
-        forgedAlliancePreferences.getCustomMapsDirectory().register(watcher, ENTRY_DELETE, ENTRY_CREATE);
-        while (!Thread.interrupted()) {
-          WatchKey key = watcher.take();
-          key.pollEvents().stream()
-              .filter(event -> event.kind() == ENTRY_DELETE || event.kind() == ENTRY_CREATE)
-              .forEach(event -> {
-                if (event.kind() == ENTRY_DELETE) {
-                  removeMap(mapsDirectory.resolve((Path) event.context()));
-                } else if (event.kind() == ENTRY_CREATE) {
-                  Path mapPath = mapsDirectory.resolve((Path) event.context());
-                  try {
-                    Thread.sleep(1000);
-                  } catch (InterruptedException e) {
-                    logger.debug("Thread interrupted ({})", e.getMessage());
-                  }
-                  addInstalledMap(mapPath);
-                }
-              });
-          key.reset();
-        }
-      } catch (InterruptedException e) {
-        logger.debug("Watcher terminated ({})", e.getMessage());
-      }
-    }));
-    thread.setDaemon(true);
-    thread.start();
-    return thread;
+  /**
+   * Applies the changes of the custom maps directory in one batch. Changed maps are read again, which is cheap if their
+   * scenario file hasn't changed.
+   */
+  private void onMapsDirectoryChanged(DirectoryChanges changes) {
+    if (changes.isOverflow()) {
+      rescanCustomMaps(changes.getDirectory());
+      return;
+    }
+    changes.getDeletedEntries().forEach(this::removeMap);
+
+    List<Path> changedMapPaths = changes.getChangedEntries().stream()
+        .filter(path -> !path.getFileName().toString().equals(DEBUG))
+        .sorted()
+        .collect(Collectors.toList());
+    changedMapPaths.forEach(this::removeMap);
+    scanMaps(changedMapPaths);
+  }
+
+  /**
+   * Adds maps that aren't known yet and removes maps whose folder no longer exists, for when directory events have been
+   * lost.
+   */
+  private void rescanCustomMaps(Path mapsDirectory) {
+    List<Path> mapPaths;
+    try (Stream<Path> mapsDirectoryStream = list(mapsDirectory)) {
+      mapPaths = mapsDirectoryStream
+          .filter(path -> !path.getFileName().toString().equals(DEBUG))
+          .sorted()
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      logger.warn("Maps could not be read from: " + mapsDirectory, e);
+      return;
+    }
+
+    pathToMap.keySet().stream()
+        .filter(path -> mapsDirectory.equals(path.getParent()) && !mapPaths.contains(path))
+        .collect(Collectors.toList())
+        .forEach(this::removeMap);
+    scanMaps(mapPaths.stream()
+        .filter(path -> !pathToMap.containsKey(path))
+        .collect(Collectors.toList()));
   }
 
   private void loadInstalledMaps() {
@@ -234,20 +269,15 @@ public class MapService implements InitializingBean, DisposableBean {
         Path officialMapsPath = forgedAlliancePreferences.getInstallationPath().resolve("maps");
         try (Stream<Path> customMapsDirectoryStream = list(forgedAlliancePreferences.getCustomMapsDirectory())) {
           List<Path> mapPaths = new ArrayList<>();
-          customMapsDirectoryStream.collect(toCollection(() -> mapPaths));
+          customMapsDirectoryStream.sorted().collect(toCollection(() -> mapPaths));
           officialMaps.stream()
               .map(officialMapsPath::resolve)
               .collect(toCollection(() -> mapPaths));
+          mapPaths.removeIf(mapPath -> mapPath.getFileName().toString().equals(DEBUG));
 
-          long totalMaps = mapPaths.size();
-          long mapsRead = 0;
-          for (Path mapPath : mapPaths) {
-            if (mapPath.getFileName().toString().equals(DEBUG)) {
-              continue;
-            }
-            updateProgress(++mapsRead, totalMaps);
-            addInstalledMap(mapPath);
-          }
+          scanMaps(mapPaths, this::updateProgress);
+          getMapMetadataCache().retainAll(mapPaths);
+          saveMapMetadataCache();
         } catch (IOException e) {
           logger.warn("Maps could not be read from: " + forgedAlliancePreferences.getCustomMapsDirectory(), e);
         }
@@ -256,42 +286,120 @@ public class MapService implements InitializingBean, DisposableBean {
     });
   }
 
+  private void scanMaps(List<Path> mapPaths) {
+    scanMaps(mapPaths, (mapsRead, totalMaps) -> {
+    });
+  }
+
+  /**
+   * Reads the specified map folders on the shared pool of {@link Vault#getMapScanThreads()} threads, or on the calling
+   * thread if there are only a few, and adds the maps to {@link #installedMaps} in batches on the application thread.
+   * Maps are published in the order of the specified paths, regardless of the order in which they have been read.
+   */
+  private void scanMaps(List<Path> mapPaths, BiConsumer<Long, Long> progressListener) {
+    Executor executor = mapPaths.size() < PARALLEL_SCAN_THRESHOLD ? MoreExecutors.directExecutor() : mapScanExecutor;
+    List<CompletableFuture<Optional<MapBean>>> mapFutures = mapPaths.stream()
+        .map(mapPath -> CompletableFuture.supplyAsync(() -> tryReadMap(mapPath), executor))
+        .collect(Collectors.toList());
+
+    long totalMaps = mapPaths.size();
+    long mapsRead = 0;
+    List<MapBean> batch = new ArrayList<>(PUBLISH_BATCH_SIZE);
+    for (int i = 0; i < mapFutures.size(); i++) {
+      Optional<MapBean> mapBean = mapFutures.get(i).join();
+      progressListener.accept(++mapsRead, totalMaps);
+      if (mapBean.isPresent() && registerInstalledMap(mapPaths.get(i), mapBean.get())) {
+        batch.add(mapBean.get());
+      }
+      if (batch.size() == PUBLISH_BATCH_SIZE) {
+        publishInstalledMaps(batch);
+        batch = new ArrayList<>(PUBLISH_BATCH_SIZE);
+      }
+    }
+    publishInstalledMaps(batch);
+  }
+
   private void removeMap(Path path) {
-    installedMaps.remove(pathToMap.remove(path));
+    MapBean mapBean = pathToMap.remove(path);
+    if (mapBean != null) {
+      mapsByFolderName.remove(mapBean.getFolderName().toLowerCase(), mapBean);
+      JavaFxUtil.runLater(() -> installedMaps.remove(mapBean));
+    }
+  }
+
+  private void addInstalledMap(Path path) {
+    tryReadMap(path)
+        .filter(mapBean -> registerInstalledMap(path, mapBean))
+        .ifPresent(mapBean -> publishInstalledMaps(List.of(mapBean)));
   }
 
-  private void addInstalledMap(Path path) throws MapLoadException {
+  private Optional<MapBean> tryReadMap(Path path) {
     try {
-      MapBean mapBean = readMap(path);
-      pathToMap.put(path, mapBean);
-      if (!mapsByFolderName.containsKey(mapBean.getFolderName())) {
-        installedMaps.add(mapBean);
-      }
+      return Optional.of(readMap(path));
     } catch (MapLoadException e) {
       logger.warn("Map could not be read: " + path.getFileName(), e);
+      return Optional.empty();
     }
   }
 
+  /**
+   * Adds the map to the lookup indexes, so that it can be found before it has been published to
+   * {@link #installedMaps}.
+   *
+   * @return {@code true} if no map with the same folder name is installed yet
+   */
+  private boolean registerInstalledMap(Path path, MapBean mapBean) {
+    pathToMap.put(path, mapBean);
+    return mapsByFolderName.putIfAbsent(mapBean.getFolderName().toLowerCase(), mapBean) == null;
+  }
+
+  private void publishInstalledMaps(List<MapBean> mapBeans) {
+    if (mapBeans.isEmpty()) {
+      return;
+    }
+    JavaFxUtil.runLater(() -> installedMaps.addAll(mapBeans));
+  }
+
   @Subscribe
   public void onMapGenerated(MapGeneratedEvent event) {
     addInstalledMap(getPathForMap(event.getMapName()));
   }
 
 
+  /**
+   * Reads the metadata of the map in the specified folder. Maps whose scenario file hasn't changed since they have last
+   * been read are served from the {@link MapMetadataCache}.
+   */
   @NotNull
   public MapBean readMap(Path mapFolder) throws MapLoadException {
     if (!Files.isDirectory(mapFolder)) {
       throw new MapLoadException("Not a folder: " + mapFolder.toAbsolutePath());
     }
 
+    MapMetadataCache metadataCache = getMapMetadataCache();
+    Optional<MapBean> cachedMapBean = metadataCache.get(mapFolder);
+    if (cachedMapBean.isPresent()) {
+      return cachedMapBean.get();
+    }
+
     try (Stream<Path> mapFolderFilesStream = list(mapFolder)) {
       Path scenarioLuaPath = mapFolderFilesStream
           .filter(file -> file.getFileName().toString().endsWith("_scenario.lua"))
           .findFirst()
           .orElseThrow(() -> new MapLoadException("Map folder does not contain a *_scenario.lua: " + mapFolder.toAbsolutePath()));
 
-      LuaValue luaRoot = noCatch(() -> loadFile(scenarioLuaPath), MapLoadException.class);
-      LuaValue scenarioInfo = luaRoot.get("ScenarioInfo");
+      MapBean mapBean = parseScenario(mapFolder, scenarioLuaPath);
+      metadataCache.put(mapFolder, scenarioLuaPath, mapBean);
+      return mapBean;
+    } catch (IOException e) {
+      throw new MapLoadException(e);
+    }
+  }
+
+  @VisibleForTesting
+  MapBean parseScenario(Path mapFolder, Path scenarioLuaPath) throws MapLoadException {
+    try {
+      LuaValue scenarioInfo = noCatch(() -> loadScenarioInfo(scenarioLuaPath), MapLoadException.class);
       LuaValue size = scenarioInfo.get("size");
 
       MapBean mapBean = new MapBean();
@@ -308,11 +416,28 @@ public class MapService implements InitializingBean, DisposableBean {
       }
 
       return mapBean;
-    } catch (IOException | LuaError e) {
+    } catch (LuaError e) {
       throw new MapLoadException(e);
     }
   }
 
+  private synchronized MapMetadataCache getMapMetadataCache() {
+    if (mapMetadataCache == null) {
+      MapMetadataCache cache = new MapMetadataCache(preferencesService.getCacheDirectory().resolve(MAP_METADATA_CACHE_FILE_NAME));
+      cache.load();
+      mapMetadataCache = cache;
+    }
+    return mapMetadataCache;
+  }
+
+  private void saveMapMetadataCache() {
+    try {
+      getMapMetadataCache().save();
+    } catch (IOException e) {
+      logger.warn("Could not save map metadata cache", e);
+    }
+  }
+
   @SneakyThrows(IOException.class)
   @NotNull
   @Cacheable(value = CacheNames.MAP_PREVIEW, unless = "#result == null")
@@ -390,7 +515,6 @@ public class MapService implements InitializingBean, DisposableBean {
    * Loads the preview of a map or returns a "unknown map" image.
    */
 
-  @Cacheable(value = CacheNames.MAP_PREVIEW)
   public Image loadPreview(MapBean map, PreviewSize previewSize) {
     URL url;
     switch (previewSize) {
@@ -406,12 +530,19 @@ public class MapService implements InitializingBean, DisposableBean {
     return loadPreview(url, previewSize);
   }
 
-  @Cacheable(value = CacheNames.MAP_PREVIEW)
   public Image loadPreview(URL url, PreviewSize previewSize) {
     return assetService.loadAndCacheImage(url, Paths.get("maps").resolve(previewSize.folderName),
         () -> uiService.getThemeImage(UiService.UNKNOWN_MAP_IMAGE));
   }
 
+  /**
+   * Loads the preview of a map, scaled to fit into the specified size, or returns a "unknown map" image.
+   */
+  public CompletableFuture<Image> loadPreviewAsync(URL url, PreviewSize previewSize, int width, int height) {
+    return assetService.loadAndCacheImageAsync(url, Paths.get("maps").resolve(previewSize.folderName),
+        () -> uiService.getThemeImage(UiService.UNKNOWN_MAP_IMAGE), width, height);
+  }
+
 
   public CompletableFuture<Void> uninstallMap(MapBean map) {
     if (isOfficialMap(map.getFolderName())) {
@@ -539,7 +670,11 @@ public class MapService implements InitializingBean, DisposableBean {
 
   @Override
   public void destroy() {
-    Optional.ofNullable(directoryWatcherThread).ifPresent(Thread::interrupt);
+    Optional.ofNullable(directoryWatcherRegistration).ifPresent(Registration::close);
+    mapScanExecutor.shutdownNow();
+    if (mapMetadataCache != null) {
+      saveMapMetadataCache();
+    }
   }
 
   public enum PreviewSize {
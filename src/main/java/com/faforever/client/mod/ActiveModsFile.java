@@ -0,0 +1,142 @@
+package com.faforever.client.mod;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+/**
+ * Reads and writes the {@code active_mods} block of the game's preferences file. The parsed block is kept until the
+ * file's size or modification time changes, so that repeated reads don't parse the file again. Writes always read the
+ * file again and only replace the block itself, so that they never write back stale content of a file that has been
+ * changed without changing its size or modification time.
+ */
+@Slf4j
+class ActiveModsFile {
+
+  private static final Pattern ACTIVE_MODS_PATTERN = Pattern.compile("active_mods\\s*=\\s*\\{.*?}", Pattern.DOTALL);
+  private static final Pattern ACTIVE_MOD_PATTERN = Pattern.compile("\\['(.*?)']\\s*=\\s*(true|false)", Pattern.DOTALL);
+
+  private final Path preferencesFile;
+  private Snapshot snapshot;
+
+  ActiveModsFile(Path preferencesFile) {
+    this.preferencesFile = preferencesFile;
+  }
+
+  Path getPreferencesFile() {
+    return preferencesFile;
+  }
+
+  /**
+   * Returns a modifiable copy of the mod states, mapping mod UIDs to whether the mod is enabled.
+   */
+  synchronized Map<String, Boolean> read() throws IOException {
+    return new HashMap<>(getSnapshot().getModStates());
+  }
+
+  /**
+   * Replaces the {@code active_mods} block with one that lists the enabled mods of the specified states, or appends it
+   * if there is none. The file is left untouched if the block wouldn't change.
+   */
+  synchronized void write(Map<String, Boolean> modStates) throws IOException {
+    Snapshot current = readSnapshot(Files.readAttributes(preferencesFile, BasicFileAttributes.class));
+    snapshot = current;
+    String content = current.getContent();
+    String activeModsBlock = formatActiveModsBlock(modStates);
+
+    String newContent;
+    if (current.getBlockStart() >= 0) {
+      if (content.substring(current.getBlockStart(), current.getBlockEnd()).equals(activeModsBlock)) {
+        return;
+      }
+      newContent = content.substring(0, current.getBlockStart()) + activeModsBlock + content.substring(current.getBlockEnd());
+    } else {
+      newContent = content + activeModsBlock;
+    }
+
+    Path temporaryFile = Files.createTempFile(preferencesFile.toAbsolutePath().getParent(), preferencesFile.getFileName().toString(), ".tmp");
+    try {
+      Files.write(temporaryFile, newContent.getBytes(ISO_8859_1));
+      Files.move(temporaryFile, preferencesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      Files.deleteIfExists(temporaryFile);
+      throw e;
+    }
+    snapshot = parse(newContent, Files.readAttributes(preferencesFile, BasicFileAttributes.class));
+  }
+
+  private Snapshot getSnapshot() throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(preferencesFile, BasicFileAttributes.class);
+    if (snapshot == null
+        || snapshot.getSize() != attributes.size()
+        || snapshot.getLastModified() != attributes.lastModifiedTime().toMillis()) {
+      log.debug("Reading active mods from '{}'", preferencesFile);
+      snapshot = readSnapshot(attributes);
+    }
+    return snapshot;
+  }
+
+  private Snapshot readSnapshot(BasicFileAttributes attributes) throws IOException {
+    // ISO-8859-1 maps every byte to one char, so that content outside of the block is written back unchanged
+    return parse(new String(Files.readAllBytes(preferencesFile), ISO_8859_1), attributes);
+  }
+
+  private static Snapshot parse(String content, BasicFileAttributes attributes) {
+    Map<String, Boolean> modStates = new LinkedHashMap<>();
+    int blockStart = -1;
+    int blockEnd = -1;
+
+    Matcher matcher = ACTIVE_MODS_PATTERN.matcher(content);
+    if (matcher.find()) {
+      blockStart = matcher.start();
+      blockEnd = matcher.end();
+      Matcher activeModMatcher = ACTIVE_MOD_PATTERN.matcher(matcher.group(0));
+      while (activeModMatcher.find()) {
+        modStates.put(activeModMatcher.group(1), Boolean.parseBoolean(activeModMatcher.group(2)));
+      }
+    }
+
+    return new Snapshot(content, attributes.size(), attributes.lastModifiedTime().toMillis(), blockStart, blockEnd,
+        Collections.unmodifiableMap(modStates));
+  }
+
+  private static String formatActiveModsBlock(Map<String, Boolean> modStates) {
+    StringBuilder builder = new StringBuilder("active_mods = {");
+    boolean first = true;
+    for (Map.Entry<String, Boolean> entry : modStates.entrySet()) {
+      if (!entry.getValue()) {
+        continue;
+      }
+      if (!first) {
+        builder.append(",");
+      }
+      builder.append("\n    ['").append(entry.getKey()).append("'] = true");
+      first = false;
+    }
+    return builder.append("\n}").toString();
+  }
+
+  @Value
+  private static class Snapshot {
+    String content;
+    long size;
+    long lastModified;
+    /** Start of the {@code active_mods} block, or {@code -1} if there is none. */
+    int blockStart;
+    int blockEnd;
+    Map<String, Boolean> modStates;
+  }
+}
@@ -111,7 +111,14 @@ public class ModCardController implements Controller<Node> {
 
   public void setModVersion(ModVersion modVersion) {
     this.modVersion = modVersion;
-    thumbnailImageView.setImage(modService.loadThumbnail(modVersion));
+    thumbnailImageView.setImage(null);
+    modService.loadThumbnailAsync(modVersion, (int) thumbnailImageView.getFitWidth(), (int) thumbnailImageView.getFitHeight())
+        .thenAccept(image -> JavaFxUtil.runLater(() -> {
+          // The card may have been reused for another mod in the meantime
+          if (this.modVersion == modVersion) {
+            thumbnailImageView.setImage(image);
+          }
+        }));
     nameLabel.setText(modVersion.getDisplayName());
     if (modVersion.getMod() != null) {
       authorLabel.setText(modVersion.getMod().getAuthor());
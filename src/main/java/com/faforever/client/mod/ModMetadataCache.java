@@ -0,0 +1,207 @@
+package com.faforever.client.mod;
+
+import com.faforever.client.io.VersionedJsonFile;
+import com.faforever.client.mod.ModVersion.ModType;
+import com.faforever.commons.mod.MountInfo;
+import com.google.gson.reflect.TypeToken;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent cache of the metadata read from the {@code mod_info.lua} files of installed mods. An entry is only valid
+ * as long as the file it has been read from has the same size and modification time.
+ */
+@Slf4j
+public class ModMetadataCache {
+
+  private static final int CACHE_FORMAT_VERSION = 1;
+
+  private final VersionedJsonFile<List<Entry>> cacheFile;
+  private final Map<String, Entry> entriesByModFolder;
+  private volatile boolean dirty;
+
+  public ModMetadataCache(Path cacheFile) {
+    this.cacheFile = new VersionedJsonFile<>(cacheFile, CACHE_FORMAT_VERSION, new TypeToken<List<Entry>>() {}.getType());
+    this.entriesByModFolder = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Loads the persisted cache, if any. An unreadable cache file is ignored, which means that all mods are read again.
+   */
+  public void load() {
+    entriesByModFolder.clear();
+    dirty = false;
+    cacheFile.read().orElse(List.of()).stream()
+        .filter(entry -> entry != null && entry.getModFolder() != null)
+        .forEach(entry -> entriesByModFolder.put(entry.getModFolder(), entry));
+  }
+
+  /**
+   * Returns a new mod version with the cached metadata of the specified mod folder, or an empty optional if the mod
+   * folder isn't cached or its mod info file has changed since.
+   */
+  public Optional<ModVersion> get(Path modFolder, Path modInfoFile) {
+    Entry entry = entriesByModFolder.get(toKey(modFolder));
+    if (entry == null) {
+      return Optional.empty();
+    }
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(modInfoFile, BasicFileAttributes.class);
+      if (attributes.size() != entry.getModInfoFileSize()
+          || attributes.lastModifiedTime().toMillis() != entry.getModInfoFileLastModified()) {
+        return Optional.empty();
+      }
+    } catch (IOException e) {
+      return Optional.empty();
+    }
+    return Optional.of(entry.toModVersion());
+  }
+
+  /**
+   * Caches the metadata of a mod that has just been read from the specified mod info file.
+   */
+  public void put(Path modFolder, Path modInfoFile, ModVersion modVersion) {
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(modInfoFile, BasicFileAttributes.class);
+    } catch (IOException e) {
+      log.debug("Could not cache metadata of mod '{}' ({})", modFolder, e.getMessage());
+      return;
+    }
+
+    Entry entry = Entry.fromModVersion(modVersion);
+    entry.setModFolder(toKey(modFolder));
+    entry.setModInfoFileSize(attributes.size());
+    entry.setModInfoFileLastModified(attributes.lastModifiedTime().toMillis());
+    entriesByModFolder.put(entry.getModFolder(), entry);
+    dirty = true;
+  }
+
+  /**
+   * Drops the entries of all mod folders except the specified ones.
+   */
+  public void retainAll(Collection<Path> modFolders) {
+    Set<String> keys = modFolders.stream()
+        .map(ModMetadataCache::toKey)
+        .collect(Collectors.toSet());
+    if (entriesByModFolder.keySet().retainAll(keys)) {
+      dirty = true;
+    }
+  }
+
+  /**
+   * Persists the cache if it has been changed.
+   */
+  public synchronized void save() throws IOException {
+    if (!dirty) {
+      return;
+    }
+    dirty = false;
+    try {
+      cacheFile.write(new ArrayList<>(entriesByModFolder.values()));
+    } catch (IOException e) {
+      dirty = true;
+      throw e;
+    }
+  }
+
+  private static String toKey(Path modFolder) {
+    return modFolder.toAbsolutePath().normalize().toString();
+  }
+
+  private static String toStringOrNull(Object object) {
+    return object == null ? null : object.toString();
+  }
+
+  private static Path toPathOrNull(String path) {
+    return path == null ? null : Paths.get(path);
+  }
+
+  /**
+   * The fields of a {@link ModVersion} that are read from a mod info file, together with the fingerprint of that file.
+   */
+  @Data
+  static class Entry {
+    private String modFolder;
+    private long modInfoFileSize;
+    private long modInfoFileLastModified;
+    private String uid;
+    private String displayName;
+    private String description;
+    private String uploader;
+    private String version;
+    private boolean selectable;
+    private ModType modType;
+    private String imagePath;
+    private List<MountInfoEntry> mountInfos;
+    private List<String> hookDirectories;
+
+    static Entry fromModVersion(ModVersion modVersion) {
+      Entry entry = new Entry();
+      entry.setUid(modVersion.getUid());
+      entry.setDisplayName(modVersion.getDisplayName());
+      entry.setDescription(modVersion.getDescription());
+      entry.setUploader(modVersion.getUploader());
+      entry.setVersion(toStringOrNull(modVersion.getVersion()));
+      entry.setSelectable(modVersion.getSelectable());
+      entry.setModType(modVersion.getModType());
+      entry.setImagePath(toStringOrNull(modVersion.getImagePath()));
+      entry.setMountInfos(modVersion.getMountInfos().stream()
+          .map(MountInfoEntry::fromMountInfo)
+          .collect(Collectors.toList()));
+      entry.setHookDirectories(new ArrayList<>(modVersion.getHookDirectories()));
+      return entry;
+    }
+
+    ModVersion toModVersion() {
+      ModVersion modVersion = new ModVersion();
+      modVersion.setUid(uid);
+      modVersion.setDisplayName(displayName);
+      modVersion.setDescription(description);
+      modVersion.setUploader(uploader);
+      modVersion.setVersion(version == null ? null : new ComparableVersion(version));
+      modVersion.setSelectable(selectable);
+      modVersion.setModType(modType);
+      modVersion.setImagePath(toPathOrNull(imagePath));
+      Optional.ofNullable(mountInfos).ifPresent(infos -> modVersion.getMountInfos().setAll(infos.stream()
+          .map(MountInfoEntry::toMountInfo)
+          .collect(Collectors.toList())));
+      Optional.ofNullable(hookDirectories).ifPresent(modVersion.getHookDirectories()::setAll);
+      return modVersion;
+    }
+  }
+
+  @Data
+  static class MountInfoEntry {
+    private String baseDir;
+    private String file;
+    private String mountPoint;
+
+    static MountInfoEntry fromMountInfo(MountInfo mountInfo) {
+      MountInfoEntry entry = new MountInfoEntry();
+      entry.setBaseDir(toStringOrNull(mountInfo.getBaseDir()));
+      entry.setFile(toStringOrNull(mountInfo.getFile()));
+      entry.setMountPoint(mountInfo.getMountPoint());
+      return entry;
+    }
+
+    MountInfo toMountInfo() {
+      return new MountInfo(toPathOrNull(baseDir), toPathOrNull(file), mountPoint);
+    }
+  }
+}
@@ -4,6 +4,9 @@ import com.faforever.client.config.CacheNames;
 import com.faforever.client.fx.JavaFxUtil;
 import com.faforever.client.fx.PlatformService;
 import com.faforever.client.i18n.I18n;
+import com.faforever.client.io.DirectoryWatcherService;
+import com.faforever.client.io.DirectoryWatcherService.DirectoryChanges;
+import com.faforever.client.io.DirectoryWatcherService.Registration;
 import com.faforever.client.mod.ModVersion.ModType;
 import com.faforever.client.notification.Action;
 import com.faforever.client.notification.NotificationService;
@@ -53,25 +56,17 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.WatchKey;
-import java.nio.file.WatchService;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static com.faforever.client.notification.Severity.WARN;
-import static com.github.nocatch.NoCatch.noCatch;
-import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.nio.file.Files.createDirectories;
-import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.util.Collections.singletonList;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 
@@ -83,8 +78,7 @@ public class ModService implements InitializingBean, DisposableBean {
 
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-  private static final Pattern ACTIVE_MODS_PATTERN = Pattern.compile("active_mods\\s*=\\s*\\{.*?}", Pattern.DOTALL);
-  private static final Pattern ACTIVE_MOD_PATTERN = Pattern.compile("\\['(.*?)']\\s*=\\s*(true|false)", Pattern.DOTALL);
+  private static final String MOD_METADATA_CACHE_FILE_NAME = "modMetadataCache.json";
 
   private final FafService fafService;
   private final PreferencesService preferencesService;
@@ -94,19 +88,26 @@ public class ModService implements InitializingBean, DisposableBean {
   private final I18n i18n;
   private final PlatformService platformService;
   private final AssetService assetService;
+  private final DirectoryWatcherService directoryWatcherService;
   private final ModReader modReader = new ModReader();
 
   private Path modsDirectory;
-  private final Map<Path, ModVersion> pathToMod = new HashMap<>();
+  private final Map<Path, ModVersion> pathToMod = new ConcurrentHashMap<>();
+  /** Path of the mod that is listed as installed for a UID, if several folders contain the same mod. */
+  private final Map<String, Path> modPathsByUid = new ConcurrentHashMap<>();
   private final ObservableList<ModVersion> installedModVersions = FXCollections.observableArrayList();
   private final ObservableList<ModVersion> readOnlyInstalledModVersions = FXCollections.unmodifiableObservableList(installedModVersions);
-  private Thread directoryWatcherThread;
+  private Registration directoryWatcherRegistration;
+  private ModMetadataCache modMetadataCache;
+  private ActiveModsFile activeModsFile;
 
   @Override
   public void afterPropertiesSet() {
     InvalidationListener modDirectoryChangedListener = observable -> {
       modsDirectory = preferencesService.getPreferences().getForgedAlliance().getModsDirectory();
       if (modsDirectory != null) {
+        pathToMod.clear();
+        modPathsByUid.clear();
         installedModVersions.clear();
         onModDirectoryReady();
       }
@@ -125,8 +126,8 @@ public class ModService implements InitializingBean, DisposableBean {
   private void onModDirectoryReady() {
     try {
       createDirectories(modsDirectory);
-      Optional.ofNullable(directoryWatcherThread).ifPresent(Thread::interrupt);
-      directoryWatcherThread = startDirectoryWatcher(modsDirectory);
+      Optional.ofNullable(directoryWatcherRegistration).ifPresent(Registration::close);
+      directoryWatcherRegistration = directoryWatcherService.watch(modsDirectory, DirectoryWatcherService.DEFAULT_QUIET_PERIOD, this::onModsDirectoryChanged);
     } catch (IOException e) {
       logger.warn("Could not start mod directory watcher", e);
       // TODO notify user
@@ -134,35 +135,41 @@ public class ModService implements InitializingBean, DisposableBean {
     loadInstalledMods();
   }
 
-  private Thread startDirectoryWatcher(Path modsDirectory) {
-    Thread thread = new Thread(() -> noCatch(() -> {
-      WatchService watcher = modsDirectory.getFileSystem().newWatchService();
-      modsDirectory.register(watcher, ENTRY_DELETE);
-
-      try {
-        while (!Thread.interrupted()) {
-          WatchKey key = watcher.take();
-          key.pollEvents().stream()
-              .filter(event -> event.kind() == ENTRY_DELETE)
-              .forEach(event -> removeMod(modsDirectory.resolve((Path) event.context())));
-          key.reset();
-        }
-      } catch (InterruptedException e) {
-        logger.debug("Watcher terminated ({})", e.getMessage());
-      }
-    }));
-    thread.start();
-    return thread;
+  /**
+   * Applies the changes of the mods directory in one batch. Changed mods are read again.
+   */
+  private void onModsDirectoryChanged(DirectoryChanges changes) {
+    if (changes.isOverflow()) {
+      pathToMod.keySet().stream()
+          .filter(path -> Files.notExists(path))
+          .collect(Collectors.toList())
+          .forEach(this::removeMod);
+      loadInstalledMods();
+      return;
+    }
+    changes.getDeletedEntries().forEach(this::removeMod);
+    changes.getChangedEntries().stream()
+        .filter(Files::isDirectory)
+        .sorted()
+        .forEach(path -> {
+          removeMod(path);
+          addMod(path);
+        });
+    saveModMetadataCache();
   }
 
   public void loadInstalledMods() {
     try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(modsDirectory, entry -> Files.isDirectory(entry))) {
       for (Path path : directoryStream) {
-        addMod(path);
+        if (!pathToMod.containsKey(path)) {
+          addMod(path);
+        }
       }
     } catch (IOException e) {
       logger.warn("Mods could not be read from: " + modsDirectory, e);
     }
+    getModMetadataCache().retainAll(pathToMod.keySet());
+    saveModMetadataCache();
   }
 
   public ObservableList<ModVersion> getInstalledModVersions() {
@@ -202,9 +209,7 @@ public class ModService implements InitializingBean, DisposableBean {
   }
 
   public Set<String> getInstalledModUids() {
-    return getInstalledModVersions().stream()
-        .map(ModVersion::getUid)
-        .collect(Collectors.toSet());
+    return new HashSet<>(modPathsByUid.keySet());
   }
 
   public Set<String> getInstalledUiModsUids() {
@@ -235,7 +240,7 @@ public class ModService implements InitializingBean, DisposableBean {
   }
 
   public boolean isModInstalled(String uid) {
-    return getInstalledModUids().contains(uid);
+    return modPathsByUid.containsKey(uid);
   }
 
   public CompletableFuture<Void> uninstallMod(ModVersion modVersion) {
@@ -245,11 +250,7 @@ public class ModService implements InitializingBean, DisposableBean {
   }
 
   public Path getPathForMod(ModVersion modVersionToFind) {
-    return pathToMod.entrySet().stream()
-        .filter(pathModEntry -> pathModEntry.getValue().getUid().equals(modVersionToFind.getUid()))
-        .findFirst()
-        .map(Entry::getKey)
-        .orElse(null);
+    return modPathsByUid.get(modVersionToFind.getUid());
   }
 
   public CompletableFuture<Tuple<List<ModVersion>, Integer>> getNewestModsWithPageCount(int count, int page) {
@@ -283,11 +284,19 @@ public class ModService implements InitializingBean, DisposableBean {
   }
 
   public Image loadThumbnail(ModVersion modVersion) {
-    //FIXME: reintroduce correct caching
     URL url = modVersion.getThumbnailUrl();
     return assetService.loadAndCacheImage(url, Paths.get("mods"), () -> IdenticonUtil.createIdenticon(modVersion.getDisplayName()));
   }
 
+  /**
+   * Loads the thumbnail of a mod, scaled to fit into the specified size, or returns an identicon if it has none.
+   */
+  public CompletableFuture<Image> loadThumbnailAsync(ModVersion modVersion, int width, int height) {
+    URL url = modVersion.getThumbnailUrl();
+    return assetService.loadAndCacheImageAsync(url, Paths.get("mods"),
+        () -> IdenticonUtil.createIdenticon(modVersion.getDisplayName()), width, height);
+  }
+
   public void evictModsCache() {
     fafService.evictModsCache();
   }
@@ -356,72 +365,83 @@ public class ModService implements InitializingBean, DisposableBean {
   }
 
   private Map<String, Boolean> readModStates() throws IOException {
-    Path preferencesFile = preferencesService.getPreferences().getForgedAlliance().getPreferencesFile();
-    Map<String, Boolean> mods = new HashMap<>();
-
-    String preferencesContent = Files.readString(preferencesFile, US_ASCII);
-    Matcher matcher = ACTIVE_MODS_PATTERN.matcher(preferencesContent);
-    if (matcher.find()) {
-      Matcher activeModMatcher = ACTIVE_MOD_PATTERN.matcher(matcher.group(0));
-      while (activeModMatcher.find()) {
-        String modUid = activeModMatcher.group(1);
-        boolean enabled = Boolean.parseBoolean(activeModMatcher.group(2));
-
-        mods.put(modUid, enabled);
-      }
-    }
-
-    return mods;
+    return getActiveModsFile().read();
   }
 
   private void writeModStates(Map<String, Boolean> modStates) throws IOException {
-    Path preferencesFile = preferencesService.getPreferences().getForgedAlliance().getPreferencesFile();
-    String preferencesContent = new String(Files.readAllBytes(preferencesFile), US_ASCII);
+    getActiveModsFile().write(modStates);
+  }
 
-    String currentActiveModsContent = null;
-    Matcher matcher = ACTIVE_MODS_PATTERN.matcher(preferencesContent);
-    if (matcher.find()) {
-      currentActiveModsContent = matcher.group(0);
+  /**
+   * Returns the reader of the game's preferences file, which keeps the parsed {@code active_mods} block as long as the
+   * file doesn't change.
+   */
+  private synchronized ActiveModsFile getActiveModsFile() {
+    Path preferencesFile = preferencesService.getPreferences().getForgedAlliance().getPreferencesFile();
+    if (activeModsFile == null || !activeModsFile.getPreferencesFile().equals(preferencesFile)) {
+      activeModsFile = new ActiveModsFile(preferencesFile);
     }
+    return activeModsFile;
+  }
 
-    StringBuilder newActiveModsContentBuilder = new StringBuilder("active_mods = {");
-
-    Iterator<Map.Entry<String, Boolean>> iterator = modStates.entrySet().iterator();
-    while (iterator.hasNext()) {
-      Map.Entry<String, Boolean> entry = iterator.next();
-      if (!entry.getValue()) {
-        continue;
-      }
+  private synchronized ModMetadataCache getModMetadataCache() {
+    if (modMetadataCache == null) {
+      ModMetadataCache cache = new ModMetadataCache(preferencesService.getCacheDirectory().resolve(MOD_METADATA_CACHE_FILE_NAME));
+      cache.load();
+      modMetadataCache = cache;
+    }
+    return modMetadataCache;
+  }
 
-      newActiveModsContentBuilder.append("\n    ['");
-      newActiveModsContentBuilder.append(entry.getKey());
-      newActiveModsContentBuilder.append("'] = true");
-      if (iterator.hasNext()) {
-        newActiveModsContentBuilder.append(",");
-      }
+  private void saveModMetadataCache() {
+    try {
+      getModMetadataCache().save();
+    } catch (IOException e) {
+      logger.warn("Could not save mod metadata cache", e);
     }
-    newActiveModsContentBuilder.append("\n}");
+  }
 
-    if (currentActiveModsContent != null) {
-      preferencesContent = preferencesContent.replace(currentActiveModsContent, newActiveModsContentBuilder);
-    } else {
-      preferencesContent += newActiveModsContentBuilder.toString();
+  /**
+   * Reads the mod info of an installed mod. Mods whose mod info file hasn't changed since they have last been read are
+   * served from the {@link ModMetadataCache}.
+   */
+  private ModVersion readInstalledModInfo(Path path) {
+    Path modInfoLua = path.resolve("mod_info.lua");
+    ModMetadataCache metadataCache = getModMetadataCache();
+    Optional<ModVersion> cachedModVersion = metadataCache.get(path, modInfoLua);
+    if (cachedModVersion.isPresent()) {
+      return cachedModVersion.get();
     }
 
-    Files.write(preferencesFile, preferencesContent.getBytes(US_ASCII));
+    ModVersion modVersion = extractModInfo(path);
+    metadataCache.put(path, modInfoLua, modVersion);
+    return modVersion;
   }
 
   private void removeMod(Path path) {
     logger.debug("Removing mod: {}", path);
-    installedModVersions.remove(pathToMod.remove(path));
+    ModVersion modVersion = pathToMod.remove(path);
+    if (modVersion == null || !modPathsByUid.remove(modVersion.getUid(), path)) {
+      return;
+    }
+    installedModVersions.remove(modVersion);
+
+    pathToMod.entrySet().stream()
+        .filter(entry -> entry.getValue().getUid().equals(modVersion.getUid()))
+        .findFirst()
+        .ifPresent(entry -> {
+          if (modPathsByUid.putIfAbsent(modVersion.getUid(), entry.getKey()) == null) {
+            installedModVersions.add(entry.getValue());
+          }
+        });
   }
 
   private void addMod(Path path) {
     logger.debug("Adding mod: {}", path);
     try {
-      ModVersion modVersion = extractModInfo(path);
+      ModVersion modVersion = readInstalledModInfo(path);
       pathToMod.put(path, modVersion);
-      if (!installedModVersions.contains(modVersion)) {
+      if (modPathsByUid.putIfAbsent(modVersion.getUid(), path) == null) {
         installedModVersions.add(modVersion);
       }
     } catch (ModLoadException e) {
@@ -442,6 +462,9 @@ public class ModService implements InitializingBean, DisposableBean {
 
   @Override
   public void destroy() {
-    Optional.ofNullable(directoryWatcherThread).ifPresent(Thread::interrupt);
+    Optional.ofNullable(directoryWatcherRegistration).ifPresent(Registration::close);
+    if (modMetadataCache != null) {
+      saveModMetadataCache();
+    }
   }
 }
@@ -1,6 +1,7 @@
 package com.faforever.client.patch;
 
 import com.faforever.client.api.dto.FeaturedModFile;
+import com.faforever.client.config.ClientProperties;
 import com.faforever.client.i18n.I18n;
 import com.faforever.client.io.DownloadService;
 import com.faforever.client.io.FeaturedModFileCacheService;
@@ -8,6 +9,9 @@ import com.faforever.client.mod.FeaturedMod;
 import com.faforever.client.preferences.PreferencesService;
 import com.faforever.client.remote.FafService;
 import com.faforever.client.task.CompletableTask;
+import com.faforever.commons.io.ByteCountListener;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.maven.artifact.versioning.ComparableVersion;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
@@ -18,18 +22,29 @@ import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Component
 @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 @Slf4j
 public class SimpleHttpFeaturedModUpdaterTask extends CompletableTask<PatchResult> {
+  private static final long TERMINATION_TIMEOUT_SECONDS = 30;
+
   private final FafService fafService;
   private final PreferencesService preferencesService;
   private final DownloadService downloadService;
   private final I18n i18n;
   private final FeaturedModFileCacheService featuredModFileCacheService;
+  private final ClientProperties clientProperties;
 
   private FeaturedMod featuredMod;
   private Integer version;
@@ -39,7 +54,8 @@ public class SimpleHttpFeaturedModUpdaterTask extends CompletableTask<PatchResul
       PreferencesService preferencesService,
       DownloadService downloadService,
       I18n i18n,
-      FeaturedModFileCacheService featuredModFileCacheService
+      FeaturedModFileCacheService featuredModFileCacheService,
+      ClientProperties clientProperties
   ) {
     super(Priority.HIGH);
 
@@ -48,6 +64,7 @@ public class SimpleHttpFeaturedModUpdaterTask extends CompletableTask<PatchResul
     this.downloadService = downloadService;
     this.i18n = i18n;
     this.featuredModFileCacheService = featuredModFileCacheService;
+    this.clientProperties = clientProperties;
   }
 
   @Override
@@ -60,33 +77,28 @@ public class SimpleHttpFeaturedModUpdaterTask extends CompletableTask<PatchResul
     List<FeaturedModFile> featuredModFiles = fafService.getFeaturedModFiles(featuredMod, version).get();
     Path fafDataDirectory = preferencesService.getFafDataDirectory();
 
-    featuredModFiles
-        .forEach(featuredModFile -> {
-          Path targetPath = fafDataDirectory
-              .resolve(featuredModFile.getGroup())
-              .resolve(featuredModFile.getName());
-
-          try {
-            if (fileAlreadyLoaded(featuredModFile, targetPath)) {
-              log.debug("Featured mod file already prepared: {}", featuredModFile);
-            } else if (featuredModFileCacheService.isCached(featuredModFile)) {
-              featuredModFileCacheService.moveFeaturedModFileFromCache(featuredModFile, targetPath);
-            } else {
-              downloadFeaturedModFile(featuredModFile, featuredModFileCacheService.getCachedFilePath(featuredModFile));
-              featuredModFileCacheService.moveFeaturedModFileFromCache(featuredModFile, targetPath);
-            }
-          } catch (IOException e) {
-            log.error("Error on updating featured mod file: {}", featuredModFile, e);
-            throw new RuntimeException(e);
-          }
-        });
-
-    Path initFile = featuredModFiles.stream()
-        .filter(featuredModFile -> "bin".equals(featuredModFile.getGroup()) &&
-            initFileName.equalsIgnoreCase(featuredModFile.getName()))
-        .map(featuredModFile -> fafDataDirectory
-            .resolve(featuredModFile.getGroup())
-            .resolve(featuredModFile.getName()))
+    // The init file references all other files, so it's only installed once they are all in place
+    Map<Boolean, List<FeaturedModFile>> filesByIsInitFile = featuredModFiles.stream()
+        .collect(Collectors.partitioningBy(featuredModFile -> isInitFile(featuredModFile, initFileName)));
+
+    CombinedProgress combinedProgress = new CombinedProgress(featuredModFiles.size());
+    int threads = Math.max(1, Math.min(clientProperties.getForgedAlliance().getFeaturedModDownloadThreads(), featuredModFiles.size()));
+    ExecutorService executorService = threads == 1
+        ? MoreExecutors.newDirectExecutorService()
+        : Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("featured-mod-updater-%d").setDaemon(true).build());
+    try {
+      updateFeaturedModFiles(filesByIsInitFile.get(false), fafDataDirectory, executorService, combinedProgress);
+      updateFeaturedModFiles(filesByIsInitFile.get(true), fafDataDirectory, executorService, combinedProgress);
+    } finally {
+      try {
+        shutdownAndAwaitTermination(executorService);
+      } finally {
+        featuredModFileCacheService.saveFileHashes();
+      }
+    }
+
+    Path initFile = filesByIsInitFile.get(true).stream()
+        .map(featuredModFile -> getTargetPath(fafDataDirectory, featuredModFile))
         .filter(Files::exists)
         .findAny()
         .orElseThrow(() -> new IllegalStateException("No init file found for featured mod: " + featuredMod.getTechnicalName()));
@@ -99,17 +111,84 @@ public class SimpleHttpFeaturedModUpdaterTask extends CompletableTask<PatchResul
     return PatchResult.withLegacyInitFile(new ComparableVersion(String.valueOf(maxVersion)), initFile);
   }
 
+  private boolean isInitFile(FeaturedModFile featuredModFile, String initFileName) {
+    return "bin".equals(featuredModFile.getGroup()) && initFileName.equalsIgnoreCase(featuredModFile.getName());
+  }
+
+  private Path getTargetPath(Path fafDataDirectory, FeaturedModFile featuredModFile) {
+    return fafDataDirectory
+        .resolve(featuredModFile.getGroup())
+        .resolve(featuredModFile.getName());
+  }
+
+  /**
+   * Updates the specified files on the executor service and waits until all of them are installed. If one of them
+   * fails, the remaining ones are not waited for and the first failure is thrown.
+   */
+  private void updateFeaturedModFiles(List<FeaturedModFile> featuredModFiles, Path fafDataDirectory,
+                                      ExecutorService executorService, CombinedProgress combinedProgress) throws Exception {
+    List<Future<?>> futures = featuredModFiles.stream()
+        .map(featuredModFile -> executorService.submit(() -> {
+          updateFeaturedModFile(featuredModFile, getTargetPath(fafDataDirectory, featuredModFile), combinedProgress);
+          return null;
+        }))
+        .collect(Collectors.toList());
+
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        futures.forEach(otherFuture -> otherFuture.cancel(true));
+        shutdownAndAwaitTermination(executorService);
+        Throwable cause = e.getCause();
+        if (cause instanceof Exception) {
+          throw (Exception) cause;
+        }
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Interrupts the running updates and waits for them to stop, so that no file is written or moved anymore once the
+   * file hashes are saved or the update has failed.
+   */
+  private void shutdownAndAwaitTermination(ExecutorService executorService) throws InterruptedException {
+    executorService.shutdownNow();
+    if (!executorService.awaitTermination(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      log.warn("Featured mod files are still being updated after {} seconds", TERMINATION_TIMEOUT_SECONDS);
+    }
+  }
+
+  private void updateFeaturedModFile(FeaturedModFile featuredModFile, Path targetPath, CombinedProgress combinedProgress) throws IOException {
+    try {
+      if (fileAlreadyLoaded(featuredModFile, targetPath)) {
+        log.debug("Featured mod file already prepared: {}", featuredModFile);
+      } else if (featuredModFileCacheService.isCached(featuredModFile)) {
+        featuredModFileCacheService.moveFeaturedModFileFromCache(featuredModFile, targetPath);
+      } else {
+        downloadFeaturedModFile(featuredModFile, featuredModFileCacheService.getCachedFilePath(featuredModFile),
+            (written, total) -> combinedProgress.update(featuredModFile, written, total));
+        featuredModFileCacheService.moveFeaturedModFileFromCache(featuredModFile, targetPath);
+      }
+    } catch (IOException e) {
+      log.error("Error on updating featured mod file: {}", featuredModFile, e);
+      throw e;
+    }
+    combinedProgress.complete(featuredModFile);
+  }
+
   private boolean fileAlreadyLoaded(FeaturedModFile featuredModFile, Path targetPath) throws IOException {
     return Files.exists(targetPath)
         && Objects.equals(featuredModFile.getMd5(), featuredModFileCacheService.readHashFromFile(targetPath));
   }
 
-  private void downloadFeaturedModFile(FeaturedModFile featuredModFile, Path targetPath) throws java.io.IOException {
+  private void downloadFeaturedModFile(FeaturedModFile featuredModFile, Path targetPath, ByteCountListener progressListener) throws java.io.IOException {
     Files.createDirectories(targetPath.getParent());
     updateMessage(i18n.get("updater.downloadingFile", featuredModFile.getName()));
 
     String url = featuredModFile.getUrl();
-    downloadService.downloadFile(new URL(url), targetPath, this::updateProgress);
+    downloadService.downloadFile(new URL(url), targetPath, progressListener, featuredModFile.getMd5());
   }
 
   public void setFeaturedMod(FeaturedMod featuredMod) {
@@ -119,4 +198,34 @@ public class SimpleHttpFeaturedModUpdaterTask extends CompletableTask<PatchResul
   public void setVersion(Integer version) {
     this.version = version;
   }
+
+  /**
+   * Progress of all files of the update, where each file counts the same regardless of its size, since the sizes of
+   * files that still need to be downloaded aren't known in advance.
+   */
+  private class CombinedProgress {
+    private final int fileCount;
+    private final Map<FeaturedModFile, Double> progressByFile = new IdentityHashMap<>();
+    private double totalProgress;
+
+    private CombinedProgress(int fileCount) {
+      this.fileCount = fileCount;
+    }
+
+    private void update(FeaturedModFile featuredModFile, long written, long total) {
+      if (total > 0) {
+        setProgress(featuredModFile, Math.min(1, (double) written / total));
+      }
+    }
+
+    private void complete(FeaturedModFile featuredModFile) {
+      setProgress(featuredModFile, 1);
+    }
+
+    private synchronized void setProgress(FeaturedModFile featuredModFile, double progress) {
+      Double previousProgress = progressByFile.put(featuredModFile, progress);
+      totalProgress += progress - (previousProgress == null ? 0 : previousProgress);
+      updateProgress(totalProgress, fileCount);
+    }
+  }
 }
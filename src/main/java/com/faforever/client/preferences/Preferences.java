@@ -57,6 +57,7 @@ public class Preferences {
   private final BooleanProperty advancedIceLogEnabled;
   private final IntegerProperty cacheLifeTimeInDays;
   private final BooleanProperty gameDataCacheActivated;
+  private final IntegerProperty gameDataCacheMaxSizeInMb;
 
   public Preferences() {
     gameTileSortingOrder = new SimpleObjectProperty<>(TilesSortingOrder.PLAYER_DES);
@@ -87,6 +88,7 @@ public class Preferences {
     preReleaseCheckEnabled = new SimpleBooleanProperty(false);
     cacheLifeTimeInDays = new SimpleIntegerProperty(30);
     gameDataCacheActivated = new SimpleBooleanProperty(false);
+    gameDataCacheMaxSizeInMb = new SimpleIntegerProperty(8192);
   }
 
   public VaultPrefs getVault() {
@@ -312,4 +314,16 @@ public class Preferences {
   public BooleanProperty gameDataCacheActivatedProperty() {
     return gameDataCacheActivated;
   }
+
+  public int getGameDataCacheMaxSizeInMb() {
+    return gameDataCacheMaxSizeInMb.get();
+  }
+
+  public void setGameDataCacheMaxSizeInMb(int gameDataCacheMaxSizeInMb) {
+    this.gameDataCacheMaxSizeInMb.set(gameDataCacheMaxSizeInMb);
+  }
+
+  public IntegerProperty gameDataCacheMaxSizeInMbProperty() {
+    return gameDataCacheMaxSizeInMb;
+  }
 }
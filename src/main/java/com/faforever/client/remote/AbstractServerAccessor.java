@@ -2,17 +2,17 @@ package com.faforever.client.remote;
 
 import com.faforever.client.fx.JavaFxUtil;
 import com.faforever.client.remote.domain.FafServerMessage;
-import com.faforever.client.remote.io.QDataInputStream;
-import org.apache.commons.compress.utils.IOUtils;
+import com.faforever.client.remote.io.QDataChannelReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
 
-import java.io.BufferedInputStream;
-import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
-import java.net.Socket;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
 
 /**
  * Super class for all server accessors.
@@ -21,33 +21,65 @@ public abstract class AbstractServerAccessor implements DisposableBean {
 
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-  private boolean stopped;
-  private QDataInputStream dataInput;
+  private final QDataChannelReader channelReader = new QDataChannelReader();
+  private volatile boolean stopped;
+  private volatile Selector selector;
 
   /**
    * Reads data received from the server and dispatches it. So far, there are two types of data sent by the server: <ol>
    * <li><strong>Server messages</strong> are simple words like ACK or PING, followed by some bytes..</li>
    * <li><strong>Objects</strong> are JSON-encoded objects like preferences or player information. Those are converted into a
    * {@link FafServerMessage}</li> </ol> I'm not yet happy with those terms, so any suggestions are welcome.
+   * <p>
+   * The channel is put into non-blocking mode and read using a selector, so that reading can be stopped at any time by
+   * calling {@link #wakeUpReader()}. Returns normally if the accessor has been stopped or the reading thread has been
+   * interrupted, throws an {@link IOException} if the connection has been lost or closed.
    */
-  protected void blockingReadServer(Socket socket) throws IOException {
+  protected void readServer(SocketChannel socketChannel) throws IOException {
     JavaFxUtil.assertBackgroundThread();
 
-    dataInput = new QDataInputStream(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
-    while (!stopped && !socket.isInputShutdown()) {
-      dataInput.skipBlockSize();
-      String message = dataInput.readQString();
+    channelReader.reset();
+    socketChannel.configureBlocking(false);
 
-      logger.debug("Message from server: {}", message);
+    try (Selector selector = Selector.open()) {
+      this.selector = selector;
+      socketChannel.register(selector, SelectionKey.OP_READ);
 
-      try {
-        onServerMessage(message);
-      } catch (Exception e) {
-        logger.warn("Error while handling server message: " + message, e);
+      while (!stopped && !Thread.currentThread().isInterrupted()) {
+        selector.select();
+        selector.selectedKeys().clear();
+
+        if (channelReader.readFrom(socketChannel) == -1) {
+          throw new EOFException("Connection has been closed by the server");
+        }
+
+        String message;
+        while ((message = channelReader.nextMessage()) != null) {
+          logger.debug("Message from server: {}", message);
+
+          try {
+            onServerMessage(message);
+          } catch (Exception e) {
+            logger.warn("Error while handling server message: " + message, e);
+          }
+        }
       }
+    } finally {
+      this.selector = null;
     }
 
-    logger.info("Connection to server {} has been closed", socket.getRemoteSocketAddress());
+    logger.info("Stopped reading from server");
+  }
+
+  /**
+   * Wakes up the thread blocked in {@link #readServer(SocketChannel)} so that it notices a closed channel or a stop
+   * request immediately.
+   */
+  protected void wakeUpReader() {
+    Selector selector = this.selector;
+    if (selector != null) {
+      selector.wakeup();
+    }
   }
 
   protected abstract void onServerMessage(String message) throws IOException;
@@ -55,7 +87,7 @@ public abstract class AbstractServerAccessor implements DisposableBean {
   @Override
   public void destroy() throws IOException {
     stopped = true;
-    IOUtils.closeQuietly(dataInput);
+    wakeUpReader();
   }
 
 }
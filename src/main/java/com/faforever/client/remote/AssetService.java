@@ -1,59 +1,331 @@
 package com.faforever.client.remote;
 
+import com.faforever.client.config.ClientProperties;
+import com.faforever.client.config.ClientProperties.Images;
 import com.faforever.client.fx.JavaFxUtil;
+import com.faforever.client.io.ContentStore;
 import com.faforever.client.preferences.PreferencesService;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.scene.image.Image;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.invoke.MethodHandles;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 import static com.github.nocatch.NoCatch.noCatch;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
-
+/**
+ * Loads remote images through two caches: downloaded images are kept on disk in a size-bounded {@link ContentStore},
+ * named after the hash of their URL, and decoded images are kept in memory, bounded by their number of pixels.
+ * Concurrent requests for the same image share a single download, and images are decoded at the requested size on a
+ * background thread.
+ */
 @Lazy
 @Service
 @RequiredArgsConstructor
-public class AssetService {
+public class AssetService implements InitializingBean, DisposableBean {
 
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final String IMAGE_DIRECTORY_NAME = "images";
+  private static final String IMAGE_STORE_INDEX_FILE_NAME = "imageCacheIndex.json";
+  private static final int BYTES_PER_PIXEL = 4;
 
   private final PreferencesService preferencesService;
+  private final ClientProperties clientProperties;
+
+  /** Downloads or other writes that are in progress, by the file the image is stored to. */
+  private final Map<Path, CompletableFuture<Path>> pendingFetches = new ConcurrentHashMap<>();
+  private ExecutorService fetchExecutor;
+  private ExecutorService decodeExecutor;
+  private AsyncLoadingCache<ImageKey, Image> imageCache;
+  private ContentStore imageStore;
+
+  @Override
+  public void afterPropertiesSet() {
+    Images images = clientProperties.getImages();
+    fetchExecutor = Executors.newFixedThreadPool(images.getFetchThreads(),
+        new ThreadFactoryBuilder().setNameFormat("image-fetch-%d").setDaemon(true).build());
+    decodeExecutor = Executors.newFixedThreadPool(images.getDecodeThreads(),
+        new ThreadFactoryBuilder().setNameFormat("image-decode-%d").setDaemon(true).build());
+    imageCache = Caffeine.newBuilder()
+        .maximumWeight(images.getMaxMemoryCacheSize())
+        .weigher((ImageKey key, Image image) -> weigh(image))
+        .executor(decodeExecutor)
+        .buildAsync((key, executor) -> {
+          URL url = noCatch(() -> new URL(key.getUrl()));
+          return fetch(url, getStoredFile(url, key.getCacheSubFolder()))
+              .thenApplyAsync(storedFile -> decode(storedFile, key), executor);
+        });
+  }
+
+  @Override
+  public void destroy() {
+    fetchExecutor.shutdownNow();
+    decodeExecutor.shutdownNow();
+    synchronized (this) {
+      if (imageStore == null) {
+        return;
+      }
+      try {
+        imageStore.save();
+      } catch (IOException e) {
+        logger.warn("Could not save image cache index", e);
+      }
+    }
+  }
 
   @Nullable
   public Image loadAndCacheImage(URL url, Path cacheSubFolder, @Nullable Supplier<Image> defaultSupplier) {
     return loadAndCacheImage(url, cacheSubFolder, defaultSupplier, 0, 0);
   }
 
+  /**
+   * Returns the specified image right away. Unless it is in memory already, the returned image is still being loaded in
+   * the background, from disk if it has been downloaded before or from the specified URL otherwise. In the latter case,
+   * the original image file is stored on disk once JavaFX has loaded the image successfully. Callers that can wait for
+   * the image should use {@link #loadAndCacheImageAsync(URL, Path, Supplier, int, int)} instead, which download the
+   * image only once.
+   */
   @Nullable
   public Image loadAndCacheImage(URL url, Path cacheSubFolder, @Nullable Supplier<Image> defaultSupplier, int width, int height) {
     if (url == null) {
-      if (defaultSupplier == null) {
-        return null;
+      return getDefaultImage(defaultSupplier);
+    }
+
+    ImageKey key = new ImageKey(url.toExternalForm(), cacheSubFolder, width, height);
+    CompletableFuture<Image> cachedImage = imageCache.getIfPresent(key);
+    if (cachedImage != null && cachedImage.isDone() && !cachedImage.isCompletedExceptionally()) {
+      return cachedImage.join();
+    }
+
+    Path storedFile = getStoredFile(url, cacheSubFolder);
+    Image image;
+    if (Files.exists(storedFile)) {
+      fetchExecutor.execute(() -> markUsed(storedFile));
+      logger.debug("Loading image {}", storedFile);
+      image = new Image(storedFile.toUri().toString(), width, height, true, true, true);
+      cacheWhenLoaded(key, image, null);
+    } else {
+      logger.debug("Loading image {}", url);
+      image = new Image(url.toExternalForm(), width, height, true, true, true);
+      cacheWhenLoaded(key, image, storedFile);
+    }
+    return image;
+  }
+
+  /**
+   * Loads the specified image, scaled to fit into the specified size. If the image can't be loaded, the future
+   * completes with the default image.
+   *
+   * @param width the width to scale the image to, or {@code 0} to use the width of the image
+   * @param height the height to scale the image to, or {@code 0} to use the height of the image
+   */
+  public CompletableFuture<Image> loadAndCacheImageAsync(URL url, Path cacheSubFolder, @Nullable Supplier<Image> defaultSupplier, int width, int height) {
+    if (url == null) {
+      return CompletableFuture.supplyAsync(() -> getDefaultImage(defaultSupplier), decodeExecutor);
+    }
+
+    return imageCache.get(new ImageKey(url.toExternalForm(), cacheSubFolder, width, height))
+        .exceptionally(throwable -> {
+          logger.warn("Could not load image {}", url, throwable);
+          return getDefaultImage(defaultSupplier);
+        });
+  }
+
+  @VisibleForTesting
+  Path getStoredFile(URL url, Path cacheSubFolder) {
+    String urlString = url.toExternalForm();
+    String fileName = urlString.substring(urlString.lastIndexOf('/') + 1);
+    int extensionIndex = fileName.lastIndexOf('.');
+    String extension = extensionIndex != -1 && fileName.length() - extensionIndex <= 5 ? fileName.substring(extensionIndex) : "";
+
+    return getImageDirectory().resolve(cacheSubFolder)
+        .resolve(Hashing.sha256().hashString(urlString, UTF_8).toString() + extension);
+  }
+
+  private void markUsed(Path storedFile) {
+    try {
+      getImageStore().touch(storedFile);
+    } catch (IOException e) {
+      logger.warn("Could not mark image '{}' as used", storedFile, e);
+    }
+  }
+
+  /**
+   * Makes sure the specified image is stored on disk. Requests for an image that is already being downloaded share the
+   * pending download.
+   */
+  private CompletableFuture<Path> fetch(URL url, Path storedFile) {
+    return store(storedFile, file -> {
+      logger.debug("Fetching image {}", url);
+      try (InputStream inputStream = url.openStream()) {
+        Files.copy(inputStream, file, StandardCopyOption.REPLACE_EXISTING);
       }
-      return defaultSupplier.get();
+    });
+  }
+
+  /**
+   * Makes sure the specified file is stored, by writing it with the specified writer unless it's stored already. Only
+   * one writer runs per file at a time; requests for a file that is already being written share the pending write.
+   */
+  private CompletableFuture<Path> store(Path storedFile, ContentWriter writer) {
+    CompletableFuture<Path> fetch = new CompletableFuture<>();
+    CompletableFuture<Path> pendingFetch = pendingFetches.putIfAbsent(storedFile, fetch);
+    if (pendingFetch != null) {
+      return pendingFetch;
     }
 
-    String urlString = url.toString();
-    String filename = urlString.substring(urlString.lastIndexOf('/') + 1);
-    Path cachePath = preferencesService.getCacheDirectory().resolve(cacheSubFolder).resolve(filename);
-    if (Files.exists(cachePath)) {
-      logger.debug("Using cached image: {}", cachePath);
-      return new Image(noCatch(() -> cachePath.toUri().toURL().toExternalForm()), width, height, true, true);
+    fetchExecutor.execute(() -> {
+      try {
+        if (!getImageStore().contains(storedFile)) {
+          write(storedFile, writer);
+        }
+        fetch.complete(storedFile);
+      } catch (IOException | RuntimeException e) {
+        fetch.completeExceptionally(e);
+      } finally {
+        pendingFetches.remove(storedFile, fetch);
+      }
+    });
+    return fetch;
+  }
+
+  private void write(Path storedFile, ContentWriter writer) throws IOException {
+    Files.createDirectories(storedFile.getParent());
+    Path temporaryFile = Files.createTempFile(storedFile.getParent(), storedFile.getFileName().toString(), ContentStore.TEMPORARY_FILE_SUFFIX);
+    try {
+      writer.write(temporaryFile);
+      Files.move(temporaryFile, storedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
     }
 
-    logger.debug("Fetching image {}", url);
+    ContentStore store = getImageStore();
+    store.touch(storedFile);
+    long maxDiskCacheSize = clientProperties.getImages().getMaxDiskCacheSize();
+    if (store.getTotalSize() > maxDiskCacheSize) {
+      store.evict(maxDiskCacheSize, Instant.EPOCH);
+    }
+  }
 
-    Image image = new Image(url.toString(), width, height, true, true, true);
-    JavaFxUtil.persistImage(image, cachePath, filename.substring(filename.lastIndexOf('.') + 1));
+  private Image decode(Path storedFile, ImageKey key) {
+    Image image = new Image(storedFile.toUri().toString(), key.getWidth(), key.getHeight(), true, true);
+    if (image.isError()) {
+      // Most likely a broken download, which must not be served again
+      getImageStore().remove(storedFile);
+      try {
+        Files.deleteIfExists(storedFile);
+      } catch (IOException e) {
+        logger.warn("Could not delete broken image '{}'", storedFile, e);
+      }
+      throw new CompletionException(new IOException("Could not decode image " + key.getUrl(), image.getException()));
+    }
     return image;
   }
+
+  /**
+   * Puts the specified image into the memory cache as soon as it has been loaded successfully.
+   *
+   * @param fileToStore the file to store the original image to, or {@code null} if it is stored already
+   */
+  private void cacheWhenLoaded(ImageKey key, Image image, @Nullable Path fileToStore) {
+    AtomicBoolean handled = new AtomicBoolean();
+    ChangeListener<Number> progressListener = new ChangeListener<>() {
+      @Override
+      public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
+        if (newValue.doubleValue() < 1) {
+          return;
+        }
+        image.progressProperty().removeListener(this);
+        if (handled.compareAndSet(false, true)) {
+          onImageLoaded(key, image, fileToStore);
+        }
+      }
+    };
+    JavaFxUtil.addListener(image.progressProperty(), progressListener);
+
+    // Loading may have finished before the listener was added
+    if (image.getProgress() >= 1 && handled.compareAndSet(false, true)) {
+      image.progressProperty().removeListener(progressListener);
+      onImageLoaded(key, image, fileToStore);
+    }
+  }
+
+  private void onImageLoaded(ImageKey key, Image image, @Nullable Path fileToStore) {
+    if (image.isError()) {
+      return;
+    }
+    imageCache.put(key, CompletableFuture.completedFuture(image));
+    if (fileToStore != null) {
+      fetch(noCatch(() -> new URL(key.getUrl())), fileToStore).exceptionally(throwable -> {
+        logger.warn("Could not store image '{}'", fileToStore, throwable);
+        return null;
+      });
+    }
+  }
+
+  @Nullable
+  private Image getDefaultImage(@Nullable Supplier<Image> defaultSupplier) {
+    if (defaultSupplier == null) {
+      return null;
+    }
+    return defaultSupplier.get();
+  }
+
+  private int weigh(Image image) {
+    return (int) Math.min(Integer.MAX_VALUE, (long) image.getWidth() * (long) image.getHeight() * BYTES_PER_PIXEL);
+  }
+
+  private Path getImageDirectory() {
+    return preferencesService.getCacheDirectory().resolve(IMAGE_DIRECTORY_NAME);
+  }
+
+  private synchronized ContentStore getImageStore() {
+    if (imageStore == null) {
+      imageStore = new ContentStore(getImageDirectory(), preferencesService.getCacheDirectory().resolve(IMAGE_STORE_INDEX_FILE_NAME));
+    }
+    return imageStore;
+  }
+
+  @FunctionalInterface
+  private interface ContentWriter {
+    void write(Path file) throws IOException;
+  }
+
+  @Value
+  private static class ImageKey {
+    String url;
+    Path cacheSubFolder;
+    int width;
+    int height;
+  }
 }
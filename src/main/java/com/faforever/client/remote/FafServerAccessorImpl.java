@@ -23,6 +23,7 @@ import com.faforever.client.notification.Severity;
 import com.faforever.client.player.Player;
 import com.faforever.client.preferences.PreferencesService;
 import com.faforever.client.rankedmatch.MatchmakerInfoClientMessage;
+import com.faforever.client.remote.ServerMessageDispatcher.DispatchStatistics;
 import com.faforever.client.remote.domain.AcceptPartyInviteMessage;
 import com.faforever.client.remote.domain.AddFoeMessage;
 import com.faforever.client.remote.domain.AddFriendMessage;
@@ -81,9 +82,10 @@ import com.faforever.client.remote.gson.LobbyModeTypeAdapter;
 import com.faforever.client.remote.gson.MatchmakingStateTypeAdapter;
 import com.faforever.client.remote.gson.MessageTargetTypeAdapter;
 import com.faforever.client.remote.gson.RatingRangeTypeAdapter;
-import com.faforever.client.remote.gson.ServerMessageTypeAdapter;
+import com.faforever.client.remote.gson.ServerMessageDecoder;
 import com.faforever.client.remote.gson.ServerMessageTypeTypeAdapter;
 import com.faforever.client.remote.gson.VictoryConditionTypeAdapter;
+import com.faforever.client.remote.io.ChannelOutputStream;
 import com.faforever.client.reporting.ReportingService;
 import com.faforever.client.teammatchmaking.MatchmakingQueue;
 import com.faforever.client.update.Version;
@@ -116,14 +118,16 @@ import org.springframework.util.StringUtils;
 import javax.security.auth.login.LoginException;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
 import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
 import java.time.Duration;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
@@ -150,13 +154,13 @@ public class FafServerAccessorImpl extends AbstractServerAccessor implements Faf
       .registerTypeAdapter(FafServerMessageType.class, ServerMessageTypeTypeAdapter.INSTANCE)
       .registerTypeAdapter(GpgServerMessageType.class, GpgServerMessageTypeTypeAdapter.INSTANCE)
       .registerTypeAdapter(MessageTarget.class, MessageTargetTypeAdapter.INSTANCE)
-      .registerTypeAdapter(ServerMessage.class, ServerMessageTypeAdapter.INSTANCE)
       .registerTypeAdapter(RatingRange.class, RatingRangeTypeAdapter.INSTANCE)
       .registerTypeAdapter(Faction.class, FactionTypeAdapter.INSTANCE)
       .registerTypeAdapter(LobbyMode.class, LobbyModeTypeAdapter.INSTANCE)
       .registerTypeAdapter(MatchmakingState.class, MatchmakingStateTypeAdapter.INSTANCE)
       .create();
-  private final HashMap<Class<? extends ServerMessage>, Collection<Consumer<ServerMessage>>> messageListeners = new HashMap<>();
+  private final ServerMessageDecoder serverMessageDecoder = new ServerMessageDecoder(gson);
+  private final ServerMessageDispatcher serverMessageDispatcher = new ServerMessageDispatcher();
 
   private final PreferencesService preferencesService;
   private final UidService uidService;
@@ -179,9 +183,10 @@ public class FafServerAccessorImpl extends AbstractServerAccessor implements Faf
   private String username;
   private String password;
   private final ObjectProperty<ConnectionState> connectionState = new SimpleObjectProperty<>();
-  private Socket fafServerSocket;
+  private SocketChannel fafServerChannel;
   private CompletableFuture<List<Avatar>> avatarsFuture;
   private CompletableFuture<List<IceServer>> iceServersFuture;
+  private ServerTrafficRecorder serverTrafficRecorder;
 
   private void onAvatarMessage(AvatarMessage avatarMessage) {
     avatarsFuture.complete(avatarMessage.getAvatarList());
@@ -212,17 +217,20 @@ public class FafServerAccessorImpl extends AbstractServerAccessor implements Faf
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   public <T extends ServerMessage> void addOnMessageListener(Class<T> type, Consumer<T> listener) {
-    if (!messageListeners.containsKey(type)) {
-      messageListeners.put(type, new LinkedList<>());
-    }
-    messageListeners.get(type).add((Consumer<ServerMessage>) listener);
+    serverMessageDispatcher.addListener(type, listener);
   }
 
   @Override
   public <T extends ServerMessage> void removeOnMessageListener(Class<T> type, Consumer<T> listener) {
-    messageListeners.get(type).remove(listener);
+    serverMessageDispatcher.removeListener(type, listener);
+  }
+
+  /**
+   * Returns how long it took to dispatch the received messages to their listeners, per message type.
+   */
+  public Map<Class<? extends ServerMessage>, DispatchStatistics> getDispatchStatistics() {
+    return serverMessageDispatcher.getStatistics();
   }
 
   @Override
@@ -251,13 +259,15 @@ public class FafServerAccessorImpl extends AbstractServerAccessor implements Faf
           Platform.runLater(() -> connectionState.set(ConnectionState.CONNECTING));
 
 
-          try (Socket fafServerSocket = new Socket(serverHost, serverPort);
-               OutputStream outputStream = fafServerSocket.getOutputStream()) {
-            FafServerAccessorImpl.this.fafServerSocket = fafServerSocket;
+          InetSocketAddress serverAddress = new InetSocketAddress(serverHost, serverPort);
+          try (SocketChannel fafServerChannel = openChannel(serverAddress);
+               OutputStream outputStream = new ChannelOutputStream(fafServerChannel)) {
+            FafServerAccessorImpl.this.fafServerChannel = fafServerChannel;
 
-            fafServerSocket.setKeepAlive(true);
+            fafServerChannel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            fafServerChannel.configureBlocking(false);
 
-            localIp = fafServerSocket.getLocalAddress().getHostAddress();
+            localIp = ((InetSocketAddress) fafServerChannel.getLocalAddress()).getAddress().getHostAddress();
 
             serverWriter = createServerWriter(outputStream);
 
@@ -267,8 +277,9 @@ public class FafServerAccessorImpl extends AbstractServerAccessor implements Faf
             Platform.runLater(() -> connectionState.set(ConnectionState.CONNECTED));
             reconnectTimerService.resetConnectionFailures();
 
-            blockingReadServer(fafServerSocket);
+            readServer(fafServerChannel);
           } catch (IOException e) {
+            IOUtils.closeQuietly(serverWriter);
             Platform.runLater(() -> connectionState.set(ConnectionState.DISCONNECTED));
             if (isCancelled()) {
               log.debug("Connection to FAF server has been closed");
@@ -297,13 +308,14 @@ public class FafServerAccessorImpl extends AbstractServerAccessor implements Faf
           loginFuture = null;
         }
         IOUtils.closeQuietly(serverWriter);
-        IOUtils.closeQuietly(fafServerSocket);
+        IOUtils.closeQuietly(fafServerChannel);
       }
 
       @Override
       protected void cancelled() {
         IOUtils.closeQuietly(serverWriter);
-        IOUtils.closeQuietly(fafServerSocket);
+        IOUtils.closeQuietly(fafServerChannel);
+        wakeUpReader();
         log.debug("Closed connection to FAF lobby server");
       }
     };
@@ -311,6 +323,13 @@ public class FafServerAccessorImpl extends AbstractServerAccessor implements Faf
     return loginFuture;
   }
 
+  private SocketChannel openChannel(InetSocketAddress serverAddress) throws IOException {
+    if (serverAddress.isUnresolved()) {
+      throw new UnknownHostException(serverAddress.getHostString());
+    }
+    return SocketChannel.open(serverAddress);
+  }
+
 
   @Override
   public CompletableFuture<GameLaunchMessage> requestHostGame(NewGameInfo newGameInfo) {
@@ -345,6 +364,7 @@ public class FafServerAccessorImpl extends AbstractServerAccessor implements Faf
   @Override
   public void destroy() {
     disconnect();
+    IOUtils.closeQuietly(serverTrafficRecorder);
   }
 
   public void disconnect() {
@@ -355,7 +375,8 @@ public class FafServerAccessorImpl extends AbstractServerAccessor implements Faf
 
   @Override
   public void reconnect() {
-    IOUtils.closeQuietly(fafServerSocket);
+    IOUtils.closeQuietly(fafServerChannel);
+    wakeUpReader();
     reconnectTimerService.skipWait();
   }
 
@@ -471,6 +492,10 @@ public class FafServerAccessorImpl extends AbstractServerAccessor implements Faf
   }
 
   public void onServerMessage(String message) {
+    if (serverTrafficRecorder != null) {
+      serverTrafficRecorder.record(message);
+    }
+
     ServerCommand serverCommand = ServerCommand.fromString(message);
     if (serverCommand != null) {
       dispatchServerMessage(serverCommand);
@@ -497,19 +522,13 @@ public class FafServerAccessorImpl extends AbstractServerAccessor implements Faf
 
   private void parseServerObject(String jsonString) {
     try {
-      ServerMessage serverMessage = gson.fromJson(jsonString, ServerMessage.class);
+      ServerMessage serverMessage = serverMessageDecoder.decode(jsonString);
       if (serverMessage == null) {
         log.debug("Discarding unimplemented server message: {}", jsonString);
         return;
       }
 
-      Class<?> messageClass = serverMessage.getClass();
-      while (messageClass != Object.class) {
-        messageListeners.getOrDefault(messageClass, Collections.emptyList())
-            .forEach(consumer -> consumer.accept(serverMessage));
-        messageClass = messageClass.getSuperclass();
-      }
-
+      serverMessageDispatcher.dispatch(serverMessage);
     } catch (JsonSyntaxException e) {
       log.warn("Could not deserialize message: " + jsonString, e);
     }
@@ -570,7 +589,7 @@ public class FafServerAccessorImpl extends AbstractServerAccessor implements Faf
   @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
   @Override
   public void ping() {
-    if (fafServerSocket == null || !fafServerSocket.isConnected() || serverWriter == null) {
+    if (fafServerChannel == null || !fafServerChannel.isConnected() || serverWriter == null) {
       return;
     }
     writeToServer(PingMessage.INSTANCE);
@@ -585,6 +604,12 @@ public class FafServerAccessorImpl extends AbstractServerAccessor implements Faf
     addOnMessageListener(AuthenticationFailedMessage.class, this::dispatchAuthenticationFailed);
     addOnMessageListener(AvatarMessage.class, this::onAvatarMessage);
     addOnMessageListener(IceServersServerMessage.class, this::onIceServersMessage);
+
+    String trafficRecordingFile = clientProperties.getServer().getTrafficRecordingFile();
+    if (trafficRecordingFile != null) {
+      log.info("Recording lobby server traffic to {}", trafficRecordingFile);
+      serverTrafficRecorder = new ServerTrafficRecorder(Path.of(trafficRecordingFile));
+    }
   }
 
 
@@ -10,15 +10,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.serializer.Serializer;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 
 public class JsonMessageSerializer<T extends SerializableMessage> implements Serializer<T> {
 
@@ -31,30 +28,22 @@ public class JsonMessageSerializer<T extends SerializableMessage> implements Ser
   // TODO Clean this up, such that the message is logged within ServerWriter and everything makes much more sense
   @Override
   public void serialize(SerializableMessage message, OutputStream outputStream) throws IOException {
-    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-
     Writer jsonStringWriter = new StringWriter();
 
     // Serialize the object into a StringWriter which is later send as one string block with its size prepended.
     getGson().toJson(message, message.getClass(), fixedJsonWriter(jsonStringWriter));
 
-    QDataWriter qDataWriter = new QDataWriter(byteArrayOutputStream);
-    qDataWriter.append(jsonStringWriter.toString());
-
-    byte[] byteArray = byteArrayOutputStream.toByteArray();
-
+    String data = jsonStringWriter.toString();
     if (logger.isDebugEnabled()) {
-      // Remove the first 4 bytes which contain the length of the following data
-      String data = new String(Arrays.copyOfRange(byteArray, 4, byteArray.length), StandardCharsets.UTF_16BE);
-
+      String maskedData = data;
       for (String stringToMask : message.getStringsToMask()) {
-        data = data.replace("\"" + stringToMask + "\"", "\"" + CONFIDENTIAL_INFORMATION_MASK + "\"");
+        maskedData = maskedData.replace("\"" + stringToMask + "\"", "\"" + CONFIDENTIAL_INFORMATION_MASK + "\"");
       }
 
-      logger.debug("Writing to server: {}", data);
+      logger.debug("Writing to server: {}", maskedData);
     }
 
-    outputStream.write(byteArray);
+    new QDataWriter(outputStream).append(data);
   }
 
   private Gson getGson() {
@@ -0,0 +1,144 @@
+package com.faforever.client.remote;
+
+import com.faforever.client.remote.domain.ServerMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches server messages to the listeners registered for the message's class or any of its super classes.
+ * Listeners are kept in an immutable snapshot which is replaced whenever a listener is added or removed, so that
+ * listeners can be changed by any thread while messages are being dispatched. For each concrete message class, the
+ * listeners of the whole class hierarchy are resolved once into an array, so that dispatching a message only needs a
+ * single lookup.
+ */
+@Slf4j
+public class ServerMessageDispatcher {
+
+  private static final long SLOW_DISPATCH_THRESHOLD_NANOS = Duration.ofMillis(100).toNanos();
+
+  private final Map<Class<? extends ServerMessage>, DispatchStatistics> statistics = new ConcurrentHashMap<>();
+  private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap());
+
+  @SuppressWarnings("unchecked")
+  public synchronized <T extends ServerMessage> void addListener(Class<T> type, Consumer<T> listener) {
+    Map<Class<?>, List<Consumer<ServerMessage>>> listenersByType = snapshot.copyListeners();
+    listenersByType.computeIfAbsent(type, aClass -> new ArrayList<>()).add((Consumer<ServerMessage>) listener);
+    snapshot = new Snapshot(listenersByType);
+  }
+
+  public synchronized <T extends ServerMessage> void removeListener(Class<T> type, Consumer<T> listener) {
+    Map<Class<?>, List<Consumer<ServerMessage>>> listenersByType = snapshot.copyListeners();
+    List<Consumer<ServerMessage>> listeners = listenersByType.get(type);
+    if (listeners == null || !listeners.remove(listener)) {
+      return;
+    }
+    if (listeners.isEmpty()) {
+      listenersByType.remove(type);
+    }
+    snapshot = new Snapshot(listenersByType);
+  }
+
+  public void dispatch(ServerMessage serverMessage) {
+    Class<? extends ServerMessage> messageClass = serverMessage.getClass();
+    Consumer<ServerMessage>[] listeners = snapshot.getDispatchTargets(messageClass);
+
+    long startTime = System.nanoTime();
+    for (Consumer<ServerMessage> listener : listeners) {
+      listener.accept(serverMessage);
+    }
+    long duration = System.nanoTime() - startTime;
+
+    statistics.computeIfAbsent(messageClass, aClass -> new DispatchStatistics()).record(duration);
+    if (duration > SLOW_DISPATCH_THRESHOLD_NANOS) {
+      log.warn("Dispatching {} to {} listeners took {} ms", messageClass.getSimpleName(), listeners.length,
+          Duration.ofNanos(duration).toMillis());
+    }
+  }
+
+  /**
+   * Returns the dispatch statistics per concrete message class. The returned statistics are live and keep being
+   * updated.
+   */
+  public Map<Class<? extends ServerMessage>, DispatchStatistics> getStatistics() {
+    return Collections.unmodifiableMap(statistics);
+  }
+
+  public static class DispatchStatistics {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private void record(long nanos) {
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+      return count.sum();
+    }
+
+    public Duration getTotal() {
+      return Duration.ofNanos(totalNanos.sum());
+    }
+
+    public Duration getMax() {
+      return Duration.ofNanos(maxNanos.get());
+    }
+
+    public Duration getAverage() {
+      long count = getCount();
+      return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.sum() / count);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("count=%d, total=%dms, average=%dus, max=%dms",
+          getCount(), getTotal().toMillis(), getAverage().toNanos() / 1000, getMax().toMillis());
+    }
+  }
+
+  private static class Snapshot {
+    private final Map<Class<?>, List<Consumer<ServerMessage>>> listenersByType;
+    private final Map<Class<?>, Consumer<ServerMessage>[]> dispatchTable = new ConcurrentHashMap<>();
+
+    private Snapshot(Map<Class<?>, List<Consumer<ServerMessage>>> listenersByType) {
+      this.listenersByType = listenersByType;
+    }
+
+    private Map<Class<?>, List<Consumer<ServerMessage>>> copyListeners() {
+      Map<Class<?>, List<Consumer<ServerMessage>>> copy = new HashMap<>();
+      listenersByType.forEach((type, listeners) -> copy.put(type, new ArrayList<>(listeners)));
+      return copy;
+    }
+
+    private Consumer<ServerMessage>[] getDispatchTargets(Class<?> messageClass) {
+      return dispatchTable.computeIfAbsent(messageClass, this::resolveDispatchTargets);
+    }
+
+    /**
+     * Collects the listeners of the specified class and all its super classes, most specific first. Interfaces are not
+     * checked.
+     */
+    @SuppressWarnings("unchecked")
+    private Consumer<ServerMessage>[] resolveDispatchTargets(Class<?> messageClass) {
+      List<Consumer<ServerMessage>> targets = new ArrayList<>();
+      Class<?> classToCheck = messageClass;
+      while (classToCheck != Object.class) {
+        targets.addAll(listenersByType.getOrDefault(classToCheck, Collections.emptyList()));
+        classToCheck = classToCheck.getSuperclass();
+      }
+      return targets.toArray(new Consumer[0]);
+    }
+  }
+}
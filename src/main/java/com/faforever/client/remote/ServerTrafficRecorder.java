@@ -0,0 +1,86 @@
+package com.faforever.client.remote;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Records the raw messages received from the lobby server to a file, so that lobby traffic can be replayed later, e.g.
+ * to load test the client. Each line contains the milliseconds since the recording started, a tab and the message.
+ */
+@Slf4j
+public class ServerTrafficRecorder implements Closeable {
+
+  private static final char SEPARATOR = '\t';
+
+  private final BufferedWriter writer;
+  private final long startTime;
+
+  public ServerTrafficRecorder(Path file) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    writer = Files.newBufferedWriter(file, UTF_8);
+    startTime = System.nanoTime();
+  }
+
+  public void record(String message) {
+    long offsetMillis = Duration.ofNanos(System.nanoTime() - startTime).toMillis();
+    synchronized (writer) {
+      try {
+        writer.write(Long.toString(offsetMillis));
+        writer.write(SEPARATOR);
+        // JSON doesn't allow line breaks within strings, so any line break is just whitespace
+        writer.write(message.replace('\n', ' ').replace('\r', ' '));
+        writer.newLine();
+      } catch (IOException e) {
+        log.warn("Could not record server message", e);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (writer) {
+      writer.close();
+    }
+  }
+
+  /**
+   * Reads all messages of a recording created by {@link #record(String)}.
+   */
+  public static List<RecordedMessage> readRecording(Path file) throws IOException {
+    List<RecordedMessage> messages = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        int separatorIndex = line.indexOf(SEPARATOR);
+        if (separatorIndex == -1) {
+          continue;
+        }
+        long offsetMillis = Long.parseLong(line.substring(0, separatorIndex));
+        messages.add(new RecordedMessage(Duration.ofMillis(offsetMillis), line.substring(separatorIndex + 1)));
+      }
+    }
+    return messages;
+  }
+
+  @Value
+  public static class RecordedMessage {
+    /** Time at which the message has been received, relative to the start of the recording. */
+    Duration offset;
+    String message;
+  }
+}
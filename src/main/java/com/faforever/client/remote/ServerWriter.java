@@ -16,29 +16,59 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
 import java.net.SocketException;
-import java.util.HashMap;
+import java.nio.channels.ClosedChannelException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * Sends data to the server. Classes should not use the server writer directly, but e.g. {@link
  * com.faforever.client.remote.FafService} or any other server accessor instead.
+ * <p>
+ * Messages are queued and written by a dedicated writer thread, so that callers never block on socket I/O. The writer
+ * thread serializes messages into a reusable buffer and writes all messages that are pending at once before flushing.
  */
 public class ServerWriter implements Closeable {
 
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  private static final int MAX_MESSAGES_PER_FLUSH = 64;
+  private static final long SLOW_FLUSH_THRESHOLD_NANOS = Duration.ofMillis(500).toNanos();
+
   private final QDataWriter qDataWriter;
+  private final OutputStream dataOutputStream;
   private final Map<Class<?>, Serializer<?>> objectWriters;
+  private final BlockingQueue<PendingMessage> queue;
+  private final ByteArrayOutputStream messageBuffer;
+  private final Thread writerThread;
+
+  private volatile boolean closed;
+  private volatile long lastFlushLatencyNanos;
+  private volatile long maxFlushLatencyNanos;
 
   public ServerWriter(OutputStream outputStream) {
-    qDataWriter = new QDataWriter(new DataOutputStream(new BufferedOutputStream(outputStream)));
-    objectWriters = new HashMap<>();
+    dataOutputStream = new DataOutputStream(new BufferedOutputStream(outputStream));
+    qDataWriter = new QDataWriter(dataOutputStream);
+    objectWriters = new ConcurrentHashMap<>();
+    queue = new LinkedBlockingQueue<>();
+    messageBuffer = new ByteArrayOutputStream(1024);
+
+    writerThread = new Thread(this::writeQueuedMessages, "server-writer");
+    writerThread.setDaemon(true);
+    writerThread.start();
   }
 
   public void registerMessageSerializer(Serializer<?> objectSerializer, Class<?> writableClass) {
     objectWriters.put(writableClass, objectSerializer);
   }
 
+  /**
+   * Queues the specified message to be written to the server. Returns immediately.
+   */
   @SuppressWarnings("unchecked")
   public void write(SerializableMessage object) {
     Class<?> clazz = object.getClass();
@@ -47,22 +77,86 @@ public class ServerWriter implements Closeable {
 
     Assert.checkNullIllegalState(serializer, () -> "No object writer registered for type: " + clazz);
 
-    try {
-      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-      serializer.serialize(object, outputStream);
+    if (closed) {
+      logger.debug("Server writer has been closed, discarding message: {}", clazz.getSimpleName());
+      return;
+    }
+    queue.add(new PendingMessage(object, serializer));
+  }
 
-      synchronized (qDataWriter) {
-        qDataWriter.appendWithSize(outputStream.toByteArray());
+  private void writeQueuedMessages() {
+    List<PendingMessage> batch = new ArrayList<>(MAX_MESSAGES_PER_FLUSH);
+    try {
+      while (!closed) {
+        batch.add(queue.take());
+        queue.drainTo(batch, MAX_MESSAGES_PER_FLUSH - 1);
+
+        long startTime = System.nanoTime();
+        for (PendingMessage pendingMessage : batch) {
+          messageBuffer.reset();
+          try {
+            pendingMessage.serializer.serialize(pendingMessage.message, messageBuffer);
+          } catch (RuntimeException e) {
+            // Nothing has been written to the stream yet, so the other messages can still be sent
+            logger.warn("Message could not be serialized and is discarded: {}", pendingMessage.message.getClass().getSimpleName(), e);
+            continue;
+          }
+
+          qDataWriter.writeInt32(messageBuffer.size());
+          messageBuffer.writeTo(dataOutputStream);
+        }
         qDataWriter.flush();
+        recordFlushLatency(System.nanoTime() - startTime, batch.size());
+
+        batch.clear();
       }
-    } catch (EOFException | SocketException e) {
+    } catch (InterruptedException e) {
+      logger.debug("Server writer has been interrupted");
+    } catch (EOFException | SocketException | ClosedChannelException e) {
       logger.debug("Server writer has been closed");
     } catch (IOException e) {
       logger.debug("Server writer has been closed", e);
+    } finally {
+      closed = true;
+      queue.clear();
+      closeStream();
+    }
+  }
+
+  private void closeStream() {
+    try {
+      qDataWriter.close();
+    } catch (IOException e) {
+      logger.debug("Server writer stream could not be closed", e);
     }
   }
 
+  private void recordFlushLatency(long nanos, int numberOfMessages) {
+    lastFlushLatencyNanos = nanos;
+    if (nanos > maxFlushLatencyNanos) {
+      maxFlushLatencyNanos = nanos;
+    }
+    if (nanos > SLOW_FLUSH_THRESHOLD_NANOS) {
+      logger.warn("Writing {} messages to the server took {} ms, {} messages are queued",
+          numberOfMessages, Duration.ofNanos(nanos).toMillis(), queue.size());
+    }
+  }
+
+  /**
+   * Returns the number of messages that have been queued but not yet written.
+   */
+  public int getQueueDepth() {
+    return queue.size();
+  }
+
+  public Duration getLastFlushLatency() {
+    return Duration.ofNanos(lastFlushLatencyNanos);
+  }
+
+  public Duration getMaxFlushLatency() {
+    return Duration.ofNanos(maxFlushLatencyNanos);
+  }
+
   /**
    * Finds the appropriate serializer by walking up the type hierarchy. Interfaces are not checked.
    *
@@ -78,8 +172,24 @@ public class ServerWriter implements Closeable {
     return objectWriters.get(classToCheck);
   }
 
+  /**
+   * Stops the writer thread, which then closes the underlying stream. Messages that haven't been written yet are
+   * discarded. Returns immediately, so that it can be called from the JavaFX application thread; a write that is
+   * blocked on the socket ends when the socket is closed.
+   */
   @Override
-  public void close() throws IOException {
-    qDataWriter.close();
+  public void close() {
+    closed = true;
+    writerThread.interrupt();
+  }
+
+  private static class PendingMessage {
+    private final SerializableMessage message;
+    private final Serializer<SerializableMessage> serializer;
+
+    private PendingMessage(SerializableMessage message, Serializer<SerializableMessage> serializer) {
+      this.message = message;
+      this.serializer = serializer;
+    }
   }
 }
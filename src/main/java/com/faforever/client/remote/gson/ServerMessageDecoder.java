@@ -0,0 +1,136 @@
+package com.faforever.client.remote.gson;
+
+import com.faforever.client.fa.relay.GpgServerMessageType;
+import com.faforever.client.remote.domain.FafServerMessageType;
+import com.faforever.client.remote.domain.MessageTarget;
+import com.faforever.client.remote.domain.ServerMessage;
+import com.faforever.client.remote.domain.ServerMessageType;
+import com.faforever.client.util.Assert;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import lombok.Value;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decodes JSON messages sent by the server into their concrete {@link ServerMessage} type. The message type is
+ * determined by peeking the top level {@code command} and {@code target} fields, skipping all other values without
+ * building any objects. The message is then bound straight into its concrete class by a type adapter which has been
+ * looked up once, when this decoder was created.
+ */
+public class ServerMessageDecoder {
+
+  private static final String COMMAND = "command";
+  private static final String TARGET = "target";
+
+  private final Map<MessageTarget, Map<String, TypeAdapter<? extends ServerMessage>>> adaptersByTarget;
+
+  public ServerMessageDecoder(Gson gson) {
+    Map<String, TypeAdapter<? extends ServerMessage>> clientAdapters = createAdapters(gson, FafServerMessageType.values());
+    Map<String, TypeAdapter<? extends ServerMessage>> gpgAdapters = createAdapters(gson, GpgServerMessageType.values());
+
+    adaptersByTarget = new EnumMap<>(MessageTarget.class);
+    adaptersByTarget.put(MessageTarget.CLIENT, clientAdapters);
+    adaptersByTarget.put(MessageTarget.GAME, gpgAdapters);
+    adaptersByTarget.put(MessageTarget.CONNECTIVITY, gpgAdapters);
+  }
+
+  private static Map<String, TypeAdapter<? extends ServerMessage>> createAdapters(Gson gson, ServerMessageType[] messageTypes) {
+    Map<String, TypeAdapter<? extends ServerMessage>> adapters = new HashMap<>(messageTypes.length, 1);
+    for (ServerMessageType messageType : messageTypes) {
+      adapters.put(messageType.getString(), gson.getAdapter(messageType.<ServerMessage>getType()));
+    }
+    return adapters;
+  }
+
+  /**
+   * @return the decoded message or {@code null} if the message type is not known to the client
+   * @throws JsonSyntaxException if the JSON is malformed or doesn't specify a command
+   * @throws IllegalStateException if an unknown relay server command has been received
+   */
+  public ServerMessage decode(String json) {
+    MessageHeader header = read(json, ServerMessageDecoder::readHeader);
+    if (header.getCommand() == null) {
+      throw new JsonSyntaxException("Message does not specify a command: " + json);
+    }
+
+    MessageTarget messageTarget = MessageTarget.fromString(header.getTarget());
+    if (messageTarget == null) {
+      return null;
+    }
+
+    TypeAdapter<? extends ServerMessage> typeAdapter = adaptersByTarget.get(messageTarget).get(header.getCommand());
+    if (messageTarget != MessageTarget.CLIENT) {
+      /*
+       * If an unknown command is received, ignoring it would probably cause the application to enter an unknown state.
+       * So it's better to crash right now so there's no doubt that something went wrong.
+       */
+      Assert.checkNullIllegalState(typeAdapter, "Unknown relay server command: " + header.getCommand());
+    }
+    if (typeAdapter == null) {
+      return null;
+    }
+    return read(json, typeAdapter::read);
+  }
+
+  /**
+   * Reads the top level command and target, stopping as soon as both are known.
+   */
+  private static MessageHeader readHeader(JsonReader jsonReader) throws IOException {
+    String command = null;
+    String target = null;
+    boolean targetRead = false;
+
+    jsonReader.beginObject();
+    while ((command == null || !targetRead) && jsonReader.hasNext()) {
+      switch (jsonReader.nextName()) {
+        case COMMAND:
+          command = jsonReader.nextString();
+          break;
+        case TARGET:
+          targetRead = true;
+          if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+          } else {
+            target = jsonReader.nextString();
+          }
+          break;
+        default:
+          jsonReader.skipValue();
+      }
+    }
+    return new MessageHeader(command, target);
+  }
+
+  private static <T> T read(String json, JsonReaderFunction<T> function) {
+    JsonReader jsonReader = new JsonReader(new StringReader(json));
+    jsonReader.setLenient(true);
+    try {
+      return function.apply(jsonReader);
+    } catch (IllegalStateException | MalformedJsonException | EOFException e) {
+      throw new JsonSyntaxException(e);
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+  }
+
+  private interface JsonReaderFunction<T> {
+    T apply(JsonReader jsonReader) throws IOException;
+  }
+
+  @Value
+  private static class MessageHeader {
+    String command;
+    String target;
+  }
+}
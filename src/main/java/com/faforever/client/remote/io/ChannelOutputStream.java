@@ -0,0 +1,67 @@
+package com.faforever.client.remote.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Output stream that writes to a socket channel, which may be in non-blocking mode. If the channel can't accept any
+ * more data, the writing thread waits until it becomes writable again.
+ */
+public class ChannelOutputStream extends OutputStream {
+
+  private static final long SELECT_TIMEOUT_MILLIS = 1000;
+
+  private final SocketChannel channel;
+  private volatile Selector writeSelector;
+
+  public ChannelOutputStream(SocketChannel channel) {
+    this.channel = channel;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[]{(byte) b}, 0, 1);
+  }
+
+  @Override
+  public synchronized void write(byte[] b, int off, int len) throws IOException {
+    ByteBuffer byteBuffer = ByteBuffer.wrap(b, off, len);
+    while (byteBuffer.hasRemaining()) {
+      if (channel.write(byteBuffer) == 0) {
+        awaitWritable();
+      }
+    }
+  }
+
+  private void awaitWritable() throws IOException {
+    if (writeSelector == null) {
+      writeSelector = Selector.open();
+      channel.register(writeSelector, SelectionKey.OP_WRITE);
+    }
+    // Closing the channel doesn't wake up the selector, hence the timeout
+    writeSelector.select(SELECT_TIMEOUT_MILLIS);
+    writeSelector.selectedKeys().clear();
+    if (!channel.isOpen()) {
+      throw new ClosedChannelException();
+    }
+    if (Thread.currentThread().isInterrupted()) {
+      throw new InterruptedIOException("Interrupted while waiting for the channel to become writable");
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    // Not synchronized, since a writer may be waiting for the channel to become writable
+    channel.close();
+    Selector writeSelector = this.writeSelector;
+    if (writeSelector != null) {
+      writeSelector.close();
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.faforever.client.remote.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads QDataStream framed strings (as sent by the FAF server) from a channel. Each frame consists of a block size, the
+ * size of the string in bytes and the UTF-16BE encoded string itself. Bytes are read into a reusable direct buffer which
+ * is only ever grown if a single frame doesn't fit, so that reading frames doesn't allocate anything but the resulting
+ * strings. The buffer is flipped once for all frames that have been read and compacted once they have been consumed.
+ */
+public class QDataChannelReader {
+
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+  private ByteBuffer buffer;
+  private char[] chars;
+  private int requiredCapacity;
+  /** Whether the buffer has been flipped to consume the frames that have been read. */
+  private boolean consuming;
+
+  public QDataChannelReader() {
+    this(DEFAULT_BUFFER_SIZE);
+  }
+
+  public QDataChannelReader(int initialCapacity) {
+    buffer = ByteBuffer.allocateDirect(initialCapacity);
+    chars = new char[initialCapacity / Character.BYTES];
+  }
+
+  /**
+   * Reads as many bytes as currently available from the specified channel.
+   *
+   * @return the number of bytes read, or {@code -1} if the channel has reached end-of-stream
+   */
+  public int readFrom(ReadableByteChannel channel) throws IOException {
+    if (consuming) {
+      compact();
+    }
+    return channel.read(buffer);
+  }
+
+  /**
+   * Returns the next complete string that has been read, or {@code null} if more data needs to be read first. Null
+   * strings sent by the server are skipped.
+   */
+  public String nextMessage() throws IOException {
+    if (!consuming) {
+      buffer.flip();
+      consuming = true;
+    }
+    while (buffer.remaining() >= HEADER_SIZE) {
+      int frameStart = buffer.position();
+      int stringSize = buffer.getInt(frameStart + Integer.BYTES);
+      if (stringSize == -1) {
+        buffer.position(frameStart + HEADER_SIZE);
+        continue;
+      }
+      if (stringSize < 0 || stringSize % Character.BYTES != 0) {
+        throw new IOException("Invalid string size: " + stringSize);
+      }
+
+      int frameSize = HEADER_SIZE + stringSize;
+      if (buffer.remaining() < frameSize) {
+        requiredCapacity = frameSize;
+        break;
+      }
+
+      buffer.position(frameStart + HEADER_SIZE);
+      return decodeString(stringSize / Character.BYTES);
+    }
+    compact();
+    return null;
+  }
+
+  /**
+   * Discards any buffered data, e.g. after the underlying connection has been reestablished.
+   */
+  public void reset() {
+    buffer.clear();
+    consuming = false;
+    requiredCapacity = 0;
+  }
+
+  /**
+   * Moves the bytes of an incomplete frame to the start of the buffer, so that the rest of the frame can be read.
+   */
+  private void compact() {
+    buffer.compact();
+    consuming = false;
+    if (requiredCapacity > buffer.capacity()) {
+      grow();
+    }
+  }
+
+  private String decodeString(int length) {
+    if (chars.length < length) {
+      chars = new char[length];
+    }
+    // ByteBuffers are big endian by default, which matches UTF-16BE
+    for (int i = 0; i < length; i++) {
+      chars[i] = buffer.getChar();
+    }
+    return new String(chars, 0, length);
+  }
+
+  private void grow() {
+    ByteBuffer newBuffer = ByteBuffer.allocateDirect(Math.max(requiredCapacity, buffer.capacity() * 2));
+    buffer.flip();
+    newBuffer.put(buffer);
+    buffer = newBuffer;
+  }
+}
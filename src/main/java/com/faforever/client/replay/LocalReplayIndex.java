@@ -0,0 +1,251 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.io.DirectoryWatcherService;
+import com.faforever.client.io.DirectoryWatcherService.DirectoryChanges;
+import com.faforever.client.io.DirectoryWatcherService.Registration;
+import com.faforever.client.io.VersionedJsonFile;
+import com.faforever.client.util.Tuple;
+import com.google.gson.reflect.TypeToken;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent index of the replay files in the local replays directory. A replay file is only parsed if it is new or
+ * if its size or modification time changed since it has been indexed, so that queries never need to touch the replay
+ * files. Once {@link #startWatching(DirectoryWatcherService)} has been called, the index keeps itself up to date as
+ * files are added, changed or deleted.
+ */
+@Slf4j
+public class LocalReplayIndex implements Closeable {
+
+  private static final int INDEX_FORMAT_VERSION = 1;
+
+  /** Orders replays by the modification time of their files, newest first. */
+  public static final Comparator<Entry> NEWEST_FIRST = Comparator.comparingLong(Entry::getLastModified).reversed();
+
+  private final Path replaysDirectory;
+  private final PathMatcher replayFileMatcher;
+  private final VersionedJsonFile<List<Entry>> indexFile;
+  private final ReplayFileReader replayFileReader;
+  private final Consumer<Path> corruptedReplayFileHandler;
+  private final Map<String, Entry> entriesByFileName;
+  private Registration watcherRegistration;
+
+  /**
+   * @param corruptedReplayFileHandler called with every replay file that could not be parsed; such files are not
+   * indexed
+   */
+  public LocalReplayIndex(Path replaysDirectory, String replayFileGlob, Path indexFile, ReplayFileReader replayFileReader,
+                          Consumer<Path> corruptedReplayFileHandler) {
+    this.replaysDirectory = replaysDirectory;
+    this.replayFileMatcher = replaysDirectory.getFileSystem().getPathMatcher("glob:" + replayFileGlob);
+    this.indexFile = new VersionedJsonFile<>(indexFile, INDEX_FORMAT_VERSION, new TypeToken<List<Entry>>() {}.getType(),
+        ReplayFiles.gson());
+    this.replayFileReader = replayFileReader;
+    this.corruptedReplayFileHandler = corruptedReplayFileHandler;
+    this.entriesByFileName = new HashMap<>();
+  }
+
+  /**
+   * Loads the persisted index, if any, and brings it up to date with the replays directory.
+   */
+  public void load() throws IOException {
+    synchronized (entriesByFileName) {
+      entriesByFileName.clear();
+      readIndexFile().forEach(entry -> entriesByFileName.put(entry.getFileName(), entry));
+    }
+    rescan();
+  }
+
+  /**
+   * Compares the index with the replays directory, indexes new and changed files and drops deleted ones.
+   */
+  public void rescan() throws IOException {
+    Set<String> existingFileNames = new HashSet<>();
+    boolean changed = false;
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(replaysDirectory, this::isReplayFile)) {
+      for (Path replayFile : directoryStream) {
+        existingFileNames.add(replayFile.getFileName().toString());
+        changed |= update(replayFile, true);
+      }
+    }
+    synchronized (entriesByFileName) {
+      changed |= entriesByFileName.keySet().retainAll(existingFileNames);
+    }
+    if (changed) {
+      save();
+    }
+  }
+
+  /**
+   * Starts updating the index whenever a replay file is added, changed or deleted.
+   */
+  public void startWatching(DirectoryWatcherService directoryWatcherService) throws IOException {
+    watcherRegistration = directoryWatcherService.watch(replaysDirectory, DirectoryWatcherService.DEFAULT_QUIET_PERIOD, this::onReplaysDirectoryChanged);
+  }
+
+  private void onReplaysDirectoryChanged(DirectoryChanges changes) {
+    try {
+      if (changes.isOverflow()) {
+        rescan();
+        return;
+      }
+      boolean changed = false;
+      for (Path replayFile : changes.getDeletedEntries()) {
+        changed |= isReplayFile(replayFile) && remove(replayFile);
+      }
+      for (Path replayFile : changes.getChangedEntries()) {
+        if (isReplayFile(replayFile)) {
+          // The file may still be being written, in which case a later change will index it
+          changed |= update(replayFile, false);
+        }
+      }
+      if (changed) {
+        save();
+      }
+    } catch (IOException e) {
+      log.warn("Could not update local replay index", e);
+    }
+  }
+
+  /**
+   * Returns the specified page of the replays that match the specified filter, together with the total number of
+   * pages.
+   *
+   * @param page the page to return, starting at 1
+   */
+  public Tuple<List<Entry>, Integer> query(Predicate<Entry> filter, Comparator<Entry> order, int pageSize, int page) {
+    List<Entry> matchingEntries;
+    synchronized (entriesByFileName) {
+      matchingEntries = entriesByFileName.values().stream()
+          .filter(filter)
+          .collect(Collectors.toList());
+    }
+    matchingEntries.sort(order);
+
+    int numPages = matchingEntries.size() / pageSize;
+    List<Entry> pageEntries = matchingEntries.stream()
+        .skip((long) pageSize * (page - 1))
+        .limit(pageSize)
+        .collect(Collectors.toList());
+    return new Tuple<>(pageEntries, numPages);
+  }
+
+  public Path getReplayFile(Entry entry) {
+    return replaysDirectory.resolve(entry.getFileName());
+  }
+
+  private boolean isReplayFile(Path path) {
+    return replayFileMatcher.matches(path.getFileName());
+  }
+
+  /**
+   * Indexes the specified file unless it is already indexed with the same size and modification time.
+   *
+   * @param reportCorrupted whether to pass the file to the corrupted replay file handler if it can't be parsed
+   * @return {@code true} if the index has been changed
+   */
+  private boolean update(Path replayFile, boolean reportCorrupted) {
+    String fileName = replayFile.getFileName().toString();
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(replayFile, BasicFileAttributes.class);
+    } catch (IOException e) {
+      log.debug("Replay file '{}' has vanished before it could be indexed", replayFile);
+      return remove(replayFile);
+    }
+    long size = attributes.size();
+    long lastModified = attributes.lastModifiedTime().toMillis();
+
+    synchronized (entriesByFileName) {
+      Entry entry = entriesByFileName.get(fileName);
+      if (entry != null && entry.getSize() == size && entry.getLastModified() == lastModified) {
+        return false;
+      }
+    }
+
+    LocalReplayInfo replayInfo;
+    try {
+      replayInfo = replayFileReader.parseMetaData(replayFile);
+    } catch (Exception e) {
+      boolean removed = remove(replayFile);
+      if (!reportCorrupted) {
+        log.debug("Could not read replay file '{}' ({})", replayFile, e.getMessage());
+        return removed;
+      }
+      log.warn("Could not read replay file '{}'", replayFile, e);
+      corruptedReplayFileHandler.accept(replayFile);
+      return removed;
+    }
+
+    Entry entry = new Entry();
+    entry.setFileName(fileName);
+    entry.setSize(size);
+    entry.setLastModified(lastModified);
+    entry.setReplayInfo(replayInfo);
+    synchronized (entriesByFileName) {
+      entriesByFileName.put(fileName, entry);
+    }
+    return true;
+  }
+
+  private boolean remove(Path replayFile) {
+    synchronized (entriesByFileName) {
+      return entriesByFileName.remove(replayFile.getFileName().toString()) != null;
+    }
+  }
+
+  private List<Entry> readIndexFile() {
+    return indexFile.read().orElse(List.of()).stream()
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Persists the index.
+   */
+  public void save() throws IOException {
+    List<Entry> entries;
+    synchronized (entriesByFileName) {
+      entries = new ArrayList<>(entriesByFileName.values());
+    }
+    indexFile.write(entries);
+  }
+
+  @Override
+  public void close() {
+    if (watcherRegistration != null) {
+      watcherRegistration.close();
+    }
+  }
+
+  /**
+   * A replay file and its metadata as stored in the index.
+   */
+  @Data
+  public static class Entry {
+    private String fileName;
+    private long size;
+    private long lastModified;
+    private LocalReplayInfo replayInfo;
+  }
+}
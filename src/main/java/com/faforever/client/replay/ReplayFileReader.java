@@ -3,6 +3,8 @@ package com.faforever.client.replay;
 
 import com.faforever.commons.replay.ReplayData;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Path;
 
 public interface ReplayFileReader {
@@ -17,6 +19,13 @@ public interface ReplayFileReader {
    */
   byte[] readRawReplayData(Path replayFile);
 
+  /**
+   * Reads the specified replay file in a single pass, writes its binary replay data to the specified sink and returns
+   * its meta information. The replay data is decoded and decompressed incrementally, so it never needs to fit into
+   * memory.
+   */
+  LocalReplayInfo readReplay(Path replayFile, OutputStream replayDataSink) throws IOException;
+
   /**
    * Parses the actual replay data of the specified file and returns information such as chat messages, game options,
    * executed commands and so on.
@@ -1,9 +1,9 @@
 package com.faforever.client.replay;
 
-import com.faforever.commons.replay.QtCompress;
 import com.faforever.commons.replay.ReplayData;
 import com.faforever.commons.replay.ReplayDataParser;
 import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
 import com.google.gson.Gson;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -12,16 +12,22 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Stream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
-import static com.github.nocatch.NoCatch.noCatch;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 @Lazy
 @Component
@@ -30,6 +36,12 @@ public class ReplayFileReaderImpl implements ReplayFileReader {
 
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  private static final int BUFFER_SIZE = 65536;
+  /**
+   * The JSON header contains a few player names and mod IDs, so anything larger is not a replay file.
+   */
+  private static final int MAX_HEADER_SIZE = 1024 * 1024;
+
   private final Gson gson;
 
   public ReplayFileReaderImpl() {
@@ -40,29 +52,101 @@ public class ReplayFileReaderImpl implements ReplayFileReader {
   @SneakyThrows
   public LocalReplayInfo parseMetaData(Path replayFile) {
     logger.debug("Parsing metadata of replay file: {}", replayFile);
-    try (Stream<String> stream = Files.lines(replayFile)) {
-      return stream
-          .findFirst()
-          .map(jsonString -> gson.fromJson(jsonString, LocalReplayInfo.class))
-          .orElseThrow(() -> new IOException(String.format("Failed to extract metadata from replay file: {}", replayFile)));
+    try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(replayFile))) {
+      return readMetaData(inputStream, replayFile);
     }
   }
 
   @Override
   @SneakyThrows
   public byte[] readRawReplayData(Path replayFile) {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    readReplay(replayFile, outputStream);
+    return outputStream.toByteArray();
+  }
+
+  @Override
+  public LocalReplayInfo readReplay(Path replayFile, OutputStream replayDataSink) throws IOException {
     logger.debug("Reading replay file: {}", replayFile);
-    try (Stream<String> stream = Files.lines(replayFile)) {
-      return stream
-          .skip(1)
-          .findFirst()
-          .map(base64String -> noCatch(() -> QtCompress.qUncompress(BaseEncoding.base64().decode(base64String))))
-          .orElseThrow(() -> new IOException(String.format("Failed to extract replay data from replay file: {}", replayFile)));
+    try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(replayFile), BUFFER_SIZE)) {
+      LocalReplayInfo replayInfo = readMetaData(inputStream, replayFile);
+
+      // The replay data is in the format of QtCompress.qUncompress(): the uncompressed size followed by zlib data
+      InputStream decodingStream = BaseEncoding.base64().decodingStream(new InputStreamReader(new LineInputStream(inputStream), US_ASCII));
+      Inflater inflater = new Inflater();
+      try {
+        ByteStreams.skipFully(decodingStream, Integer.BYTES);
+        ByteStreams.copy(new InflaterInputStream(decodingStream, inflater, BUFFER_SIZE), replayDataSink);
+      } catch (EOFException e) {
+        throw new IOException(String.format("Failed to extract replay data from replay file: %s", replayFile), e);
+      } finally {
+        inflater.end();
+      }
+      return replayInfo;
+    }
+  }
+
+  /**
+   * Reads the JSON header of a replay file, which is its first line. The line is read byte by byte since the input
+   * stream may not be read any further.
+   */
+  private LocalReplayInfo readMetaData(InputStream inputStream, Path replayFile) throws IOException {
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    int b;
+    while ((b = inputStream.read()) != -1 && b != '\n') {
+      if (header.size() == MAX_HEADER_SIZE) {
+        throw new IOException(String.format("Metadata of replay file exceeds %d bytes: %s", MAX_HEADER_SIZE, replayFile));
+      }
+      header.write(b);
+    }
+    if (header.size() == 0) {
+      throw new IOException(String.format("Failed to extract metadata from replay file: %s", replayFile));
     }
+    return gson.fromJson(header.toString(UTF_8), LocalReplayInfo.class);
   }
 
   @Override
   public ReplayData parseReplay(Path path) {
     return new ReplayDataParser(path).parse();
   }
+
+  /**
+   * Ends the stream at the first line break, so that the base64 decoder doesn't choke on trailing line breaks.
+   */
+  private static class LineInputStream extends FilterInputStream {
+
+    private boolean endOfLine;
+
+    private LineInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (endOfLine) {
+        return -1;
+      }
+      int b = super.read();
+      if (b == '\n' || b == '\r') {
+        endOfLine = true;
+        return -1;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (endOfLine) {
+        return -1;
+      }
+      int bytesRead = super.read(b, off, len);
+      for (int i = off; i < off + bytesRead; i++) {
+        if (b[i] == '\n' || b[i] == '\r') {
+          endOfLine = true;
+          return i == off ? -1 : i - off;
+        }
+      }
+      return bytesRead;
+    }
+  }
 }
@@ -1,9 +1,13 @@
 package com.faforever.client.replay;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.file.Path;
 
 public interface ReplayFileWriter {
 
-  void writeReplayDataToFile(ByteArrayOutputStream replayData, LocalReplayInfo replayInfo) throws IOException;
+  /**
+   * Writes a {@code .fafreplay} file containing the specified replay info and the raw replay data read from the
+   * specified file. The replay data is streamed, so it never needs to fit into memory.
+   */
+  void writeReplayDataToFile(Path replayDataFile, LocalReplayInfo replayInfo) throws IOException;
 }
@@ -4,8 +4,8 @@ import com.faforever.client.config.ClientProperties;
 import com.faforever.client.i18n.I18n;
 import com.faforever.client.preferences.PreferencesService;
 import com.faforever.commons.io.Bytes;
-import com.faforever.commons.replay.QtCompress;
 import com.google.common.io.BaseEncoding;
+import com.google.common.primitives.Ints;
 import com.google.gson.Gson;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -14,12 +14,13 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.zip.DeflaterOutputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.StandardOpenOption.APPEND;
@@ -38,22 +39,26 @@ public class ReplayFileWriterImpl implements ReplayFileWriter {
   private final PreferencesService preferencesService;
 
   @Override
-  public void writeReplayDataToFile(ByteArrayOutputStream replayData, LocalReplayInfo replayInfo) throws IOException {
+  public void writeReplayDataToFile(Path replayDataFile, LocalReplayInfo replayInfo) throws IOException {
     String fileName = String.format(clientProperties.getReplay().getReplayFileFormat(), replayInfo.getUid(), replayInfo.getRecorder());
     Path replayFile = preferencesService.getReplaysDirectory().resolve(fileName);
     Path temporaryReplayFile = Files.createTempFile(preferencesService.getCacheDirectory(), fileName, "fafreplay");
+    long replayDataSize = Files.size(replayDataFile);
 
-    logger.info("Writing replay file to {} ({})", replayFile, Bytes.formatSize(replayData.size(), i18n.getUserSpecificLocale()));
+    logger.info("Writing replay file to {} ({})", replayFile, Bytes.formatSize(replayDataSize, i18n.getUserSpecificLocale()));
 
     Files.createDirectories(replayFile.getParent());
 
     try (BufferedWriter writer = Files.newBufferedWriter(temporaryReplayFile, UTF_8, APPEND)) {
-      byte[] compressedBytes = QtCompress.qCompress(replayData.toByteArray());
-      String base64ReplayData = BaseEncoding.base64().encode(compressedBytes);
-
       gson.toJson(replayInfo, writer);
       writer.write('\n');
-      writer.write(base64ReplayData);
+
+      // Same format as QtCompress.qCompress(), which is the uncompressed size followed by the zlib compressed data
+      OutputStream base64OutputStream = BaseEncoding.base64().encodingStream(writer);
+      base64OutputStream.write(Ints.toByteArray(Math.toIntExact(replayDataSize)));
+      try (OutputStream deflaterOutputStream = new DeflaterOutputStream(base64OutputStream)) {
+        Files.copy(replayDataFile, deflaterOutputStream);
+      }
     }
 
     Files.move(temporaryReplayFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
@@ -7,6 +7,7 @@ import com.faforever.client.notification.Action;
 import com.faforever.client.notification.NotificationService;
 import com.faforever.client.notification.PersistentNotification;
 import com.faforever.client.notification.Severity;
+import com.faforever.client.preferences.PreferencesService;
 import com.faforever.client.remote.domain.GameStatus;
 import com.faforever.client.update.ClientUpdateService;
 import com.faforever.client.user.UserService;
@@ -17,7 +18,7 @@ import org.jetbrains.annotations.Nullable;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -26,6 +27,8 @@ import java.net.ConnectException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.concurrent.CompletableFuture;
@@ -40,12 +43,15 @@ import static com.github.nocatch.NoCatch.noCatch;
 public class ReplayServerImpl implements ReplayServer {
 
   /**
-   * Size for buffer used to send data to the live replay server. The buffer needs to be large enough to not flush too
-   * many times (after all, it's a TCP stream so we don't want to send single bytes) but small enough to not delay data
-   * for too long. I don't have any data right now but it can be expected that the replay stream produces about 70 bytes
-   * per second (See #973).
+   * Size for buffer used to read data from the game. Since a read returns whatever is available, a larger buffer does
+   * not delay data sent to the live replay server, but it does reduce the number of reads and writes when the game
+   * sends a burst of data. It can be expected that the replay stream produces about 70 bytes per second (See #973).
    */
-  private static final int REPLAY_BUFFER_SIZE = 128;
+  private static final int REPLAY_BUFFER_SIZE = 8192;
+  /**
+   * Size for the buffer used to write the recorded data to the spool file.
+   */
+  private static final int SPOOL_BUFFER_SIZE = 65536;
 
   /**
    * This is a prefix used in the FA live replay protocol that needs to be stripped away when storing to a file.
@@ -58,6 +64,7 @@ public class ReplayServerImpl implements ReplayServer {
   private final UserService userService;
   private final ReplayFileWriter replayFileWriter;
   private final ClientUpdateService clientUpdateService;
+  private final PreferencesService preferencesService;
 
   private LocalReplayInfo replayInfo;
   private ServerSocket serverSocket;
@@ -137,18 +144,38 @@ public class ReplayServerImpl implements ReplayServer {
 
     initReplayInfo(uid);
 
-    ByteArrayOutputStream replayData = new ByteArrayOutputStream();
+    Path spoolFile = Files.createTempFile(preferencesService.getCacheDirectory(), "replay", ".scfareplay");
+    try {
+      spool(socket, spoolFile, fafReplayOutputStream);
+
+      log.debug("FAF has disconnected, writing replay data to file");
+      finishReplayInfo(game);
+      replayFileWriter.writeReplayDataToFile(spoolFile, replayInfo);
+    } finally {
+      Files.deleteIfExists(spoolFile);
+    }
+  }
 
+  /**
+   * Writes the replay data received from the game to the spool file and relays it to the FAF replay server.
+   *
+   * @param fafReplayOutputStream if {@code null}, the replay won't be relayed
+   */
+  private void spool(Socket socket, Path spoolFile, @Nullable OutputStream fafReplayOutputStream) throws IOException {
     boolean connectionToServerLost = false;
+    long spooledBytes = 0;
     byte[] buffer = new byte[REPLAY_BUFFER_SIZE];
-    try (InputStream inputStream = socket.getInputStream()) {
+    try (InputStream inputStream = socket.getInputStream();
+         OutputStream spoolOutputStream = new BufferedOutputStream(Files.newOutputStream(spoolFile), SPOOL_BUFFER_SIZE)) {
       int bytesRead;
       while ((bytesRead = inputStream.read(buffer)) != -1) {
-        if (replayData.size() == 0 && Bytes.indexOf(buffer, LIVE_REPLAY_PREFIX) != -1) {
+        if (spooledBytes == 0 && Bytes.indexOf(buffer, LIVE_REPLAY_PREFIX) != -1) {
           int dataBeginIndex = Bytes.indexOf(buffer, (byte) 0x00) + 1;
-          replayData.write(buffer, dataBeginIndex, bytesRead - dataBeginIndex);
+          spoolOutputStream.write(buffer, dataBeginIndex, bytesRead - dataBeginIndex);
+          spooledBytes += bytesRead - dataBeginIndex;
         } else {
-          replayData.write(buffer, 0, bytesRead);
+          spoolOutputStream.write(buffer, 0, bytesRead);
+          spooledBytes += bytesRead;
         }
 
         if (!connectionToServerLost && fafReplayOutputStream != null) {
@@ -165,10 +192,6 @@ public class ReplayServerImpl implements ReplayServer {
       log.warn("Error while recording replay", e);
       throw e;
     }
-
-    log.debug("FAF has disconnected, writing replay data to file");
-    finishReplayInfo(game);
-    replayFileWriter.writeReplayDataToFile(replayData, replayInfo);
   }
 
   private void finishReplayInfo(Game game) {
@@ -7,6 +7,7 @@ import com.faforever.client.game.Game;
 import com.faforever.client.game.GameService;
 import com.faforever.client.game.KnownFeaturedMod;
 import com.faforever.client.i18n.I18n;
+import com.faforever.client.io.DirectoryWatcherService;
 import com.faforever.client.map.MapBean;
 import com.faforever.client.map.MapService;
 import com.faforever.client.mod.FeaturedMod;
@@ -43,6 +44,7 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.event.EventListener;
@@ -50,19 +52,18 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -72,8 +73,6 @@ import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import static com.faforever.client.notification.Severity.WARN;
 import static com.faforever.commons.api.elide.ElideNavigator.qBuilder;
@@ -92,7 +91,7 @@ import static java.util.Collections.singletonList;
 @Service
 @Slf4j
 @RequiredArgsConstructor
-public class ReplayService {
+public class ReplayService implements DisposableBean {
 
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
@@ -108,6 +107,12 @@ public class ReplayService {
   private static final String FAF_LIFE_PROTOCOL = "faflive";
   private static final String GPGNET_SCHEME = "gpgnet";
   private static final String TEMP_SCFA_REPLAY_FILE_NAME = "temp.scfareplay";
+  private static final String LOCAL_REPLAY_INDEX_FILE_NAME = "localReplayIndex.json";
+  /**
+   * Number of bytes at the beginning of a SupCom replay that are searched for the game version and the map. The map is
+   * part of the scenario info, which is well below this size.
+   */
+  private static final int REPLAY_HEADER_MAX_SIZE = 256 * 1024;
   private static final Pattern invalidCharacters = Pattern.compile("[?@*%{}<>|\"]");
 
   private final ClientProperties clientProperties;
@@ -126,7 +131,9 @@ public class ReplayService {
   private final ModService modService;
   private final MapService mapService;
   private final EventBus eventBus;
+  private final DirectoryWatcherService directoryWatcherService;
   protected List<Replay> localReplays = new ArrayList<>();
+  private LocalReplayIndex localReplayIndex;
 
   @VisibleForTesting
   static Integer parseSupComVersion(byte[] rawReplayBytes) {
@@ -178,59 +185,56 @@ public class ReplayService {
 
   @Async
   public CompletableFuture<Tuple<List<Replay>, Integer>> loadLocalReplayPage(int pageSize, int page) throws IOException {
-    String replayFileGlob = clientProperties.getReplay().getReplayFileGlob();
-
-    Path replaysDirectory = preferencesService.getReplaysDirectory();
-    if (Files.notExists(replaysDirectory)) {
-      noCatch(() -> createDirectories(replaysDirectory));
-    }
+    LocalReplayIndex localReplayIndex = getLocalReplayIndex();
+    Tuple<List<LocalReplayIndex.Entry>, Integer> entries = localReplayIndex.query(entry -> true, LocalReplayIndex.NEWEST_FIRST, pageSize, page);
+
+    List<CompletableFuture<Replay>> replayFutures = entries.getFirst().stream()
+        .map(entry -> loadLocalReplay(localReplayIndex, entry))
+        .collect(Collectors.toList());
+
+    return CompletableFuture.allOf(replayFutures.toArray(new CompletableFuture[0]))
+        .thenApply(ignoredVoid ->
+            replayFutures.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()))
+        .thenApply(replays -> new Tuple<>(replays, entries.getSecond()));
+  }
 
-    int skippedReplays = pageSize * (page - 1);
-
-    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(replaysDirectory, replayFileGlob)) {
-      Stream<Path> filesStream = StreamSupport.stream(directoryStream.spliterator(), false)
-          .sorted(Comparator.comparing(path -> noCatch(() -> Files.getLastModifiedTime((Path) path))).reversed());
-
-      List<Path> filesList = filesStream.collect(Collectors.toList());
-      int numPages = filesList.size() / pageSize;
-
-      List<CompletableFuture<Replay>> replayFutures = filesList.stream()
-          .skip(skippedReplays)
-          .limit(pageSize)
-          .map(this::tryLoadingLocalReplay)
-          .filter(e -> !e.isCompletedExceptionally())
-          .collect(Collectors.toList());
-
-      return CompletableFuture.allOf(replayFutures.toArray(new CompletableFuture[0]))
-          .thenApply(ignoredVoid ->
-              replayFutures.stream()
-                  .map(CompletableFuture::join)
-                  .filter(Objects::nonNull)
-                  .collect(Collectors.toList()))
-          .thenApply(replays -> new Tuple<>(replays, numPages));
+  private synchronized LocalReplayIndex getLocalReplayIndex() throws IOException {
+    if (localReplayIndex == null) {
+      Path replaysDirectory = preferencesService.getReplaysDirectory();
+      createDirectories(replaysDirectory);
+
+      LocalReplayIndex index = new LocalReplayIndex(replaysDirectory, clientProperties.getReplay().getReplayFileGlob(),
+          preferencesService.getCacheDirectory().resolve(LOCAL_REPLAY_INDEX_FILE_NAME), replayFileReader,
+          this::moveCorruptedReplayFile);
+      index.load();
+      index.startWatching(directoryWatcherService);
+      localReplayIndex = index;
     }
+    return localReplayIndex;
   }
 
+  private CompletableFuture<Replay> loadLocalReplay(LocalReplayIndex localReplayIndex, LocalReplayIndex.Entry entry) {
+    Path replayFile = localReplayIndex.getReplayFile(entry);
+    LocalReplayInfo replayInfo = entry.getReplayInfo();
 
-  private CompletableFuture<Replay> tryLoadingLocalReplay(Path replayFile) {
-    try {
-      LocalReplayInfo replayInfo = replayFileReader.parseMetaData(replayFile);
-
-      CompletableFuture<FeaturedMod> featuredModFuture = modService.getFeaturedMod(replayInfo.getFeaturedMod());
-      CompletableFuture<Optional<MapBean>> mapBeanFuture = mapService.findByMapFolderName(replayInfo.getMapname());
-
-      return CompletableFuture.allOf(featuredModFuture, mapBeanFuture).thenApply(ignoredVoid -> {
-        Optional<MapBean> mapBean = mapBeanFuture.join();
-        if (mapBean.isEmpty()) {
-          logger.warn("Could not find map for replay file '{}'", replayFile);
-        }
-        return new Replay(replayInfo, replayFile, featuredModFuture.join(), mapBean.orElse(null));
-      });
-    } catch (Exception e) {
-      logger.warn("Could not read replay file '{}'", replayFile, e);
-      moveCorruptedReplayFile(replayFile);
-      return CompletableFuture.completedFuture(null);
-    }
+    CompletableFuture<FeaturedMod> featuredModFuture = modService.getFeaturedMod(replayInfo.getFeaturedMod());
+    CompletableFuture<Optional<MapBean>> mapBeanFuture = mapService.findByMapFolderName(replayInfo.getMapname());
+
+    return CompletableFuture.allOf(featuredModFuture, mapBeanFuture).thenApply(ignoredVoid -> {
+      Optional<MapBean> mapBean = mapBeanFuture.join();
+      if (mapBean.isEmpty()) {
+        logger.warn("Could not find map for replay file '{}'", replayFile);
+      }
+      return new Replay(replayInfo, replayFile, featuredModFuture.join(), mapBean.orElse(null));
+    });
+  }
+
+  @Override
+  public void destroy() {
+    Optional.ofNullable(localReplayIndex).ifPresent(LocalReplayIndex::close);
   }
 
   private void moveCorruptedReplayFile(Path replayFile) {
@@ -402,14 +406,15 @@ public class ReplayService {
   }
 
   private void runFafReplayFile(Path path) throws IOException {
-    byte[] rawReplayBytes = replayFileReader.readRawReplayData(path);
-
     Path tempSupComReplayFile = preferencesService.getCacheDirectory().resolve(TEMP_SCFA_REPLAY_FILE_NAME);
 
     createDirectories(tempSupComReplayFile.getParent());
-    Files.copy(new ByteArrayInputStream(rawReplayBytes), tempSupComReplayFile, StandardCopyOption.REPLACE_EXISTING);
+    LocalReplayInfo replayInfo;
+    try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tempSupComReplayFile))) {
+      replayInfo = replayFileReader.readReplay(path, outputStream);
+    }
+    byte[] rawReplayBytes = readReplayHeader(tempSupComReplayFile);
 
-    LocalReplayInfo replayInfo = replayFileReader.parseMetaData(path);
     String gameType = replayInfo.getFeaturedMod();
     Integer replayId = replayInfo.getUid();
     Map<String, Integer> modVersions = replayInfo.getFeaturedModVersions();
@@ -422,6 +427,15 @@ public class ReplayService {
     gameService.runWithReplay(tempSupComReplayFile, replayId, gameType, version, modVersions, simMods, mapName);
   }
 
+  /**
+   * Reads the beginning of the specified SupCom replay file, which contains the game version and the map.
+   */
+  private byte[] readReplayHeader(Path supComReplayFile) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(supComReplayFile)) {
+      return inputStream.readNBytes(REPLAY_HEADER_MAX_SIZE);
+    }
+  }
+
   private void runSupComReplayFile(Path path) {
     byte[] rawReplayBytes = replayFileReader.readRawReplayData(path);
 
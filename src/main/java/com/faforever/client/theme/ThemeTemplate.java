@@ -0,0 +1,83 @@
+package com.faforever.client.theme;
+
+import com.google.common.io.Resources;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A theme file with {@code {placeholder}}s, like the chat message templates. The file is split into literal text and
+ * placeholders once, so that rendering it doesn't need to search the text again. All placeholders are replaced in a
+ * single pass; values that contain placeholders themselves are therefore never expanded.
+ */
+public final class ThemeTemplate {
+
+  private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{([a-z0-9-]+)}");
+
+  /** Literal text at even indices, placeholder names at odd indices. */
+  private final List<String> segments;
+  private final int literalLength;
+
+  private ThemeTemplate(List<String> segments, int literalLength) {
+    this.segments = segments;
+    this.literalLength = literalLength;
+  }
+
+  public static ThemeTemplate load(URL url) throws IOException {
+    return compile(Resources.toString(url, UTF_8));
+  }
+
+  public static ThemeTemplate compile(String template) {
+    List<String> segments = new ArrayList<>();
+    int literalLength = 0;
+    int position = 0;
+    Matcher matcher = PLACEHOLDER_PATTERN.matcher(template);
+    while (matcher.find()) {
+      String literal = template.substring(position, matcher.start());
+      segments.add(literal);
+      segments.add(matcher.group(1));
+      literalLength += literal.length();
+      position = matcher.end();
+    }
+    String literal = template.substring(position);
+    segments.add(literal);
+    literalLength += literal.length();
+    return new ThemeTemplate(Collections.unmodifiableList(segments), literalLength);
+  }
+
+  /**
+   * Renders this template with the specified values, by placeholder name. Placeholders without a value are kept as
+   * they are.
+   */
+  public String render(Map<String, String> values) {
+    int length = literalLength;
+    for (int i = 1; i < segments.size(); i += 2) {
+      String value = values.get(segments.get(i));
+      length += value != null ? value.length() : segments.get(i).length() + 2;
+    }
+
+    StringBuilder stringBuilder = new StringBuilder(length);
+    for (int i = 0; i < segments.size(); i++) {
+      String segment = segments.get(i);
+      if (i % 2 == 0) {
+        stringBuilder.append(segment);
+        continue;
+      }
+      String value = values.get(segment);
+      if (value != null) {
+        stringBuilder.append(value);
+      } else {
+        stringBuilder.append('{').append(segment).append('}');
+      }
+    }
+    return stringBuilder.toString();
+  }
+}
@@ -267,6 +267,7 @@ public class UiService implements InitializingBean, DisposableBean {
     } catch (InterruptedException e) {
       logger.info("Watch thread was interrupted");
     }
+    cacheManager.getCache(CacheNames.THEME_TEMPLATES).clear();
     reloadStylesheet();
   }
 
@@ -313,6 +314,15 @@ public class UiService implements InitializingBean, DisposableBean {
   }
 
 
+  /**
+   * Loads a template from the current theme. Templates are only read and compiled once per theme, or again after a
+   * file of the theme has been changed.
+   */
+  @Cacheable(value = CacheNames.THEME_TEMPLATES, sync = true)
+  public ThemeTemplate getThemeTemplate(String relativeFile) throws IOException {
+    return ThemeTemplate.load(getThemeFileUrl(relativeFile));
+  }
+
   public URL getThemeFileUrl(String relativeFile) {
     String themeFile = getThemeFile(relativeFile);
     if (themeFile.startsWith("file:") || themeFile.startsWith("jar:")) {
@@ -334,6 +344,7 @@ public class UiService implements InitializingBean, DisposableBean {
     preferencesService.storeInBackground();
     currentTheme.set(theme);
     cacheManager.getCache(CacheNames.THEME_IMAGES).clear();
+    cacheManager.getCache(CacheNames.THEME_TEMPLATES).clear();
     reloadStylesheet();
   }
 
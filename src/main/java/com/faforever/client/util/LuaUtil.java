@@ -1,20 +1,52 @@
 package com.faforever.client.util;
 
-import com.google.common.io.CharStreams;
 import org.luaj.vm2.Globals;
+import org.luaj.vm2.LoadState;
+import org.luaj.vm2.LuaClosure;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaString;
+import org.luaj.vm2.LuaTable;
 import org.luaj.vm2.LuaValue;
-import org.luaj.vm2.lib.jse.JsePlatform;
+import org.luaj.vm2.Prototype;
+import org.luaj.vm2.compiler.LuaC;
+import org.luaj.vm2.lib.Bit32Lib;
+import org.luaj.vm2.lib.PackageLib;
+import org.luaj.vm2.lib.StringLib;
+import org.luaj.vm2.lib.TableLib;
+import org.luaj.vm2.lib.TwoArgFunction;
+import org.luaj.vm2.lib.jse.JseBaseLib;
+import org.luaj.vm2.lib.jse.JseMathLib;
 
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
 
+/**
+ * Loads Lua files like scenario or mod info files. Every thread reuses its own globals, which contain the safe standard
+ * libraries and the helpers of {@code faf.lua}; the latter is compiled only once. Each loaded file is executed in a
+ * fresh environment that falls back to these globals, so that files can't see each other's variables. Since a file
+ * can still change the globals through {@code _G} or change the library tables, the globals and all tables reachable
+ * from them are reset to their initial content after every load.
+ */
 public final class LuaUtil {
 
+  private static final String FAF_LUA = "/lua/faf.lua";
+  private static final String SCENARIO_INFO = "ScenarioInfo";
+  private static final ThreadLocal<ThreadGlobals> THREAD_GLOBALS = new ThreadLocal<>();
+  private static Prototype fafLuaPrototype;
+
   private LuaUtil() {
     throw new AssertionError("Not instantiatable");
   }
@@ -25,10 +57,328 @@ public final class LuaUtil {
     }
   }
 
+  /**
+   * Executes the specified Lua chunk and returns the environment it has been executed in, which contains the global
+   * variables it has defined.
+   */
   public static LuaValue load(InputStream inputStream) throws IOException {
-    Globals globals = JsePlatform.standardGlobals();
-    globals.baselib.load(globals.load(CharStreams.toString(new InputStreamReader(LuaUtil.class.getResourceAsStream("/lua/faf.lua"), UTF_8))));
-    globals.load(inputStream, "@" + inputStream.hashCode(), "bt", globals).invoke();
+    ThreadGlobals threadGlobals = getThreadGlobals();
+    Globals globals = threadGlobals.globals;
+    LuaTable environment = newEnvironment(globals);
+    try {
+      globals.load(inputStream, "@" + inputStream.hashCode(), "bt", environment).invoke();
+    } finally {
+      threadGlobals.reset();
+    }
+    return environment;
+  }
+
+  /**
+   * Returns the {@code ScenarioInfo} table of a scenario file. If the file assigns a table constructor to
+   * {@code ScenarioInfo} exactly once, only this table constructor is compiled and evaluated; otherwise, the whole file
+   * is executed. The whole file is executed as well if the table constructor uses a name that the file may define
+   * itself, like {@code size = {mapSize, mapSize}}.
+   */
+  public static LuaValue loadScenarioInfo(Path scenarioFile) throws IOException {
+    // ISO-8859-1 maps every byte to one char, so the extracted table has the same bytes as in the file
+    String script = new String(Files.readAllBytes(scenarioFile), ISO_8859_1);
+
+    int tableStart = findScenarioInfoTable(script);
+    int tableEnd = tableStart < 0 ? -1 : findTableEnd(script, tableStart);
+    if (tableEnd >= 0 && indexOfIdentifier(script, tableEnd + 1, SCENARIO_INFO) < 0) {
+      ThreadGlobals threadGlobals = getThreadGlobals();
+      Globals globals = threadGlobals.globals;
+      byte[] chunk = ("return " + script.substring(tableStart, tableEnd + 1)).getBytes(ISO_8859_1);
+      try {
+        LuaTable environment = newTableConstructorEnvironment(globals, script, tableStart);
+        return globals.load(new ByteArrayInputStream(chunk), "@" + scenarioFile.getFileName(), "t", environment).call();
+      } catch (LuaError e) {
+        // Executing the whole file will either work or report the actual error
+      } finally {
+        threadGlobals.reset();
+      }
+    }
+    return loadFile(scenarioFile).get(SCENARIO_INFO);
+  }
+
+  private static ThreadGlobals getThreadGlobals() throws IOException {
+    ThreadGlobals threadGlobals = THREAD_GLOBALS.get();
+    if (threadGlobals == null) {
+      threadGlobals = new ThreadGlobals(createGlobals());
+      THREAD_GLOBALS.set(threadGlobals);
+    }
+    return threadGlobals;
+  }
+
+  /**
+   * Creates globals with the standard libraries that don't give access to the file system, the operating system or
+   * Java classes and executes {@code faf.lua} in them.
+   */
+  private static Globals createGlobals() throws IOException {
+    Globals globals = new Globals();
+    globals.load(new JseBaseLib());
+    globals.load(new PackageLib());
+    globals.load(new Bit32Lib());
+    globals.load(new TableLib());
+    globals.load(new StringLib());
+    globals.load(new JseMathLib());
+    LoadState.install(globals);
+    LuaC.install(globals);
+    // The metatable of strings is shared by all threads, so it must not be reachable by getmetatable('')
+    LuaString.s_metatable.rawset(LuaValue.METATABLE, LuaValue.FALSE);
+
+    new LuaClosure(getFafLuaPrototype(), globals).call();
     return globals;
   }
+
+  private static synchronized Prototype getFafLuaPrototype() throws IOException {
+    if (fafLuaPrototype == null) {
+      try (InputStream inputStream = LuaUtil.class.getResourceAsStream(FAF_LUA)) {
+        if (inputStream == null) {
+          throw new FileNotFoundException("Classpath resource not found: " + FAF_LUA);
+        }
+        fafLuaPrototype = LuaC.instance.compile(inputStream, "@faf.lua");
+      }
+    }
+    return fafLuaPrototype;
+  }
+
+  private static LuaTable newEnvironment(Globals globals) {
+    LuaTable metatable = new LuaTable();
+    metatable.rawset(LuaValue.INDEX, globals);
+    LuaTable environment = new LuaTable();
+    environment.setmetatable(metatable);
+    return environment;
+  }
+
+  /**
+   * Creates an environment for evaluating the table constructor at the specified index on its own. Since it doesn't
+   * see the local and global variables that the script defines before it, reading a name that isn't a known global or
+   * that the script mentions before the table constructor raises an error instead of silently returning {@code nil}.
+   */
+  private static LuaTable newTableConstructorEnvironment(Globals globals, String script, int tableStart) {
+    LuaTable metatable = new LuaTable();
+    metatable.rawset(LuaValue.INDEX, new TwoArgFunction() {
+      @Override
+      public LuaValue call(LuaValue table, LuaValue key) {
+        LuaValue value = globals.get(key);
+        int firstMention = indexOfIdentifier(script, 0, key.tojstring());
+        if (value.isnil() || (firstMention >= 0 && firstMention < tableStart)) {
+          throw new LuaError("Name may be defined by the script: " + key.tojstring());
+        }
+        return value;
+      }
+    });
+    LuaTable environment = new LuaTable();
+    environment.setmetatable(metatable);
+    return environment;
+  }
+
+  /**
+   * Returns the index of the opening brace of the table constructor that is assigned to {@code ScenarioInfo}, or
+   * {@code -1} if {@code ScenarioInfo} is not assigned a table constructor the first time it's mentioned.
+   */
+  private static int findScenarioInfoTable(String script) {
+    int index = indexOfIdentifier(script, 0, SCENARIO_INFO);
+    if (index < 0) {
+      return -1;
+    }
+    int equalsIndex = skipWhitespace(script, index + SCENARIO_INFO.length());
+    if (!script.startsWith("=", equalsIndex) || script.startsWith("==", equalsIndex)) {
+      return -1;
+    }
+    int tableStart = skipWhitespace(script, equalsIndex + 1);
+    return script.startsWith("{", tableStart) ? tableStart : -1;
+  }
+
+  /**
+   * Returns the index of the brace that closes the table constructor starting at the specified index, or {@code -1} if
+   * it isn't closed.
+   */
+  private static int findTableEnd(String script, int tableStart) {
+    int depth = 0;
+    int index = tableStart;
+    while (index < script.length()) {
+      int next = skipCommentOrString(script, index);
+      if (next != index) {
+        index = next;
+        continue;
+      }
+      char character = script.charAt(index);
+      if (character == '{') {
+        depth++;
+      } else if (character == '}' && --depth == 0) {
+        return index;
+      }
+      index++;
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index of the first occurrence of the specified identifier outside of comments and string literals, or
+   * {@code -1} if there is none.
+   */
+  private static int indexOfIdentifier(String script, int fromIndex, String identifier) {
+    int index = fromIndex;
+    while (index < script.length()) {
+      int next = skipCommentOrString(script, index);
+      if (next != index) {
+        index = next;
+        continue;
+      }
+      if (script.startsWith(identifier, index)
+          && isNameBoundary(script, index - 1)
+          && isNameBoundary(script, index + identifier.length())) {
+        return index;
+      }
+      index++;
+    }
+    return -1;
+  }
+
+  private static boolean isNameBoundary(String script, int index) {
+    if (index < 0 || index >= script.length()) {
+      return true;
+    }
+    char character = script.charAt(index);
+    return !Character.isLetterOrDigit(character) && character != '_' && character != '.' && character != ':';
+  }
+
+  private static int skipWhitespace(String script, int index) {
+    while (index < script.length() && Character.isWhitespace(script.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Returns the index after the comment or string literal that starts at the specified index, or the index itself if
+   * none starts there.
+   */
+  private static int skipCommentOrString(String script, int index) {
+    char character = script.charAt(index);
+    if (character == '-' && script.startsWith("--", index)) {
+      int longBracketEnd = skipLongBracket(script, index + 2);
+      if (longBracketEnd >= 0) {
+        return longBracketEnd;
+      }
+      int lineEnd = script.indexOf('\n', index);
+      return lineEnd < 0 ? script.length() : lineEnd + 1;
+    }
+    if (character == '"' || character == '\'') {
+      int current = index + 1;
+      while (current < script.length()) {
+        char stringCharacter = script.charAt(current);
+        if (stringCharacter == '\\') {
+          current += 2;
+          continue;
+        }
+        current++;
+        if (stringCharacter == character) {
+          return current;
+        }
+      }
+      return script.length();
+    }
+    if (character == '[') {
+      int longBracketEnd = skipLongBracket(script, index);
+      if (longBracketEnd >= 0) {
+        return longBracketEnd;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Returns the index after the long bracket ({@code [[...]]}, {@code [==[...]==]}) that starts at the specified index,
+   * or {@code -1} if none starts there.
+   */
+  private static int skipLongBracket(String script, int index) {
+    if (!script.startsWith("[", index)) {
+      return -1;
+    }
+    int current = index + 1;
+    while (current < script.length() && script.charAt(current) == '=') {
+      current++;
+    }
+    if (!script.startsWith("[", current)) {
+      return -1;
+    }
+    String closingBracket = "]" + "=".repeat(current - index - 1) + "]";
+    int end = script.indexOf(closingBracket, current + 1);
+    return end < 0 ? script.length() : end + closingBracket.length();
+  }
+
+  /**
+   * The globals of a thread together with the initial content of all tables that are reachable from them.
+   */
+  private static final class ThreadGlobals {
+    private final Globals globals;
+    private final Map<LuaTable, TableContent> initialContents = new IdentityHashMap<>();
+
+    private ThreadGlobals(Globals globals) {
+      this.globals = globals;
+
+      Deque<LuaTable> pendingTables = new ArrayDeque<>();
+      pendingTables.push(globals);
+      while (!pendingTables.isEmpty()) {
+        LuaTable table = pendingTables.pop();
+        if (initialContents.containsKey(table)) {
+          continue;
+        }
+        TableContent content = new TableContent(table);
+        initialContents.put(table, content);
+        for (LuaValue value : content.values) {
+          if (value.istable()) {
+            pendingTables.push(value.checktable());
+          }
+        }
+        if (content.metatable != null && content.metatable.istable()) {
+          pendingTables.push(content.metatable.checktable());
+        }
+      }
+    }
+
+    /**
+     * Removes the variables that a loaded file has added to the globals or the library tables and restores the ones it
+     * has changed.
+     */
+    private void reset() {
+      initialContents.forEach((table, content) -> content.restore(table));
+    }
+  }
+
+  private static final class TableContent {
+    private final LuaValue[] keys;
+    private final LuaValue[] values;
+    private final Set<LuaValue> keySet;
+    private final LuaValue metatable;
+
+    private TableContent(LuaTable table) {
+      keys = table.keys();
+      values = new LuaValue[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        values[i] = table.rawget(keys[i]);
+      }
+      keySet = new HashSet<>(Arrays.asList(keys));
+      metatable = table.getmetatable();
+    }
+
+    private void restore(LuaTable table) {
+      for (LuaValue key : table.keys()) {
+        if (!keySet.contains(key)) {
+          table.rawset(key, LuaValue.NIL);
+        }
+      }
+      for (int i = 0; i < keys.length; i++) {
+        if (table.rawget(keys[i]) != values[i]) {
+          table.rawset(keys[i], values[i]);
+        }
+      }
+      if (table.getmetatable() != metatable) {
+        table.setmetatable(metatable);
+      }
+    }
+  }
 }
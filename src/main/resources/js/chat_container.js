@@ -3,27 +3,6 @@ window.onscroll = function (e) {
   isScrolledToBottom = window.scrollY + window.innerHeight + 20 >= document.documentElement.scrollHeight;
 };
 
-function link(input) {
-  return Autolinker.link(input, {
-        email: false,
-        phone: false,
-        twitter: false,
-        replaceFn: function (autolinker, match) {
-          return new Autolinker.HtmlTag({
-            tagName: "a",
-            attrs: {
-              "href": "javascript:void(0);",
-                "onClick": "java.openUrl('" + match.getUrl() + "')",
-                "onMouseOver": "java.previewUrl('" + match.getUrl() + "')",
-                "onMouseOut": "java.hideUrlPreview()"
-            },
-            innerHtml: match.getAnchorText()
-          });
-        }
-      }
-  );
-}
-
 function showClanInfo(clanTag) {
     java.clanInfo(clanTag);
 }
@@ -54,6 +33,47 @@ function scrollToBottomIfDesired() {
   }
 }
 
+/**
+ * Appends a batch of messages with a single change to the document. Each message is either a chat section, which goes
+ * into #chat-container, or a text, which goes into a section that may be part of the same batch. Afterwards, the
+ * topmost sections are removed so that no more than maxMessages sections are left.
+ */
+function appendMessages(messagesJson, maxMessages) {
+  var messages = JSON.parse(messagesJson);
+  var container = document.getElementById("chat-container");
+  var fragment = document.createDocumentFragment();
+  var parser = document.createElement("div");
+  var target = null;
+  var targetId = null;
+
+  for (var i = 0; i < messages.length; i++) {
+    var message = messages[i];
+    if (message.containerId === container.id) {
+      parser.innerHTML = message.html;
+      while (parser.firstChild) {
+        fragment.appendChild(parser.firstChild);
+      }
+      continue;
+    }
+    if (message.containerId !== targetId) {
+      targetId = message.containerId;
+      target = fragment.querySelector("#" + targetId) || document.getElementById(targetId);
+    }
+    if (target) {
+      target.insertAdjacentHTML("beforeend", message.html);
+    }
+  }
+  container.appendChild(fragment);
+
+  var sections = container.getElementsByClassName("chat-section");
+  var excessSections = sections.length - maxMessages;
+  for (var j = 0; j < excessSections; j++) {
+    sections[0].remove();
+  }
+
+  scrollToBottomIfDesired();
+}
+
 function setAllMessageColors(userListString) {
   var userList = JSON.parse(userListString);
 
@@ -14,11 +14,14 @@ import com.faforever.client.preferences.PreferencesService;
 import com.faforever.client.reporting.ReportingService;
 import com.faforever.client.test.AbstractPlainJavaFxTest;
 import com.faforever.client.test.FakeTestException;
+import com.faforever.client.theme.ThemeTemplate;
 import com.faforever.client.theme.UiService;
 import com.faforever.client.uploader.ImageUploadService;
 import com.faforever.client.user.UserService;
 import com.faforever.client.util.TimeService;
 import com.google.common.eventbus.EventBus;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import javafx.concurrent.Worker;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
@@ -31,32 +34,43 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.web.WebView;
 import javafx.stage.Stage;
+import netscape.javascript.JSObject;
 import org.bridj.Platform;
 import org.jetbrains.annotations.NotNull;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.testfx.util.WaitForAsyncUtils;
 
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static com.faforever.client.chat.AbstractChatTabController.CSS_CLASS_CHAT_ONLY;
 import static com.faforever.client.player.SocialStatus.FOE;
 import static com.faforever.client.player.SocialStatus.FRIEND;
 import static com.faforever.client.player.SocialStatus.SELF;
+import static java.time.temporal.ChronoUnit.MINUTES;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.isEmptyString;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -95,8 +109,12 @@ public class AbstractChatTabControllerTest extends AbstractPlainJavaFxTest {
   private CountryFlagService countryFlagService;
   @Mock
   private ChatUserService chatUserService;
+  @Mock
+  private JSObject jsObject;
 
   private AbstractChatTabController instance;
+  private Preferences preferences;
+  private TabPane tabPane;
   private CountDownLatch chatReadyLatch;
 
 
@@ -104,9 +122,10 @@ public class AbstractChatTabControllerTest extends AbstractPlainJavaFxTest {
   public void start(Stage stage) throws Exception {
     super.start(stage);
 
-    Preferences preferences = PreferencesBuilder.create().defaultValues().get();
+    preferences = PreferencesBuilder.create().defaultValues().get();
 
     when(uiService.getThemeFileUrl(any())).thenReturn(getClass().getResource("/" + UiService.CHAT_SECTION_EXTENDED));
+    when(uiService.getThemeTemplate(any())).thenAnswer(invocation -> ThemeTemplate.load(getClass().getResource("/" + invocation.getArgument(0))));
     when(timeService.asShortTime(any())).thenReturn("123");
     when(userService.getUsername()).thenReturn("junit");
     when(preferencesService.getPreferences()).thenReturn(preferences);
@@ -132,9 +151,14 @@ public class AbstractChatTabControllerTest extends AbstractPlainJavaFxTest {
       protected WebView getMessagesWebView() {
         return webView;
       }
+
+      @Override
+      protected JSObject getJsObject() {
+        return jsObject;
+      }
     };
 
-    TabPane tabPane = new TabPane(instance.getRoot());
+    tabPane = new TabPane(instance.getRoot());
     getRoot().getChildren().setAll(tabPane);
 
     chatReadyLatch = new CountDownLatch(1);
@@ -222,16 +246,139 @@ public class AbstractChatTabControllerTest extends AbstractPlainJavaFxTest {
   }
 
 
+  private JsonArray captureAppendedBatch() {
+    ArgumentCaptor<String> batchCaptor = ArgumentCaptor.forClass(String.class);
+    verify(jsObject, timeout(TIMEOUT)).call(eq("appendMessages"), batchCaptor.capture(), eq(preferences.getChat().getMaxMessages()));
+    return new Gson().fromJson(batchCaptor.getValue(), JsonArray.class);
+  }
+
+  private String getHtml(JsonArray batch, int index) {
+    return batch.get(index).getAsJsonObject().get("html").getAsString();
+  }
+
+  private void onChatMessages(ChatMessage... chatMessages) {
+    // Adds all messages before the next frame could be rendered
+    runOnFxThreadAndWait(() -> Arrays.stream(chatMessages).forEach(instance::onChatMessage));
+  }
+
+  private void selectOtherTab() {
+    runOnFxThreadAndWait(() -> {
+      Tab otherTab = new Tab();
+      tabPane.getTabs().add(otherTab);
+      tabPane.getSelectionModel().select(otherTab);
+    });
+  }
+
   @Test
-  public void testOnChatMessage() {
-    // TODO assert something, maybe we can spy on engine
+  public void testOnChatMessage() throws Exception {
+    assertTrue(chatReadyLatch.await(TIMEOUT, TimeUnit.MILLISECONDS));
+
     instance.onChatMessage(new ChatMessage("", Instant.now(), "junit", "Test message"));
+
+    JsonArray batch = captureAppendedBatch();
+    assertThat(batch.size(), is(2));
+    assertThat(getHtml(batch, 0), containsString("junit"));
+    assertThat(getHtml(batch, 1), containsString("Test message"));
   }
 
   @Test
-  public void testOnChatMessageAction() {
-    // TODO assert something, maybe we can spy on engine
+  public void testOnChatMessageAction() throws Exception {
+    assertTrue(chatReadyLatch.await(TIMEOUT, TimeUnit.MILLISECONDS));
+
     instance.onChatMessage(new ChatMessage("", Instant.now(), "junit", "Test action", true));
+
+    JsonArray batch = captureAppendedBatch();
+    assertThat(batch.size(), is(2));
+    assertThat(getHtml(batch, 1), containsString("Test action"));
+  }
+
+  @Test
+  public void testOnChatMessagesAreAppendedInOneBatch() throws Exception {
+    assertTrue(chatReadyLatch.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    Instant now = Instant.now();
+
+    onChatMessages(
+        new ChatMessage("", now, "junit", "First"),
+        new ChatMessage("", now, "junit", "Second"),
+        new ChatMessage("", now, "other", "Third")
+    );
+
+    JsonArray batch = captureAppendedBatch();
+    // Section of "junit", two texts, section of "other", one text
+    assertThat(batch.size(), is(5));
+    assertThat(getHtml(batch, 1), containsString("First"));
+    assertThat(getHtml(batch, 2), containsString("Second"));
+    assertThat(getHtml(batch, 3), containsString("other"));
+    assertThat(getHtml(batch, 4), containsString("Third"));
+  }
+
+  @Test
+  public void testOnChatMessageIsNotAppendedWhileTabIsNotSelected() throws Exception {
+    assertTrue(chatReadyLatch.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    selectOtherTab();
+
+    instance.onChatMessage(new ChatMessage("", Instant.now(), "junit", "Test message"));
+
+    verify(jsObject, after(500).never()).call(eq("appendMessages"), any(), any());
+
+    runOnFxThreadAndWait(() -> tabPane.getSelectionModel().select(instance.getRoot()));
+
+    JsonArray batch = captureAppendedBatch();
+    assertThat(batch.size(), is(2));
+    assertThat(getHtml(batch, 1), containsString("Test message"));
+  }
+
+  @Test
+  public void testWaitingMessagesAreLimitedToMaxMessages() throws Exception {
+    assertTrue(chatReadyLatch.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    preferences.getChat().setMaxMessages(2);
+    selectOtherTab();
+    Instant now = Instant.now();
+
+    onChatMessages(
+        new ChatMessage("", now, "user1", "First"),
+        new ChatMessage("", now, "user2", "Second"),
+        new ChatMessage("", now, "user3", "Third"),
+        new ChatMessage("", now, "user3", "Fourth")
+    );
+    runOnFxThreadAndWait(() -> tabPane.getSelectionModel().select(instance.getRoot()));
+
+    JsonArray batch = captureAppendedBatch();
+    assertThat(batch.size(), is(5));
+    assertThat(getHtml(batch, 0), containsString("user2"));
+    assertThat(getHtml(batch, 1), containsString("Second"));
+    assertThat(getHtml(batch, 2), containsString("user3"));
+    assertThat(getHtml(batch, 3), containsString("Third"));
+    assertThat(getHtml(batch, 4), containsString("Fourth"));
+  }
+
+  @Test
+  public void testGetFirstRetainedMessageIndex() {
+    Instant now = Instant.now();
+    List<ChatMessage> messages = Arrays.asList(
+        new ChatMessage("", now, "user1", "1"),
+        new ChatMessage("", now, "user1", "2"),
+        new ChatMessage("", now, "user2", "3"),
+        new ChatMessage("", now, "user2", "4"),
+        new ChatMessage("", now, "user3", "5")
+    );
+
+    assertThat(AbstractChatTabController.getFirstRetainedMessageIndex(messages, 1), is(4));
+    assertThat(AbstractChatTabController.getFirstRetainedMessageIndex(messages, 2), is(2));
+    assertThat(AbstractChatTabController.getFirstRetainedMessageIndex(messages, 3), is(0));
+    assertThat(AbstractChatTabController.getFirstRetainedMessageIndex(messages, 4), is(0));
+    assertThat(AbstractChatTabController.getFirstRetainedMessageIndex(emptyList(), 1), is(0));
+  }
+
+  @Test
+  public void testGetFirstRetainedMessageIndexStartsNewSectionAfterOneMinute() {
+    Instant now = Instant.now();
+    List<ChatMessage> messages = Arrays.asList(
+        new ChatMessage("", now.minus(2, MINUTES), "user1", "1"),
+        new ChatMessage("", now, "user1", "2")
+    );
+
+    assertThat(AbstractChatTabController.getFirstRetainedMessageIndex(messages, 1), is(1));
   }
 
   @Test
@@ -325,10 +472,4 @@ public class AbstractChatTabControllerTest extends AbstractPlainJavaFxTest {
     String playerName = "somePlayer";
     assertEquals(instance.getMessageCssClass(playerName), CSS_CLASS_CHAT_ONLY);
   }
-
-  @Test
-  public void testChannelNamesTransformedToHyperlinks() {
-    String output = instance.replaceChannelNamesWithHyperlinks("Go to #moderation and report a user");
-    assertThat(output, is("Go to <a href=\"javascript:void(0);\" onClick=\"java.openChannel('#moderation')\">#moderation</a> and report a user"));
-  }
 }
@@ -40,6 +40,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.faforever.client.player.SocialStatus.FOE;
 import static com.faforever.client.player.SocialStatus.FRIEND;
@@ -516,6 +517,128 @@ public class ChannelTabControllerTest extends AbstractPlainJavaFxTest {
     assertEquals(1, users.size());
   }
 
+  @Test
+  public void testUsersAreSortedByName() {
+    ChatChannelUser charlie = ChatChannelUserBuilder.create("charlie").socialStatus(OTHER).get();
+    ChatChannelUser alpha = ChatChannelUserBuilder.create("Alpha").socialStatus(OTHER).get();
+    ChatChannelUser delta = ChatChannelUserBuilder.create("delta").socialStatus(OTHER).get();
+    defaultChannel.addUsers(Arrays.asList(charlie, alpha, delta));
+    runOnFxThreadAndWait(() -> instance.setChannel(defaultChannel));
+
+    ArgumentCaptor<MapChangeListener<String, ChatChannelUser>> captor = ArgumentCaptor.forClass(MapChangeListener.class);
+    verify(chatService).addUsersListener(anyString(), captor.capture());
+
+    ChatChannelUser bravo = ChatChannelUserBuilder.create("Bravo").socialStatus(OTHER).get();
+    Change<String, ChatChannelUser> change = mock(Change.class);
+    when(change.wasAdded()).thenReturn(true);
+    when(change.getValueAdded()).thenReturn(bravo);
+    when(change.getMap()).thenReturn(FXCollections.observableHashMap());
+
+    runOnFxThreadAndWait(() -> captor.getValue().onChanged(change));
+
+    List<String> usernames = instance.getChatUserItemsByCategory(ChatUserCategory.OTHER).stream()
+        .map(item -> item.getUser().getUsername())
+        .collect(Collectors.toList());
+    assertEquals(Arrays.asList("Alpha", "Bravo", "charlie", "delta"), usernames);
+  }
+
+  private MapChangeListener<String, ChatChannelUser> captureUsersListener() {
+    ArgumentCaptor<MapChangeListener<String, ChatChannelUser>> captor = ArgumentCaptor.forClass(MapChangeListener.class);
+    verify(chatService).addUsersListener(anyString(), captor.capture());
+    return captor.getValue();
+  }
+
+  private Change<String, ChatChannelUser> userJoined(ChatChannelUser chatUser) {
+    Change<String, ChatChannelUser> change = mock(Change.class);
+    when(change.wasAdded()).thenReturn(true);
+    when(change.getValueAdded()).thenReturn(chatUser);
+    when(change.getMap()).thenReturn(FXCollections.observableHashMap());
+    return change;
+  }
+
+  private Change<String, ChatChannelUser> userLeft(ChatChannelUser chatUser) {
+    Change<String, ChatChannelUser> change = mock(Change.class);
+    when(change.wasRemoved()).thenReturn(true);
+    when(change.getValueRemoved()).thenReturn(chatUser);
+    when(change.getMap()).thenReturn(FXCollections.observableHashMap());
+    return change;
+  }
+
+  /** Returns the category names and usernames of the chat user list, in the order they're displayed. */
+  private List<String> getChatUserListEntries() {
+    return instance.chatUserListView.getItems().stream()
+        .map(item -> item.getCategory() != null ? item.getCategory().name() : item.getUser().getUsername())
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testChatUserListIsUpdatedInPlace() {
+    List<ChatChannelUser> chatUsers = new ArrayList<>();
+    for (String username : Arrays.asList("alpha", "bravo", "charlie", "delta")) {
+      ChatChannelUser chatUser = ChatChannelUserBuilder.create(username).socialStatus(OTHER).get();
+      when(playerService.getPlayerForUsername(username)).thenReturn(Optional.of(PlayerBuilder.create(username).socialStatus(OTHER).get()));
+      chatUsers.add(chatUser);
+    }
+    defaultChannel.addUsers(chatUsers);
+    runOnFxThreadAndWait(() -> instance.setChannel(defaultChannel));
+    MapChangeListener<String, ChatChannelUser> usersListener = captureUsersListener();
+    Change<String, ChatChannelUser> bravoLeft = userLeft(chatUsers.get(1));
+
+    runOnFxThreadAndWait(() -> {
+      usersListener.onChanged(bravoLeft);
+      chatUsers.get(2).setSocialStatus(FRIEND);
+      chatUsers.get(0).setSocialStatus(FOE);
+    });
+
+    assertEquals(Arrays.asList("MODERATOR", "FRIEND", "charlie", "OTHER", "delta", "CHAT_ONLY", "FOE", "alpha"),
+        getChatUserListEntries());
+  }
+
+  @Test
+  public void testUserThatLeavesBeforeJoinIsAppliedIsNotListed() {
+    ChatChannelUser alpha = ChatChannelUserBuilder.create("alpha").socialStatus(OTHER).get();
+    ChatChannelUser bravo = ChatChannelUserBuilder.create("bravo").socialStatus(OTHER).get();
+    defaultChannel.addUsers(Arrays.asList(alpha));
+    runOnFxThreadAndWait(() -> instance.setChannel(defaultChannel));
+    MapChangeListener<String, ChatChannelUser> usersListener = captureUsersListener();
+    Change<String, ChatChannelUser> bravoJoined = userJoined(bravo);
+    Change<String, ChatChannelUser> bravoLeft = userLeft(bravo);
+
+    runOnFxThreadAndWait(() -> {
+      usersListener.onChanged(bravoJoined);
+      usersListener.onChanged(bravoLeft);
+    });
+
+    assertEquals(Arrays.asList("MODERATOR", "FRIEND", "OTHER", "alpha", "CHAT_ONLY", "FOE"), getChatUserListEntries());
+  }
+
+  @Test
+  public void testChatUserListIsRebuiltForManyUpdates() {
+    List<ChatChannelUser> chatUsers = IntStream.range(0, 30)
+        .mapToObj(i -> ChatChannelUserBuilder.create(String.format("user%02d", i)).socialStatus(OTHER).get())
+        .collect(Collectors.toList());
+    defaultChannel.addUsers(chatUsers.subList(0, 15));
+    runOnFxThreadAndWait(() -> instance.setChannel(defaultChannel));
+    MapChangeListener<String, ChatChannelUser> usersListener = captureUsersListener();
+    List<Change<String, ChatChannelUser>> changes = new ArrayList<>();
+    chatUsers.subList(0, 15).stream().filter(chatUser -> chatUsers.indexOf(chatUser) % 2 == 0)
+        .map(this::userLeft)
+        .forEach(changes::add);
+    chatUsers.subList(15, 30).stream()
+        .map(this::userJoined)
+        .forEach(changes::add);
+
+    runOnFxThreadAndWait(() -> changes.forEach(usersListener::onChanged));
+
+    List<String> expected = new ArrayList<>(Arrays.asList("MODERATOR", "FRIEND", "OTHER"));
+    IntStream.range(0, 30)
+        .filter(i -> i >= 15 || i % 2 == 1)
+        .mapToObj(i -> String.format("user%02d", i))
+        .forEach(expected::add);
+    expected.addAll(Arrays.asList("CHAT_ONLY", "FOE"));
+    assertEquals(expected, getChatUserListEntries());
+  }
+
   @Test
   public void testPlayerBecomesFriendly() {
     String username1 = "player1";
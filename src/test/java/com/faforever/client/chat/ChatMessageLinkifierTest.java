@@ -0,0 +1,116 @@
+package com.faforever.client.chat;
+
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * The expected URL anchors are the output of Autolinker.js 0.17.1 with the options previously used in the chat web
+ * view.
+ */
+public class ChatMessageLinkifierTest {
+
+  private static final Pattern MENTION_PATTERN = Pattern.compile("\\b(junit)\\b", Pattern.CASE_INSENSITIVE);
+
+  private static String urlAnchor(String url, String anchorText) {
+    return "<a href=\"javascript:void(0);\" onClick=\"java.openUrl('" + url + "')\" onMouseOver=\"java.previewUrl('"
+        + url + "')\" onMouseOut=\"java.hideUrlPreview()\">" + anchorText + "</a>";
+  }
+
+  private static String channelAnchor(String channelName) {
+    return "<a href=\"javascript:void(0);\" onClick=\"java.openChannel('" + channelName + "')\">" + channelName + "</a>";
+  }
+
+  private static String linkify(String text) {
+    return ChatMessageLinkifier.linkify(text, MENTION_PATTERN);
+  }
+
+  @Test
+  public void testPlainText() {
+    assertThat(linkify("no links here..."), is("no links here..."));
+  }
+
+  @Test
+  public void testUrlWithProtocol() {
+    assertThat(linkify("Visit http://www.faforever.com/ now"),
+        is("Visit " + urlAnchor("http://www.faforever.com/", "faforever.com") + " now"));
+  }
+
+  @Test
+  public void testUrlWithoutProtocol() {
+    assertThat(linkify("www.faforever.com/news"),
+        is(urlAnchor("http://www.faforever.com/news", "faforever.com/news")));
+  }
+
+  @Test
+  public void testEscapedAmpersandIsKept() {
+    assertThat(linkify("faforever.com/forums?topic=1&amp;page=2"),
+        is(urlAnchor("http://faforever.com/forums?topic=1&amp;page=2", "faforever.com/forums?topic=1&amp;page=2")));
+  }
+
+  @Test
+  public void testProtocolRelativeUrl() {
+    assertThat(linkify("see //faforever.com/replays"),
+        is("see " + urlAnchor("//faforever.com/replays", "faforever.com/replays")));
+    assertThat(linkify("(//faforever.com/replays)"),
+        is("(" + urlAnchor("//faforever.com/replays)", "faforever.com/replays)")));
+  }
+
+  @Test
+  public void testUnbalancedClosingParenthesisIsNotPartOfUrl() {
+    assertThat(linkify("Wiki: https://en.wikipedia.org/wiki/Supreme_Commander_(video_game))"),
+        is("Wiki: " + urlAnchor("https://en.wikipedia.org/wiki/Supreme_Commander_(video_game)",
+            "en.wikipedia.org/wiki/Supreme_Commander_(video_game)") + ")"));
+  }
+
+  @Test
+  public void testUrlEndsAtEntity() {
+    assertThat(linkify("&quot;https://faforever.com&quot;"),
+        is("&quot;" + urlAnchor("https://faforever.com", "faforever.com") + "&quot;"));
+  }
+
+  @Test
+  public void testNotLinked() {
+    assertThat(linkify("javascript:alert(1).com"), is("javascript:alert(1).com"));
+    assertThat(linkify("localhost:8080/x"), is("localhost:8080/x"));
+    assertThat(linkify("write to foo@faforever.com or call 555-123-4567"), is("write to foo@faforever.com or call 555-123-4567"));
+    assertThat(linkify("@faforever.com"), is("@faforever.com"));
+  }
+
+  @Test
+  public void testChannelNames() {
+    assertThat(linkify("Go to #moderation and report a user"),
+        is("Go to " + channelAnchor("#moderation") + " and report a user"));
+    assertThat(linkify("#aeolus or #faforever.com"),
+        is(channelAnchor("#aeolus") + " or " + channelAnchor("#faforever.com")));
+  }
+
+  @Test
+  public void testChannelNameInUrlIsNotLinked() {
+    assertThat(linkify("https://faforever.com/ #news"),
+        is(urlAnchor("https://faforever.com/", "faforever.com") + " " + channelAnchor("#news")));
+    assertThat(linkify("https://faforever.com/#news"),
+        is(urlAnchor("https://faforever.com/#news", "faforever.com/#news")));
+  }
+
+  @Test
+  public void testMentions() {
+    assertThat(linkify("hi JUnit, hi junit"),
+        is("hi <span class='self'>JUnit</span>, hi <span class='self'>junit</span>"));
+    assertThat(linkify("junits"), is("junits"));
+  }
+
+  @Test
+  public void testMentionInUrlAndChannelNameIsNotHighlighted() {
+    assertThat(linkify("junit: junit.org #junit"),
+        is("<span class='self'>junit</span>: " + urlAnchor("http://junit.org", "junit.org") + " " + channelAnchor("#junit")));
+  }
+
+  @Test
+  public void testBackslashesAreKept() {
+    assertThat(linkify("C:\\Games\\junit"), is("C:\\Games\\<span class='self'>junit</span>"));
+  }
+}
@@ -64,6 +64,7 @@ import org.testfx.util.WaitForAsyncUtils;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -76,10 +77,12 @@ import java.util.function.Consumer;
 import static com.faforever.client.chat.ChatColorMode.DEFAULT;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
@@ -386,6 +389,49 @@ public class PircBotXChatServiceTest extends AbstractPlainJavaFxTest {
     assertThat(channel.getUser(chatUser2.getUsername()), sameInstance(chatUser2));
   }
 
+  @Test
+  public void testOnChatUserQuitRemovesChatUserFromAllChannels() throws Exception {
+    connect();
+
+    joinChannel(defaultChannel, user1);
+    joinChannel(defaultChannel, user2);
+    instance.getOrCreateChatUser(user1.getNick(), OTHER_CHANNEL_NAME, false);
+
+    CompletableFuture<String> userGoneFuture = new CompletableFuture<>();
+    instance.addChatUsersByNameListener(change -> {
+      if (change.wasRemoved()) {
+        userGoneFuture.complete(change.getKey());
+      }
+    });
+    quit(user1);
+
+    assertThat(userGoneFuture.get(TIMEOUT, TIMEOUT_UNIT), is(user1.getNick()));
+    assertThat(instance.getOrCreateChatUser(user1.getNick(), DEFAULT_CHANNEL_NAME, false), not(sameInstance(chatUser1)));
+    assertThat(instance.getChatUser(user2.getNick(), DEFAULT_CHANNEL_NAME), sameInstance(chatUser2));
+  }
+
+  @Test
+  public void testChatUsersByNameListenerCanAddChatUser() {
+    List<String> addedUsernames = new ArrayList<>();
+    instance.addChatUsersByNameListener(change -> {
+      if (change.wasAdded()) {
+        addedUsernames.add(change.getKey());
+        instance.getOrCreateChatUser(change.getKey(), OTHER_CHANNEL_NAME, false);
+      }
+    });
+
+    ChatChannelUser chatUser = instance.getOrCreateChatUser("newUser", DEFAULT_CHANNEL_NAME, false);
+
+    assertThat(addedUsernames, contains("newUser"));
+    assertThat(instance.getChatUser("newUser", DEFAULT_CHANNEL_NAME), sameInstance(chatUser));
+    assertThat(instance.getChatUser("newUser", OTHER_CHANNEL_NAME), notNullValue());
+  }
+
+  @Test
+  public void testGetChatUserIgnoresCase() {
+    assertThat(instance.getChatUser(user1.getNick().toUpperCase(), DEFAULT_CHANNEL_NAME.toUpperCase()), sameInstance(chatUser1));
+  }
+
   private void quit(User user) throws Exception {
     CompletableFuture<ChatChannelUser> future = listenForUserQuit();
     firePircBotXEvent(createQuitEvent(user));
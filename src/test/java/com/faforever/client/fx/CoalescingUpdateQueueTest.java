@@ -0,0 +1,72 @@
+package com.faforever.client.fx;
+
+import com.faforever.client.test.AbstractPlainJavaFxTest;
+import javafx.application.Platform;
+import org.junit.Before;
+import org.junit.Test;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class CoalescingUpdateQueueTest extends AbstractPlainJavaFxTest {
+
+  private CoalescingUpdateQueue<Character, String> instance;
+  private List<List<String>> batches;
+  private List<Boolean> appliedOnApplicationThread;
+
+  @Before
+  public void setUp() throws Exception {
+    batches = new ArrayList<>();
+    appliedOnApplicationThread = new ArrayList<>();
+    instance = new CoalescingUpdateQueue<>(update -> update.charAt(0), updates -> {
+      appliedOnApplicationThread.add(Platform.isFxApplicationThread());
+      batches.add(new ArrayList<>(updates));
+    });
+  }
+
+  @Test
+  public void testUpdatesAreCoalescedPerKey() throws Exception {
+    CountDownLatch applicationThreadBlocked = new CountDownLatch(1);
+    Platform.runLater(() -> {
+      try {
+        applicationThreadBlocked.await();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    });
+
+    instance.submit("a1");
+    instance.submit("b1");
+    instance.submit("a2");
+    instance.submit("c1");
+    instance.submit("b2");
+
+    applicationThreadBlocked.countDown();
+    WaitForAsyncUtils.waitForFxEvents();
+
+    assertThat(batches, hasSize(1));
+    assertThat(batches.get(0), contains("a2", "b2", "c1"));
+    assertThat(appliedOnApplicationThread, contains(true));
+  }
+
+  @Test
+  public void testUpdatesAfterFlushAreAppliedInNextBatch() throws Exception {
+    instance.submit("a1");
+    WaitForAsyncUtils.waitForFxEvents();
+
+    instance.submit("a2");
+    WaitForAsyncUtils.waitForFxEvents();
+
+    assertThat(batches, hasSize(2));
+    assertThat(batches.get(0), contains("a1"));
+    assertThat(batches.get(1), contains("a2"));
+    assertThat(appliedOnApplicationThread.stream().allMatch(Boolean::booleanValue), is(true));
+  }
+}
@@ -0,0 +1,128 @@
+package com.faforever.client.io;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class ContentStoreTest {
+
+  private static final Instant LONG_AGO = Instant.now().minus(365, ChronoUnit.DAYS);
+
+  @Rule
+  public TemporaryFolder storeDirectory = new TemporaryFolder();
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+  @Rule
+  public TemporaryFolder targetDirectory = new TemporaryFolder();
+
+  private Path indexFile;
+  private ContentStore instance;
+
+  @Before
+  public void setUp() throws Exception {
+    indexFile = cacheDirectory.getRoot().toPath().resolve("index.json");
+    instance = new ContentStore(storeDirectory.getRoot().toPath(), indexFile);
+  }
+
+  private Path store(String name, int size) throws Exception {
+    Path storedFile = storeDirectory.getRoot().toPath().resolve(name);
+    Files.write(storedFile, new byte[size]);
+    instance.touch(storedFile);
+    return storedFile;
+  }
+
+  @Test
+  public void testInstallReplacesTarget() throws Exception {
+    Path storedFile = store("abc", 10);
+    Path targetFile = Files.writeString(targetDirectory.getRoot().toPath().resolve("units.nx2"), "old");
+
+    ContentStore.install(storedFile, targetFile);
+
+    assertThat(Files.size(targetFile), is(10L));
+    assertThat(Files.exists(storedFile), is(true));
+  }
+
+  @Test
+  public void testEvictLeastRecentlyUsedUntilSizeFits() throws Exception {
+    Path first = store("first", 10);
+    Path second = store("second", 10);
+    Path third = store("third", 10);
+    instance.touch(first);
+    Thread.sleep(5);
+
+    instance.evict(15, LONG_AGO);
+
+    assertThat(instance.getStoredFiles(), contains(first));
+    assertThat(Files.exists(second), is(false));
+    assertThat(Files.exists(third), is(false));
+    assertThat(instance.getTotalSize(), is(10L));
+  }
+
+  @Test
+  public void testEvictUnusedFiles() throws Exception {
+    store("first", 10);
+    Thread.sleep(5);
+
+    instance.evict(Long.MAX_VALUE, Instant.now());
+
+    assertThat(instance.getStoredFiles(), empty());
+  }
+
+  @Test
+  public void testIndexIsPersisted() throws Exception {
+    Path first = store("first", 10);
+    Path second = store("second", 10);
+    instance.touch(first);
+    instance.save();
+
+    ContentStore reloadedInstance = new ContentStore(storeDirectory.getRoot().toPath(), indexFile);
+
+    assertThat(reloadedInstance.getStoredFiles(), contains(second, first));
+    assertThat(reloadedInstance.getTotalSize(), is(20L));
+  }
+
+  @Test
+  public void testIndexIsRebuiltIfMissing() throws Exception {
+    Path storedFile = storeDirectory.getRoot().toPath().resolve("first");
+    Files.write(storedFile, new byte[10]);
+
+    assertThat(instance.getStoredFiles(), contains(storedFile));
+    assertThat(instance.getTotalSize(), is(10L));
+  }
+
+  @Test
+  public void testTemporaryFilesAreNotIndexed() throws Exception {
+    Path storedFile = Files.write(storeDirectory.getRoot().toPath().resolve("first"), new byte[10]);
+    Files.write(storeDirectory.getRoot().toPath().resolve("second" + ContentStore.TEMPORARY_FILE_SUFFIX), new byte[10]);
+
+    assertThat(instance.getStoredFiles(), contains(storedFile));
+    assertThat(instance.getTotalSize(), is(10L));
+  }
+
+  @Test
+  public void testDeletedFileIsRemovedFromIndexWhenLookedUp() throws Exception {
+    Path first = store("first", 10);
+    Path deleted = store("deleted", 10);
+    Files.delete(deleted);
+
+    assertThat(instance.contains(deleted), is(false));
+    assertThat(instance.getStoredFiles(), contains(first));
+    assertThat(instance.getTotalSize(), is(10L));
+  }
+
+  @Test
+  public void testContainsUnknownFile() throws Exception {
+    assertThat(instance.contains(storeDirectory.getRoot().toPath().resolve("unknown")), is(false));
+  }
+}
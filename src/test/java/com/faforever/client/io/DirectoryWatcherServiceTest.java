@@ -0,0 +1,142 @@
+package com.faforever.client.io;
+
+import com.faforever.client.io.DirectoryWatcherService.DirectoryChanges;
+import com.faforever.client.io.DirectoryWatcherService.Registration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.nocatch.NoCatch.noCatch;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class DirectoryWatcherServiceTest {
+
+  private static final Duration QUIET_PERIOD = Duration.ofMillis(300);
+  private static final long TIMEOUT_SECONDS = 10;
+
+  @Rule
+  public TemporaryFolder directory = new TemporaryFolder();
+
+  private DirectoryWatcherService instance;
+  private BlockingQueue<DirectoryChanges> changes;
+  private Path directoryPath;
+
+  @Before
+  public void setUp() throws Exception {
+    instance = new DirectoryWatcherService();
+    changes = new LinkedBlockingQueue<>();
+    directoryPath = directory.getRoot().toPath();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    instance.destroy();
+  }
+
+  @Test
+  public void testEventsOfNewFolderAreMerged() throws Exception {
+    instance.watch(directoryPath, QUIET_PERIOD, changes::add);
+
+    Path mapFolder = Files.createDirectory(directoryPath.resolve("map"));
+    Files.writeString(mapFolder.resolve("map_scenario.lua"), "ScenarioInfo = {}");
+    Files.writeString(mapFolder.resolve("map_save.lua"), "Scenario = {}");
+
+    DirectoryChanges directoryChanges = changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    assertThat(directoryChanges, notNullValue());
+    assertThat(directoryChanges.getDirectory(), is(directoryPath));
+    assertThat(directoryChanges.getChangedEntries(), contains(mapFolder));
+    assertThat(directoryChanges.getDeletedEntries(), empty());
+    assertThat(directoryChanges.isOverflow(), is(false));
+    assertThat(changes.poll(QUIET_PERIOD.toMillis() * 3, TimeUnit.MILLISECONDS), nullValue());
+  }
+
+  @Test
+  public void testChangesAreBatched() throws Exception {
+    Path deletedFolder = Files.createDirectory(directoryPath.resolve("deleted"));
+    instance.watch(directoryPath, QUIET_PERIOD, changes::add);
+
+    Path first = Files.createDirectory(directoryPath.resolve("first"));
+    Path second = Files.createDirectory(directoryPath.resolve("second"));
+    Files.delete(deletedFolder);
+
+    DirectoryChanges directoryChanges = changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    assertThat(directoryChanges, notNullValue());
+    assertThat(directoryChanges.getChangedEntries(), containsInAnyOrder(first, second));
+    assertThat(directoryChanges.getDeletedEntries(), contains(deletedFolder));
+  }
+
+  @Test
+  public void testEntryCreatedAndDeletedWithinQuietPeriodIsReportedAsDeleted() throws Exception {
+    instance.watch(directoryPath, QUIET_PERIOD, changes::add);
+
+    Path temporaryFolder = Files.createDirectory(directoryPath.resolve("temporary"));
+    Files.delete(temporaryFolder);
+
+    DirectoryChanges directoryChanges = changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    assertThat(directoryChanges, notNullValue());
+    assertThat(directoryChanges.getChangedEntries(), empty());
+    assertThat(directoryChanges.getDeletedEntries(), contains(temporaryFolder));
+  }
+
+  @Test
+  public void testEntryFolderIsNotWatchedAfterItHasBeenReported() throws Exception {
+    instance.watch(directoryPath, QUIET_PERIOD, changes::add);
+
+    Path mapFolder = Files.createDirectory(directoryPath.resolve("map"));
+    assertThat(changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS), notNullValue());
+
+    Files.writeString(mapFolder.resolve("map_scenario.lua"), "ScenarioInfo = {}");
+
+    assertThat(changes.poll(QUIET_PERIOD.toMillis() * 3, TimeUnit.MILLISECONDS), nullValue());
+  }
+
+  @Test
+  public void testListenerIsCalledInOrderOutsideOfWatcherThread() throws Exception {
+    CountDownLatch listenerReleased = new CountDownLatch(1);
+    BlockingQueue<String> listenerThreadNames = new LinkedBlockingQueue<>();
+    instance.watch(directoryPath, QUIET_PERIOD, directoryChanges -> {
+      listenerThreadNames.add(Thread.currentThread().getName());
+      noCatch(() -> listenerReleased.await());
+      changes.add(directoryChanges);
+    });
+
+    Path first = Files.createDirectory(directoryPath.resolve("first"));
+    assertThat(listenerThreadNames.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(not("directory-watcher")));
+    Path second = Files.createDirectory(directoryPath.resolve("second"));
+    Files.writeString(second.resolve("mod_info.lua"), "name = 'second'");
+    Thread.sleep(QUIET_PERIOD.toMillis() * 3);
+    listenerReleased.countDown();
+
+    DirectoryChanges firstChanges = changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    DirectoryChanges secondChanges = changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    assertThat(firstChanges.getChangedEntries(), contains(first));
+    assertThat(secondChanges.getChangedEntries(), contains(second));
+  }
+
+  @Test
+  public void testClosedRegistrationIsNotNotified() throws Exception {
+    Registration registration = instance.watch(directoryPath, QUIET_PERIOD, changes::add);
+    registration.close();
+
+    Files.createDirectory(directoryPath.resolve("map"));
+
+    assertThat(changes.poll(QUIET_PERIOD.toMillis() * 3, TimeUnit.MILLISECONDS), nullValue());
+  }
+}
@@ -0,0 +1,164 @@
+package com.faforever.client.io;
+
+import com.faforever.client.config.ClientProperties;
+import com.google.common.hash.Hashing;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class DownloadServiceTest {
+
+  private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+  @Rule
+  public TemporaryFolder targetDirectory = new TemporaryFolder();
+
+  private DownloadService instance;
+  private ClientProperties clientProperties;
+  private HttpServer httpServer;
+  private byte[] content;
+  private boolean rangesSupported;
+  private List<String> requestedRanges;
+  private URL url;
+
+  @Before
+  public void setUp() throws Exception {
+    content = new byte[100_000];
+    new Random(1).nextBytes(content);
+    rangesSupported = true;
+    requestedRanges = new CopyOnWriteArrayList<>();
+
+    httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    httpServer.createContext("/file", this::serveFile);
+    httpServer.start();
+    url = new URL("http://localhost:" + httpServer.getAddress().getPort() + "/file");
+
+    clientProperties = new ClientProperties();
+    clientProperties.getDownload().setMaxSegments(1);
+    instance = new DownloadService(clientProperties);
+  }
+
+  @After
+  public void tearDown() {
+    httpServer.stop(0);
+  }
+
+  private void serveFile(HttpExchange exchange) throws IOException {
+    String range = exchange.getRequestHeaders().getFirst("Range");
+    requestedRanges.add(String.valueOf(range));
+    exchange.getResponseHeaders().add("ETag", "\"v1\"");
+
+    Matcher matcher = range == null ? null : RANGE_PATTERN.matcher(range);
+    if (!rangesSupported || matcher == null || !matcher.matches()) {
+      exchange.sendResponseHeaders(200, content.length);
+      try (OutputStream outputStream = exchange.getResponseBody()) {
+        outputStream.write(content);
+      }
+      return;
+    }
+
+    int start = Integer.parseInt(matcher.group(1));
+    int end = matcher.group(2).isEmpty() ? content.length - 1 : Integer.parseInt(matcher.group(2));
+    exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+    exchange.sendResponseHeaders(206, end - start + 1);
+    try (OutputStream outputStream = exchange.getResponseBody()) {
+      outputStream.write(content, start, end - start + 1);
+    }
+  }
+
+  private String md5(byte[] bytes) {
+    return Hashing.md5().hashBytes(bytes).toString();
+  }
+
+  private List<Path> listTargetDirectory() throws IOException {
+    try (Stream<Path> files = Files.list(targetDirectory.getRoot().toPath())) {
+      return files.collect(Collectors.toList());
+    }
+  }
+
+  @Test
+  public void testDownloadFile() throws Exception {
+    Path targetFile = targetDirectory.getRoot().toPath().resolve("file");
+
+    instance.downloadFile(url, targetFile, (written, total) -> { }, md5(content));
+
+    assertThat(Files.readAllBytes(targetFile), is(content));
+    assertThat(listTargetDirectory(), contains(targetFile));
+  }
+
+  @Test
+  public void testDownloadFileInSegments() throws Exception {
+    clientProperties.getDownload().setMaxSegments(4);
+    clientProperties.getDownload().setMinSegmentSize(10_000);
+    Path targetFile = targetDirectory.getRoot().toPath().resolve("file");
+
+    instance.downloadFile(url, targetFile, (written, total) -> { }, md5(content));
+
+    assertThat(Files.readAllBytes(targetFile), is(content));
+    assertThat(requestedRanges, hasSize(4));
+    assertThat(listTargetDirectory(), contains(targetFile));
+  }
+
+  @Test
+  public void testResumePartialDownload() throws Exception {
+    Path targetFile = targetDirectory.getRoot().toPath().resolve("file");
+    Files.writeString(targetDirectory.getRoot().toPath().resolve("file.json.part"), "{\"url\":\"" + url
+        + "\",\"validator\":\"\\\"v1\\\"\",\"totalLength\":100000,\"rangesSupported\":true,\"segments\":[{\"start\":0,\"end\":-1}]}");
+    Files.write(targetDirectory.getRoot().toPath().resolve("file.0.part"), Arrays.copyOf(content, 60_000));
+
+    instance.downloadFile(url, targetFile, (written, total) -> { }, md5(content));
+
+    assertThat(Files.readAllBytes(targetFile), is(content));
+    assertThat(requestedRanges, contains("bytes=60000-"));
+  }
+
+  @Test
+  public void testPartialDownloadIsRestartedIfRangesAreNotSupported() throws Exception {
+    rangesSupported = false;
+    Path targetFile = targetDirectory.getRoot().toPath().resolve("file");
+    Files.writeString(targetDirectory.getRoot().toPath().resolve("file.json.part"), "{\"url\":\"" + url
+        + "\",\"totalLength\":100000,\"rangesSupported\":true,\"segments\":[{\"start\":0,\"end\":-1}]}");
+    Files.write(targetDirectory.getRoot().toPath().resolve("file.0.part"), new byte[60_000]);
+
+    instance.downloadFile(url, targetFile, (written, total) -> { }, md5(content));
+
+    assertThat(Files.readAllBytes(targetFile), is(content));
+  }
+
+  @Test
+  public void testChecksumMismatchDiscardsDownload() throws Exception {
+    Path targetFile = targetDirectory.getRoot().toPath().resolve("file");
+
+    try {
+      instance.downloadFile(url, targetFile, (written, total) -> { }, md5(new byte[0]));
+      throw new AssertionError("Expected an IOException");
+    } catch (IOException e) {
+      assertThat(listTargetDirectory(), empty());
+    }
+  }
+}
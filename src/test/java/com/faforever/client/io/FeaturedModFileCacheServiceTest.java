@@ -29,6 +29,8 @@ public class FeaturedModFileCacheServiceTest {
   public TemporaryFolder cacheDirectory = new TemporaryFolder();
   @Rule
   public TemporaryFolder targetDirectory = new TemporaryFolder();
+  @Rule
+  public TemporaryFolder clientCacheDirectory = new TemporaryFolder();
   @Mock
   private PreferencesService preferenceService;
   private FeaturedModFileCacheService instance;
@@ -38,6 +40,7 @@ public class FeaturedModFileCacheServiceTest {
     Preferences preferences = PreferencesBuilder.create().defaultValues().gameDataCacheActivated(true).get();
     when(preferenceService.getPreferences()).thenReturn(preferences);
     when(preferenceService.getFeaturedModCachePath()).thenReturn(cacheDirectory.getRoot().toPath());
+    when(preferenceService.getCacheDirectory()).thenReturn(clientCacheDirectory.getRoot().toPath());
     instance = new FeaturedModFileCacheService(preferenceService);
   }
 
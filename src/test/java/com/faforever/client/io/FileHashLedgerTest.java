@@ -0,0 +1,101 @@
+package com.faforever.client.io;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class FileHashLedgerTest {
+
+  @Rule
+  public TemporaryFolder dataDirectory = new TemporaryFolder();
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+
+  private Path ledgerFile;
+  private Path file;
+  private FileHashLedger instance;
+
+  @Before
+  public void setUp() throws Exception {
+    ledgerFile = cacheDirectory.getRoot().toPath().resolve("fileHashes.json");
+    file = Files.writeString(dataDirectory.getRoot().toPath().resolve("units.nx2"), "content");
+    Files.setLastModifiedTime(file, FileTime.fromMillis(1_000));
+
+    instance = new FileHashLedger(ledgerFile);
+    instance.load();
+  }
+
+  private static BasicFileAttributes attributes(Path file) throws Exception {
+    return Files.readAttributes(file, BasicFileAttributes.class);
+  }
+
+  @Test
+  public void testGetUnknownFile() throws Exception {
+    assertThat(instance.get(file, attributes(file)), is(Optional.empty()));
+  }
+
+  @Test
+  public void testGetHashFromPersistedLedger() throws Exception {
+    instance.put(file, attributes(file), "abc");
+    instance.save();
+
+    FileHashLedger reloadedInstance = new FileHashLedger(ledgerFile);
+    reloadedInstance.load();
+
+    assertThat(reloadedInstance.get(file, attributes(file)), is(Optional.of("abc")));
+  }
+
+  @Test
+  public void testChangedModificationTimeInvalidatesHash() throws Exception {
+    instance.put(file, attributes(file), "abc");
+
+    Files.setLastModifiedTime(file, FileTime.fromMillis(2_000));
+
+    assertThat(instance.get(file, attributes(file)), is(Optional.empty()));
+  }
+
+  @Test
+  public void testChangedSizeInvalidatesHash() throws Exception {
+    instance.put(file, attributes(file), "abc");
+
+    Files.writeString(file, "changed content");
+    Files.setLastModifiedTime(file, FileTime.fromMillis(1_000));
+
+    assertThat(instance.get(file, attributes(file)), is(Optional.empty()));
+  }
+
+  @Test
+  public void testMoveTransfersHash() throws Exception {
+    instance.put(file, attributes(file), "abc");
+    Path target = dataDirectory.getRoot().toPath().resolve("moved.nx2");
+
+    Files.move(file, target);
+    instance.move(file, target);
+
+    assertThat(instance.get(target, attributes(target)), is(Optional.of("abc")));
+  }
+
+  @Test
+  public void testEntriesOfDeletedFilesAreDroppedOnLoad() throws Exception {
+    instance.put(file, attributes(file), "abc");
+    instance.save();
+    Files.delete(file);
+
+    FileHashLedger reloadedInstance = new FileHashLedger(ledgerFile);
+    reloadedInstance.load();
+    Files.writeString(file, "content");
+    Files.setLastModifiedTime(file, FileTime.fromMillis(1_000));
+
+    assertThat(reloadedInstance.get(file, attributes(file)), is(Optional.empty()));
+  }
+}
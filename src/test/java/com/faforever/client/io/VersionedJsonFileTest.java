@@ -0,0 +1,73 @@
+package com.faforever.client.io;
+
+import com.google.gson.reflect.TypeToken;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class VersionedJsonFileTest {
+
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+
+  private Path file;
+  private VersionedJsonFile<List<String>> instance;
+
+  @Before
+  public void setUp() throws Exception {
+    file = cacheDirectory.getRoot().toPath().resolve("sub").resolve("index.json");
+    instance = createInstance(1);
+  }
+
+  private VersionedJsonFile<List<String>> createInstance(int version) {
+    return new VersionedJsonFile<>(file, version, new TypeToken<List<String>>() {}.getType());
+  }
+
+  @Test
+  public void testReadMissingFile() {
+    assertThat(instance.read(), is(Optional.empty()));
+  }
+
+  @Test
+  public void testWriteAndRead() throws Exception {
+    instance.write(List.of("first", "second"));
+
+    assertThat(createInstance(1).read().orElseThrow(), contains("first", "second"));
+    try (var files = Files.list(file.getParent())) {
+      assertThat(files.count(), is(1L));
+    }
+  }
+
+  @Test
+  public void testWriteReplacesFile() throws Exception {
+    instance.write(List.of("first"));
+    instance.write(List.of("second"));
+
+    assertThat(instance.read().orElseThrow(), contains("second"));
+  }
+
+  @Test
+  public void testOtherVersionIsIgnored() throws Exception {
+    instance.write(List.of("first"));
+
+    assertThat(createInstance(2).read(), is(Optional.empty()));
+  }
+
+  @Test
+  public void testUnreadableFileIsIgnored() throws Exception {
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, "gibberish");
+
+    assertThat(instance.read(), is(Optional.empty()));
+  }
+}
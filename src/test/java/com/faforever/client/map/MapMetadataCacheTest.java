@@ -0,0 +1,118 @@
+package com.faforever.client.map;
+
+import com.faforever.client.map.MapBean.Type;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MapMetadataCacheTest {
+
+  @Rule
+  public TemporaryFolder mapsDirectory = new TemporaryFolder();
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+
+  private Path cacheFile;
+  private Path mapFolder;
+  private Path scenarioFile;
+  private MapMetadataCache instance;
+
+  @Before
+  public void setUp() throws Exception {
+    cacheFile = cacheDirectory.getRoot().toPath().resolve("mapMetadataCache.json");
+    mapFolder = mapsDirectory.newFolder("SCMP_001").toPath();
+    scenarioFile = mapFolder.resolve("SCMP_001_scenario.lua");
+    Files.writeString(scenarioFile, "ScenarioInfo = {}");
+    Files.setLastModifiedTime(scenarioFile, FileTime.fromMillis(1_000));
+
+    instance = new MapMetadataCache(cacheFile);
+    instance.load();
+  }
+
+  private MapBean createMapBean() {
+    MapBean mapBean = new MapBean();
+    mapBean.setFolderName("SCMP_001");
+    mapBean.setDisplayName("Burial Mounds");
+    mapBean.setDescription("Description");
+    mapBean.setType(Type.SKIRMISH);
+    mapBean.setSize(MapSize.valueOf(1024, 512));
+    mapBean.setPlayers(8);
+    mapBean.setVersion(new ComparableVersion("3"));
+    return mapBean;
+  }
+
+  @Test
+  public void testGetUncachedMap() {
+    assertThat(instance.get(mapFolder), is(Optional.empty()));
+  }
+
+  @Test
+  public void testGetCachedMapFromPersistedCache() throws Exception {
+    instance.put(mapFolder, scenarioFile, createMapBean());
+    instance.save();
+
+    MapMetadataCache reloadedInstance = new MapMetadataCache(cacheFile);
+    reloadedInstance.load();
+    MapBean mapBean = reloadedInstance.get(mapFolder).orElseThrow();
+
+    assertThat(mapBean.getFolderName(), is("SCMP_001"));
+    assertThat(mapBean.getDisplayName(), is("Burial Mounds"));
+    assertThat(mapBean.getDescription(), is("Description"));
+    assertThat(mapBean.getType(), is(Type.SKIRMISH));
+    assertThat(mapBean.getSize(), is(MapSize.valueOf(1024, 512)));
+    assertThat(mapBean.getPlayers(), is(8));
+    assertThat(mapBean.getVersion(), is(new ComparableVersion("3")));
+  }
+
+  @Test
+  public void testGetCachedMapWithoutVersion() {
+    MapBean mapBean = createMapBean();
+    mapBean.setVersion(null);
+    instance.put(mapFolder, scenarioFile, mapBean);
+
+    assertThat(instance.get(mapFolder).orElseThrow().getVersion(), nullValue());
+  }
+
+  @Test
+  public void testChangedScenarioFileInvalidatesEntry() throws Exception {
+    instance.put(mapFolder, scenarioFile, createMapBean());
+
+    Files.setLastModifiedTime(scenarioFile, FileTime.fromMillis(2_000));
+
+    assertThat(instance.get(mapFolder), is(Optional.empty()));
+  }
+
+  @Test
+  public void testDeletedScenarioFileInvalidatesEntry() throws Exception {
+    instance.put(mapFolder, scenarioFile, createMapBean());
+
+    Files.delete(scenarioFile);
+
+    assertThat(instance.get(mapFolder), is(Optional.empty()));
+  }
+
+  @Test
+  public void testRetainAll() throws Exception {
+    Path otherMapFolder = mapsDirectory.newFolder("SCMP_002").toPath();
+    Path otherScenarioFile = Files.writeString(otherMapFolder.resolve("SCMP_002_scenario.lua"), "ScenarioInfo = {}");
+    instance.put(mapFolder, scenarioFile, createMapBean());
+    instance.put(otherMapFolder, otherScenarioFile, createMapBean());
+
+    instance.retainAll(List.of(otherMapFolder));
+
+    assertThat(instance.get(mapFolder), is(Optional.empty()));
+    assertThat(instance.get(otherMapFolder).isPresent(), is(true));
+  }
+}
@@ -2,6 +2,7 @@ package com.faforever.client.map;
 
 import com.faforever.client.config.ClientProperties;
 import com.faforever.client.i18n.I18n;
+import com.faforever.client.io.DirectoryWatcherService;
 import com.faforever.client.map.MapService.PreviewSize;
 import com.faforever.client.map.generator.MapGeneratorService;
 import com.faforever.client.player.PlayerService;
@@ -21,6 +22,7 @@ import com.google.common.eventbus.EventBus;
 import javafx.collections.ObservableList;
 import javafx.scene.image.Image;
 import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -37,8 +39,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
@@ -68,6 +72,8 @@ public class MapServiceTest extends AbstractPlainJavaFxTest {
 
   private MapService instance;
   private Path mapsDirectory;
+  private ClientProperties clientProperties;
+  private DirectoryWatcherService directoryWatcherService;
 
   @Mock
   private PreferencesService preferencesService;
@@ -92,7 +98,7 @@ public class MapServiceTest extends AbstractPlainJavaFxTest {
 
   @Before
   public void setUp() throws Exception {
-    ClientProperties clientProperties = new ClientProperties();
+    clientProperties = new ClientProperties();
     clientProperties.getVault().setMapPreviewUrlFormat("http://127.0.0.1:65534/preview/%s/%s");
 
     Preferences preferences = PreferencesBuilder.create().defaultValues()
@@ -104,8 +110,10 @@ public class MapServiceTest extends AbstractPlainJavaFxTest {
 
     mapsDirectory = gameDirectory.newFolder("maps").toPath();
     when(preferencesService.getPreferences()).thenReturn(preferences);
+    when(preferencesService.getCacheDirectory()).thenReturn(cacheDirectory.getRoot().toPath());
+    directoryWatcherService = new DirectoryWatcherService();
     instance = new MapService(preferencesService, taskService, applicationContext,
-        fafService, assetService, i18n, uiService, mapGeneratorService, clientProperties, eventBus, playerService);
+        fafService, assetService, i18n, uiService, mapGeneratorService, clientProperties, eventBus, playerService, directoryWatcherService);
     instance.afterPropertiesSet();
 
     doAnswer(invocation -> {
@@ -120,6 +128,11 @@ public class MapServiceTest extends AbstractPlainJavaFxTest {
     instance.afterPropertiesSet();
   }
 
+  @After
+  public void tearDown() throws Exception {
+    directoryWatcherService.destroy();
+  }
+
   @Test
   public void testGetLocalMapsNoMaps() {
     assertThat(instance.getInstalledMaps(), hasSize(0));
@@ -144,6 +157,40 @@ public class MapServiceTest extends AbstractPlainJavaFxTest {
     assertThat(mapBean.getSize(), equalTo(MapSize.valueOf(1024, 1024)));
   }
 
+  @Test
+  public void testGetLocalMapsParallelScanKeepsOrder() throws Exception {
+    clientProperties.getVault().setMapScanThreads(4);
+    instance = new MapService(preferencesService, taskService, applicationContext,
+        fafService, assetService, i18n, uiService, mapGeneratorService, clientProperties, eventBus, playerService, directoryWatcherService);
+    instance.officialMaps = ImmutableSet.of();
+    for (String folderName : List.of("map_e", "map_b", "map_h", "map_d", "map_a", "map_g", "map_c", "map_i", "map_f")) {
+      Path mapFolder = Files.createDirectory(customMapsDirectory.getRoot().toPath().resolve(folderName));
+      Files.copy(getClass().getResourceAsStream("/maps/SCMP_001/SCMP_001_scenario.lua"), mapFolder.resolve("SCMP_001_scenario.lua"));
+    }
+
+    instance.afterPropertiesSet();
+    WaitForAsyncUtils.waitForFxEvents();
+
+    assertThat(instance.getInstalledMaps().stream().map(MapBean::getFolderName).collect(Collectors.toList()),
+        contains("map_a", "map_b", "map_c", "map_d", "map_e", "map_f", "map_g", "map_h", "map_i"));
+    assertTrue(instance.isInstalled("MAP_C"));
+    instance.destroy();
+  }
+
+  @Test
+  public void testReloadingMapsKeepsInstalledMaps() throws Exception {
+    Path mapFolder = Files.createDirectory(customMapsDirectory.getRoot().toPath().resolve("map_a"));
+    Files.copy(getClass().getResourceAsStream("/maps/SCMP_001/SCMP_001_scenario.lua"), mapFolder.resolve("SCMP_001_scenario.lua"));
+    instance.afterPropertiesSet();
+    WaitForAsyncUtils.waitForFxEvents();
+
+    instance.afterPropertiesSet();
+    WaitForAsyncUtils.waitForFxEvents();
+
+    assertThat(instance.getInstalledMaps(), hasSize(1));
+    assertTrue(instance.isInstalled("map_a"));
+  }
+
   @Test
   public void testReadMapOfNonFolderThrowsException() {
     expectedException.expect(MapLoadException.class);
@@ -0,0 +1,143 @@
+package com.faforever.client.mod;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+
+public class ActiveModsFileTest {
+
+  @Rule
+  public TemporaryFolder faDataDirectory = new TemporaryFolder();
+
+  private Path preferencesFile;
+  private ActiveModsFile instance;
+
+  @Before
+  public void setUp() throws Exception {
+    preferencesFile = faDataDirectory.getRoot().toPath().resolve("game.prefs");
+    Files.write(preferencesFile, List.of(
+        "profile = {",
+        "    name = 'Player'",
+        "}",
+        "active_mods = {",
+        "    ['first'] = true,",
+        "    ['second'] = false",
+        "}",
+        "options = {",
+        "    sound = true",
+        "}"
+    ));
+    instance = new ActiveModsFile(preferencesFile);
+  }
+
+  @Test
+  public void testRead() throws Exception {
+    Map<String, Boolean> modStates = instance.read();
+
+    assertThat(modStates.size(), is(2));
+    assertThat(modStates, hasEntry("first", true));
+    assertThat(modStates, hasEntry("second", false));
+  }
+
+  @Test
+  public void testWriteReplacesOnlyActiveModsBlock() throws Exception {
+    Map<String, Boolean> modStates = new LinkedHashMap<>();
+    modStates.put("first", false);
+    modStates.put("third", true);
+    modStates.put("fourth", true);
+
+    instance.write(modStates);
+
+    assertThat(Files.readAllLines(preferencesFile), contains(
+        "profile = {",
+        "    name = 'Player'",
+        "}",
+        "active_mods = {",
+        "    ['third'] = true,",
+        "    ['fourth'] = true",
+        "}",
+        "options = {",
+        "    sound = true",
+        "}"
+    ));
+  }
+
+  @Test
+  public void testWriteAppendsMissingActiveModsBlock() throws Exception {
+    Files.write(preferencesFile, List.of("options = {", "}"));
+
+    instance.write(Map.of("first", true));
+
+    assertThat(Files.readAllLines(preferencesFile), contains(
+        "options = {",
+        "}",
+        "active_mods = {",
+        "    ['first'] = true",
+        "}"
+    ));
+  }
+
+  @Test
+  public void testWriteUnchangedBlockDoesNotTouchFile() throws Exception {
+    Files.write(preferencesFile, List.of("active_mods = {", "    ['first'] = true", "}"));
+    Files.setLastModifiedTime(preferencesFile, FileTime.fromMillis(1_000));
+
+    instance.write(Map.of("first", true, "second", false));
+
+    assertThat(Files.getLastModifiedTime(preferencesFile), is(FileTime.fromMillis(1_000)));
+  }
+
+  @Test
+  public void testReadReflectsExternalChanges() throws Exception {
+    instance.read();
+
+    Files.write(preferencesFile, List.of("active_mods = {", "    ['external'] = true", "}"));
+    Files.setLastModifiedTime(preferencesFile, FileTime.fromMillis(1_000));
+
+    assertThat(instance.read(), is(Map.of("external", true)));
+  }
+
+  @Test
+  public void testWriteKeepsExternalChangesWithUnchangedSizeAndModificationTime() throws Exception {
+    Files.setLastModifiedTime(preferencesFile, FileTime.fromMillis(1_000));
+    instance.read();
+
+    String content = Files.readString(preferencesFile);
+    Files.writeString(preferencesFile, content.replace("name = 'Player'", "name = 'Change'"));
+    Files.setLastModifiedTime(preferencesFile, FileTime.fromMillis(1_000));
+
+    instance.write(Map.of("third", true));
+
+    assertThat(Files.readAllLines(preferencesFile), contains(
+        "profile = {",
+        "    name = 'Change'",
+        "}",
+        "active_mods = {",
+        "    ['third'] = true",
+        "}",
+        "options = {",
+        "    sound = true",
+        "}"
+    ));
+  }
+
+  @Test
+  public void testReadAfterWriteReturnsWrittenStates() throws Exception {
+    instance.write(Map.of("third", true));
+
+    assertThat(instance.read(), is(Map.of("third", true)));
+  }
+}
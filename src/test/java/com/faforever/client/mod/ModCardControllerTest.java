@@ -27,6 +27,8 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -69,6 +71,7 @@ public class ModCardControllerTest extends AbstractPlainJavaFxTest {
         .thumbnailUrl(getClass().getResource("/theme/images/default_achievement.png").toExternalForm())
         .get();
 
+    when(modService.loadThumbnailAsync(any(), anyInt(), anyInt())).thenReturn(CompletableFuture.completedFuture(null));
     when(modService.uninstallMod(any())).thenReturn(CompletableFuture.runAsync(() -> {
     }));
     when(modService.downloadAndInstallMod((ModVersion) any(), isNull(), isNull())).thenReturn(CompletableFuture.runAsync(() -> {
@@ -87,21 +90,24 @@ public class ModCardControllerTest extends AbstractPlainJavaFxTest {
 
   @Test
   public void testSetMod() {
-    when(modService.loadThumbnail(modVersion)).thenReturn(new Image("/theme/images/default_achievement.png"));
+    when(modService.loadThumbnailAsync(eq(modVersion), anyInt(), anyInt()))
+        .thenReturn(CompletableFuture.completedFuture(new Image("/theme/images/default_achievement.png")));
     instance.setModVersion(modVersion);
+    WaitForAsyncUtils.waitForFxEvents();
 
     assertThat(instance.nameLabel.getText(), is("ModVersion name"));
     assertThat(instance.authorLabel.getText(), is("ModVersion author"));
     assertThat(instance.thumbnailImageView.getImage(), is(notNullValue()));
-    verify(modService).loadThumbnail(modVersion);
+    verify(modService).loadThumbnailAsync(modVersion, 128, 128);
   }
 
   @Test
   public void testSetModNoThumbnail() {
     Image image = mock(Image.class);
-    when(modService.loadThumbnail(modVersion)).thenReturn(image);
+    when(modService.loadThumbnailAsync(eq(modVersion), anyInt(), anyInt())).thenReturn(CompletableFuture.completedFuture(image));
 
     instance.setModVersion(modVersion);
+    WaitForAsyncUtils.waitForFxEvents();
 
     assertThat(instance.thumbnailImageView.getImage(), notNullValue());
   }
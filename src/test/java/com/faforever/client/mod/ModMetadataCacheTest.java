@@ -0,0 +1,112 @@
+package com.faforever.client.mod;
+
+import com.faforever.client.mod.ModVersion.ModType;
+import com.faforever.commons.mod.MountInfo;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class ModMetadataCacheTest {
+
+  @Rule
+  public TemporaryFolder modsDirectory = new TemporaryFolder();
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+
+  private Path cacheFile;
+  private Path modFolder;
+  private Path modInfoFile;
+  private ModMetadataCache instance;
+
+  @Before
+  public void setUp() throws Exception {
+    cacheFile = cacheDirectory.getRoot().toPath().resolve("modMetadataCache.json");
+    modFolder = modsDirectory.newFolder("EcoManager").toPath();
+    modInfoFile = modFolder.resolve("mod_info.lua");
+    Files.writeString(modInfoFile, "name = 'Eco Manager'");
+    Files.setLastModifiedTime(modInfoFile, FileTime.fromMillis(1_000));
+
+    instance = new ModMetadataCache(cacheFile);
+    instance.load();
+  }
+
+  private ModVersion createModVersion() {
+    ModVersion modVersion = new ModVersion();
+    modVersion.setUid("b2cde810-15d0-4bfa-af66-ec2d6ecd561b");
+    modVersion.setDisplayName("Eco Manager");
+    modVersion.setDescription("Description");
+    modVersion.setUploader("Crotalus");
+    modVersion.setVersion(new ComparableVersion("3"));
+    modVersion.setSelectable(true);
+    modVersion.setModType(ModType.UI);
+    modVersion.setImagePath(modFolder.resolve("icon.png"));
+    modVersion.getMountInfos().setAll(new MountInfo(modFolder, Paths.get("units"), "/units"));
+    modVersion.getHookDirectories().setAll("/hook");
+    return modVersion;
+  }
+
+  @Test
+  public void testGetUncachedMod() {
+    assertThat(instance.get(modFolder, modInfoFile), is(Optional.empty()));
+  }
+
+  @Test
+  public void testGetCachedModFromPersistedCache() throws Exception {
+    instance.put(modFolder, modInfoFile, createModVersion());
+    instance.save();
+
+    ModMetadataCache reloadedInstance = new ModMetadataCache(cacheFile);
+    reloadedInstance.load();
+    ModVersion modVersion = reloadedInstance.get(modFolder, modInfoFile).orElseThrow();
+
+    assertThat(modVersion.getUid(), is("b2cde810-15d0-4bfa-af66-ec2d6ecd561b"));
+    assertThat(modVersion.getDisplayName(), is("Eco Manager"));
+    assertThat(modVersion.getDescription(), is("Description"));
+    assertThat(modVersion.getUploader(), is("Crotalus"));
+    assertThat(modVersion.getVersion(), is(new ComparableVersion("3")));
+    assertThat(modVersion.getSelectable(), is(true));
+    assertThat(modVersion.getModType(), is(ModType.UI));
+    assertThat(modVersion.getImagePath(), is(modFolder.resolve("icon.png")));
+    assertThat(modVersion.getMountInfos(), hasSize(1));
+    assertThat(modVersion.getMountInfos().get(0).getBaseDir(), is(modFolder));
+    assertThat(modVersion.getMountInfos().get(0).getFile(), is(Paths.get("units")));
+    assertThat(modVersion.getMountInfos().get(0).getMountPoint(), is("/units"));
+    assertThat(modVersion.getHookDirectories(), contains("/hook"));
+  }
+
+  @Test
+  public void testChangedModInfoFileInvalidatesEntry() throws Exception {
+    instance.put(modFolder, modInfoFile, createModVersion());
+
+    Files.setLastModifiedTime(modInfoFile, FileTime.fromMillis(2_000));
+
+    assertThat(instance.get(modFolder, modInfoFile), is(Optional.empty()));
+  }
+
+  @Test
+  public void testRetainAll() throws Exception {
+    Path otherModFolder = modsDirectory.newFolder("BlackOpsUnleashed").toPath();
+    Path otherModInfoFile = Files.writeString(otherModFolder.resolve("mod_info.lua"), "name = 'BlackOps'");
+    instance.put(modFolder, modInfoFile, createModVersion());
+    instance.put(otherModFolder, otherModInfoFile, createModVersion());
+
+    instance.retainAll(List.of(otherModFolder));
+
+    assertThat(instance.get(modFolder, modInfoFile), is(Optional.empty()));
+    assertThat(instance.get(otherModFolder, otherModInfoFile).isPresent(), is(true));
+  }
+}
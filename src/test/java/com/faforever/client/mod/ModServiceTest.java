@@ -2,6 +2,7 @@ package com.faforever.client.mod;
 
 import com.faforever.client.fx.PlatformService;
 import com.faforever.client.i18n.I18n;
+import com.faforever.client.io.DirectoryWatcherService;
 import com.faforever.client.mod.ModVersion.ModType;
 import com.faforever.client.notification.NotificationService;
 import com.faforever.client.preferences.Preferences;
@@ -20,6 +21,7 @@ import javafx.beans.property.StringProperty;
 import javafx.collections.ObservableList;
 import org.apache.maven.artifact.versioning.ComparableVersion;
 import org.hamcrest.Matchers;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -29,6 +31,7 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.io.ClassPathResource;
+import org.testfx.util.WaitForAsyncUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -74,6 +77,8 @@ public class ModServiceTest extends AbstractPlainJavaFxTest {
   public TemporaryFolder faDataDirectory = new TemporaryFolder();
   @Rule
   public TemporaryFolder corruptedModsDirectory = new TemporaryFolder();
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
 
   @Mock
   private PreferencesService preferencesService;
@@ -93,6 +98,7 @@ public class ModServiceTest extends AbstractPlainJavaFxTest {
   private PlatformService platformService;
 
   private ModService instance;
+  private DirectoryWatcherService directoryWatcherService;
   private Path gamePrefsPath;
   private Path blackopsSupportPath;
 
@@ -106,10 +112,12 @@ public class ModServiceTest extends AbstractPlainJavaFxTest {
         .then()
         .get();
 
+    directoryWatcherService = new DirectoryWatcherService();
     instance = new ModService(fafService, preferencesService, taskService, applicationContext, notificationService, i18n,
-        platformService, assetService);
+        platformService, assetService, directoryWatcherService);
 
     when(preferencesService.getPreferences()).thenReturn(preferences);
+    when(preferencesService.getCacheDirectory()).thenReturn(cacheDirectory.getRoot().toPath());
     when(taskService.submitTask(any(CompletableTask.class))).then(invocation -> {
       CompletableTask<?> completableTask = invocation.getArgument(0);
       completableTask.run();
@@ -121,6 +129,11 @@ public class ModServiceTest extends AbstractPlainJavaFxTest {
     instance.afterPropertiesSet();
   }
 
+  @After
+  public void tearDown() throws Exception {
+    directoryWatcherService.destroy();
+  }
+
   private Path copyMod(String directoryName, ClassPathResource classPathResource) throws IOException {
     Path targetDir = modsDirectory.getRoot().toPath().resolve(directoryName);
     Files.createDirectories(targetDir);
@@ -374,6 +387,21 @@ public class ModServiceTest extends AbstractPlainJavaFxTest {
     assertThat(actual, is(expected));
   }
 
+  @Test
+  public void testRemovedModIsReplacedByOtherCopyWithSameUid() throws Exception {
+    Path copyPath = copyMod("BlackOpsUnleashedCopy", BLACKOPS_UNLEASHED_MOD_INFO);
+    instance.loadInstalledMods();
+    assertThat(instance.getInstalledModVersions(), hasSize(1));
+    ModVersion modVersion = instance.getInstalledModVersions().get(0);
+
+    Files.delete(blackopsSupportPath.resolve("mod_info.lua"));
+    Files.delete(blackopsSupportPath);
+
+    WaitForAsyncUtils.waitFor(TIMEOUT, TIMEOUT_UNIT, () -> copyPath.equals(instance.getPathForMod(modVersion)));
+    assertThat(instance.getInstalledModVersions(), hasSize(1));
+    assertThat(instance.isModInstalled(modVersion.getUid()), is(true));
+  }
+
   @Test
   public void testGetPathForModUnknownModReturnsNull() {
     assertThat(instance.getInstalledModVersions(), hasSize(1));
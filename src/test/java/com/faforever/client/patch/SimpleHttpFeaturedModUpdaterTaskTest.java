@@ -0,0 +1,138 @@
+package com.faforever.client.patch;
+
+import com.faforever.client.api.dto.FeaturedModFile;
+import com.faforever.client.config.ClientProperties;
+import com.faforever.client.i18n.I18n;
+import com.faforever.client.io.DownloadService;
+import com.faforever.client.io.FeaturedModFileCacheService;
+import com.faforever.client.mod.FeaturedMod;
+import com.faforever.client.preferences.PreferencesService;
+import com.faforever.client.remote.FafService;
+import com.faforever.client.test.AbstractPlainJavaFxTest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SimpleHttpFeaturedModUpdaterTaskTest extends AbstractPlainJavaFxTest {
+
+  @Rule
+  public TemporaryFolder fafDataDirectory = new TemporaryFolder();
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+
+  @Mock
+  private FafService fafService;
+  @Mock
+  private PreferencesService preferencesService;
+  @Mock
+  private DownloadService downloadService;
+  @Mock
+  private I18n i18n;
+  @Mock
+  private FeaturedModFileCacheService featuredModFileCacheService;
+
+  private SimpleHttpFeaturedModUpdaterTask instance;
+  private FeaturedMod featuredMod;
+  private List<String> installedFileNames;
+
+  @Before
+  public void setUp() throws Exception {
+    MockitoAnnotations.initMocks(this);
+
+    ClientProperties clientProperties = new ClientProperties();
+    clientProperties.getForgedAlliance().setFeaturedModDownloadThreads(4);
+    instance = new SimpleHttpFeaturedModUpdaterTask(fafService, preferencesService, downloadService, i18n,
+        featuredModFileCacheService, clientProperties);
+
+    featuredMod = new FeaturedMod();
+    featuredMod.setTechnicalName("faf");
+    instance.setFeaturedMod(featuredMod);
+    installedFileNames = Collections.synchronizedList(new ArrayList<>());
+
+    when(preferencesService.getFafDataDirectory()).thenReturn(fafDataDirectory.getRoot().toPath());
+    when(featuredModFileCacheService.getCachedFilePath(any(FeaturedModFile.class))).then(invocation -> {
+      FeaturedModFile featuredModFile = invocation.getArgument(0);
+      return cacheDirectory.getRoot().toPath().resolve(featuredModFile.getGroup()).resolve(featuredModFile.getMd5());
+    });
+    doAnswer(invocation -> {
+      Path targetFile = invocation.getArgument(1);
+      Files.writeString(targetFile, "content");
+      return null;
+    }).when(downloadService).downloadFile(any(URL.class), any(Path.class), any(), any());
+    doAnswer(invocation -> {
+      FeaturedModFile featuredModFile = invocation.getArgument(0);
+      Path targetPath = invocation.getArgument(1);
+      Files.createDirectories(targetPath.getParent());
+      Files.writeString(targetPath, "content");
+      installedFileNames.add(featuredModFile.getName());
+      return null;
+    }).when(featuredModFileCacheService).moveFeaturedModFileFromCache(any(FeaturedModFile.class), any(Path.class));
+  }
+
+  private FeaturedModFile createFeaturedModFile(String id, String group, String name) {
+    FeaturedModFile featuredModFile = new FeaturedModFile();
+    featuredModFile.setId(id);
+    featuredModFile.setVersion(id);
+    featuredModFile.setGroup(group);
+    featuredModFile.setName(name);
+    featuredModFile.setMd5("md5-" + id);
+    featuredModFile.setUrl("http://localhost/" + name);
+    return featuredModFile;
+  }
+
+  @Test
+  public void testAllFilesAreInstalledAndInitFileLast() throws Exception {
+    List<FeaturedModFile> featuredModFiles = new ArrayList<>();
+    featuredModFiles.add(createFeaturedModFile("1", "bin", "init_faf.lua"));
+    for (int i = 2; i <= 20; i++) {
+      featuredModFiles.add(createFeaturedModFile(String.valueOf(i), "gamedata", "file" + i + ".nx2"));
+    }
+    when(fafService.getFeaturedModFiles(featuredMod, null)).thenReturn(CompletableFuture.completedFuture(featuredModFiles));
+
+    PatchResult patchResult = instance.call();
+
+    assertThat(installedFileNames, hasSize(20));
+    assertThat(installedFileNames.get(19), is("init_faf.lua"));
+    assertThat(patchResult.getLegacyInitFile(), is(fafDataDirectory.getRoot().toPath().resolve("bin").resolve("init_faf.lua")));
+  }
+
+  @Test
+  public void testInitFileIsNotInstalledIfOtherFileFails() throws Exception {
+    FeaturedModFile initFile = createFeaturedModFile("1", "bin", "init_faf.lua");
+    FeaturedModFile failingFile = createFeaturedModFile("2", "gamedata", "units.nx2");
+    when(fafService.getFeaturedModFiles(featuredMod, null)).thenReturn(CompletableFuture.completedFuture(List.of(initFile, failingFile)));
+    doThrow(new IOException("Connection reset")).when(downloadService)
+        .downloadFile(any(URL.class), any(Path.class), any(), any());
+
+    try {
+      instance.call();
+      throw new AssertionError("Expected an IOException");
+    } catch (IOException e) {
+      assertThat(e.getMessage(), is("Connection reset"));
+    }
+
+    verify(featuredModFileCacheService, never()).moveFeaturedModFileFromCache(any(FeaturedModFile.class), any(Path.class));
+  }
+}
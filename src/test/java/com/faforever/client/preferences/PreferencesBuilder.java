@@ -115,6 +115,11 @@ public class PreferencesBuilder {
     return this;
   }
 
+  public PreferencesBuilder gameDataCacheMaxSizeInMb(int gameDataCacheMaxSizeInMb) {
+    preferences.setGameDataCacheMaxSizeInMb(gameDataCacheMaxSizeInMb);
+    return this;
+  }
+
   public WindowPrefsBuilder windowPrefs() {
     return new WindowPrefsBuilder();
   }
@@ -0,0 +1,186 @@
+package com.faforever.client.remote;
+
+import com.faforever.client.config.ClientProperties;
+import com.faforever.client.preferences.PreferencesService;
+import com.faforever.client.test.AbstractPlainJavaFxTest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.testfx.util.WaitForAsyncUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.when;
+
+public class AssetServiceTest extends AbstractPlainJavaFxTest {
+
+  private static final Path CACHE_SUB_FOLDER = Paths.get("maps");
+
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+
+  @Mock
+  private PreferencesService preferencesService;
+
+  private AssetService instance;
+  private ClientProperties clientProperties;
+  private HttpServer httpServer;
+  private byte[] imageBytes;
+  private AtomicInteger requestCount;
+  private CountDownLatch responseLatch;
+  private URL imageUrl;
+
+  @Before
+  public void setUp() throws Exception {
+    BufferedImage bufferedImage = new BufferedImage(100, 50, BufferedImage.TYPE_INT_ARGB);
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    ImageIO.write(bufferedImage, "png", outputStream);
+    imageBytes = outputStream.toByteArray();
+    requestCount = new AtomicInteger();
+    responseLatch = new CountDownLatch(0);
+
+    httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    httpServer.createContext("/image.png", this::serveImage);
+    httpServer.start();
+    imageUrl = new URL("http://localhost:" + httpServer.getAddress().getPort() + "/image.png");
+
+    when(preferencesService.getCacheDirectory()).thenReturn(cacheDirectory.getRoot().toPath());
+    clientProperties = new ClientProperties();
+    instance = createInstance();
+  }
+
+  @After
+  public void tearDown() {
+    instance.destroy();
+    httpServer.stop(0);
+  }
+
+  private AssetService createInstance() {
+    AssetService assetService = new AssetService(preferencesService, clientProperties);
+    assetService.afterPropertiesSet();
+    return assetService;
+  }
+
+  private void serveImage(HttpExchange exchange) throws IOException {
+    requestCount.incrementAndGet();
+    try {
+      responseLatch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    exchange.sendResponseHeaders(200, imageBytes.length);
+    try (OutputStream outputStream = exchange.getResponseBody()) {
+      outputStream.write(imageBytes);
+    }
+  }
+
+  @Test
+  public void testLoadAndCacheImageAsyncScalesImage() throws Exception {
+    Image image = instance.loadAndCacheImageAsync(imageUrl, CACHE_SUB_FOLDER, null, 20, 20).get(10, TimeUnit.SECONDS);
+
+    assertThat(image.getWidth(), is(20.0));
+    assertThat(image.getHeight(), is(10.0));
+    assertThat(Files.exists(instance.getStoredFile(imageUrl, CACHE_SUB_FOLDER)), is(true));
+  }
+
+  @Test
+  public void testConcurrentLoadsShareDownload() throws Exception {
+    responseLatch = new CountDownLatch(1);
+
+    CompletableFuture<Image> small = instance.loadAndCacheImageAsync(imageUrl, CACHE_SUB_FOLDER, null, 20, 20);
+    CompletableFuture<Image> large = instance.loadAndCacheImageAsync(imageUrl, CACHE_SUB_FOLDER, null, 0, 0);
+    responseLatch.countDown();
+
+    assertThat(small.get(10, TimeUnit.SECONDS).getWidth(), is(20.0));
+    assertThat(large.get(10, TimeUnit.SECONDS).getWidth(), is(100.0));
+    assertThat(requestCount.get(), is(1));
+  }
+
+  @Test
+  public void testDecodedImageIsKeptInMemory() throws Exception {
+    Image first = instance.loadAndCacheImageAsync(imageUrl, CACHE_SUB_FOLDER, null, 20, 20).get(10, TimeUnit.SECONDS);
+    Image second = instance.loadAndCacheImageAsync(imageUrl, CACHE_SUB_FOLDER, null, 20, 20).get(10, TimeUnit.SECONDS);
+
+    assertThat(second, sameInstance(first));
+  }
+
+  @Test
+  public void testStoredImageIsNotDownloadedAgain() throws Exception {
+    instance.loadAndCacheImageAsync(imageUrl, CACHE_SUB_FOLDER, null, 20, 20).get(10, TimeUnit.SECONDS);
+    instance.destroy();
+    instance = createInstance();
+
+    Image image = instance.loadAndCacheImageAsync(imageUrl, CACHE_SUB_FOLDER, null, 20, 20).get(10, TimeUnit.SECONDS);
+
+    assertThat(image.getWidth(), is(20.0));
+    assertThat(requestCount.get(), is(1));
+  }
+
+  @Test
+  public void testDefaultImageIfImageCanNotBeLoaded() throws Exception {
+    Image defaultImage = new WritableImage(1, 1);
+    URL missingImageUrl = new URL("http://localhost:" + httpServer.getAddress().getPort() + "/missing.png");
+
+    Image image = instance.loadAndCacheImageAsync(missingImageUrl, CACHE_SUB_FOLDER, () -> defaultImage, 20, 20).get(10, TimeUnit.SECONDS);
+
+    assertThat(image, sameInstance(defaultImage));
+  }
+
+  @Test
+  public void testLoadAndCacheImageStoresOriginalImage() throws Exception {
+    Image image = instance.loadAndCacheImage(imageUrl, CACHE_SUB_FOLDER, null, 20, 20);
+    Path storedFile = instance.getStoredFile(imageUrl, CACHE_SUB_FOLDER);
+
+    WaitForAsyncUtils.waitFor(10, TimeUnit.SECONDS, () -> Files.exists(storedFile));
+
+    assertThat(image.getWidth(), is(20.0));
+    assertThat(Files.readAllBytes(storedFile), is(imageBytes));
+  }
+
+  @Test
+  public void testLoadAndCacheImageKeepsLoadedImageInMemory() throws Exception {
+    Image first = instance.loadAndCacheImage(imageUrl, CACHE_SUB_FOLDER, null, 20, 20);
+    WaitForAsyncUtils.waitFor(10, TimeUnit.SECONDS, () -> first.getProgress() >= 1);
+    WaitForAsyncUtils.waitForFxEvents();
+
+    Image second = instance.loadAndCacheImage(imageUrl, CACHE_SUB_FOLDER, null, 20, 20);
+
+    assertThat(second, sameInstance(first));
+  }
+
+  @Test
+  public void testLoadAndCacheImageMarksStoredImageAsUsed() throws Exception {
+    instance.loadAndCacheImageAsync(imageUrl, CACHE_SUB_FOLDER, null, 0, 0).get(10, TimeUnit.SECONDS);
+    instance.destroy();
+    instance = createInstance();
+
+    Image image = instance.loadAndCacheImage(imageUrl, CACHE_SUB_FOLDER, null, 20, 20);
+    WaitForAsyncUtils.waitFor(10, TimeUnit.SECONDS, () -> image.getProgress() >= 1);
+
+    assertThat(image.getWidth(), is(20.0));
+    assertThat(requestCount.get(), is(1));
+  }
+}
@@ -0,0 +1,177 @@
+package com.faforever.client.remote;
+
+import com.faforever.client.api.FafApiAccessor;
+import com.faforever.client.config.ClientProperties;
+import com.faforever.client.discord.DiscordRichPresenceService;
+import com.faforever.client.fa.ForgedAllianceService;
+import com.faforever.client.fa.relay.ice.IceAdapter;
+import com.faforever.client.fx.PlatformService;
+import com.faforever.client.game.GameService;
+import com.faforever.client.i18n.I18n;
+import com.faforever.client.legacy.UidService;
+import com.faforever.client.map.MapService;
+import com.faforever.client.mod.ModService;
+import com.faforever.client.notification.NotificationService;
+import com.faforever.client.patch.GameUpdater;
+import com.faforever.client.player.PlayerService;
+import com.faforever.client.preferences.PreferencesBuilder;
+import com.faforever.client.preferences.PreferencesService;
+import com.faforever.client.remote.ServerTrafficRecorder.RecordedMessage;
+import com.faforever.client.replay.ReplayServer;
+import com.faforever.client.reporting.ReportingService;
+import com.faforever.client.test.AbstractPlainJavaFxTest;
+import com.faforever.client.user.UserService;
+import com.google.common.eventbus.EventBus;
+import javafx.application.Platform;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Replays lobby traffic into the real {@link FafServerAccessorImpl}, {@link PlayerService} and {@link GameService} and
+ * reports the achieved throughput, the latency of the JavaFX application thread and the heap growth.
+ *
+ * <p>The traffic is either a recording made with {@code faf-client.server.traffic-recording-file} or generated by
+ * {@link SyntheticLobbyTraffic}. Configure with the system properties {@code loadTest.recording}, {@code
+ * loadTest.speed} (use {@code Infinity} to send as fast as possible), {@code loadTest.games}, {@code
+ * loadTest.players}, {@code loadTest.updates} and {@code loadTest.duration} (ISO-8601).</p>
+ */
+@Slf4j
+@Ignore("Load test, run manually")
+public class LobbyLoadTest extends AbstractPlainJavaFxTest {
+
+  private static final long FX_PROBE_INTERVAL_MILLIS = 10;
+  private static final long IDLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private LobbyServerStandIn lobbyServerStandIn;
+  private FafServerAccessorImpl fafServerAccessor;
+  private ScheduledExecutorService probeExecutor;
+  private AtomicLong maxFxLagNanos;
+
+  @Before
+  public void setUp() throws Exception {
+    List<RecordedMessage> messages;
+    String recording = System.getProperty("loadTest.recording");
+    if (recording != null) {
+      messages = ServerTrafficRecorder.readRecording(Paths.get(recording));
+    } else {
+      messages = SyntheticLobbyTraffic.generate(
+          Integer.getInteger("loadTest.games", 2_000),
+          Integer.getInteger("loadTest.players", 10_000),
+          Integer.getInteger("loadTest.updates", 50_000),
+          Duration.parse(System.getProperty("loadTest.duration", "PT5M"))
+      );
+    }
+    lobbyServerStandIn = new LobbyServerStandIn(messages, Double.parseDouble(System.getProperty("loadTest.speed", "Infinity")));
+    lobbyServerStandIn.start();
+
+    ClientProperties clientProperties = new ClientProperties();
+    clientProperties.getServer().setHost(lobbyServerStandIn.getHost());
+    clientProperties.getServer().setPort(lobbyServerStandIn.getPort());
+
+    PreferencesService preferencesService = mock(PreferencesService.class);
+    when(preferencesService.getPreferences()).thenReturn(PreferencesBuilder.create().defaultValues().get());
+    when(preferencesService.getFafDataDirectory()).thenReturn(temporaryFolder.getRoot().toPath());
+    UidService uidService = mock(UidService.class);
+    when(uidService.generate(any(), any())).thenReturn("uid");
+    UserService userService = mock(UserService.class);
+    when(userService.getUsername()).thenReturn("LoadTest");
+    EventBus eventBus = new EventBus();
+
+    fafServerAccessor = new FafServerAccessorImpl(preferencesService, uidService, mock(NotificationService.class),
+        mock(I18n.class), mock(ReportingService.class), mock(TaskScheduler.class), eventBus,
+        mock(ReconnectTimerService.class), clientProperties);
+    fafServerAccessor.afterPropertiesSet();
+
+    FafService fafService = new FafService(fafServerAccessor, mock(FafApiAccessor.class), eventBus);
+
+    PlayerService playerService = new PlayerService(fafService, userService, eventBus);
+    playerService.afterPropertiesSet();
+
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    GameService gameService = new GameService(clientProperties, fafService, mock(ForgedAllianceService.class),
+        mock(MapService.class), preferencesService, mock(GameUpdater.class), mock(NotificationService.class),
+        mock(I18n.class), executorService, playerService, mock(ReportingService.class), eventBus,
+        mock(IceAdapter.class), mock(ModService.class), mock(PlatformService.class),
+        mock(DiscordRichPresenceService.class), mock(ReplayServer.class), mock(ReconnectTimerService.class));
+    gameService.afterPropertiesSet();
+
+    maxFxLagNanos = new AtomicLong();
+    probeExecutor = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    probeExecutor.shutdownNow();
+    fafServerAccessor.disconnect();
+    lobbyServerStandIn.close();
+  }
+
+  @Test
+  public void replayTraffic() throws Exception {
+    MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+    System.gc();
+    long heapBefore = memoryMXBean.getHeapMemoryUsage().getUsed();
+
+    probeExecutor.scheduleAtFixedRate(() -> {
+      long scheduled = System.nanoTime();
+      Platform.runLater(() -> maxFxLagNanos.accumulateAndGet(System.nanoTime() - scheduled, Math::max));
+    }, 0, FX_PROBE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+    long start = System.nanoTime();
+    fafServerAccessor.connectAndLogIn("LoadTest", "password").get(30, TimeUnit.SECONDS);
+    int sentMessages = lobbyServerStandIn.getReplayFuture().get(1, TimeUnit.HOURS);
+
+    // Unknown messages are never dispatched, so stop waiting once the dispatcher has become idle
+    long dispatchedMessages = dispatchedMessages();
+    long idleSince = System.nanoTime();
+    while (dispatchedMessages < sentMessages + 2 && System.nanoTime() - idleSince < IDLE_TIMEOUT_NANOS) {
+      Thread.sleep(10);
+      long previouslyDispatched = dispatchedMessages;
+      dispatchedMessages = dispatchedMessages();
+      if (dispatchedMessages != previouslyDispatched) {
+        idleSince = System.nanoTime();
+      }
+    }
+    long elapsedNanos = System.nanoTime() - start;
+    Thread.sleep(FX_PROBE_INTERVAL_MILLIS * 10);
+
+    System.gc();
+    long heapAfter = memoryMXBean.getHeapMemoryUsage().getUsed();
+
+    log.info("Dispatched {} of {} messages in {} ms ({} messages/s)", dispatchedMessages, sentMessages + 2,
+        TimeUnit.NANOSECONDS.toMillis(elapsedNanos), dispatchedMessages * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+    log.info("Maximum JavaFX application thread lag: {} ms", TimeUnit.NANOSECONDS.toMillis(maxFxLagNanos.get()));
+    log.info("Heap growth: {} KiB", (heapAfter - heapBefore) / 1024);
+    fafServerAccessor.getDispatchStatistics().forEach((type, statistics) -> log.info("{}: {}", type.getSimpleName(), statistics));
+  }
+
+  private long dispatchedMessages() {
+    return fafServerAccessor.getDispatchStatistics().values().stream()
+        .mapToLong(ServerMessageDispatcher.DispatchStatistics::getCount)
+        .sum();
+  }
+}
@@ -0,0 +1,160 @@
+package com.faforever.client.remote;
+
+import com.faforever.client.remote.ServerTrafficRecorder.RecordedMessage;
+import com.faforever.client.remote.io.QDataInputStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_16BE;
+
+/**
+ * Stands in for the FAF lobby server. Accepts a single client, answers its session and login requests like the real
+ * server and then sends the messages of a recording (see {@link ServerTrafficRecorder}), either in real time or
+ * accelerated. Unlike {@link MockFafServerAccessor}, this exercises the client's real read, parse and dispatch path.
+ */
+@Slf4j
+public class LobbyServerStandIn implements Closeable {
+
+  private static final Pattern ASK_SESSION_PATTERN = Pattern.compile("\"command\":\\s*\"ask_session\"");
+  private static final Pattern LOGIN_PATTERN = Pattern.compile("\"command\":\\s*\"hello\"");
+  private static final Pattern HANDSHAKE_REPLY_PATTERN = Pattern.compile("\"command\":\\s*\"(session|welcome)\"");
+
+  private final ServerSocket serverSocket;
+  private final List<RecordedMessage> messages;
+  private final double speed;
+  private final CompletableFuture<Integer> replayFuture;
+  private final CountDownLatch closeLatch;
+
+  /**
+   * @param speed the factor by which the recording is sped up, {@code 1} for real time. {@link
+   * Double#POSITIVE_INFINITY} sends all messages as fast as possible.
+   */
+  public LobbyServerStandIn(List<RecordedMessage> messages, double speed) throws IOException {
+    this.messages = messages;
+    this.speed = speed;
+    serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    replayFuture = new CompletableFuture<>();
+    closeLatch = new CountDownLatch(1);
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  public String getHost() {
+    return serverSocket.getInetAddress().getHostAddress();
+  }
+
+  public void start() {
+    Thread thread = new Thread(this::serve, "lobby-server-stand-in");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Completes with the number of messages that have been sent, after the whole recording has been sent.
+   */
+  public CompletableFuture<Integer> getReplayFuture() {
+    return replayFuture;
+  }
+
+  private void serve() {
+    try (Socket socket = serverSocket.accept()) {
+      QDataInputStream inputStream = new QDataInputStream(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+      DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+      awaitClientMessage(inputStream, ASK_SESSION_PATTERN);
+      send(outputStream, "{\"command\": \"session\", \"session\": 1}");
+      outputStream.flush();
+
+      awaitClientMessage(inputStream, LOGIN_PATTERN);
+      send(outputStream, "{\"command\": \"welcome\", \"id\": 1, \"login\": \"LoadTest\"}");
+      outputStream.flush();
+
+      startDiscardingClientMessages(inputStream);
+      replayFuture.complete(replay(outputStream));
+
+      // Keep the connection open until the stand-in is closed
+      closeLatch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      log.debug("Lobby server stand-in has been closed: {}", e.getMessage());
+      replayFuture.completeExceptionally(e);
+    }
+  }
+
+  private int replay(DataOutputStream outputStream) throws IOException {
+    long startTime = System.nanoTime();
+    int sent = 0;
+    for (RecordedMessage recordedMessage : messages) {
+      if (HANDSHAKE_REPLY_PATTERN.matcher(recordedMessage.getMessage()).find()) {
+        continue;
+      }
+
+      long dueTime = startTime + (long) (recordedMessage.getOffset().toNanos() / speed);
+      long waitTime = dueTime - System.nanoTime();
+      if (waitTime > 0) {
+        outputStream.flush();
+        LockSupport.parkNanos(waitTime);
+      }
+
+      send(outputStream, recordedMessage.getMessage());
+      sent++;
+    }
+    outputStream.flush();
+    log.info("Sent {} messages in {} ms", sent, Duration.ofNanos(System.nanoTime() - startTime).toMillis());
+    return sent;
+  }
+
+  private void awaitClientMessage(QDataInputStream inputStream, Pattern pattern) throws IOException {
+    String message;
+    do {
+      inputStream.skipBlockSize();
+      message = inputStream.readQString();
+    } while (message == null || !pattern.matcher(message).find());
+  }
+
+  private void startDiscardingClientMessages(QDataInputStream inputStream) {
+    Thread thread = new Thread(() -> {
+      try {
+        while (true) {
+          inputStream.skipBlockSize();
+          inputStream.readQString();
+        }
+      } catch (IOException e) {
+        log.debug("Client connection has been closed");
+      }
+    }, "lobby-server-stand-in-reader");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private static void send(DataOutputStream outputStream, String message) throws IOException {
+    byte[] bytes = message.getBytes(UTF_16BE);
+    outputStream.writeInt(Integer.BYTES + bytes.length);
+    outputStream.writeInt(bytes.length);
+    outputStream.write(bytes);
+  }
+
+  @Override
+  public void close() throws IOException {
+    closeLatch.countDown();
+    serverSocket.close();
+  }
+}
@@ -0,0 +1,89 @@
+package com.faforever.client.remote;
+
+import com.faforever.client.remote.domain.FafServerMessage;
+import com.faforever.client.remote.domain.LoginMessage;
+import com.faforever.client.remote.domain.NoticeMessage;
+import com.faforever.client.remote.domain.ServerMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class ServerMessageDispatcherTest {
+
+  private ServerMessageDispatcher instance;
+  private List<String> calls;
+
+  @Before
+  public void setUp() throws Exception {
+    instance = new ServerMessageDispatcher();
+    calls = new ArrayList<>();
+  }
+
+  @Test
+  public void testDispatchToClassAndSuperClassListeners() {
+    instance.addListener(FafServerMessage.class, message -> calls.add("fafServerMessage"));
+    instance.addListener(LoginMessage.class, message -> calls.add("login"));
+    instance.addListener(NoticeMessage.class, message -> calls.add("notice"));
+
+    instance.dispatch(new LoginMessage());
+
+    assertThat(calls, contains("login", "fafServerMessage"));
+  }
+
+  @Test
+  public void testRemoveListener() {
+    Consumer<LoginMessage> listener = message -> calls.add("login");
+    instance.addListener(LoginMessage.class, listener);
+    instance.dispatch(new LoginMessage());
+
+    instance.removeListener(LoginMessage.class, listener);
+    instance.dispatch(new LoginMessage());
+
+    assertThat(calls, contains("login"));
+  }
+
+  @Test
+  public void testRemoveUnknownListenerIsIgnored() {
+    instance.removeListener(LoginMessage.class, message -> calls.add("login"));
+
+    instance.dispatch(new LoginMessage());
+
+    assertThat(calls, empty());
+  }
+
+  @Test
+  public void testAddListenerWhileDispatching() {
+    instance.addListener(LoginMessage.class, message -> {
+      calls.add("first");
+      instance.addListener(LoginMessage.class, secondMessage -> calls.add("second"));
+    });
+
+    instance.dispatch(new LoginMessage());
+    assertThat(calls, contains("first"));
+
+    calls.clear();
+    instance.dispatch(new LoginMessage());
+    assertThat(calls, contains("first", "second"));
+  }
+
+  @Test
+  public void testStatistics() {
+    instance.addListener(LoginMessage.class, message -> calls.add("login"));
+
+    instance.dispatch(new LoginMessage());
+    instance.dispatch(new LoginMessage());
+    instance.dispatch(new NoticeMessage());
+
+    assertThat(instance.getStatistics().get(LoginMessage.class).getCount(), is(2L));
+    assertThat(instance.getStatistics().get(NoticeMessage.class).getCount(), is(1L));
+    assertThat(instance.getStatistics().containsKey(ServerMessage.class), is(false));
+  }
+}
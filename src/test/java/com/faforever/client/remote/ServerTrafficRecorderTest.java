@@ -0,0 +1,37 @@
+package com.faforever.client.remote;
+
+import com.faforever.client.remote.ServerTrafficRecorder.RecordedMessage;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class ServerTrafficRecorderTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testRecordAndRead() throws Exception {
+    Path file = temporaryFolder.getRoot().toPath().resolve("recordings/traffic.log");
+
+    try (ServerTrafficRecorder instance = new ServerTrafficRecorder(file)) {
+      instance.record("{\"command\": \"session\"}");
+      instance.record("{\"command\":\n\"welcome\"}");
+    }
+
+    List<RecordedMessage> messages = ServerTrafficRecorder.readRecording(file);
+
+    assertThat(messages, hasSize(2));
+    assertThat(messages.get(0).getMessage(), is("{\"command\": \"session\"}"));
+    assertThat(messages.get(1).getMessage(), is("{\"command\": \"welcome\"}"));
+    assertThat(messages.get(1).getOffset().compareTo(messages.get(0).getOffset()), greaterThanOrEqualTo(0));
+  }
+}
@@ -0,0 +1,102 @@
+package com.faforever.client.remote;
+
+import com.faforever.client.game.GameInfoMessageBuilder;
+import com.faforever.client.remote.ServerTrafficRecorder.RecordedMessage;
+import com.faforever.client.remote.domain.FafServerMessageType;
+import com.faforever.client.remote.domain.GameInfoMessage;
+import com.faforever.client.remote.domain.GameStatus;
+import com.faforever.client.remote.domain.GameType;
+import com.faforever.client.remote.domain.MessageTarget;
+import com.faforever.client.remote.domain.Player;
+import com.faforever.client.remote.domain.PlayersMessage;
+import com.faforever.client.remote.gson.GameStateTypeAdapter;
+import com.faforever.client.remote.gson.GameTypeTypeAdapter;
+import com.faforever.client.remote.gson.MessageTargetTypeAdapter;
+import com.faforever.client.remote.gson.ServerMessageTypeTypeAdapter;
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates lobby traffic similar to what the FAF server sends at peak hours: a burst of player and game infos right
+ * after login, followed by a steady stream of updates to random games.
+ */
+public final class SyntheticLobbyTraffic {
+
+  private static final Gson gson = new GsonBuilder()
+      .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+      .registerTypeAdapter(FafServerMessageType.class, ServerMessageTypeTypeAdapter.INSTANCE)
+      .registerTypeAdapter(MessageTarget.class, MessageTargetTypeAdapter.INSTANCE)
+      .registerTypeAdapter(GameStatus.class, GameStateTypeAdapter.INSTANCE)
+      .registerTypeAdapter(GameType.class, GameTypeTypeAdapter.INSTANCE)
+      .create();
+
+  private SyntheticLobbyTraffic() {
+    throw new AssertionError("Not instantiatable");
+  }
+
+  /**
+   * @param numberOfGames the number of open games
+   * @param numberOfPlayers the number of online players, which are distributed over the games
+   * @param numberOfUpdates the number of game updates to send after the initial burst
+   * @param duration the time over which the updates are spread
+   */
+  public static List<RecordedMessage> generate(int numberOfGames, int numberOfPlayers, int numberOfUpdates, Duration duration) {
+    Random random = new Random(numberOfGames * 31L + numberOfPlayers);
+    List<RecordedMessage> messages = new ArrayList<>();
+
+    List<Player> players = new ArrayList<>(numberOfPlayers);
+    for (int id = 1; id <= numberOfPlayers; id++) {
+      players.add(createPlayer(id, random));
+    }
+    PlayersMessage playersMessage = new PlayersMessage();
+    playersMessage.setPlayers(players);
+    messages.add(new RecordedMessage(Duration.ZERO, gson.toJson(playersMessage)));
+
+    List<GameInfoMessage> games = new ArrayList<>(numberOfGames);
+    for (int uid = 1; uid <= numberOfGames; uid++) {
+      games.add(createGame(uid, players, random));
+    }
+    GameInfoMessage gamesMessage = new GameInfoMessage();
+    gamesMessage.setGames(games);
+    messages.add(new RecordedMessage(Duration.ZERO, gson.toJson(gamesMessage)));
+
+    for (int i = 0; i < numberOfUpdates; i++) {
+      Duration offset = duration.multipliedBy(i).dividedBy(Math.max(numberOfUpdates, 1));
+      GameInfoMessage update = createGame(1 + random.nextInt(Math.max(numberOfGames, 1)), players, random);
+      messages.add(new RecordedMessage(offset, gson.toJson(update)));
+    }
+    return messages;
+  }
+
+  private static Player createPlayer(int id, Random random) {
+    Player player = new Player();
+    player.setId(id);
+    player.setLogin("Player" + id);
+    player.setCountry("CH");
+    player.setNumberOfGames(random.nextInt(5000));
+    player.setGlobalRating(new float[]{500 + random.nextInt(2000), 50 + random.nextInt(300)});
+    player.setLadderRating(new float[]{500 + random.nextInt(2000), 50 + random.nextInt(300)});
+    return player;
+  }
+
+  private static GameInfoMessage createGame(int uid, List<Player> players, Random random) {
+    int maxPlayers = 2 + 2 * random.nextInt(4);
+    int numPlayers = 1 + random.nextInt(maxPlayers);
+
+    GameInfoMessageBuilder builder = GameInfoMessageBuilder.create(uid).defaultValues()
+        .title("Game " + uid)
+        .host("Player" + (1 + (uid % Math.max(players.size(), 1))))
+        .maxPlayers(maxPlayers)
+        .numPlayers(numPlayers);
+    for (int i = 0; i < numPlayers && !players.isEmpty(); i++) {
+      builder.addTeamMember(String.valueOf(1 + i % 2), players.get(random.nextInt(players.size())).getLogin());
+    }
+    return builder.get();
+  }
+}
@@ -0,0 +1,86 @@
+package com.faforever.client.remote.gson;
+
+import com.faforever.client.fa.relay.GpgServerMessageType;
+import com.faforever.client.fa.relay.HostGameMessage;
+import com.faforever.client.remote.domain.FafServerMessageType;
+import com.faforever.client.remote.domain.LoginMessage;
+import com.faforever.client.remote.domain.MessageTarget;
+import com.faforever.client.remote.domain.ServerMessage;
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ServerMessageDecoderTest {
+
+  private ServerMessageDecoder instance;
+
+  @Before
+  public void setUp() throws Exception {
+    instance = new ServerMessageDecoder(new GsonBuilder()
+        .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+        .registerTypeAdapter(FafServerMessageType.class, ServerMessageTypeTypeAdapter.INSTANCE)
+        .registerTypeAdapter(GpgServerMessageType.class, GpgServerMessageTypeTypeAdapter.INSTANCE)
+        .registerTypeAdapter(MessageTarget.class, MessageTargetTypeAdapter.INSTANCE)
+        .create());
+  }
+
+  @Test
+  public void testDecodeClientMessage() {
+    ServerMessage serverMessage = instance.decode("{\"command\": \"welcome\", \"id\": 123, \"login\": \"junit\"}");
+
+    assertThat(serverMessage, instanceOf(LoginMessage.class));
+    LoginMessage loginMessage = (LoginMessage) serverMessage;
+    assertThat(loginMessage.getMessageType(), is(FafServerMessageType.WELCOME));
+    assertThat(loginMessage.getId(), is(123));
+    assertThat(loginMessage.getLogin(), is("junit"));
+  }
+
+  @Test
+  public void testDecodeCommandAfterOtherFields() {
+    ServerMessage serverMessage = instance.decode("{\"id\": 123, \"nested\": {\"command\": \"session\"}, \"command\": \"welcome\"}");
+
+    assertThat(serverMessage, instanceOf(LoginMessage.class));
+    assertThat(((LoginMessage) serverMessage).getId(), is(123));
+  }
+
+  @Test
+  public void testDecodeGpgMessage() {
+    ServerMessage serverMessage = instance.decode("{\"command\": \"HostGame\", \"target\": \"game\", \"args\": [\"SCMP_001\"]}");
+
+    assertThat(serverMessage, instanceOf(HostGameMessage.class));
+    assertThat(((HostGameMessage) serverMessage).getMap(), is("SCMP_001"));
+    assertThat(serverMessage.getTarget(), is(MessageTarget.GAME));
+  }
+
+  @Test
+  public void testDecodeUnknownClientCommandReturnsNull() {
+    assertThat(instance.decode("{\"command\": \"gibberish\"}"), nullValue());
+  }
+
+  @Test
+  public void testDecodeUnknownTargetReturnsNull() {
+    assertThat(instance.decode("{\"command\": \"welcome\", \"target\": \"gibberish\"}"), nullValue());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testDecodeUnknownGpgCommandThrowsException() {
+    instance.decode("{\"command\": \"gibberish\", \"target\": \"game\"}");
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void testDecodeWithoutCommandThrowsException() {
+    instance.decode("{\"id\": 123}");
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void testDecodeMalformedJsonThrowsException() {
+    instance.decode("[\"welcome\"]");
+  }
+}
@@ -0,0 +1,119 @@
+package com.faforever.client.remote.io;
+
+import com.google.common.primitives.Bytes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class QDataChannelReaderTest {
+
+  private QDataChannelReader instance;
+
+  @Before
+  public void setUp() throws Exception {
+    instance = new QDataChannelReader(16);
+  }
+
+  @Test
+  public void testReadSingleMessage() throws Exception {
+    instance.readFrom(channelOf(frame("PING")));
+
+    assertThat(instance.nextMessage(), is("PING"));
+    assertThat(instance.nextMessage(), nullValue());
+  }
+
+  @Test
+  public void testReadMultipleMessages() throws Exception {
+    instance = new QDataChannelReader(1024);
+    instance.readFrom(channelOf(Bytes.concat(frame("foo"), frame("bar"))));
+
+    assertThat(instance.nextMessage(), is("foo"));
+    assertThat(instance.nextMessage(), is("bar"));
+    assertThat(instance.nextMessage(), nullValue());
+  }
+
+  @Test
+  public void testReadBeforeAllMessagesHaveBeenConsumed() throws Exception {
+    instance = new QDataChannelReader(1024);
+    byte[] secondFrame = frame("bar");
+    instance.readFrom(channelOf(Bytes.concat(frame("foo"), Arrays.copyOfRange(secondFrame, 0, 10))));
+
+    assertThat(instance.nextMessage(), is("foo"));
+    instance.readFrom(channelOf(Arrays.copyOfRange(secondFrame, 10, secondFrame.length)));
+
+    assertThat(instance.nextMessage(), is("bar"));
+    assertThat(instance.nextMessage(), nullValue());
+  }
+
+  @Test
+  public void testReadFragmentedMessageLargerThanBuffer() throws Exception {
+    String message = "{\"command\": \"game_info\", \"title\": \"\u00e4\u00f6\u00fc\"}";
+    byte[] frame = frame(message);
+    int split = 10;
+
+    instance.readFrom(channelOf(Arrays.copyOfRange(frame, 0, split)));
+    assertThat(instance.nextMessage(), nullValue());
+
+    ReadableByteChannel rest = channelOf(Arrays.copyOfRange(frame, split, frame.length));
+    String result;
+    while ((result = instance.nextMessage()) == null) {
+      instance.readFrom(rest);
+    }
+
+    assertThat(result, is(message));
+  }
+
+  @Test
+  public void testNullStringIsSkipped() throws Exception {
+    byte[] nullFrame = {0x00, 0x00, 0x00, 0x04, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff};
+    instance = new QDataChannelReader(1024);
+    instance.readFrom(channelOf(Bytes.concat(nullFrame, frame("PONG"))));
+
+    assertThat(instance.nextMessage(), is("PONG"));
+  }
+
+  @Test
+  public void testReset() throws Exception {
+    instance.readFrom(channelOf(Arrays.copyOfRange(frame("PING"), 0, 5)));
+    assertThat(instance.nextMessage(), nullValue());
+
+    instance.reset();
+    instance.readFrom(channelOf(frame("PONG")));
+
+    assertThat(instance.nextMessage(), is("PONG"));
+  }
+
+  @Test
+  public void testEndOfStream() throws Exception {
+    assertThat(instance.readFrom(channelOf(new byte[0])), is(-1));
+  }
+
+  @Test(expected = IOException.class)
+  public void testInvalidStringSize() throws Exception {
+    instance.readFrom(channelOf(new byte[]{0x00, 0x00, 0x00, 0x04, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xf0}));
+    instance.nextMessage();
+  }
+
+  private static ReadableByteChannel channelOf(byte[] bytes) {
+    return Channels.newChannel(new ByteArrayInputStream(bytes));
+  }
+
+  private static byte[] frame(String string) throws IOException {
+    ByteArrayOutputStream stringOutputStream = new ByteArrayOutputStream();
+    new QDataWriter(stringOutputStream).append(string);
+
+    ByteArrayOutputStream frameOutputStream = new ByteArrayOutputStream();
+    new QDataWriter(frameOutputStream).appendWithSize(stringOutputStream.toByteArray());
+    return frameOutputStream.toByteArray();
+  }
+}
@@ -0,0 +1,203 @@
+package com.faforever.client.replay;
+
+import com.faforever.client.io.DirectoryWatcherService;
+import com.faforever.client.test.FakeTestException;
+import com.faforever.client.util.Tuple;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LocalReplayIndexTest {
+
+  @Rule
+  public TemporaryFolder replayDirectory = new TemporaryFolder();
+  @Rule
+  public TemporaryFolder cacheDirectory = new TemporaryFolder();
+
+  @Mock
+  private ReplayFileReader replayFileReader;
+
+  private List<Path> corruptedReplayFiles;
+  private Path indexFile;
+  private LocalReplayIndex instance;
+
+  @Before
+  public void setUp() throws Exception {
+    MockitoAnnotations.initMocks(this);
+
+    corruptedReplayFiles = new ArrayList<>();
+    indexFile = cacheDirectory.getRoot().toPath().resolve("localReplayIndex.json");
+    when(replayFileReader.parseMetaData(any())).thenAnswer(invocation -> {
+      Path replayFile = invocation.getArgument(0);
+      LocalReplayInfo replayInfo = new LocalReplayInfo();
+      replayInfo.setTitle(replayFile.getFileName().toString());
+      return replayInfo;
+    });
+    instance = createIndex(corruptedReplayFiles::add);
+  }
+
+  @After
+  public void tearDown() {
+    instance.close();
+  }
+
+  private LocalReplayIndex createIndex(Consumer<Path> corruptedReplayFileHandler) {
+    return new LocalReplayIndex(replayDirectory.getRoot().toPath(), "*.fafreplay", indexFile, replayFileReader,
+        corruptedReplayFileHandler);
+  }
+
+  private Path createReplayFile(String fileName, long lastModified) throws Exception {
+    Path replayFile = replayDirectory.getRoot().toPath().resolve(fileName);
+    Files.writeString(replayFile, fileName);
+    Files.setLastModifiedTime(replayFile, FileTime.fromMillis(lastModified));
+    return replayFile;
+  }
+
+  private List<String> queryTitles(int pageSize, int page) {
+    return instance.query(entry -> true, LocalReplayIndex.NEWEST_FIRST, pageSize, page).getFirst().stream()
+        .map(entry -> entry.getReplayInfo().getTitle())
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testLoadIndexesReplayFilesNewestFirst() throws Exception {
+    createReplayFile("old.fafreplay", 1_000);
+    createReplayFile("new.fafreplay", 3_000);
+    createReplayFile("middle.fafreplay", 2_000);
+    createReplayFile("other.txt", 4_000);
+
+    instance.load();
+
+    assertThat(queryTitles(10, 1), contains("new.fafreplay", "middle.fafreplay", "old.fafreplay"));
+    assertThat(Files.exists(indexFile), is(true));
+  }
+
+  @Test
+  public void testQueryPaging() throws Exception {
+    createReplayFile("1.fafreplay", 1_000);
+    createReplayFile("2.fafreplay", 2_000);
+    createReplayFile("3.fafreplay", 3_000);
+    createReplayFile("4.fafreplay", 4_000);
+    instance.load();
+
+    Tuple<List<LocalReplayIndex.Entry>, Integer> result = instance.query(entry -> true, LocalReplayIndex.NEWEST_FIRST, 2, 2);
+
+    assertThat(result.getSecond(), is(2));
+    assertThat(queryTitles(2, 2), contains("2.fafreplay", "1.fafreplay"));
+  }
+
+  @Test
+  public void testQueryFilter() throws Exception {
+    createReplayFile("a.fafreplay", 1_000);
+    createReplayFile("b.fafreplay", 2_000);
+    instance.load();
+
+    List<LocalReplayIndex.Entry> entries = instance.query(entry -> entry.getReplayInfo().getTitle().startsWith("a"),
+        LocalReplayIndex.NEWEST_FIRST, 10, 1).getFirst();
+
+    assertThat(entries.size(), is(1));
+    assertThat(instance.getReplayFile(entries.get(0)), is(replayDirectory.getRoot().toPath().resolve("a.fafreplay")));
+  }
+
+  @Test
+  public void testPersistedIndexIsReusedWithoutParsingUnchangedFiles() throws Exception {
+    createReplayFile("replay.fafreplay", 1_000);
+    instance.load();
+    instance.save();
+    instance.close();
+
+    LocalReplayIndex reloadedInstance = createIndex(corruptedReplayFiles::add);
+    reloadedInstance.load();
+
+    verify(replayFileReader, times(1)).parseMetaData(any());
+    List<LocalReplayIndex.Entry> entries = reloadedInstance.query(entry -> true, LocalReplayIndex.NEWEST_FIRST, 10, 1).getFirst();
+    assertThat(entries.size(), is(1));
+    assertThat(entries.get(0).getReplayInfo().getTitle(), is("replay.fafreplay"));
+  }
+
+  @Test
+  public void testChangedFileIsParsedAgain() throws Exception {
+    Path replayFile = createReplayFile("replay.fafreplay", 1_000);
+    instance.load();
+
+    Files.setLastModifiedTime(replayFile, FileTime.fromMillis(2_000));
+    instance.rescan();
+
+    verify(replayFileReader, times(2)).parseMetaData(replayFile);
+    LocalReplayIndex.Entry entry = instance.query(anyEntry -> true, LocalReplayIndex.NEWEST_FIRST, 10, 1).getFirst().get(0);
+    assertThat(entry.getLastModified(), is(2_000L));
+  }
+
+  @Test
+  public void testDeletedFileIsRemoved() throws Exception {
+    Path replayFile = createReplayFile("replay.fafreplay", 1_000);
+    instance.load();
+
+    Files.delete(replayFile);
+    instance.rescan();
+
+    assertThat(queryTitles(10, 1), empty());
+  }
+
+  @Test
+  public void testWatchedChangesAreIndexed() throws Exception {
+    Path deletedFile = createReplayFile("deleted.fafreplay", 1_000);
+    instance.load();
+    DirectoryWatcherService directoryWatcherService = new DirectoryWatcherService();
+    try {
+      instance.startWatching(directoryWatcherService);
+
+      Files.delete(deletedFile);
+      createReplayFile("new.fafreplay", 2_000);
+
+      WaitForAsyncUtils.waitFor(10, TimeUnit.SECONDS, () -> queryTitles(10, 1).equals(List.of("new.fafreplay")));
+    } finally {
+      directoryWatcherService.destroy();
+    }
+  }
+
+  @Test
+  public void testCorruptedFileIsReportedAndNotIndexed() throws Exception {
+    Path corruptedFile = createReplayFile("corrupted.fafreplay", 1_000);
+    createReplayFile("valid.fafreplay", 2_000);
+    when(replayFileReader.parseMetaData(corruptedFile)).thenThrow(new FakeTestException());
+
+    instance.load();
+
+    assertThat(corruptedReplayFiles, contains(corruptedFile));
+    assertThat(queryTitles(10, 1), contains("valid.fafreplay"));
+  }
+
+  @Test
+  public void testUnreadableIndexFileIsRebuilt() throws Exception {
+    createReplayFile("replay.fafreplay", 1_000);
+    Files.writeString(indexFile, "gibberish");
+
+    instance.load();
+
+    assertThat(queryTitles(10, 1), contains("replay.fafreplay"));
+  }
+}
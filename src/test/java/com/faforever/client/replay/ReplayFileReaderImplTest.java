@@ -6,6 +6,8 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -33,4 +35,26 @@ public class ReplayFileReaderImplTest {
     }
     assertThat(instance.readRawReplayData(tempFile).length, is(197007));
   }
+
+  @Test
+  public void readReplay() throws Exception {
+    Path tempFile = temporaryFolder.getRoot().toPath().resolve("replay.tmp");
+    try (InputStream inputStream = new BufferedInputStream(getClass().getResourceAsStream("/replay/test.fafreplay"))) {
+      Files.copy(inputStream, tempFile);
+    }
+    ByteArrayOutputStream replayData = new ByteArrayOutputStream();
+
+    LocalReplayInfo replayInfo = instance.readReplay(tempFile, replayData);
+
+    assertThat(replayInfo, is(instance.parseMetaData(tempFile)));
+    assertThat(replayData.size(), is(197007));
+  }
+
+  @Test(expected = IOException.class)
+  public void readReplayWithoutReplayData() throws Exception {
+    Path tempFile = temporaryFolder.getRoot().toPath().resolve("replay.tmp");
+    Files.writeString(tempFile, "{\"uid\": 1}\n");
+
+    instance.readReplay(tempFile, new ByteArrayOutputStream());
+  }
 }
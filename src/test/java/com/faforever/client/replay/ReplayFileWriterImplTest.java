@@ -10,11 +10,12 @@ import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Locale;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
@@ -45,9 +46,6 @@ public class ReplayFileWriterImplTest {
   @Mock
   private ClientProperties clientProperties;
 
-  @Mock
-  private ByteArrayOutputStream replayData;
-
   @Mock
   private ClientProperties.Replay replay;
 
@@ -61,20 +59,26 @@ public class ReplayFileWriterImplTest {
     instance = new ReplayFileWriterImpl(i81n, clientProperties, preferencesService);
     when(clientProperties.getReplay()).thenReturn(replay);
     when(replay.getReplayFileFormat()).thenReturn(replayFileFormat);
-    when(preferencesService.getReplaysDirectory()).thenReturn(Path.of("."));
-    when(preferencesService.getCacheDirectory()).thenReturn(Path.of("."));
+    when(preferencesService.getReplaysDirectory()).thenReturn(temporaryFolder.getRoot().toPath());
+    when(preferencesService.getCacheDirectory()).thenReturn(temporaryFolder.getRoot().toPath());
     when(i81n.getUserSpecificLocale()).thenReturn(Locale.US);
   }
 
   @Test
   public void writeReplayData() throws Exception {
-    when(replayData.toByteArray()).thenReturn(replayBytes);
+    Path replayData = temporaryFolder.newFile("replay.scfareplay").toPath();
+    Files.write(replayData, replayBytes);
     replayInfo = new LocalReplayInfo();
     replayInfo.setUid(uid);
     replayInfo.setRecorder(recorder);
     instance.writeReplayDataToFile(replayData, replayInfo);
-    assertTrue(Files.exists(Path.of(replayFileName)));
-    Files.deleteIfExists(Path.of(replayFileName));
+
+    Path replayFile = temporaryFolder.getRoot().toPath().resolve(replayFileName);
+    assertTrue(Files.exists(replayFile));
+
+    ReplayFileReaderImpl replayFileReader = new ReplayFileReaderImpl();
+    assertThat(replayFileReader.parseMetaData(replayFile).getUid(), is(uid));
+    assertThat(replayFileReader.readRawReplayData(replayFile), is(replayBytes));
   }
 }
 
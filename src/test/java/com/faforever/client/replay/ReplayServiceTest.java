@@ -5,6 +5,7 @@ import com.faforever.client.fx.PlatformService;
 import com.faforever.client.game.GameService;
 import com.faforever.client.game.KnownFeaturedMod;
 import com.faforever.client.i18n.I18n;
+import com.faforever.client.io.DirectoryWatcherService;
 import com.faforever.client.map.MapBeanBuilder;
 import com.faforever.client.map.MapService;
 import com.faforever.client.map.generator.MapGeneratorService;
@@ -33,6 +34,8 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.context.ApplicationContext;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -170,6 +173,8 @@ public class ReplayServiceTest {
   @Mock
   private EventBus publisher;
   @Mock
+  private DirectoryWatcherService directoryWatcherService;
+  @Mock
   private MapGeneratorService mapGeneratorService;
   @Mock
   private ExecutorService executorService;
@@ -181,7 +186,7 @@ public class ReplayServiceTest {
     MockitoAnnotations.initMocks(this);
 
     instance = new ReplayService(new ClientProperties(), preferencesService, userService, replayFileReader, notificationService, gameService, playerService,
-        taskService, i18n, reportingService, applicationContext, platformService, fafService, modService, mapService, publisher);
+        taskService, i18n, reportingService, applicationContext, platformService, fafService, modService, mapService, publisher, directoryWatcherService);
 
     when(preferencesService.getReplaysDirectory()).thenReturn(replayDirectory.getRoot().toPath());
     when(preferencesService.getCorruptedReplaysDirectory()).thenReturn(replayDirectory.getRoot().toPath().resolve("corrupt"));
@@ -189,6 +194,13 @@ public class ReplayServiceTest {
     doAnswer(invocation -> invocation.getArgument(0)).when(taskService).submitTask(any());
   }
 
+  private void mockReadReplay(Path replayFile, LocalReplayInfo replayInfo, byte[] replayData) throws IOException {
+    when(replayFileReader.readReplay(eq(replayFile), any())).thenAnswer(invocation -> {
+      invocation.<OutputStream>getArgument(1).write(replayData);
+      return replayInfo;
+    });
+  }
+
   @Test
   public void testParseSupComVersion() throws Exception {
     Integer version = ReplayService.parseSupComVersion(REPLAY_FIRST_BYTES);
@@ -291,8 +303,7 @@ public class ReplayServiceTest {
     replayInfo.setFeaturedMod("faf");
     replayInfo.setMapname(TEST_MAP_NAME);
 
-    when(replayFileReader.parseMetaData(replayFile)).thenReturn(replayInfo);
-    when(replayFileReader.readRawReplayData(replayFile)).thenReturn(REPLAY_FIRST_BYTES);
+    mockReadReplay(replayFile, replayInfo, REPLAY_FIRST_BYTES);
 
 
     instance.runReplay(replay);
@@ -315,8 +326,7 @@ public class ReplayServiceTest {
     replayInfo.setFeaturedMod("faf");
     replayInfo.setMapname("None");
 
-    when(replayFileReader.parseMetaData(replayFile)).thenReturn(replayInfo);
-    when(replayFileReader.readRawReplayData(replayFile)).thenReturn(REPLAY_FIRST_BYTES_GENERATED_MAP);
+    mockReadReplay(replayFile, replayInfo, REPLAY_FIRST_BYTES_GENERATED_MAP);
     when(mapGeneratorService.isGeneratedMap(TEST_MAP_NAME_GENERATED)).thenReturn(true);
 
 
@@ -358,8 +368,7 @@ public class ReplayServiceTest {
   public void testRunFafReplayFileExceptionPropagates() throws Exception {
     Path replayFile = replayDirectory.newFile("replay.fafreplay").toPath();
 
-    doThrow(new FakeTestException()).when(replayFileReader).parseMetaData(replayFile);
-    when(replayFileReader.readRawReplayData(replayFile)).thenReturn(REPLAY_FIRST_BYTES);
+    doThrow(new FakeTestException()).when(replayFileReader).readReplay(eq(replayFile), any());
 
     Replay replay = new Replay();
     replay.setReplayFile(replayFile);
@@ -401,8 +410,7 @@ public class ReplayServiceTest {
     replayInfo.setFeaturedMod("faf");
     replayInfo.setMapname(TEST_MAP_NAME);
 
-    when(replayFileReader.parseMetaData(replayFile)).thenReturn(replayInfo);
-    when(replayFileReader.readRawReplayData(replayFile)).thenReturn(REPLAY_FIRST_BYTES);
+    mockReadReplay(replayFile, replayInfo, REPLAY_FIRST_BYTES);
 
     instance.runReplay(replay);
 
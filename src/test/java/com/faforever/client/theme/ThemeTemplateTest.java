@@ -0,0 +1,42 @@
+package com.faforever.client.theme;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ThemeTemplateTest {
+
+  @Test
+  public void testRender() {
+    ThemeTemplate template = ThemeTemplate.compile("<span class=\"{css-classes}\">{username}: {text}</span>");
+
+    String html = template.render(ImmutableMap.of("css-classes", "user-junit message", "username", "junit", "text", "hi"));
+
+    assertThat(html, is("<span class=\"user-junit message\">junit: hi</span>"));
+  }
+
+  @Test
+  public void testRenderRepeatedPlaceholder() {
+    ThemeTemplate template = ThemeTemplate.compile("{username}{username}");
+
+    assertThat(template.render(ImmutableMap.of("username", "junit")), is("junitjunit"));
+  }
+
+  @Test
+  public void testPlaceholderWithoutValueIsKept() {
+    ThemeTemplate template = ThemeTemplate.compile("a {unknown} b { color: red; }");
+
+    assertThat(template.render(Collections.emptyMap()), is("a {unknown} b { color: red; }"));
+  }
+
+  @Test
+  public void testPlaceholdersInValuesAreNotExpanded() {
+    ThemeTemplate template = ThemeTemplate.compile("{text} {username}");
+
+    assertThat(template.render(ImmutableMap.of("text", "{username}", "username", "junit")), is("{username} junit"));
+  }
+}
@@ -0,0 +1,140 @@
+package com.faforever.client.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.luaj.vm2.LuaValue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class LuaUtilTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static LuaValue load(String script) throws Exception {
+    return LuaUtil.load(new ByteArrayInputStream(script.getBytes(UTF_8)));
+  }
+
+  private Path writeScenario(String script) throws Exception {
+    return Files.writeString(temporaryFolder.getRoot().toPath().resolve("test_scenario.lua"), script);
+  }
+
+  @Test
+  public void testLoadReturnsDefinedVariables() throws Exception {
+    LuaValue luaRoot = load("version = 3\nfoo = { bar = 'baz' }");
+
+    assertThat(luaRoot.get("version").toint(), is(3));
+    assertThat(luaRoot.get("foo").get("bar").tojstring(), is("baz"));
+  }
+
+  @Test
+  public void testLoadedFilesDontShareVariables() throws Exception {
+    load("leaked = 1");
+
+    assertThat(load("result = leaked").get("result").isnil(), is(true));
+  }
+
+  @Test
+  public void testLoadedFilesDontShareChangesToGlobalsOrLibraries() throws Exception {
+    load("_G.leaked = 1\nstring.len = nil\nmath.leaked = {}\nsetmetatable(_G, { __index = function() return 2 end })");
+
+    LuaValue luaRoot = load("result = leaked\nmathResult = math.leaked\nlength = string.len('abc')");
+
+    assertThat(luaRoot.get("result").isnil(), is(true));
+    assertThat(luaRoot.get("mathResult").isnil(), is(true));
+    assertThat(luaRoot.get("length").toint(), is(3));
+  }
+
+  @Test
+  public void testLoadHasStandardLibrariesButNoSystemAccess() throws Exception {
+    LuaValue luaRoot = load("length = string.len('abc')\nhasIo = io ~= nil\nhasOs = os ~= nil");
+
+    assertThat(luaRoot.get("length").toint(), is(3));
+    assertThat(luaRoot.get("hasIo").toboolean(), is(false));
+    assertThat(luaRoot.get("hasOs").toboolean(), is(false));
+  }
+
+  @Test
+  public void testLoadScenarioInfoMatchesFullExecution() throws Exception {
+    Path scenarioFile = Paths.get(getClass().getResource("/maps/SCMP_001/SCMP_001_scenario.lua").toURI());
+
+    LuaValue scenarioInfo = LuaUtil.loadScenarioInfo(scenarioFile);
+    LuaValue expected = LuaUtil.loadFile(scenarioFile).get("ScenarioInfo");
+
+    assertThat(scenarioInfo.get("name").tojstring(), is(expected.get("name").tojstring()));
+    assertThat(scenarioInfo.get("size").get(1).toint(), is(expected.get("size").get(1).toint()));
+    assertThat(scenarioInfo.get("map_version").toint(), is(expected.get("map_version").toint()));
+    assertThat(scenarioInfo.get("Configurations").get("standard").get("teams").get(1).get("armies").length(), is(8));
+  }
+
+  @Test
+  public void testLoadScenarioInfoIgnoresBracesInCommentsAndStrings() throws Exception {
+    Path scenarioFile = writeScenario("-- ScenarioInfo = { }\n"
+        + "--[[ } ]]\n"
+        + "ScenarioInfo = {\n"
+        + "  name = 'A } map',\n"
+        + "  description = [[with { braces]],\n"
+        + "  -- }\n"
+        + "  size = { 256, 512 },\n"
+        + "}\n");
+
+    LuaValue scenarioInfo = LuaUtil.loadScenarioInfo(scenarioFile);
+
+    assertThat(scenarioInfo.get("name").tojstring(), is("A } map"));
+    assertThat(scenarioInfo.get("description").tojstring(), is("with { braces"));
+    assertThat(scenarioInfo.get("size").get(2).toint(), is(512));
+  }
+
+  @Test
+  public void testLoadScenarioInfoExecutesWholeFileIfModifiedLater() throws Exception {
+    Path scenarioFile = writeScenario("ScenarioInfo = { name = 'original' }\nScenarioInfo.name = 'modified'\n");
+
+    assertThat(LuaUtil.loadScenarioInfo(scenarioFile).get("name").tojstring(), is("modified"));
+  }
+
+  @Test
+  public void testLoadScenarioInfoExecutesWholeFileIfNotATableConstructor() throws Exception {
+    Path scenarioFile = writeScenario("local info = { name = 'indirect' }\nScenarioInfo = info\n");
+
+    assertThat(LuaUtil.loadScenarioInfo(scenarioFile).get("name").tojstring(), is("indirect"));
+  }
+
+  @Test
+  public void testLoadScenarioInfoExecutesWholeFileIfTableUsesLocalVariable() throws Exception {
+    Path scenarioFile = writeScenario("local mapSize = 512\nScenarioInfo = { size = { mapSize, mapSize } }\n");
+
+    LuaValue scenarioInfo = LuaUtil.loadScenarioInfo(scenarioFile);
+
+    assertThat(scenarioInfo.get("size").get(1).toint(), is(512));
+    assertThat(scenarioInfo.get("size").get(2).toint(), is(512));
+  }
+
+  @Test
+  public void testLoadScenarioInfoExecutesWholeFileIfTableUsesGlobalVariable() throws Exception {
+    Path scenarioFile = writeScenario("mapName = 'Variable'\nScenarioInfo = { name = mapName }\n");
+
+    assertThat(LuaUtil.loadScenarioInfo(scenarioFile).get("name").tojstring(), is("Variable"));
+  }
+
+  @Test
+  public void testLoadScenarioInfoExecutesWholeFileIfTableShadowsStandardLibrary() throws Exception {
+    Path scenarioFile = writeScenario("local string = 'shadowed'\nScenarioInfo = { name = string }\n");
+
+    assertThat(LuaUtil.loadScenarioInfo(scenarioFile).get("name").tojstring(), is("shadowed"));
+  }
+
+  @Test
+  public void testLoadScenarioInfoCanUseStandardLibrary() throws Exception {
+    Path scenarioFile = writeScenario("ScenarioInfo = { name = string.upper('map') }\n");
+
+    assertThat(LuaUtil.loadScenarioInfo(scenarioFile).get("name").tojstring(), is("MAP"));
+  }
+}